@@ -5,7 +5,10 @@ import com.skillbridge.skillbridgebackend.entity.*;
 import com.skillbridge.skillbridgebackend.repository.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -14,9 +17,14 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.TextStyle;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -48,6 +56,12 @@ public class AnalyticsService {
     @Autowired
     private VocabularyRepository vocabularyRepository;
 
+    @Autowired
+    private DailyActivityRollupService dailyActivityRollupService;
+
+    @Value("${app.analytics.report-batch-size:500}")
+    private int reportBatchSize;
+
     /**
      * Lấy analytics tổng quan của hệ thống
      */
@@ -69,23 +83,19 @@ public class AnalyticsService {
         analytics.setTotalQuestions((int) questionRepository.count());
         analytics.setTotalVocabulary((int) vocabularyRepository.count());
 
-        // Hoạt động hôm nay
-        LocalDateTime todayStart = LocalDate.now().atStartOfDay();
-        LocalDateTime todayEnd = LocalDate.now().atTime(23, 59, 59);
+        // Hoạt động 7 ngày qua (đọc từ bảng rollup theo ngày)
+        List<DailyActivityDto> weeklyActivity = getWeeklyActivity();
+        analytics.setWeeklyActivity(weeklyActivity);
 
-        // Users hoạt động hôm nay (có progress hoặc answers hôm nay)
-        List<Long> activeUserIds = progressRepository.findUserIdsWithActivityBetween(todayStart, todayEnd);
-        analytics.setActiveUsersToday(activeUserIds.size());
+        // Hoạt động hôm nay = dòng cuối của weeklyActivity
+        DailyActivityDto today = weeklyActivity.get(weeklyActivity.size() - 1);
+        analytics.setActiveUsersToday(today.getActiveUsers());
+        analytics.setCompletedLessonsToday(today.getCompletedLessons());
 
         // Đăng ký mới tuần này
-        LocalDateTime weekStart = LocalDate.now().minusDays(6).atStartOfDay();
-        analytics.setNewRegistrationsThisWeek(userRepository.countByCreatedAtBetween(weekStart, LocalDateTime.now()));
-
-        // Lessons hoàn thành hôm nay
-        analytics.setCompletedLessonsToday(progressRepository.countByCompletedAtBetween(todayStart, todayEnd));
-
-        // Hoạt động 7 ngày qua
-        analytics.setWeeklyActivity(getWeeklyActivity());
+        analytics.setNewRegistrationsThisWeek(weeklyActivity.stream()
+            .mapToInt(DailyActivityDto::getNewRegistrations)
+            .sum());
 
         return analytics;
     }
@@ -94,31 +104,22 @@ public class AnalyticsService {
      * Lấy hoạt động 7 ngày qua
      */
     public List<DailyActivityDto> getWeeklyActivity() {
+        LocalDate today = LocalDate.now();
         List<DailyActivityDto> weeklyActivity = new ArrayList<>();
 
-        for (int i = 6; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusDays(i);
-            LocalDateTime dayStart = date.atStartOfDay();
-            LocalDateTime dayEnd = date.atTime(23, 59, 59);
+        for (DailyActivityRollup rollup : dailyActivityRollupService.getRange(today.minusDays(6), today)) {
+            LocalDate date = rollup.getActivityDate();
 
             DailyActivityDto activity = new DailyActivityDto();
             activity.setDate(date);
             activity.setDayName(date.getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.forLanguageTag("vi-VN")));
+            activity.setActiveUsers(rollup.getActiveUsers());
+            activity.setCompletedLessons(rollup.getCompletedLessons());
+            activity.setNewRegistrations(rollup.getNewRegistrations());
 
-            // Active users
-            List<Long> activeUsers = progressRepository.findUserIdsWithActivityBetween(dayStart, dayEnd);
-            activity.setActiveUsers(activeUsers.size());
-
-            // Completed lessons
-            activity.setCompletedLessons(progressRepository.countByCompletedAtBetween(dayStart, dayEnd));
-
-            // New registrations
-            activity.setNewRegistrations(userRepository.countByCreatedAtBetween(dayStart, dayEnd));
-
-            // Average score
-            Double avgScore = progressRepository.findAverageScoreByCompletedAtBetween(dayStart, dayEnd);
-            activity.setAverageScore(avgScore != null ? 
-                BigDecimal.valueOf(avgScore).setScale(2, RoundingMode.HALF_UP).doubleValue() : 0.0);
+            // Average score = scoreSum / scoreCount
+            activity.setAverageScore(rollup.getScoreCount() > 0 ?
+                rollup.getScoreSum().divide(BigDecimal.valueOf(rollup.getScoreCount()), 2, RoundingMode.HALF_UP).doubleValue() : 0.0);
 
             weeklyActivity.add(activity);
         }
@@ -128,22 +129,36 @@ public class AnalyticsService {
 
     /**
      * Lấy analytics cho tất cả lessons
+     * Dữ liệu được gom bằng một số query GROUP BY cố định, không phụ thuộc số lượng lesson/question
      */
     public List<LessonAnalyticsDto> getAllLessonsAnalytics() {
         log.info("Getting analytics for all lessons");
 
+        Map<LessonKey, Object[]> progressStats = indexProgressStats(progressRepository.aggregateStatsByLesson());
+        Map<LessonKey, List<Object[]>> questionsByLesson =
+            groupQuestionRowsByLesson(questionRepository.findAnalyticsRowsForPublishedLessons());
+        Map<Long, Object[]> answerStats = indexByQuestionId(userAnswerRepository.aggregateAnswerStatsByQuestion());
+        Map<Long, String> mostWrongAnswers =
+            findMostSelectedWrongAnswers(userAnswerRepository.countWrongAnswersByQuestionAndSelection());
+
         List<LessonAnalyticsDto> result = new ArrayList<>();
 
         // Analytics cho Listening Lessons
-        List<ListeningLesson> listeningLessons = listeningLessonRepository.findByStatus(ListeningLesson.Status.PUBLISHED);
+        List<ListeningLesson> listeningLessons = listeningLessonRepository.findByStatusWithCategory(ListeningLesson.Status.PUBLISHED);
         for (ListeningLesson lesson : listeningLessons) {
-            result.add(getListeningLessonAnalytics(lesson));
+            LessonKey key = new LessonKey(lesson.getId(), Question.LessonType.LISTENING);
+            result.add(buildLessonAnalytics(lesson.getId(), lesson.getTitle(), key.lessonType(), lesson.getLevel(),
+                lesson.getCategory(), progressStats.get(key), questionsByLesson.getOrDefault(key, List.of()),
+                answerStats, mostWrongAnswers));
         }
 
         // Analytics cho Reading Lessons
-        List<ReadingLesson> readingLessons = readingLessonRepository.findByStatus(ListeningLesson.Status.PUBLISHED);
+        List<ReadingLesson> readingLessons = readingLessonRepository.findByStatusWithCategory(ListeningLesson.Status.PUBLISHED);
         for (ReadingLesson lesson : readingLessons) {
-            result.add(getReadingLessonAnalytics(lesson));
+            LessonKey key = new LessonKey(lesson.getId(), Question.LessonType.READING);
+            result.add(buildLessonAnalytics(lesson.getId(), lesson.getTitle(), key.lessonType(), lesson.getLevel(),
+                lesson.getCategory(), progressStats.get(key), questionsByLesson.getOrDefault(key, List.of()),
+                answerStats, mostWrongAnswers));
         }
 
         // Sort by completion rate descending
@@ -153,127 +168,164 @@ public class AnalyticsService {
     }
 
     /**
-     * Lấy analytics cho một listening lesson
+     * Lấy analytics cho một lesson
      */
     public LessonAnalyticsDto getLessonAnalytics(Long lessonId, String lessonType) {
+        Question.LessonType type;
+        String title;
+        ListeningLesson.Level level;
+        Category category;
+
         if ("LISTENING".equals(lessonType)) {
             ListeningLesson lesson = listeningLessonRepository.findById(lessonId)
                 .orElseThrow(() -> new RuntimeException("Listening lesson not found"));
-            return getListeningLessonAnalytics(lesson);
+            type = Question.LessonType.LISTENING;
+            title = lesson.getTitle();
+            level = lesson.getLevel();
+            category = lesson.getCategory();
         } else if ("READING".equals(lessonType)) {
             ReadingLesson lesson = readingLessonRepository.findById(lessonId)
                 .orElseThrow(() -> new RuntimeException("Reading lesson not found"));
-            return getReadingLessonAnalytics(lesson);
+            type = Question.LessonType.READING;
+            title = lesson.getTitle();
+            level = lesson.getLevel();
+            category = lesson.getCategory();
         } else {
             throw new IllegalArgumentException("Invalid lesson type: " + lessonType);
         }
-    }
 
-    private LessonAnalyticsDto getListeningLessonAnalytics(ListeningLesson lesson) {
-        LessonAnalyticsDto analytics = new LessonAnalyticsDto();
-        analytics.setLessonId(lesson.getId());
-        analytics.setLessonTitle(lesson.getTitle());
-        analytics.setLessonType("LISTENING");
-        analytics.setLevel(lesson.getLevel().name());
-        analytics.setCategoryName(lesson.getCategory() != null ? lesson.getCategory().getName() : "N/A");
+        List<Object[]> progressRows = progressRepository.aggregateStatsForLesson(lessonId, type);
+        List<Object[]> questionRows = questionRepository.findAnalyticsRowsForLesson(lessonId, type);
 
-        // Progress data
-        List<UserLessonProgress> progressList = progressRepository
-            .findByLessonIdAndLessonType(lesson.getId(), Question.LessonType.LISTENING);
+        Map<Long, Object[]> answerStats = new HashMap<>();
+        Map<Long, String> mostWrongAnswers = new HashMap<>();
+        if (!questionRows.isEmpty()) {
+            List<Long> questionIds = questionRows.stream().map(row -> (Long) row[0]).collect(Collectors.toList());
+            answerStats = indexByQuestionId(userAnswerRepository.aggregateAnswerStatsByQuestionIds(questionIds));
+            mostWrongAnswers = findMostSelectedWrongAnswers(userAnswerRepository.countWrongAnswersByQuestionIds(questionIds));
+        }
 
-        analytics.setTotalViews(progressList.size());
-        analytics.setCompletedCount((int) progressList.stream().filter(UserLessonProgress::getIsCompleted).count());
-        analytics.setCompletionRate(progressList.size() > 0 ? 
-            (double) analytics.getCompletedCount() / progressList.size() * 100 : 0.0);
+        return buildLessonAnalytics(lessonId, title, type, level, category,
+            progressRows.isEmpty() ? null : progressRows.get(0), questionRows, answerStats, mostWrongAnswers);
+    }
+
+    private LessonAnalyticsDto buildLessonAnalytics(Long lessonId, String title, Question.LessonType lessonType,
+                                                    ListeningLesson.Level level, Category category,
+                                                    Object[] progressStats, List<Object[]> questionRows,
+                                                    Map<Long, Object[]> answerStats,
+                                                    Map<Long, String> mostWrongAnswers) {
+        LessonAnalyticsDto analytics = new LessonAnalyticsDto();
+        analytics.setLessonId(lessonId);
+        analytics.setLessonTitle(title);
+        analytics.setLessonType(lessonType.name());
+        analytics.setLevel(level.name());
+        analytics.setCategoryName(category != null ? category.getName() : "N/A");
+
+        // Progress data: [lessonId, lessonType, totalViews, completedCount, avgScore, avgTimeSpent]
+        int totalViews = progressStats != null ? toInt(progressStats[2]) : 0;
+        analytics.setTotalViews(totalViews);
+        analytics.setCompletedCount(progressStats != null ? toInt(progressStats[3]) : 0);
+        analytics.setCompletionRate(totalViews > 0 ?
+            (double) analytics.getCompletedCount() / totalViews * 100 : 0.0);
 
         // Average score và time
-        Double avgScore = progressList.stream()
-            .filter(p -> p.getScore() != null)
-            .mapToDouble(p -> p.getScore().doubleValue())
-            .average().orElse(0.0);
+        double avgScore = progressStats != null ? toDouble(progressStats[4]) : 0.0;
         analytics.setAverageScore(BigDecimal.valueOf(avgScore).setScale(2, RoundingMode.HALF_UP).doubleValue());
 
-        Double avgTime = progressList.stream()
-            .filter(p -> p.getTimeSpentSeconds() != null)
-            .mapToInt(UserLessonProgress::getTimeSpentSeconds)
-            .average().orElse(0.0);
+        double avgTime = progressStats != null ? toDouble(progressStats[5]) : 0.0;
         analytics.setAverageTimeSpent((int) Math.round(avgTime));
 
         // Questions analytics
-        List<Question> questions = questionRepository.findByListeningLessonId(lesson.getId());
-        analytics.setTotalQuestions(questions.size());
-        analytics.setQuestionStats(getQuestionAnalytics(questions));
+        analytics.setTotalQuestions(questionRows.size());
+        analytics.setQuestionStats(questionRows.stream()
+            .map(row -> buildQuestionAnalytics(row, answerStats.get((Long) row[0]), mostWrongAnswers))
+            .collect(Collectors.toList()));
 
         return analytics;
     }
 
-    private LessonAnalyticsDto getReadingLessonAnalytics(ReadingLesson lesson) {
-        LessonAnalyticsDto analytics = new LessonAnalyticsDto();
-        analytics.setLessonId(lesson.getId());
-        analytics.setLessonTitle(lesson.getTitle());
-        analytics.setLessonType("READING");
-        analytics.setLevel(lesson.getLevel().name());
-        analytics.setCategoryName(lesson.getCategory() != null ? lesson.getCategory().getName() : "N/A");
+    private QuestionAnalyticsDto buildQuestionAnalytics(Object[] questionRow, Object[] answerStats,
+                                                        Map<Long, String> mostWrongAnswers) {
+        // questionRow: [questionId, lessonType, listeningLessonId, readingLessonId, questionText, questionType, correctAnswer]
+        Long questionId = (Long) questionRow[0];
 
-        // Progress data
-        List<UserLessonProgress> progressList = progressRepository
-            .findByLessonIdAndLessonType(lesson.getId(), Question.LessonType.READING);
+        QuestionAnalyticsDto analytics = new QuestionAnalyticsDto();
+        analytics.setQuestionId(questionId);
+        analytics.setQuestionText((String) questionRow[4]);
+        analytics.setQuestionType(((Question.QuestionType) questionRow[5]).name());
+        analytics.setCorrectAnswer((String) questionRow[6]);
 
-        analytics.setTotalViews(progressList.size());
-        analytics.setCompletedCount((int) progressList.stream().filter(UserLessonProgress::getIsCompleted).count());
-        analytics.setCompletionRate(progressList.size() > 0 ? 
-            (double) analytics.getCompletedCount() / progressList.size() * 100 : 0.0);
+        // answerStats: [questionId, totalAnswers, correctAnswers]
+        int totalAnswers = answerStats != null ? toInt(answerStats[1]) : 0;
+        analytics.setTotalAnswers(totalAnswers);
+        analytics.setCorrectAnswers(answerStats != null ? toInt(answerStats[2]) : 0);
+        analytics.setAccuracyRate(totalAnswers > 0 ?
+            (double) analytics.getCorrectAnswers() / totalAnswers * 100 : 0.0);
 
-        // Average score và time
-        Double avgScore = progressList.stream()
-            .filter(p -> p.getScore() != null)
-            .mapToDouble(p -> p.getScore().doubleValue())
-            .average().orElse(0.0);
-        analytics.setAverageScore(BigDecimal.valueOf(avgScore).setScale(2, RoundingMode.HALF_UP).doubleValue());
+        analytics.setMostSelectedWrongAnswer(mostWrongAnswers.getOrDefault(questionId, "N/A"));
 
-        Double avgTime = progressList.stream()
-            .filter(p -> p.getTimeSpentSeconds() != null)
-            .mapToInt(UserLessonProgress::getTimeSpentSeconds)
-            .average().orElse(0.0);
-        analytics.setAverageTimeSpent((int) Math.round(avgTime));
+        return analytics;
+    }
 
-        // Questions analytics
-        List<Question> questions = questionRepository.findByReadingLessonId(lesson.getId());
-        analytics.setTotalQuestions(questions.size());
-        analytics.setQuestionStats(getQuestionAnalytics(questions));
+    private Map<LessonKey, Object[]> indexProgressStats(List<Object[]> rows) {
+        Map<LessonKey, Object[]> index = new HashMap<>();
+        for (Object[] row : rows) {
+            index.put(new LessonKey((Long) row[0], (Question.LessonType) row[1]), row);
+        }
+        return index;
+    }
 
-        return analytics;
+    private Map<LessonKey, List<Object[]>> groupQuestionRowsByLesson(List<Object[]> rows) {
+        Map<LessonKey, List<Object[]>> grouped = new HashMap<>();
+        for (Object[] row : rows) {
+            Question.LessonType type = (Question.LessonType) row[1];
+            Long lessonId = Question.LessonType.LISTENING.equals(type) ? (Long) row[2] : (Long) row[3];
+            if (lessonId == null) {
+                continue;
+            }
+            grouped.computeIfAbsent(new LessonKey(lessonId, type), k -> new ArrayList<>()).add(row);
+        }
+        return grouped;
     }
 
-    private List<QuestionAnalyticsDto> getQuestionAnalytics(List<Question> questions) {
-        return questions.stream().map(this::getQuestionAnalytics).collect(Collectors.toList());
+    private Map<Long, Object[]> indexByQuestionId(List<Object[]> rows) {
+        Map<Long, Object[]> index = new HashMap<>();
+        for (Object[] row : rows) {
+            index.put((Long) row[0], row);
+        }
+        return index;
     }
 
-    private QuestionAnalyticsDto getQuestionAnalytics(Question question) {
-        QuestionAnalyticsDto analytics = new QuestionAnalyticsDto();
-        analytics.setQuestionId(question.getId());
-        analytics.setQuestionText(question.getQuestionText());
-        analytics.setQuestionType(question.getQuestionType().name());
-        analytics.setCorrectAnswer(question.getCorrectAnswer());
-
-        List<UserAnswer> answers = userAnswerRepository.findByQuestionId(question.getId());
-        analytics.setTotalAnswers(answers.size());
-        analytics.setCorrectAnswers((int) answers.stream().filter(UserAnswer::getIsCorrect).count());
-        analytics.setAccuracyRate(answers.size() > 0 ? 
-            (double) analytics.getCorrectAnswers() / answers.size() * 100 : 0.0);
-
-        // Most selected wrong answer
-        Map<String, Long> wrongAnswers = answers.stream()
-            .filter(a -> !a.getIsCorrect())
-            .collect(Collectors.groupingBy(UserAnswer::getSelectedAnswer, Collectors.counting()));
-        
-        String mostWrong = wrongAnswers.entrySet().stream()
-            .max(Map.Entry.comparingByValue())
-            .map(Map.Entry::getKey)
-            .orElse("N/A");
-        analytics.setMostSelectedWrongAnswer(mostWrong);
+    /**
+     * Chọn đáp án sai được chọn nhiều nhất cho mỗi question từ các dòng [questionId, selectedAnswer, count]
+     */
+    private Map<Long, String> findMostSelectedWrongAnswers(List<Object[]> rows) {
+        Map<Long, String> mostWrong = new HashMap<>();
+        Map<Long, Long> bestCounts = new HashMap<>();
+        for (Object[] row : rows) {
+            Long questionId = (Long) row[0];
+            long count = ((Number) row[2]).longValue();
+            Long best = bestCounts.get(questionId);
+            if (best == null || count > best) {
+                bestCounts.put(questionId, count);
+                mostWrong.put(questionId, (String) row[1]);
+            }
+        }
+        return mostWrong;
+    }
 
-        return analytics;
+    private static int toInt(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+
+    private static double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    /**
+     * Khóa định danh lesson (lessonId + lessonType) dùng để gom kết quả aggregate
+     */
+    private record LessonKey(Long lessonId, Question.LessonType lessonType) {
     }
 
     /**
@@ -289,6 +341,111 @@ public class AnalyticsService {
             throw new RuntimeException("User is not a student");
         }
 
+        return buildStudentReports(List.of(student), new ReportLessonLookup()).get(0);
+    }
+
+    /**
+     * Lấy báo cáo cho một danh sách học viên (bỏ qua id không tồn tại hoặc không phải học viên)
+     */
+    public List<StudentProgressReportDto> getStudentReports(List<Long> studentIds) {
+        List<User> students = userRepository.findAllById(studentIds).stream()
+            .filter(u -> User.Role.STUDENT.equals(u.getRole()))
+            .sorted(Comparator.comparing(User::getId))
+            .collect(Collectors.toList());
+        if (students.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return buildStudentReports(students, new ReportLessonLookup());
+    }
+
+    /**
+     * Lấy báo cáo tất cả học viên
+     */
+    public List<StudentProgressReportDto> getAllStudentsReports() {
+        log.info("Getting progress reports for all students");
+
+        List<StudentProgressReportDto> reports = new ArrayList<>();
+        forEachStudentReport(reports::add);
+        return reports;
+    }
+
+    /**
+     * Duyệt báo cáo của tất cả học viên active theo từng batch (keyset trên id)
+     * và đẩy từng báo cáo ra consumer ngay khi batch được tính xong.
+     * Chạy ngoài transaction để persistence context không phình theo số học viên.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void streamAllStudentsReports(Consumer<StudentProgressReportDto> consumer) {
+        log.info("Streaming progress reports for all students (batch size: {})", reportBatchSize);
+        forEachStudentReport(consumer);
+    }
+
+    private void forEachStudentReport(Consumer<StudentProgressReportDto> consumer) {
+        ReportLessonLookup lessonLookup = new ReportLessonLookup();
+        Long lastStudentId = 0L;
+
+        while (true) {
+            List<User> students = userRepository.findByRoleAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(
+                User.Role.STUDENT, lastStudentId, PageRequest.of(0, reportBatchSize));
+            if (students.isEmpty()) {
+                break;
+            }
+
+            buildStudentReports(students, lessonLookup).forEach(consumer);
+
+            lastStudentId = students.get(students.size() - 1).getId();
+            if (students.size() < reportBatchSize) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Tính báo cáo cho một batch học viên với số query cố định:
+     * progress, từ vựng đã học, số câu đúng theo lesson, và thông tin lesson/số câu hỏi còn thiếu trong lookup
+     */
+    private List<StudentProgressReportDto> buildStudentReports(List<User> students, ReportLessonLookup lessonLookup) {
+        List<Long> studentIds = students.stream().map(User::getId).collect(Collectors.toList());
+
+        Map<Long, List<UserLessonProgress>> progressByStudent = progressRepository.findByUserIdIn(studentIds).stream()
+            .collect(Collectors.groupingBy(p -> p.getUser().getId()));
+
+        Map<Long, Integer> vocabLearnedByStudent = new HashMap<>();
+        for (Object[] row : userVocabularyRepository.countLearnedVocabByUserIds(studentIds)) {
+            vocabLearnedByStudent.put((Long) row[0], toInt(row[1]));
+        }
+
+        // [userId, listeningLessonId, readingLessonId, correctCount]
+        Map<Long, Map<LessonKey, Integer>> correctByStudent = new HashMap<>();
+        for (Object[] row : userAnswerRepository.countCorrectAnswersByUserIdsAndLesson(studentIds)) {
+            Map<LessonKey, Integer> correctByLesson = correctByStudent.computeIfAbsent((Long) row[0], k -> new HashMap<>());
+            if (row[1] != null) {
+                correctByLesson.merge(new LessonKey((Long) row[1], Question.LessonType.LISTENING), toInt(row[3]), Integer::sum);
+            }
+            if (row[2] != null) {
+                correctByLesson.merge(new LessonKey((Long) row[2], Question.LessonType.READING), toInt(row[3]), Integer::sum);
+            }
+        }
+
+        lessonLookup.load(progressByStudent.values().stream()
+            .flatMap(List::stream)
+            .map(p -> new LessonKey(p.getLessonId(), p.getLessonType()))
+            .collect(Collectors.toSet()));
+
+        List<StudentProgressReportDto> reports = new ArrayList<>(students.size());
+        for (User student : students) {
+            reports.add(buildStudentReport(student,
+                progressByStudent.getOrDefault(student.getId(), List.of()),
+                vocabLearnedByStudent.getOrDefault(student.getId(), 0),
+                correctByStudent.getOrDefault(student.getId(), Map.of()),
+                lessonLookup));
+        }
+        return reports;
+    }
+
+    private StudentProgressReportDto buildStudentReport(User student, List<UserLessonProgress> allProgress,
+                                                        int vocabLearned, Map<LessonKey, Integer> correctByLesson,
+                                                        ReportLessonLookup lessonLookup) {
         StudentProgressReportDto report = new StudentProgressReportDto();
         report.setStudentId(student.getId());
         report.setStudentName(student.getFullName());
@@ -299,7 +456,6 @@ public class AnalyticsService {
         report.setRegistrationDate(student.getCreatedAt());
 
         // Progress data
-        List<UserLessonProgress> allProgress = progressRepository.findByUserId(studentId);
         report.setTotalLessonsCompleted((int) allProgress.stream().filter(UserLessonProgress::getIsCompleted).count());
 
         long listeningCompleted = allProgress.stream()
@@ -327,7 +483,6 @@ public class AnalyticsService {
         report.setTotalTimeStudiedSeconds(totalTime);
 
         // Vocabulary learned
-        int vocabLearned = userVocabularyRepository.countByUserIdAndIsLearnedTrue(studentId);
         report.setVocabularyLearned(vocabLearned);
 
         // Last activity
@@ -340,14 +495,16 @@ public class AnalyticsService {
         // Lesson details
         List<LessonProgressDetailDto> lessonDetails = new ArrayList<>();
         for (UserLessonProgress progress : allProgress) {
-            lessonDetails.add(getLessonProgressDetail(progress));
+            lessonDetails.add(buildLessonProgressDetail(progress, correctByLesson, lessonLookup));
         }
         report.setLessonDetails(lessonDetails);
 
         return report;
     }
 
-    private LessonProgressDetailDto getLessonProgressDetail(UserLessonProgress progress) {
+    private LessonProgressDetailDto buildLessonProgressDetail(UserLessonProgress progress,
+                                                              Map<LessonKey, Integer> correctByLesson,
+                                                              ReportLessonLookup lessonLookup) {
         LessonProgressDetailDto detail = new LessonProgressDetailDto();
         detail.setLessonId(progress.getLessonId());
         detail.setLessonType(progress.getLessonType().name());
@@ -356,51 +513,62 @@ public class AnalyticsService {
         detail.setTimeSpentSeconds(progress.getTimeSpentSeconds());
         detail.setCompletedAt(progress.getCompletedAt());
 
-        // Get lesson title and other info
-        if (Question.LessonType.LISTENING.equals(progress.getLessonType())) {
-            ListeningLesson lesson = listeningLessonRepository.findById(progress.getLessonId()).orElse(null);
-            if (lesson != null) {
-                detail.setLessonTitle(lesson.getTitle());
-                detail.setLevel(lesson.getLevel().name());
-                detail.setCategoryName(lesson.getCategory() != null ? lesson.getCategory().getName() : "N/A");
-                
-                // Questions stats
-                List<Question> questions = questionRepository.findByListeningLessonId(lesson.getId());
-                detail.setTotalQuestions(questions.size());
-                
-                List<UserAnswer> userAnswers = userAnswerRepository.findByUserIdAndQuestionIn(
-                    progress.getUser().getId(), questions);
-                detail.setCorrectAnswers((int) userAnswers.stream().filter(UserAnswer::getIsCorrect).count());
-            }
-        } else {
-            ReadingLesson lesson = readingLessonRepository.findById(progress.getLessonId()).orElse(null);
-            if (lesson != null) {
-                detail.setLessonTitle(lesson.getTitle());
-                detail.setLevel(lesson.getLevel().name());
-                detail.setCategoryName(lesson.getCategory() != null ? lesson.getCategory().getName() : "N/A");
-                
-                // Questions stats
-                List<Question> questions = questionRepository.findByReadingLessonId(lesson.getId());
-                detail.setTotalQuestions(questions.size());
-                
-                List<UserAnswer> userAnswers = userAnswerRepository.findByUserIdAndQuestionIn(
-                    progress.getUser().getId(), questions);
-                detail.setCorrectAnswers((int) userAnswers.stream().filter(UserAnswer::getIsCorrect).count());
-            }
+        // Lesson info: [id, title, level, categoryName]
+        LessonKey key = new LessonKey(progress.getLessonId(), progress.getLessonType());
+        Object[] lesson = lessonLookup.lessons.get(key);
+        if (lesson != null) {
+            detail.setLessonTitle((String) lesson[1]);
+            detail.setLevel(((ListeningLesson.Level) lesson[2]).name());
+            detail.setCategoryName(lesson[3] != null ? (String) lesson[3] : "N/A");
+
+            // Questions stats
+            detail.setTotalQuestions(lessonLookup.questionCounts.getOrDefault(key, 0));
+            detail.setCorrectAnswers(correctByLesson.getOrDefault(key, 0));
         }
 
         return detail;
     }
 
     /**
-     * Lấy báo cáo tất cả học viên
+     * Cache thông tin lesson và số câu hỏi dùng chung giữa các batch báo cáo.
+     * Chỉ query các lesson chưa có trong cache, nên kích thước bị chặn bởi số lesson chứ không phải số học viên.
      */
-    public List<StudentProgressReportDto> getAllStudentsReports() {
-        log.info("Getting progress reports for all students");
+    private class ReportLessonLookup {
+
+        private final Map<LessonKey, Object[]> lessons = new HashMap<>();
+        private final Map<LessonKey, Integer> questionCounts = new HashMap<>();
+        private final Set<LessonKey> loaded = new HashSet<>();
+
+        void load(Set<LessonKey> keys) {
+            List<Long> listeningIds = new ArrayList<>();
+            List<Long> readingIds = new ArrayList<>();
+            for (LessonKey key : keys) {
+                if (loaded.add(key)) {
+                    if (Question.LessonType.LISTENING.equals(key.lessonType())) {
+                        listeningIds.add(key.lessonId());
+                    } else {
+                        readingIds.add(key.lessonId());
+                    }
+                }
+            }
 
-        List<User> students = userRepository.findByRoleAndIsActiveTrue(User.Role.STUDENT);
-        return students.stream()
-            .map(student -> getStudentReport(student.getId()))
-            .collect(Collectors.toList());
+            if (!listeningIds.isEmpty()) {
+                for (Object[] row : listeningLessonRepository.findReportRowsByIdIn(listeningIds)) {
+                    lessons.put(new LessonKey((Long) row[0], Question.LessonType.LISTENING), row);
+                }
+                for (Object[] row : questionRepository.countByListeningLessonIds(listeningIds)) {
+                    questionCounts.put(new LessonKey((Long) row[0], Question.LessonType.LISTENING), toInt(row[1]));
+                }
+            }
+
+            if (!readingIds.isEmpty()) {
+                for (Object[] row : readingLessonRepository.findReportRowsByIdIn(readingIds)) {
+                    lessons.put(new LessonKey((Long) row[0], Question.LessonType.READING), row);
+                }
+                for (Object[] row : questionRepository.countByReadingLessonIds(readingIds)) {
+                    questionCounts.put(new LessonKey((Long) row[0], Question.LessonType.READING), toInt(row[1]));
+                }
+            }
+        }
     }
 }
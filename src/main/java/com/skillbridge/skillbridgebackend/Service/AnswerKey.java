@@ -0,0 +1,76 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Đáp án của một bài học ở dạng gọn, bất biến: mảng question id và mảng đáp án đúng/điểm tương ứng.
+ * Dùng để chấm bài hoàn toàn trong bộ nhớ.
+ */
+public final class AnswerKey {
+
+    private final long[] questionIds;
+    private final String[] correctAnswers;
+    private final int[] points;
+
+    public record GradedAnswer(long questionId, String selectedAnswer, boolean correct) {
+    }
+
+    public record GradedSubmission(List<GradedAnswer> answers, int correctAnswers, int totalQuestions) {
+    }
+
+    private AnswerKey(long[] questionIds, String[] correctAnswers, int[] points) {
+        this.questionIds = questionIds;
+        this.correctAnswers = correctAnswers;
+        this.points = points;
+    }
+
+    /**
+     * @param rows mỗi dòng: [questionId, correctAnswer, points], sắp theo questionId
+     */
+    public static AnswerKey fromRows(List<Object[]> rows) {
+        long[] ids = new long[rows.size()];
+        String[] answers = new String[rows.size()];
+        int[] points = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            ids[i] = ((Number) row[0]).longValue();
+            answers[i] = (String) row[1];
+            points[i] = row[2] != null ? ((Number) row[2]).intValue() : 1;
+        }
+        return new AnswerKey(ids, answers, points);
+    }
+
+    public int size() {
+        return questionIds.length;
+    }
+
+    public int totalPoints() {
+        int total = 0;
+        for (int p : points) {
+            total += p;
+        }
+        return total;
+    }
+
+    /**
+     * Chấm bài nộp; chỉ các câu có trả lời mới được ghi lại
+     * @param answers map questionId (dạng chuỗi) -> đáp án đã chọn
+     */
+    public GradedSubmission grade(Map<String, String> answers) {
+        List<GradedAnswer> graded = new ArrayList<>(questionIds.length);
+        int correct = 0;
+        for (int i = 0; i < questionIds.length; i++) {
+            String selected = answers.get(Long.toString(questionIds[i]));
+            if (selected != null) {
+                boolean isCorrect = selected.equals(correctAnswers[i]);
+                graded.add(new GradedAnswer(questionIds[i], selected, isCorrect));
+                if (isCorrect) {
+                    correct++;
+                }
+            }
+        }
+        return new GradedSubmission(graded, correct, questionIds.length);
+    }
+}
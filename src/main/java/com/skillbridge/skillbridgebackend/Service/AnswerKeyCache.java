@@ -0,0 +1,123 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.entity.Question;
+import com.skillbridge.skillbridgebackend.repository.QuestionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache đáp án (AnswerKey) theo (lessonId, lessonType) cho luồng chấm bài.
+ * Entry bị xóa sau khi transaction sửa câu hỏi của bài học commit; LRU khi vượt quá số entry tối đa.
+ * Metric: cache.gets{cache=answerKeys, result=hit|miss}, cache.evictions, cache.size.
+ */
+@Service
+@Slf4j
+public class AnswerKeyCache {
+
+    private static final String CACHE_NAME = "answerKeys";
+
+    private record LessonKey(Long lessonId, Question.LessonType lessonType) {
+    }
+
+    private final QuestionRepository questionRepository;
+    private final Map<LessonKey, AnswerKey> entries;
+    // Tăng mỗi lần invalidate, để không cache kết quả load chạy song song với một lần invalidate
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public AnswerKeyCache(QuestionRepository questionRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.cache.answer-keys.max-entries:5000}") int maxEntries) {
+        this.questionRepository = questionRepository;
+        this.hits = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "hit")
+                .description("Answer key cache hits").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "miss")
+                .description("Answer key cache misses").register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", CACHE_NAME)
+                .description("Answer key cache evictions (size limit and invalidation)").register(meterRegistry);
+
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LessonKey, AnswerKey> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("cache.size", this, AnswerKeyCache::size).tag("cache", CACHE_NAME)
+                .description("Answer key cache entries").register(meterRegistry);
+    }
+
+    /**
+     * Lấy đáp án của bài học, chỉ đọc database khi chưa có trong cache
+     */
+    public AnswerKey get(Long lessonId, Question.LessonType lessonType) {
+        LessonKey key = new LessonKey(lessonId, lessonType);
+        synchronized (entries) {
+            AnswerKey cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        misses.increment();
+        long invalidationsBeforeLoad = invalidations.get();
+        AnswerKey loaded = AnswerKey.fromRows(questionRepository.findAnswerKeyRows(lessonId, lessonType));
+
+        synchronized (entries) {
+            if (invalidations.get() == invalidationsBeforeLoad) {
+                entries.put(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Xóa đáp án của bài học sau khi transaction hiện tại commit (ngay lập tức nếu không có transaction)
+     */
+    public void invalidate(Long lessonId, Question.LessonType lessonType) {
+        LessonKey key = new LessonKey(lessonId, lessonType);
+        Runnable action = () -> {
+            synchronized (entries) {
+                invalidations.incrementAndGet();
+                if (entries.remove(key) != null) {
+                    evictions.increment();
+                }
+            }
+            log.debug("Invalidated answer key for {} lesson {}", lessonType, lessonId);
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
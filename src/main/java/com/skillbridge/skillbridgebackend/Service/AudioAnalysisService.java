@@ -0,0 +1,429 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.dto.AudioAnalysisDto;
+import com.skillbridge.skillbridgebackend.entity.AudioAnalysis;
+import com.skillbridge.skillbridgebackend.entity.ListeningLesson;
+import com.skillbridge.skillbridgebackend.entity.Question;
+import com.skillbridge.skillbridgebackend.repository.AudioAnalysisRepository;
+import com.skillbridge.skillbridgebackend.repository.ListeningLessonRepository;
+import jakarta.annotation.PreDestroy;
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Phân tích file audio chạy nền sau khi upload: đọc header để lấy thời lượng/bitrate chính xác
+ * và tính peaks waveform. Chạy trên worker pool giới hạn; job không vào được hàng đợi sẽ ở trạng thái
+ * PENDING và được đưa lại hàng đợi định kỳ.
+ * Chỉ tải file từ kho media của hệ thống: host trong app.audio.analysis.allowed-hosts (Cloudinary) và phân giải
+ * ra địa chỉ công khai, không theo redirect; hoặc file local trong thư mục uploads.
+ */
+@Service
+@Slf4j
+public class AudioAnalysisService {
+
+    private static final String LOCAL_URL_PREFIX = "/api/";
+    private static final String LOCAL_UPLOAD_DIR = "uploads/";
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    // Giới hạn độ dài một dòng status / header của response
+    private static final int MAX_HEADER_LINE = 8192;
+
+    private final AudioAnalysisRepository analysisRepository;
+    private final ListeningLessonRepository lessonRepository;
+    private final CatalogCache catalogCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int targetPeaks;
+    private final Duration fetchTimeout;
+    private final ThreadPoolExecutor analysisExecutor;
+    private final Set<String> allowedHosts;
+    // Tránh cùng một phân tích được xử lý song song khi vừa submit vừa được requeue
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public AudioAnalysisService(AudioAnalysisRepository analysisRepository,
+                                ListeningLessonRepository lessonRepository,
+                                CatalogCache catalogCache,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.audio.analysis.target-peaks:800}") int targetPeaks,
+                                @Value("${app.audio.analysis.workers:2}") int workers,
+                                @Value("${app.audio.analysis.queue-capacity:50}") int queueCapacity,
+                                @Value("${app.audio.analysis.fetch-timeout-seconds:120}") long fetchTimeoutSeconds,
+                                @Value("${app.audio.analysis.allowed-hosts:res.cloudinary.com}") String[] allowedHosts) {
+        this.analysisRepository = analysisRepository;
+        this.lessonRepository = lessonRepository;
+        this.catalogCache = catalogCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.targetPeaks = targetPeaks;
+        this.fetchTimeout = Duration.ofSeconds(fetchTimeoutSeconds);
+        this.analysisExecutor = new ThreadPoolExecutor(workers, workers,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "audio-analysis");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.allowedHosts = Arrays.stream(allowedHosts)
+                .map(host -> host.trim().toLowerCase(Locale.ROOT))
+                .filter(host -> !host.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        analysisExecutor.shutdownNow();
+    }
+
+    /**
+     * Tạo (nếu chưa có) và đưa phân tích của file audio vào hàng đợi.
+     * Gọi lại với cùng URL không phân tích lại file đã xong.
+     */
+    public AudioAnalysis submit(String audioUrl) {
+        if (audioUrl == null || audioUrl.isBlank()) {
+            return null;
+        }
+        AudioAnalysis analysis = analysisRepository.findByAudioUrl(audioUrl).orElse(null);
+        if (analysis == null) {
+            try {
+                analysis = analysisRepository.save(new AudioAnalysis(audioUrl));
+            } catch (DataIntegrityViolationException e) {
+                // Request khác vừa tạo cùng URL
+                return analysisRepository.findByAudioUrl(audioUrl).orElseThrow(() -> e);
+            }
+        }
+        if (analysis.getStatus() == AudioAnalysis.Status.PENDING) {
+            Long id = analysis.getId();
+            afterCommit(() -> enqueue(id));
+        }
+        return analysis;
+    }
+
+    /**
+     * Phân tích lại (ví dụ sau lỗi tải file)
+     */
+    public AudioAnalysis reanalyze(String audioUrl) {
+        AudioAnalysis analysis = analysisRepository.findByAudioUrl(audioUrl)
+                .orElseGet(() -> new AudioAnalysis(audioUrl));
+        analysis.setStatus(AudioAnalysis.Status.PENDING);
+        analysis.setErrorMessage(null);
+        AudioAnalysis saved = analysisRepository.save(analysis);
+        afterCommit(() -> enqueue(saved.getId()));
+        return saved;
+    }
+
+    /**
+     * Chỉ đọc phân tích đã có của bài học (không tạo mới, không đưa vào hàng đợi).
+     * Nội dung lỗi khi tải / phân tích chỉ trả về khi includeError (giáo viên, admin).
+     */
+    public Optional<AudioAnalysisDto> findForLesson(ListeningLesson lesson, boolean includeError) {
+        if (lesson.getAudioUrl() == null || lesson.getAudioUrl().isBlank()) {
+            return Optional.empty();
+        }
+        return analysisRepository.findByAudioUrl(lesson.getAudioUrl())
+                .map(analysis -> toDto(lesson.getId(), analysis, includeError));
+    }
+
+    /**
+     * Thời lượng đã phân tích của file (nếu đã xong), dùng khi tạo bài học
+     */
+    public Integer findAnalyzedDuration(String audioUrl) {
+        if (audioUrl == null) {
+            return null;
+        }
+        return analysisRepository.findByAudioUrl(audioUrl)
+                .filter(a -> a.getStatus() == AudioAnalysis.Status.COMPLETED && a.getDurationSeconds() != null)
+                .map(a -> (int) Math.round(a.getDurationSeconds()))
+                .orElse(null);
+    }
+
+    /**
+     * Đưa lại vào hàng đợi các phân tích PENDING bị bỏ lỡ và PROCESSING bị kẹt (server restart)
+     */
+    @Scheduled(fixedDelayString = "${app.audio.analysis.requeue-interval-ms:60000}")
+    public void requeueStalled() {
+        LocalDateTime pendingBefore = LocalDateTime.now().minusMinutes(1);
+        LocalDateTime processingBefore = LocalDateTime.now().minus(fetchTimeout.multipliedBy(2));
+        for (AudioAnalysis analysis : analysisRepository.findByStatusInAndUpdatedAtBefore(
+                List.of(AudioAnalysis.Status.PENDING, AudioAnalysis.Status.PROCESSING), pendingBefore)) {
+            if (analysis.getStatus() == AudioAnalysis.Status.PROCESSING
+                    && analysis.getUpdatedAt().isAfter(processingBefore)) {
+                continue;
+            }
+            enqueue(analysis.getId());
+        }
+    }
+
+    private void enqueue(Long analysisId) {
+        if (!inFlight.add(analysisId)) {
+            return;
+        }
+        try {
+            analysisExecutor.execute(() -> {
+                try {
+                    process(analysisId);
+                } finally {
+                    inFlight.remove(analysisId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(analysisId);
+            log.warn("Audio analysis queue is full, analysis {} stays pending", analysisId);
+        }
+    }
+
+    private void process(Long analysisId) {
+        AudioAnalysis analysis = analysisRepository.findById(analysisId).orElse(null);
+        if (analysis == null || analysis.getStatus() == AudioAnalysis.Status.COMPLETED) {
+            return;
+        }
+        analysis.setStatus(AudioAnalysis.Status.PROCESSING);
+        analysis = analysisRepository.save(analysis);
+
+        long start = System.currentTimeMillis();
+        try (InputStream in = openAudio(analysis.getAudioUrl())) {
+            AudioMetadataParser.AudioMetadata metadata = AudioMetadataParser.parse(in, targetPeaks);
+            analysis.setFormat(metadata.format());
+            analysis.setDurationSeconds(metadata.durationSeconds());
+            analysis.setBitrateKbps(metadata.bitrateKbps());
+            analysis.setSampleRate(metadata.sampleRate());
+            analysis.setChannels(metadata.channels());
+            analysis.setPeaks(metadata.peaks());
+            analysis.setErrorMessage(null);
+            analysis.setStatus(AudioAnalysis.Status.COMPLETED);
+            analysisRepository.save(analysis);
+
+            applyDuration(analysis.getAudioUrl(), metadata.durationSeconds());
+            log.info("Analyzed audio {} ({}, {}s, {} kbps) in {} ms", analysis.getAudioUrl(), metadata.format(),
+                    String.format("%.2f", metadata.durationSeconds()), metadata.bitrateKbps(),
+                    System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Audio analysis failed for {}: {}", analysis.getAudioUrl(), e.getMessage());
+            analysis.setStatus(AudioAnalysis.Status.FAILED);
+            analysis.setErrorMessage(truncate(e.getMessage()));
+            analysisRepository.save(analysis);
+        }
+    }
+
+    /**
+     * Ghi thời lượng chính xác vào các bài học đang dùng file này: một câu UPDATE chỉ cột duration_seconds
+     * trong transaction (không load rồi lưu lại cả entity, nên không ghi đè chỉnh sửa của giáo viên)
+     */
+    private void applyDuration(String audioUrl, double durationSeconds) {
+        int seconds = (int) Math.round(durationSeconds);
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> lessonIds = lessonRepository.findIdsWithStaleDuration(audioUrl, seconds);
+            if (!lessonIds.isEmpty()) {
+                lessonRepository.updateDurationByAudioUrl(audioUrl, seconds);
+                lessonIds.forEach(id -> catalogCache.invalidateLesson(id, Question.LessonType.LISTENING));
+            }
+        });
+    }
+
+    /**
+     * Mở stream tới file audio: URL http(s) của kho media (Cloudinary) hoặc file local trong thư mục uploads
+     */
+    private InputStream openAudio(String audioUrl) throws IOException {
+        if (audioUrl.startsWith("http://") || audioUrl.startsWith("https://")) {
+            return openRemote(checkRemoteUrl(audioUrl));
+        }
+
+        String relative = audioUrl.startsWith(LOCAL_URL_PREFIX) ? audioUrl.substring(LOCAL_URL_PREFIX.length())
+                : audioUrl.replaceFirst("^/+", "");
+        Path uploadRoot = Path.of(LOCAL_UPLOAD_DIR).toAbsolutePath().normalize();
+        Path file = Path.of(relative).toAbsolutePath().normalize();
+        if (!file.startsWith(uploadRoot) || !Files.isRegularFile(file)) {
+            throw new IOException("Không tìm thấy file audio: " + audioUrl);
+        }
+        return Files.newInputStream(file);
+    }
+
+    /**
+     * GET file audio qua kết nối tới đúng địa chỉ đã kiểm tra ở checkRemoteUrl (không phân giải DNS lần nữa,
+     * tránh DNS rebinding). TLS vẫn gửi SNI và kiểm tra chứng chỉ theo tên host.
+     * Gửi HTTP/1.0 với Connection: close nên server trả body tới khi đóng kết nối (không chunked, không redirect).
+     */
+    private InputStream openRemote(RemoteAudio target) throws IOException {
+        URI uri = target.uri();
+        boolean https = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() != -1 ? uri.getPort() : (https ? 443 : 80);
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(target.address(), port), CONNECT_TIMEOUT_MS);
+            socket.setSoTimeout((int) fetchTimeout.toMillis());
+            if (https) {
+                SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault())
+                        .createSocket(socket, uri.getHost(), port, true);
+                SSLParameters parameters = sslSocket.getSSLParameters();
+                parameters.setServerNames(List.of(new SNIHostName(uri.getHost())));
+                parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                sslSocket.setSSLParameters(parameters);
+                sslSocket.startHandshake();
+                socket = sslSocket;
+            }
+
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            if (uri.getRawQuery() != null) {
+                path += "?" + uri.getRawQuery();
+            }
+            String host = uri.getPort() != -1 ? uri.getHost() + ":" + port : uri.getHost();
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET " + path + " HTTP/1.0\r\nHost: " + host + "\r\nAccept: */*\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            String[] status = readLine(in).split(" ", 3);
+            if (status.length < 2 || !status[0].startsWith("HTTP/") || !"200".equals(status[1])) {
+                throw new IOException("Tải file audio thất bại: HTTP " + (status.length >= 2 ? status[1] : "?"));
+            }
+            while (!readLine(in).isEmpty()) {
+                // Bỏ qua header, body bắt đầu sau dòng trống
+            }
+            Socket connection = socket;
+            return new FilterInputStream(in) {
+                @Override
+                public void close() throws IOException {
+                    connection.close();
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                throw new IOException("Response audio bị ngắt giữa chừng");
+            }
+            if (line.size() >= MAX_HEADER_LINE) {
+                throw new IOException("Header response audio quá dài");
+            }
+            line.write(b);
+        }
+        String text = line.toString(StandardCharsets.ISO_8859_1);
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    /**
+     * URL audio đã kiểm tra và địa chỉ công khai sẽ kết nối tới
+     */
+    record RemoteAudio(URI uri, InetAddress address) {
+    }
+
+    /**
+     * Chặn SSRF: chỉ host được phép, và mọi địa chỉ phân giải được phải là địa chỉ công khai
+     * (không loopback, private, link-local như 169.254.169.254, multicast).
+     * Trả về địa chỉ đã kiểm tra để openRemote kết nối thẳng tới nó.
+     */
+    RemoteAudio checkRemoteUrl(String audioUrl) throws IOException {
+        URI uri;
+        try {
+            uri = URI.create(audioUrl);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("URL audio không hợp lệ", e);
+        }
+        String host = uri.getHost();
+        if (host == null || uri.getUserInfo() != null || !allowedHosts.contains(host.toLowerCase(Locale.ROOT))) {
+            throw new IOException("Không tải audio từ host ngoài kho media: " + host);
+        }
+        InetAddress[] addresses = InetAddress.getAllByName(host);
+        for (InetAddress address : addresses) {
+            if (!isPublicAddress(address)) {
+                throw new IOException("Host audio phân giải ra địa chỉ nội bộ: " + host);
+            }
+        }
+        return new RemoteAudio(uri, addresses[0]);
+    }
+
+    static boolean isPublicAddress(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet6Address) {
+            // IPv6 unique local (fc00::/7)
+            return (bytes[0] & 0xfe) != 0xfc;
+        }
+        // Carrier-grade NAT 100.64.0.0/10
+        return !((bytes[0] & 0xff) == 100 && (bytes[1] & 0xc0) == 64);
+    }
+
+    private AudioAnalysisDto toDto(Long lessonId, AudioAnalysis analysis, boolean includeError) {
+        byte[] peaks = analysis.getPeaks();
+        return new AudioAnalysisDto(
+                lessonId,
+                analysis.getAudioUrl(),
+                analysis.getStatus().name(),
+                analysis.getFormat(),
+                analysis.getDurationSeconds(),
+                analysis.getBitrateKbps(),
+                analysis.getSampleRate(),
+                analysis.getChannels(),
+                peaks != null ? peaks.length : null,
+                peaks != null ? Base64.getEncoder().encodeToString(peaks) : null,
+                includeError ? analysis.getErrorMessage() : null,
+                analysis.getUpdatedAt());
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
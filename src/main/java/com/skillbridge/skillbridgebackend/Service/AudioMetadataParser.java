@@ -0,0 +1,524 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Đọc header MP3/WAV/OGG dạng stream (không nạp cả file) để lấy thời lượng chính xác, bitrate
+ * và tính mảng peaks đã downsample (mỗi phần tử 1 byte, 0-255) để vẽ waveform.
+ * <ul>
+ *     <li>WAV: peak = biên độ tuyệt đối lớn nhất của mẫu PCM trong mỗi bin</li>
+ *     <li>MP3: không giải mã; dùng global_gain của từng granule (Layer III) làm đường bao âm lượng</li>
+ *     <li>OGG (Vorbis/Opus): chỉ lấy thời lượng và bitrate, không có peaks</li>
+ * </ul>
+ */
+public final class AudioMetadataParser {
+
+    /**
+     * @param peaks mảng biên độ đã chuẩn hóa 0-255 (null nếu định dạng không hỗ trợ)
+     */
+    public record AudioMetadata(String format, double durationSeconds, int bitrateKbps, int sampleRate,
+                                int channels, byte[] peaks) {
+    }
+
+    private static final int[][] MP3_BITRATES = {
+            // MPEG1 Layer I, II, III
+            {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320},
+            // MPEG2/2.5 Layer I, II/III
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}
+    };
+    private static final int[][] MP3_SAMPLE_RATES = {
+            {11025, 12000, 8000},   // MPEG2.5
+            {0, 0, 0},              // reserved
+            {22050, 24000, 16000},  // MPEG2
+            {44100, 48000, 32000}   // MPEG1
+    };
+
+    private static final int WAVE_FORMAT_PCM = 1;
+    private static final int WAVE_FORMAT_IEEE_FLOAT = 3;
+    private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+    private AudioMetadataParser() {
+    }
+
+    /**
+     * Nhận dạng định dạng theo magic bytes rồi phân tích
+     * @param targetPeaks số peaks tối thiểu mong muốn (kết quả nằm trong [targetPeaks, 2*targetPeaks))
+     * @throws IllegalArgumentException nếu định dạng không hỗ trợ hoặc file không hợp lệ
+     */
+    public static AudioMetadata parse(InputStream input, int targetPeaks) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(input, 64 * 1024);
+        in.mark(4);
+        byte[] magic = in.readNBytes(4);
+        in.reset();
+        if (magic.length < 4) {
+            throw new IllegalArgumentException("File audio rỗng hoặc quá ngắn");
+        }
+
+        String tag = new String(magic, StandardCharsets.ISO_8859_1);
+        if ("RIFF".equals(tag)) {
+            return parseWav(in, targetPeaks);
+        }
+        if ("OggS".equals(tag)) {
+            return parseOgg(in);
+        }
+        if (tag.startsWith("ID3") || ((magic[0] & 0xFF) == 0xFF && (magic[1] & 0xE0) == 0xE0)) {
+            return parseMp3(in, targetPeaks);
+        }
+        throw new IllegalArgumentException("Định dạng audio chưa hỗ trợ phân tích (chỉ MP3, WAV, OGG)");
+    }
+
+    // ===== WAV =====
+
+    private static AudioMetadata parseWav(InputStream in, int targetPeaks) throws IOException {
+        byte[] header = readFully(in, 12);
+        if (!"WAVE".equals(new String(header, 8, 4, StandardCharsets.ISO_8859_1))) {
+            throw new IllegalArgumentException("File WAV không hợp lệ");
+        }
+
+        int audioFormat = 0;
+        int channels = 0;
+        int sampleRate = 0;
+        int blockAlign = 0;
+        int bitsPerSample = 0;
+
+        while (true) {
+            byte[] chunk = in.readNBytes(8);
+            if (chunk.length < 8) {
+                throw new IllegalArgumentException("File WAV không có chunk data");
+            }
+            String id = new String(chunk, 0, 4, StandardCharsets.ISO_8859_1);
+            long size = le32(chunk, 4) & 0xFFFFFFFFL;
+
+            if ("fmt ".equals(id)) {
+                if (size < 16) {
+                    throw new IllegalArgumentException("Chunk fmt của file WAV không hợp lệ");
+                }
+                byte[] fmt = readFully(in, (int) size);
+                audioFormat = le16(fmt, 0);
+                channels = le16(fmt, 2);
+                sampleRate = le32(fmt, 4);
+                blockAlign = le16(fmt, 12);
+                bitsPerSample = le16(fmt, 14);
+                if (audioFormat == WAVE_FORMAT_EXTENSIBLE && size >= 26) {
+                    audioFormat = le16(fmt, 24);
+                }
+                in.skipNBytes(size & 1);
+            } else if ("data".equals(id)) {
+                if (sampleRate <= 0 || channels <= 0 || blockAlign < channels * (bitsPerSample / 8)) {
+                    throw new IllegalArgumentException("File WAV thiếu hoặc sai chunk fmt");
+                }
+                if (audioFormat != WAVE_FORMAT_PCM && audioFormat != WAVE_FORMAT_IEEE_FLOAT) {
+                    throw new IllegalArgumentException("Chỉ hỗ trợ WAV PCM hoặc float");
+                }
+                // size 0 / 0xFFFFFFFF gặp khi file được ghi dạng stream: đọc tới hết file
+                long dataSize = size == 0 || size == 0xFFFFFFFFL ? Long.MAX_VALUE : size;
+                PeakAccumulator peaks = new PeakAccumulator(targetPeaks);
+                long frames = readPcm(in, dataSize, audioFormat, channels, blockAlign, bitsPerSample, peaks);
+                double duration = (double) frames / sampleRate;
+                int bitrate = (int) Math.round((double) sampleRate * blockAlign * 8 / 1000);
+                return new AudioMetadata("wav", duration, bitrate, sampleRate, channels, peaks.toBytes());
+            } else {
+                in.skipNBytes(size + (size & 1));
+            }
+        }
+    }
+
+    /**
+     * Đọc mẫu PCM theo buffer, mỗi frame lấy biên độ lớn nhất giữa các kênh
+     * @return số frame đã đọc
+     */
+    private static long readPcm(InputStream in, long dataSize, int audioFormat, int channels, int blockAlign,
+                                int bitsPerSample, PeakAccumulator peaks) throws IOException {
+        int bytesPerSample = bitsPerSample / 8;
+        boolean isFloat = audioFormat == WAVE_FORMAT_IEEE_FLOAT;
+        byte[] buffer = new byte[blockAlign * 4096];
+        long remaining = dataSize;
+        long frames = 0;
+        int carry = 0;
+
+        while (remaining > 0) {
+            int toRead = (int) Math.min(buffer.length - carry, remaining);
+            int read = in.read(buffer, carry, toRead);
+            if (read < 0) {
+                break;
+            }
+            remaining -= read;
+            int available = carry + read;
+            int whole = available / blockAlign * blockAlign;
+
+            for (int frame = 0; frame < whole; frame += blockAlign) {
+                float max = 0;
+                for (int ch = 0; ch < channels; ch++) {
+                    float amplitude = Math.abs(sample(buffer, frame + ch * bytesPerSample, bytesPerSample, isFloat));
+                    if (amplitude > max) {
+                        max = amplitude;
+                    }
+                }
+                peaks.add(max);
+            }
+            frames += whole / blockAlign;
+
+            // Giữ lại phần frame chưa đọc đủ cho lần sau
+            carry = available - whole;
+            System.arraycopy(buffer, whole, buffer, 0, carry);
+        }
+        return frames;
+    }
+
+    /**
+     * Giá trị mẫu đã chuẩn hóa về [-1, 1]
+     */
+    private static float sample(byte[] b, int offset, int bytesPerSample, boolean isFloat) {
+        switch (bytesPerSample) {
+            case 1:
+                return ((b[offset] & 0xFF) - 128) / 128f;
+            case 2:
+                return (short) le16(b, offset) / 32768f;
+            case 3:
+                return (((b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8 | b[offset + 2] << 16)) / 8388608f;
+            case 4:
+                return isFloat ? Float.intBitsToFloat(le32(b, offset)) : le32(b, offset) / 2147483648f;
+            default:
+                throw new IllegalArgumentException("Độ sâu bit WAV không hỗ trợ: " + bytesPerSample * 8);
+        }
+    }
+
+    // ===== MP3 =====
+
+    private static AudioMetadata parseMp3(InputStream in, int targetPeaks) throws IOException {
+        skipId3v2(in);
+
+        PeakAccumulator peaks = new PeakAccumulator(targetPeaks);
+        byte[] frame = new byte[2881 + 4]; // frame Layer II/III lớn nhất (384kbps, 8kHz, padding)
+        int header = 0;
+        int headerBytes = 0;
+        int firstVersion = -1;
+        int firstLayer = -1;
+        int sampleRate = 0;
+        int channels = 0;
+        boolean firstFrame = true;
+        boolean hasGain = false;
+        long totalSamples = 0;
+        long audioBytes = 0;
+
+        int b;
+        while ((b = in.read()) >= 0) {
+            header = header << 8 | b;
+            if (++headerBytes < 4) {
+                continue;
+            }
+
+            Mp3Header h = Mp3Header.decode(header);
+            // Sau frame đầu, bỏ qua sync giả (ID3v1/APE tag, rác) không cùng version/layer/sample rate
+            if (h == null || (firstVersion >= 0
+                    && (h.version != firstVersion || h.layer != firstLayer || h.sampleRate != sampleRate))) {
+                headerBytes = 3;
+                continue;
+            }
+
+            frame[0] = (byte) (header >>> 24);
+            frame[1] = (byte) (header >>> 16);
+            frame[2] = (byte) (header >>> 8);
+            frame[3] = (byte) header;
+            int bodyLength = h.frameLength - 4;
+            int read = in.readNBytes(frame, 4, bodyLength);
+            if (read < bodyLength) {
+                break; // frame cuối bị cắt
+            }
+            headerBytes = 0;
+
+            if (firstVersion < 0) {
+                firstVersion = h.version;
+                firstLayer = h.layer;
+                sampleRate = h.sampleRate;
+                channels = h.channels;
+            }
+
+            // Frame Xing/Info/VBRI đầu file chỉ chứa metadata của encoder, không phải audio
+            if (firstFrame) {
+                firstFrame = false;
+                if (isInfoFrame(frame, h)) {
+                    continue;
+                }
+            }
+
+            totalSamples += h.samplesPerFrame;
+            audioBytes += h.frameLength;
+            if (h.layer == 3) {
+                peaks.add(maxGlobalGainAmplitude(frame, h));
+                hasGain = true;
+            }
+        }
+
+        if (totalSamples == 0) {
+            throw new IllegalArgumentException("Không tìm thấy frame MP3 hợp lệ");
+        }
+        double duration = (double) totalSamples / sampleRate;
+        int bitrate = (int) Math.round(audioBytes * 8 / duration / 1000);
+        return new AudioMetadata("mp3", duration, bitrate, sampleRate, channels, hasGain ? peaks.toBytes() : null);
+    }
+
+    private static final class Mp3Header {
+        int version;   // 3 = MPEG1, 2 = MPEG2, 0 = MPEG2.5
+        int layer;     // 1, 2, 3
+        boolean crc;
+        int sampleRate;
+        int channels;
+        int samplesPerFrame;
+        int frameLength;
+
+        static Mp3Header decode(int header) {
+            if ((header & 0xFFE00000) != 0xFFE00000) {
+                return null;
+            }
+            int version = header >>> 19 & 0x3;
+            int layerBits = header >>> 17 & 0x3;
+            int bitrateIndex = header >>> 12 & 0xF;
+            int sampleRateIndex = header >>> 10 & 0x3;
+            if (version == 1 || layerBits == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+                return null;
+            }
+
+            Mp3Header h = new Mp3Header();
+            h.version = version;
+            h.layer = 4 - layerBits;
+            h.crc = (header >>> 16 & 0x1) == 0;
+            h.sampleRate = MP3_SAMPLE_RATES[version][sampleRateIndex];
+            h.channels = (header >>> 6 & 0x3) == 3 ? 1 : 2;
+            int padding = header >>> 9 & 0x1;
+
+            boolean mpeg1 = version == 3;
+            int table = mpeg1 ? h.layer - 1 : (h.layer == 1 ? 3 : 4);
+            int bitrate = MP3_BITRATES[table][bitrateIndex] * 1000;
+
+            if (h.layer == 1) {
+                h.samplesPerFrame = 384;
+                h.frameLength = (12 * bitrate / h.sampleRate + padding) * 4;
+            } else {
+                h.samplesPerFrame = h.layer == 3 && !mpeg1 ? 576 : 1152;
+                h.frameLength = h.samplesPerFrame / 8 * bitrate / h.sampleRate + padding;
+            }
+            return h.frameLength > 4 ? h : null;
+        }
+
+        int sideInfoOffset() {
+            return 4 + (crc ? 2 : 0);
+        }
+
+        int sideInfoLength() {
+            if (version == 3) {
+                return channels == 1 ? 17 : 32;
+            }
+            return channels == 1 ? 9 : 17;
+        }
+    }
+
+    private static boolean isInfoFrame(byte[] frame, Mp3Header h) {
+        int xingOffset = h.sideInfoOffset() + (h.layer == 3 ? h.sideInfoLength() : 0);
+        if (xingOffset + 4 <= h.frameLength) {
+            String tag = new String(frame, xingOffset, 4, StandardCharsets.ISO_8859_1);
+            if ("Xing".equals(tag) || "Info".equals(tag)) {
+                return true;
+            }
+        }
+        // VBRI luôn nằm sau 32 byte kể từ header
+        return 36 + 4 <= h.frameLength && "VBRI".equals(new String(frame, 36, 4, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Biên độ tương đối 2^((global_gain - 210) / 4) lớn nhất giữa các granule/kênh của frame
+     */
+    private static float maxGlobalGainAmplitude(byte[] frame, Mp3Header h) {
+        int base = h.sideInfoOffset() * 8;
+        int maxGain = 0;
+        if (h.version == 3) {
+            // main_data_begin(9) + private_bits(5|3) + scfsi(4 * nch), mỗi granule/kênh 59 bit
+            int pos = base + 9 + (h.channels == 1 ? 5 : 3) + 4 * h.channels;
+            for (int gr = 0; gr < 2; gr++) {
+                for (int ch = 0; ch < h.channels; ch++) {
+                    maxGain = Math.max(maxGain, readBits(frame, pos + 21, 8));
+                    pos += 59;
+                }
+            }
+        } else {
+            // MPEG2/2.5: main_data_begin(8) + private_bits(1|2), một granule, mỗi kênh 63 bit
+            int pos = base + 8 + (h.channels == 1 ? 1 : 2);
+            for (int ch = 0; ch < h.channels; ch++) {
+                maxGain = Math.max(maxGain, readBits(frame, pos + 21, 8));
+                pos += 63;
+            }
+        }
+        return (float) Math.pow(2, (maxGain - 210) / 4.0);
+    }
+
+    private static int readBits(byte[] data, int bitOffset, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int bit = bitOffset + i;
+            value = value << 1 | (data[bit >>> 3] >>> (7 - (bit & 7)) & 1);
+        }
+        return value;
+    }
+
+    private static void skipId3v2(InputStream in) throws IOException {
+        in.mark(10);
+        byte[] id3 = in.readNBytes(10);
+        if (id3.length == 10 && id3[0] == 'I' && id3[1] == 'D' && id3[2] == '3') {
+            int size = (id3[6] & 0x7F) << 21 | (id3[7] & 0x7F) << 14 | (id3[8] & 0x7F) << 7 | (id3[9] & 0x7F);
+            boolean footer = (id3[5] & 0x10) != 0;
+            in.skipNBytes(size + (footer ? 10 : 0));
+        } else {
+            in.reset();
+        }
+    }
+
+    // ===== OGG =====
+
+    private static AudioMetadata parseOgg(InputStream in) throws IOException {
+        long serial = -1;
+        long lastGranule = -1;
+        long totalBytes = 0;
+        int sampleRate = 0;
+        int granuleRate = 0;
+        int channels = 0;
+        int preSkip = 0;
+        String codec = null;
+
+        byte[] header = new byte[27];
+        while (true) {
+            int read = in.readNBytes(header, 0, 27);
+            if (read < 27) {
+                break;
+            }
+            if (header[0] != 'O' || header[1] != 'g' || header[2] != 'g' || header[3] != 'S') {
+                throw new IllegalArgumentException("File OGG không hợp lệ");
+            }
+            long granule = le32(header, 6) & 0xFFFFFFFFL | (long) le32(header, 10) << 32;
+            long pageSerial = le32(header, 14) & 0xFFFFFFFFL;
+            int segments = header[26] & 0xFF;
+            byte[] lacing = readFully(in, segments);
+            int bodyLength = 0;
+            for (byte lace : lacing) {
+                bodyLength += lace & 0xFF;
+            }
+            totalBytes += 27 + segments + bodyLength;
+
+            if (serial < 0) {
+                // Trang đầu chứa header nhận dạng codec
+                serial = pageSerial;
+                byte[] body = readFully(in, bodyLength);
+                if (body.length >= 16 && body[0] == 1
+                        && "vorbis".equals(new String(body, 1, 6, StandardCharsets.ISO_8859_1))) {
+                    codec = "vorbis";
+                    channels = body[11] & 0xFF;
+                    sampleRate = le32(body, 12);
+                    granuleRate = sampleRate;
+                } else if (body.length >= 16
+                        && "OpusHead".equals(new String(body, 0, 8, StandardCharsets.ISO_8859_1))) {
+                    codec = "opus";
+                    channels = body[9] & 0xFF;
+                    preSkip = le16(body, 10);
+                    sampleRate = le32(body, 12);
+                    granuleRate = 48000; // granule của Opus luôn tính theo 48kHz
+                } else {
+                    throw new IllegalArgumentException("Chỉ hỗ trợ OGG Vorbis hoặc Opus");
+                }
+                continue;
+            }
+
+            in.skipNBytes(bodyLength);
+            if (pageSerial == serial && granule != -1) {
+                lastGranule = granule;
+            }
+        }
+
+        if (codec == null || granuleRate <= 0 || lastGranule <= 0) {
+            throw new IllegalArgumentException("Không xác định được thời lượng file OGG");
+        }
+        double duration = (double) Math.max(0, lastGranule - preSkip) / granuleRate;
+        int bitrate = duration > 0 ? (int) Math.round(totalBytes * 8 / duration / 1000) : 0;
+        return new AudioMetadata("ogg", duration, bitrate, sampleRate, channels, null);
+    }
+
+    // ===== HELPERS =====
+
+    /**
+     * Gom giá trị theo bin có kích thước tăng dần: khi đủ 2*target bin thì gộp từng cặp (lấy max)
+     * và nhân đôi kích thước bin, nên bộ nhớ cố định dù không biết trước độ dài file.
+     */
+    static final class PeakAccumulator {
+
+        private final int target;
+        private final float[] bins;
+        private int count;
+        private long binSize = 1;
+        private long inBin;
+        private float current;
+
+        PeakAccumulator(int target) {
+            this.target = Math.max(1, target);
+            this.bins = new float[this.target * 2];
+        }
+
+        void add(float value) {
+            if (value > current) {
+                current = value;
+            }
+            if (++inBin == binSize) {
+                flush();
+            }
+        }
+
+        byte[] toBytes() {
+            if (inBin > 0) {
+                flush();
+            }
+            float max = 0;
+            for (int i = 0; i < count; i++) {
+                max = Math.max(max, bins[i]);
+            }
+            byte[] result = new byte[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = (byte) (max > 0 ? Math.round(bins[i] / max * 255) : 0);
+            }
+            return result;
+        }
+
+        private void flush() {
+            bins[count++] = current;
+            current = 0;
+            inBin = 0;
+            if (count == bins.length) {
+                for (int i = 0; i < target; i++) {
+                    bins[i] = Math.max(bins[2 * i], bins[2 * i + 1]);
+                }
+                count = target;
+                binSize *= 2;
+            }
+        }
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] buffer = in.readNBytes(length);
+        if (buffer.length < length) {
+            throw new EOFException("Unexpected end of audio stream");
+        }
+        return buffer;
+    }
+
+    private static int le16(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int le32(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8 | (b[offset + 2] & 0xFF) << 16
+                | (b[offset + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,234 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.entity.Question;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache đọc cho catalog (thể loại, bài học đã publish, chi tiết bài học, câu hỏi theo bài học).
+ * Mỗi vùng giới hạn số entry (LRU) và thời gian sống; các service ghi bài học / câu hỏi xóa đúng entry
+ * liên quan sau khi transaction commit. Giá trị được cache là DTO (không phải entity) trong danh sách
+ * không sửa được, dùng chung giữa các request: DTO là @Data nên nơi gọi chỉ đọc, cần sửa thì copy trước.
+ * Metric theo từng vùng: cache.gets{cache=catalog.*, result=hit|miss}, cache.evictions, cache.size, cache.hit.ratio.
+ */
+@Service
+@Slf4j
+public class CatalogCache {
+
+    public enum Region {
+        CATEGORIES("catalog.categories"),
+        // Chi tiết bài học theo LessonKey
+        LESSONS("catalog.lessons"),
+        // Danh sách bài đã publish theo loại bài
+        PUBLISHED_LESSONS("catalog.publishedLessons"),
+        // Catalog / chi tiết bài học phía học viên, key là bộ tham số truy vấn
+        STUDENT_CATALOG("catalog.studentCatalog"),
+        // Câu hỏi theo lessonId
+        LESSON_QUESTIONS("catalog.lessonQuestions");
+
+        private final String metricName;
+
+        Region(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+
+    public record LessonKey(Long lessonId, Question.LessonType lessonType) {
+    }
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final Map<Region, RegionCache> regions = new EnumMap<>(Region.class);
+
+    public CatalogCache(MeterRegistry meterRegistry,
+                        @Value("${app.cache.catalog.enabled:true}") boolean enabled,
+                        @Value("${app.cache.catalog.max-entries:2000}") int maxEntries,
+                        @Value("${app.cache.catalog.ttl-seconds:300}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        for (Region region : Region.values()) {
+            regions.put(region, new RegionCache(region.metricName, maxEntries, meterRegistry));
+        }
+    }
+
+    /**
+     * Lấy giá trị của key trong vùng, chỉ gọi loader (đọc database) khi chưa có hoặc đã hết hạn
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(Region region, Object key, Supplier<V> loader) {
+        RegionCache cache = regions.get(region);
+        if (!enabled) {
+            cache.misses.increment();
+            return loader.get();
+        }
+
+        Object cached = cache.lookup(key);
+        if (cached != null) {
+            return (V) cached;
+        }
+
+        long invalidationsBeforeLoad = cache.invalidations.get();
+        V loaded = loader.get();
+        if (loaded != null) {
+            cache.store(key, loaded, invalidationsBeforeLoad, System.nanoTime() + ttlNanos);
+        }
+        return loaded;
+    }
+
+    /**
+     * Bài học được tạo / sửa / xóa / đổi trạng thái: bỏ chi tiết của bài đó và mọi danh sách có thể chứa nó
+     */
+    public void invalidateLesson(Long lessonId, Question.LessonType lessonType) {
+        afterCommit(() -> {
+            regions.get(Region.LESSONS).remove(new LessonKey(lessonId, lessonType));
+            regions.get(Region.PUBLISHED_LESSONS).clear();
+            regions.get(Region.STUDENT_CATALOG).clear();
+            log.debug("Invalidated catalog cache for {} lesson {}", lessonType, lessonId);
+        });
+    }
+
+    /**
+     * Thể loại được tạo / sửa / xóa: bỏ danh sách thể loại và mọi danh sách có tên thể loại
+     */
+    public void invalidateCategories() {
+        afterCommit(() -> {
+            regions.get(Region.CATEGORIES).clear();
+            regions.get(Region.LESSONS).clear();
+            regions.get(Region.PUBLISHED_LESSONS).clear();
+            regions.get(Region.STUDENT_CATALOG).clear();
+            log.debug("Invalidated catalog cache for categories");
+        });
+    }
+
+    /**
+     * Câu hỏi của bài học thay đổi: bỏ danh sách câu hỏi và thông tin bài học (có số câu hỏi)
+     */
+    public void invalidateQuestions(Long lessonId, Question.LessonType lessonType) {
+        afterCommit(() -> regions.get(Region.LESSON_QUESTIONS).remove(lessonId));
+        invalidateLesson(lessonId, lessonType);
+    }
+
+    public int size(Region region) {
+        return regions.get(region).size();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Entry(Object value, long expiresAt) {
+    }
+
+    /**
+     * Một vùng cache: LRU theo số entry, entry hết hạn bị bỏ khi đọc tới
+     */
+    private static final class RegionCache {
+
+        private final Map<Object, Entry> entries;
+        // Tăng mỗi lần xóa, để không cache kết quả load chạy song song với một lần xóa
+        private final AtomicLong invalidations = new AtomicLong();
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter evictions;
+
+        RegionCache(String name, int maxEntries, MeterRegistry meterRegistry) {
+            this.hits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit")
+                    .description("Catalog cache hits").register(meterRegistry);
+            this.misses = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss")
+                    .description("Catalog cache misses").register(meterRegistry);
+            this.evictions = Counter.builder("cache.evictions").tag("cache", name)
+                    .description("Catalog cache evictions (size limit, expiry and invalidation)").register(meterRegistry);
+
+            this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                    if (size() > maxEntries) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+            Gauge.builder("cache.size", this, RegionCache::size).tag("cache", name)
+                    .description("Catalog cache entries").register(meterRegistry);
+            Gauge.builder("cache.hit.ratio", this, RegionCache::hitRatio).tag("cache", name)
+                    .description("Catalog cache hit ratio since startup").register(meterRegistry);
+        }
+
+        Object lookup(Object key) {
+            synchronized (entries) {
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    if (entry.expiresAt() - System.nanoTime() > 0) {
+                        hits.increment();
+                        return entry.value();
+                    }
+                    entries.remove(key);
+                    evictions.increment();
+                }
+            }
+            misses.increment();
+            return null;
+        }
+
+        void store(Object key, Object value, long invalidationsBeforeLoad, long expiresAt) {
+            synchronized (entries) {
+                if (invalidations.get() == invalidationsBeforeLoad) {
+                    entries.put(key, new Entry(value, expiresAt));
+                }
+            }
+        }
+
+        void remove(Object key) {
+            synchronized (entries) {
+                invalidations.incrementAndGet();
+                if (entries.remove(key) != null) {
+                    evictions.increment();
+                }
+            }
+        }
+
+        void clear() {
+            synchronized (entries) {
+                invalidations.incrementAndGet();
+                int removed = entries.size();
+                entries.clear();
+                if (removed > 0) {
+                    evictions.increment(removed);
+                }
+            }
+        }
+
+        int size() {
+            synchronized (entries) {
+                return entries.size();
+            }
+        }
+
+        double hitRatio() {
+            double total = hits.count() + misses.count();
+            return total > 0 ? hits.count() / total : 0.0;
+        }
+    }
+}
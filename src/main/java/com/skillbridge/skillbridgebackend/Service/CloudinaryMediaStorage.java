@@ -0,0 +1,109 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Transformation;
+import com.cloudinary.utils.ObjectUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lưu media lên Cloudinary bằng chunked upload (upload_large).
+ * Mỗi lần chỉ giữ tối đa một chunk trong bộ nhớ; lỗi giữa chừng sẽ upload tiếp từ chunk cuối đã gửi
+ * với cùng X-Unique-Upload-Id thay vì gửi lại từ đầu.
+ */
+@Component
+@ConditionalOnProperty(name = "app.media.storage", havingValue = "cloudinary", matchIfMissing = true)
+@Slf4j
+public class CloudinaryMediaStorage implements MediaStorage {
+
+    private final Cloudinary cloudinary;
+    private final int chunkSize;
+    private final int maxRetries;
+
+    public CloudinaryMediaStorage(Cloudinary cloudinary,
+                                  @Value("${app.upload.chunk-size-bytes:6291456}") int chunkSize,
+                                  @Value("${app.upload.max-retries:3}") int maxRetries) {
+        this.cloudinary = cloudinary;
+        this.chunkSize = chunkSize;
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    public StoredMedia upload(UploadRequest request, MediaSource source) throws IOException {
+        Map<String, Object> options = new HashMap<>(request.options());
+        options.put("public_id", request.publicId());
+        options.put("resource_type", request.resourceType());
+        options.put("format", request.format());
+
+        // File nhỏ hơn một chunk thì buffer đúng bằng kích thước file
+        int bufferSize = (int) Math.max(1, Math.min(chunkSize, request.size()));
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        AtomicLong uploaded = new AtomicLong();
+
+        for (int attempt = 0; ; attempt++) {
+            // Chỉ tiếp tục từ ranh giới chunk đã gửi xong
+            long offset = uploaded.get() / bufferSize * bufferSize;
+            try (InputStream in = source.open()) {
+                Map<?, ?> result = cloudinary.uploader().uploadLarge(in, options, bufferSize, offset, uploadId,
+                        (bytesUploaded, totalBytes) -> uploaded.accumulateAndGet(bytesUploaded, Math::max));
+                return toStoredMedia(result);
+            } catch (IOException e) {
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                log.warn("Chunked upload of {} failed at ~{} bytes (attempt {}), resuming: {}",
+                        request.publicId(), uploaded.get(), attempt + 1, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean delete(String publicId, String resourceType) throws IOException {
+        Map<?, ?> deleteResult = cloudinary.uploader().destroy(publicId,
+                ObjectUtils.asMap("resource_type", resourceType));
+        return "ok".equals(deleteResult.get("result"));
+    }
+
+    @Override
+    public String url(String publicId, String resourceType, Integer width, Integer height) {
+        if (width != null && height != null) {
+            return cloudinary.url()
+                    .resourceType(resourceType)
+                    .secure(true)
+                    .transformation(new Transformation()
+                            .width(width)
+                            .height(height)
+                            .crop("fill")
+                            .quality("auto:good"))
+                    .publicId(publicId)
+                    .generate();
+        }
+        return cloudinary.url()
+                .resourceType(resourceType)
+                .secure(true)
+                .publicId(publicId)
+                .generate();
+    }
+
+    private static StoredMedia toStoredMedia(Map<?, ?> result) {
+        return new StoredMedia(
+                (String) result.get("public_id"),
+                (String) result.get("secure_url"),
+                (String) result.get("url"),
+                (String) result.get("format"),
+                (String) result.get("resource_type"),
+                result.get("bytes") != null ? ((Number) result.get("bytes")).longValue() : 0L,
+                result.get("duration") != null ? ((Number) result.get("duration")).doubleValue() : null,
+                result.get("width") != null ? ((Number) result.get("width")).intValue() : null,
+                result.get("height") != null ? ((Number) result.get("height")).intValue() : null);
+    }
+}
@@ -1,26 +1,38 @@
 package com.skillbridge.skillbridgebackend.Service;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.Transformation;
-import com.cloudinary.utils.ObjectUtils;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Service xử lý upload file audio lên Cloudinary
+ * Service xử lý upload file audio/ảnh lên media storage (mặc định Cloudinary).
+ * File được đọc dạng stream từ multipart (Spring đã ghi ra file tạm) qua bước kiểm tra kích thước và
+ * tính SHA-256, không nạp toàn bộ nội dung vào heap. Số upload đồng thời bị giới hạn bởi upload executor.
  */
 @Service
 @Slf4j
 public class CloudinaryService {
 
-    @Autowired
-    private Cloudinary cloudinary;
+    private final MediaStorage mediaStorage;
+    private final ThreadPoolExecutor uploadExecutor;
 
     private static final String AUDIO_FOLDER = "skillbridge/audio";
     private static final String IMAGE_FOLDER = "skillbridge/images";
@@ -29,6 +41,24 @@ public class CloudinaryService {
     private static final String[] ALLOWED_AUDIO_FORMATS = {"mp3", "wav", "m4a", "aac", "ogg", "flac"};
     private static final String[] ALLOWED_IMAGE_FORMATS = {"jpg", "jpeg", "png", "gif", "bmp", "webp"};
 
+    public CloudinaryService(MediaStorage mediaStorage,
+                             @Value("${app.upload.max-concurrent:4}") int maxConcurrentUploads,
+                             @Value("${app.upload.queue-capacity:8}") int queueCapacity) {
+        this.mediaStorage = mediaStorage;
+        this.uploadExecutor = new ThreadPoolExecutor(maxConcurrentUploads, maxConcurrentUploads,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "media-upload");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdownNow();
+    }
+
     /**
      * Upload file ảnh lên Cloudinary
      * @param file File ảnh cần upload
@@ -46,31 +76,25 @@ public class CloudinaryService {
 
             log.info("Uploading image file: {} to Cloudinary", originalFileName);
 
-            // Upload file lên Cloudinary với cấu hình cho image
-            Map<String, Object> uploadResult = cloudinary.uploader().upload(file.getBytes(),
-                    ObjectUtils.asMap(
-                            "public_id", IMAGE_FOLDER + "/" + uniqueFileName,
-                            "resource_type", "image",
-                            "format", fileExtension,
-                            "quality", "auto",
-                            "fetch_format", "auto"
-                    )
-            );
+            // Upload file lên storage với cấu hình cho image
+            UploadOutcome outcome = upload(file, MAX_IMAGE_SIZE, new MediaStorage.UploadRequest(
+                    IMAGE_FOLDER + "/" + uniqueFileName, "image", fileExtension, file.getSize(),
+                    Map.of("quality", "auto", "fetch_format", "auto")));
+            MediaStorage.StoredMedia stored = outcome.media();
 
-            log.info("Successfully uploaded image file to Cloudinary: {}", uploadResult.get("public_id"));
+            log.info("Successfully uploaded image file to Cloudinary: {}", stored.publicId());
 
             // Tạo response object
             return CloudinaryUploadResult.builder()
-                    .publicId((String) uploadResult.get("public_id"))
-                    .secureUrl((String) uploadResult.get("secure_url"))
-                    .url((String) uploadResult.get("url"))
-                    .format((String) uploadResult.get("format"))
-                    .resourceType((String) uploadResult.get("resource_type"))
-                    .bytes(((Number) uploadResult.get("bytes")).longValue())
-                    .width(uploadResult.get("width") != null ?
-                            ((Number) uploadResult.get("width")).intValue() : null)
-                    .height(uploadResult.get("height") != null ?
-                            ((Number) uploadResult.get("height")).intValue() : null)
+                    .publicId(stored.publicId())
+                    .secureUrl(stored.secureUrl())
+                    .url(stored.url())
+                    .format(stored.format())
+                    .resourceType(stored.resourceType())
+                    .bytes(stored.bytes())
+                    .width(stored.width())
+                    .height(stored.height())
+                    .sha256(outcome.sha256())
                     .originalFileName(originalFileName)
                     .uniqueFileName(uniqueFileName)
                     .uploadTimestamp(System.currentTimeMillis())
@@ -91,17 +115,12 @@ public class CloudinaryService {
         try {
             log.info("Deleting image file from Cloudinary: {}", publicId);
 
-            Map<String, Object> deleteResult = cloudinary.uploader().destroy(publicId,
-                    ObjectUtils.asMap("resource_type", "image")
-            );
-
-            String result = (String) deleteResult.get("result");
-            boolean isDeleted = "ok".equals(result);
+            boolean isDeleted = mediaStorage.delete(publicId, "image");
 
             if (isDeleted) {
                 log.info("Successfully deleted image file from Cloudinary: {}", publicId);
             } else {
-                log.warn("Failed to delete image file from Cloudinary: {}, result: {}", publicId, result);
+                log.warn("Failed to delete image file from Cloudinary: {}", publicId);
             }
 
             return isDeleted;
@@ -120,24 +139,7 @@ public class CloudinaryService {
      * @return Secure URL của file
      */
     public String getImageUrl(String publicId, Integer width, Integer height) {
-        if (width != null && height != null) {
-            return cloudinary.url()
-                    .resourceType("image")
-                    .secure(true)
-                    .transformation(new Transformation()
-                            .width(width)
-                            .height(height)
-                            .crop("fill")
-                            .quality("auto:good"))
-                    .publicId(publicId)
-                    .generate();
-        } else {
-            return cloudinary.url()
-                    .resourceType("image")
-                    .secure(true)
-                    .publicId(publicId)
-                    .generate();
-        }
+        return mediaStorage.url(publicId, "image", width, height);
     }
 
     /**
@@ -196,29 +198,26 @@ public class CloudinaryService {
 
             log.info("Uploading audio file: {} to Cloudinary", originalFileName);
 
-            // Upload file lên Cloudinary với cấu hình cho audio
-            Map<String, Object> uploadResult = cloudinary.uploader().upload(file.getBytes(), 
-                ObjectUtils.asMap(
-                    "public_id", AUDIO_FOLDER + "/" + uniqueFileName,
-                    "resource_type", "video", // Cloudinary sử dụng "video" cho audio files
-                    "format", fileExtension,
-                    "quality", "auto",
-                    "fetch_format", "auto"
-                )
-            );
+            // Upload file lên storage với cấu hình cho audio (chunked upload cho file lớn)
+            UploadOutcome outcome = upload(file, MAX_AUDIO_SIZE, new MediaStorage.UploadRequest(
+                    AUDIO_FOLDER + "/" + uniqueFileName,
+                    "video", // Cloudinary sử dụng "video" cho audio files
+                    fileExtension, file.getSize(),
+                    Map.of("quality", "auto", "fetch_format", "auto")));
+            MediaStorage.StoredMedia stored = outcome.media();
 
-            log.info("Successfully uploaded audio file to Cloudinary: {}", uploadResult.get("public_id"));
+            log.info("Successfully uploaded audio file to Cloudinary: {}", stored.publicId());
 
             // Tạo response object
             return CloudinaryUploadResult.builder()
-                    .publicId((String) uploadResult.get("public_id"))
-                    .secureUrl((String) uploadResult.get("secure_url"))
-                    .url((String) uploadResult.get("url"))
-                    .format((String) uploadResult.get("format"))
-                    .resourceType((String) uploadResult.get("resource_type"))
-                    .bytes(((Number) uploadResult.get("bytes")).longValue())
-                    .duration(uploadResult.get("duration") != null ? 
-                             ((Number) uploadResult.get("duration")).doubleValue() : null)
+                    .publicId(stored.publicId())
+                    .secureUrl(stored.secureUrl())
+                    .url(stored.url())
+                    .format(stored.format())
+                    .resourceType(stored.resourceType())
+                    .bytes(stored.bytes())
+                    .duration(stored.duration())
+                    .sha256(outcome.sha256())
                     .originalFileName(originalFileName)
                     .uniqueFileName(uniqueFileName)
                     .uploadTimestamp(System.currentTimeMillis())
@@ -239,17 +238,12 @@ public class CloudinaryService {
         try {
             log.info("Deleting audio file from Cloudinary: {}", publicId);
 
-            Map<String, Object> deleteResult = cloudinary.uploader().destroy(publicId,
-                ObjectUtils.asMap("resource_type", "video")
-            );
-
-            String result = (String) deleteResult.get("result");
-            boolean isDeleted = "ok".equals(result);
+            boolean isDeleted = mediaStorage.delete(publicId, "video");
 
             if (isDeleted) {
                 log.info("Successfully deleted audio file from Cloudinary: {}", publicId);
             } else {
-                log.warn("Failed to delete audio file from Cloudinary: {}, result: {}", publicId, result);
+                log.warn("Failed to delete audio file from Cloudinary: {}", publicId);
             }
 
             return isDeleted;
@@ -266,11 +260,116 @@ public class CloudinaryService {
      * @return Secure URL của file
      */
     public String getAudioUrl(String publicId) {
-        return cloudinary.url()
-                .resourceType("video")
-                .secure(true)
-                .publicId(publicId)
-                .generate();
+        return mediaStorage.url(publicId, "video", null, null);
+    }
+
+    /**
+     * Upload qua upload executor; thread request chờ kết quả nên tổng số file đang đọc/gửi bị giới hạn
+     * @throws RejectedExecutionException khi hàng đợi upload đã đầy
+     */
+    private UploadOutcome upload(MultipartFile file, long maxSize, MediaStorage.UploadRequest request)
+            throws IOException {
+        // Mỗi lần mở (kể cả khi storage mở lại để upload tiếp) đều đi qua bước kiểm tra + hash từ đầu file
+        AtomicReference<ValidatingDigestInputStream> lastStream = new AtomicReference<>();
+        MediaStorage.MediaSource source = () -> {
+            ValidatingDigestInputStream stream = new ValidatingDigestInputStream(file.getInputStream(), maxSize);
+            lastStream.set(stream);
+            return stream;
+        };
+
+        Future<MediaStorage.StoredMedia> future = uploadExecutor.submit(() -> mediaStorage.upload(request, source));
+        try {
+            MediaStorage.StoredMedia stored = future.get();
+            ValidatingDigestInputStream stream = lastStream.get();
+            return new UploadOutcome(stored, stream != null ? stream.hexDigest() : null);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Upload bị gián đoạn", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private record UploadOutcome(MediaStorage.StoredMedia media, String sha256) {
+    }
+
+    /**
+     * Stream đếm số byte, chặn file vượt giới hạn và tính SHA-256 trong lúc storage đọc dữ liệu
+     */
+    private static class ValidatingDigestInputStream extends FilterInputStream {
+
+        private final MessageDigest digest;
+        private final long maxSize;
+        private long bytesRead;
+
+        ValidatingDigestInputStream(InputStream in, long maxSize) {
+            super(in);
+            this.maxSize = maxSize;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                digest.update((byte) b);
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                digest.update(buffer, offset, n);
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Đọc qua thay vì skip để hash vẫn bao phủ phần đã upload ở lần trước
+            byte[] buffer = new byte[8192];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        String hexDigest() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        private void count(int n) throws IOException {
+            bytesRead += n;
+            if (bytesRead > maxSize) {
+                throw new IOException("File vượt quá kích thước cho phép");
+            }
+        }
     }
 
     /**
@@ -379,6 +478,7 @@ public class CloudinaryService {
         private Double duration; // Thời lượng audio (seconds)
         private Integer width;   // Chiều rộng cho image
         private Integer height;  // Chiều cao cho image
+        private String sha256;   // Checksum nội dung đã upload
         private String originalFileName;
         private String uniqueFileName;
         private Long uploadTimestamp;
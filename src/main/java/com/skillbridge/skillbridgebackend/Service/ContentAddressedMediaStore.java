@@ -0,0 +1,184 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Kho file theo nội dung: tên file là SHA-256 của nội dung, chia thư mục theo 2 ký tự đầu của hash
+ * (ví dụ uploads/audio/3f/3fa1...c9.mp3). Cùng một nội dung chỉ được lưu một lần.
+ */
+@Component
+public class ContentAddressedMediaStore {
+
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}(\\.[A-Za-z0-9]+)?");
+    private static final String TEMP_DIR = ".tmp";
+
+    /**
+     * @param path      đường dẫn tương đối của blob (dùng làm audioUrl/avatarUrl)
+     * @param hash      SHA-256 của nội dung
+     * @param duplicate true nếu nội dung đã có sẵn và không phải ghi lại
+     */
+    public record StoredBlob(String path, String hash, boolean duplicate) {
+    }
+
+    /**
+     * Lưu file vào thư mục baseDir. Lần đọc đầu chỉ để tính hash; nếu blob đã tồn tại thì không ghi gì thêm,
+     * ngược lại file tạm của multipart được chuyển (transferTo) vào kho rồi đổi tên nguyên tử.
+     */
+    public StoredBlob store(MultipartFile file, String baseDir, String extension) throws IOException {
+        String hash;
+        try (InputStream in = file.getInputStream()) {
+            hash = sha256(in);
+        }
+
+        String blobName = extension == null || extension.isEmpty() ? hash : hash + "." + extension.toLowerCase();
+        Path target = Path.of(baseDir, hash.substring(0, 2), blobName);
+
+        if (Files.exists(target)) {
+            try {
+                // Làm mới mtime để GC không xóa blob vừa được tham chiếu lại
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                return new StoredBlob(toRelativePath(baseDir, hash, blobName), hash, true);
+            } catch (NoSuchFileException e) {
+                // GC vừa dọn blob này: ghi lại như upload mới
+            }
+        }
+
+        Files.createDirectories(target.getParent());
+        Path tempDir = Files.createDirectories(Path.of(baseDir, TEMP_DIR));
+        Path temp = tempDir.resolve(hash + "-" + Thread.currentThread().getId() + "-" + System.nanoTime());
+        try {
+            file.transferTo(temp.toAbsolutePath());
+            // Hai upload giống nhau ghi song song thì nội dung như nhau, ghi đè không ảnh hưởng
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return new StoredBlob(toRelativePath(baseDir, hash, blobName), hash, false);
+    }
+
+    /**
+     * Kiểm tra đường dẫn có phải blob do kho này quản lý hay không
+     */
+    public boolean isBlobPath(String path) {
+        return path != null && BLOB_NAME.matcher(fileName(path)).matches();
+    }
+
+    /**
+     * Tên file (hash.ext) của một đường dẫn/URL, dùng để so khớp với audioUrl/avatarUrl
+     */
+    public String fileName(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash >= 0 ? path.substring(slash + 1) : path;
+    }
+
+    /**
+     * Các blob trong baseDir có mtime trước thời điểm cho trước
+     */
+    public List<Path> listBlobsOlderThan(String baseDir, Instant before) throws IOException {
+        Path root = Path.of(baseDir);
+        List<Path> blobs = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return blobs;
+        }
+        try (Stream<Path> shards = Files.list(root)) {
+            for (Path shard : (Iterable<Path>) shards::iterator) {
+                if (!Files.isDirectory(shard) || shard.getFileName().toString().length() != 2) {
+                    continue;
+                }
+                try (Stream<Path> files = Files.list(shard)) {
+                    for (Path blob : (Iterable<Path>) files::iterator) {
+                        if (BLOB_NAME.matcher(blob.getFileName().toString()).matches()
+                                && Files.getLastModifiedTime(blob).toInstant().isBefore(before)) {
+                            blobs.add(blob);
+                        }
+                    }
+                }
+            }
+        }
+        return blobs;
+    }
+
+    /**
+     * Xóa blob nếu mtime vẫn trước thời điểm cho trước. Blob được đổi tên nguyên tử vào thư mục tạm rồi mới
+     * kiểm tra mtime: upload trùng nội dung làm mới mtime ngay trước lúc đổi tên thì blob được trả lại chỗ cũ,
+     * upload tới sau lúc đổi tên không thấy blob nên ghi bản mới.
+     * @return true nếu đã xóa
+     */
+    public boolean deleteIfOlderThan(Path blob, Instant before) throws IOException {
+        Path tempDir = Files.createDirectories(blob.getParent().resolveSibling(TEMP_DIR));
+        Path trash = tempDir.resolve("gc-" + blob.getFileName() + "-" + System.nanoTime());
+        try {
+            Files.move(blob, trash, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (Files.getLastModifiedTime(trash).toInstant().isBefore(before)) {
+            Files.delete(trash);
+            return true;
+        }
+        try {
+            Files.move(trash, blob, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Upload khác đã ghi lại cùng nội dung
+            Files.deleteIfExists(trash);
+        }
+        return false;
+    }
+
+    /**
+     * Xóa file tạm còn sót lại (upload bị ngắt giữa chừng)
+     */
+    public int purgeStaleTemp(String baseDir, Instant before) throws IOException {
+        Path tempDir = Path.of(baseDir, TEMP_DIR);
+        if (!Files.isDirectory(tempDir)) {
+            return 0;
+        }
+        int purged = 0;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            for (Path temp : (Iterable<Path>) files::iterator) {
+                if (Files.getLastModifiedTime(temp).toInstant().isBefore(before) && Files.deleteIfExists(temp)) {
+                    purged++;
+                }
+            }
+        }
+        return purged;
+    }
+
+    private static String toRelativePath(String baseDir, String hash, String blobName) {
+        String dir = baseDir.endsWith("/") ? baseDir : baseDir + "/";
+        return dir + hash.substring(0, 2) + "/" + blobName;
+    }
+
+    private static String sha256(InputStream in) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
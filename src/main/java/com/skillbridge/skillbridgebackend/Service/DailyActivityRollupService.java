@@ -0,0 +1,203 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.dto.analytics.RollupMismatchDto;
+import com.skillbridge.skillbridgebackend.entity.DailyActivityRollup;
+import com.skillbridge.skillbridgebackend.repository.DailyActivityRollupRepository;
+import com.skillbridge.skillbridgebackend.repository.UserLessonProgressRepository;
+import com.skillbridge.skillbridgebackend.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Duy trì bảng daily_activity_rollups.
+ * Các bộ đếm được cộng dồn ngay trong transaction của bài nộp / đăng ký,
+ * và có thể rebuild lại từ dữ liệu gốc (user_lesson_progress, users) khi cần.
+ */
+@Service
+@Transactional
+@Slf4j
+public class DailyActivityRollupService {
+
+    // Số ngày gần nhất được đối soát lại mỗi đêm (bù cho các thay đổi không đi qua service, vd xóa user)
+    private static final int RECONCILE_DAYS = 7;
+
+    private final DailyActivityRollupRepository rollupRepository;
+    private final UserLessonProgressRepository progressRepository;
+    private final UserRepository userRepository;
+
+    public DailyActivityRollupService(DailyActivityRollupRepository rollupRepository,
+                                      UserLessonProgressRepository progressRepository,
+                                      UserRepository userRepository) {
+        this.rollupRepository = rollupRepository;
+        this.progressRepository = progressRepository;
+        this.userRepository = userRepository;
+    }
+
+    // ===== INCREMENTAL UPDATES =====
+
+    /**
+     * User tạo progress đầu tiên trong ngày
+     */
+    public void recordActiveUser(LocalDate date) {
+        rollupRepository.incrementCounters(date, 1, 0, 0, BigDecimal.ZERO, 0);
+    }
+
+    /**
+     * Một bài học được hoàn thành trong ngày
+     */
+    public void recordCompletion(LocalDate date, BigDecimal score) {
+        rollupRepository.incrementCounters(date, 0, 1, 0,
+                score != null ? toStoredScale(score) : BigDecimal.ZERO, score != null ? 1 : 0);
+    }
+
+    /**
+     * Hoàn tác một lần hoàn thành cũ (khi học viên nộp lại, completed_at của progress được chuyển sang ngày mới)
+     */
+    public void revertCompletion(LocalDate date, BigDecimal score) {
+        rollupRepository.incrementCounters(date, 0, -1, 0,
+                score != null ? toStoredScale(score).negate() : BigDecimal.ZERO, score != null ? -1 : 0);
+    }
+
+    /**
+     * Có user mới đăng ký trong ngày
+     */
+    public void recordRegistration(LocalDate date) {
+        rollupRepository.incrementCounters(date, 0, 0, 1, BigDecimal.ZERO, 0);
+    }
+
+    // ===== READ =====
+
+    /**
+     * Lấy rollup trong khoảng ngày, ngày chưa có dữ liệu trả về dòng rỗng
+     */
+    @Transactional(readOnly = true)
+    public List<DailyActivityRollup> getRange(LocalDate from, LocalDate to) {
+        Map<LocalDate, DailyActivityRollup> byDate = new TreeMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            byDate.put(date, new DailyActivityRollup(date));
+        }
+        for (DailyActivityRollup rollup : rollupRepository.findByActivityDateBetweenOrderByActivityDate(from, to)) {
+            byDate.put(rollup.getActivityDate(), rollup);
+        }
+        return new ArrayList<>(byDate.values());
+    }
+
+    // ===== REBUILD / VERIFY =====
+
+    /**
+     * Tính lại rollup trong khoảng ngày từ dữ liệu gốc
+     * @return số ngày đã ghi
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        log.info("Rebuilding daily activity rollups from {} to {}", from, to);
+
+        Map<LocalDate, DailyActivityRollup> computed = computeFromRawData(from, to);
+
+        rollupRepository.deleteByActivityDateBetween(from, to);
+        rollupRepository.flush();
+        rollupRepository.saveAll(computed.values());
+
+        log.info("Rebuilt {} daily activity rollups", computed.size());
+        return computed.size();
+    }
+
+    /**
+     * Backfill toàn bộ lịch sử, từ ngày user đầu tiên đăng ký đến hôm nay
+     */
+    public int rebuildAll() {
+        LocalDateTime earliest = userRepository.findEarliestCreatedAt();
+        LocalDate from = earliest != null ? earliest.toLocalDate() : LocalDate.now();
+        return rebuild(from, LocalDate.now());
+    }
+
+    /**
+     * So sánh rollup với dữ liệu gốc, trả về các giá trị lệch
+     */
+    @Transactional(readOnly = true)
+    public List<RollupMismatchDto> verify(LocalDate from, LocalDate to) {
+        Map<LocalDate, DailyActivityRollup> raw = computeFromRawData(from, to);
+        List<RollupMismatchDto> mismatches = new ArrayList<>();
+
+        for (DailyActivityRollup stored : getRange(from, to)) {
+            LocalDate date = stored.getActivityDate();
+            DailyActivityRollup expected = raw.getOrDefault(date, new DailyActivityRollup(date));
+
+            compare(mismatches, date, "activeUsers", stored.getActiveUsers(), expected.getActiveUsers());
+            compare(mismatches, date, "completedLessons", stored.getCompletedLessons(), expected.getCompletedLessons());
+            compare(mismatches, date, "newRegistrations", stored.getNewRegistrations(), expected.getNewRegistrations());
+            compare(mismatches, date, "scoreSum", stored.getScoreSum().doubleValue(), expected.getScoreSum().doubleValue());
+            compare(mismatches, date, "scoreCount", stored.getScoreCount(), expected.getScoreCount());
+        }
+
+        if (!mismatches.isEmpty()) {
+            log.warn("Daily activity rollup has {} mismatches between {} and {}", mismatches.size(), from, to);
+        }
+        return mismatches;
+    }
+
+    /**
+     * Đối soát định kỳ các ngày gần nhất
+     */
+    @Scheduled(cron = "${app.analytics.rollup.reconcile-cron:0 30 2 * * *}")
+    public void reconcileRecentDays() {
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(RECONCILE_DAYS - 1), today);
+    }
+
+    private Map<LocalDate, DailyActivityRollup> computeFromRawData(LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        Map<LocalDate, DailyActivityRollup> byDate = new TreeMap<>();
+
+        for (Object[] row : progressRepository.countActiveUsersPerDay(start, end)) {
+            rollupFor(byDate, row[0]).setActiveUsers(((Number) row[1]).intValue());
+        }
+
+        for (Object[] row : progressRepository.aggregateCompletionsPerDay(start, end)) {
+            DailyActivityRollup rollup = rollupFor(byDate, row[0]);
+            rollup.setCompletedLessons(((Number) row[1]).intValue());
+            rollup.setScoreSum(new BigDecimal(row[2].toString()));
+            rollup.setScoreCount(((Number) row[3]).intValue());
+        }
+
+        for (Object[] row : userRepository.countRegistrationsPerDay(start, end)) {
+            rollupFor(byDate, row[0]).setNewRegistrations(((Number) row[1]).intValue());
+        }
+
+        return byDate;
+    }
+
+    /**
+     * Làm tròn điểm giống cột user_lesson_progress.score (scale 2) để tổng cộng dồn khớp với dữ liệu gốc
+     */
+    private BigDecimal toStoredScale(BigDecimal score) {
+        return score.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private DailyActivityRollup rollupFor(Map<LocalDate, DailyActivityRollup> byDate, Object sqlDate) {
+        LocalDate date = sqlDate instanceof java.sql.Date
+                ? ((java.sql.Date) sqlDate).toLocalDate()
+                : (LocalDate) sqlDate;
+        return byDate.computeIfAbsent(date, DailyActivityRollup::new);
+    }
+
+    private void compare(List<RollupMismatchDto> mismatches, LocalDate date, String field,
+                         Number rollupValue, Number rawValue) {
+        double stored = rollupValue != null ? rollupValue.doubleValue() : 0.0;
+        double expected = rawValue != null ? rawValue.doubleValue() : 0.0;
+        if (Math.abs(stored - expected) > 0.001) {
+            mismatches.add(new RollupMismatchDto(date, field, stored, expected));
+        }
+    }
+}
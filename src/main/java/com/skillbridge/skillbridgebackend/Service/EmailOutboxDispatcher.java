@@ -0,0 +1,276 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.entity.EmailOutbox;
+import com.skillbridge.skillbridgebackend.entity.PasswordResetToken;
+import com.skillbridge.skillbridgebackend.repository.EmailOutboxRepository;
+import com.skillbridge.skillbridgebackend.repository.PasswordResetTokenRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gửi nền các email trong outbox. Mỗi lượt lấy một batch email đến hạn (khóa SKIP LOCKED rồi giữ chỗ
+ * bằng next_attempt_at), gửi cả batch qua một kết nối SMTP, email lỗi được hẹn gửi lại với backoff lũy thừa.
+ * Chỉ có một thread gửi mỗi instance; số email gửi mỗi phút bị giới hạn theo cấu hình.
+ * Email reset password được điền token lúc gửi (chỉ trong bộ nhớ); token đã dùng / hết hạn thì không gửi.
+ */
+@Service
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private final EmailOutboxRepository outboxRepository;
+    private final PasswordResetTokenRepository passwordResetTokenRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final String fromEmail;
+    private final int batchSize;
+    private final int ratePerMinute;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+    private final int retentionDays;
+    // Một thread, hàng đợi 1 chỗ: các lần đánh thức dồn lại thành một lượt gửi
+    private final ThreadPoolExecutor dispatchExecutor;
+
+    // Chỉ được dùng trên thread gửi
+    private long rateWindowStart;
+    private int sentInWindow;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository outboxRepository,
+                                 PasswordResetTokenRepository passwordResetTokenRepository,
+                                 JavaMailSender mailSender,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${spring.mail.username}") String fromEmail,
+                                 @Value("${app.mail.outbox.batch-size:20}") int batchSize,
+                                 @Value("${app.mail.outbox.rate-per-minute:60}") int ratePerMinute,
+                                 @Value("${app.mail.outbox.max-attempts:6}") int maxAttempts,
+                                 @Value("${app.mail.outbox.base-backoff-seconds:30}") long baseBackoffSeconds,
+                                 @Value("${app.mail.outbox.max-backoff-seconds:3600}") long maxBackoffSeconds,
+                                 @Value("${app.mail.outbox.claim-timeout-seconds:300}") long claimTimeoutSeconds,
+                                 @Value("${app.mail.outbox.retention-days:7}") int retentionDays) {
+        this.outboxRepository = outboxRepository;
+        this.passwordResetTokenRepository = passwordResetTokenRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fromEmail = fromEmail;
+        this.batchSize = batchSize;
+        this.ratePerMinute = ratePerMinute;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = Duration.ofSeconds(baseBackoffSeconds);
+        this.maxBackoff = Duration.ofSeconds(maxBackoffSeconds);
+        this.claimTimeout = Duration.ofSeconds(claimTimeoutSeconds);
+        this.retentionDays = retentionDays;
+        this.dispatchExecutor = new ThreadPoolExecutor(1, 1,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "email-outbox");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Đánh thức thread gửi (gọi sau khi transaction ghi outbox commit, và định kỳ)
+     */
+    public void wakeUp() {
+        dispatchExecutor.execute(this::dispatchDue);
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:15000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    @Scheduled(cron = "${app.mail.outbox.cleanup-cron:0 15 4 * * *}")
+    public void deleteSentEmails() {
+        int deleted = transactionTemplate.execute(status ->
+                outboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted > 0) {
+            log.info("Deleted {} sent emails from outbox", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatchExecutor.shutdownNow();
+    }
+
+    private void dispatchDue() {
+        try {
+            while (true) {
+                int limit = Math.min(batchSize, availablePermits());
+                if (limit == 0) {
+                    return;
+                }
+                List<EmailOutbox> batch = claim(limit);
+                if (batch.isEmpty()) {
+                    return;
+                }
+                sentInWindow += batch.size();
+                deliver(batch);
+                if (batch.size() < limit) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Email outbox dispatch failed", e);
+        }
+    }
+
+    private int availablePermits() {
+        long now = System.currentTimeMillis();
+        if (now - rateWindowStart >= 60_000) {
+            rateWindowStart = now;
+            sentInWindow = 0;
+        }
+        return Math.max(0, ratePerMinute - sentInWindow);
+    }
+
+    /**
+     * Lấy và giữ chỗ các email đến hạn: next_attempt_at được đẩy tới sau claimTimeout,
+     * nên nếu instance dừng giữa chừng, email sẽ được gửi lại sau khi hết hạn giữ chỗ
+     */
+    private List<EmailOutbox> claim(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> due = outboxRepository.findDueForUpdate(now, PageRequest.of(0, limit));
+            due.forEach(email -> email.setNextAttemptAt(now.plus(claimTimeout)));
+            return outboxRepository.saveAll(due);
+        });
+    }
+
+    /**
+     * Gửi một batch qua một kết nối SMTP và ghi kết quả từng email
+     */
+    void deliver(List<EmailOutbox> batch) {
+        Map<MimeMessage, EmailOutbox> messages = new IdentityHashMap<>();
+        Map<EmailOutbox, Exception> failures = new IdentityHashMap<>();
+        Set<EmailOutbox> expired = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (EmailOutbox email : batch) {
+            String body = resolveBody(email);
+            if (body == null) {
+                expired.add(email);
+                continue;
+            }
+            try {
+                messages.put(toMimeMessage(email, body), email);
+            } catch (MessagingException e) {
+                failures.put(email, e);
+            }
+        }
+
+        if (!messages.isEmpty()) {
+            try {
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                if (e.getFailedMessages().isEmpty()) {
+                    messages.values().forEach(email -> failures.put(email, e));
+                } else {
+                    e.getFailedMessages().forEach((message, cause) -> {
+                        EmailOutbox email = messages.get(message);
+                        if (email != null) {
+                            failures.put(email, cause);
+                        }
+                    });
+                }
+            } catch (MailException e) {
+                messages.values().forEach(email -> failures.put(email, e));
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> updated = new ArrayList<>(batch.size());
+        for (EmailOutbox email : batch) {
+            Exception failure = failures.get(email);
+            if (expired.contains(email)) {
+                email.setStatus(EmailOutbox.Status.FAILED);
+                email.setLastError("Password reset token is used or expired, email not sent");
+            } else if (failure == null) {
+                email.setStatus(EmailOutbox.Status.SENT);
+                email.setSentAt(now);
+                email.setLastError(null);
+            } else {
+                recordFailure(email, failure, now);
+            }
+            updated.add(email);
+        }
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.saveAll(updated));
+
+        if (!failures.isEmpty()) {
+            log.warn("Sent {}/{} outbox emails, {} will be retried or failed",
+                    batch.size() - failures.size(), batch.size(), failures.size());
+        } else {
+            log.info("Sent {} outbox emails", batch.size());
+        }
+    }
+
+    private void recordFailure(EmailOutbox email, Exception failure, LocalDateTime now) {
+        email.setAttempts(email.getAttempts() + 1);
+        String message = String.valueOf(failure.getMessage());
+        email.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+        if (email.getAttempts() >= maxAttempts) {
+            email.setStatus(EmailOutbox.Status.FAILED);
+            log.error("Giving up on outbox email {} to {} after {} attempts: {}",
+                    email.getId(), email.getToEmail(), email.getAttempts(), message);
+        } else {
+            email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+        }
+    }
+
+    /**
+     * baseBackoff * 2^(attempts - 1), tối đa maxBackoff
+     */
+    Duration backoff(int attempts) {
+        Duration delay = baseBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    /**
+     * Nội dung gửi đi: email reset password được thay placeholder bằng token thật,
+     * null nếu token không còn dùng được (đã dùng, hết hạn hoặc đã bị xóa)
+     */
+    private String resolveBody(EmailOutbox email) {
+        if (email.getPasswordResetTokenId() == null) {
+            return email.getBody();
+        }
+        return passwordResetTokenRepository.findById(email.getPasswordResetTokenId())
+                .filter(PasswordResetToken::isValid)
+                .map(token -> email.getBody().replace(EmailOutbox.RESET_TOKEN_PLACEHOLDER, token.getToken()))
+                .orElse(null);
+    }
+
+    private MimeMessage toMimeMessage(EmailOutbox email, String body) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(email.getToEmail());
+        helper.setSubject(email.getSubject());
+        helper.setText(body, email.isHtml());
+        return message;
+    }
+}
@@ -2,6 +2,11 @@ package com.skillbridge.skillbridgebackend.Service;
 
 import com.skillbridge.skillbridgebackend.exception.FileStorageException;
 import com.skillbridge.skillbridgebackend.exception.InvalidFileException;
+import com.skillbridge.skillbridgebackend.repository.ListeningLessonRepository;
+import com.skillbridge.skillbridgebackend.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
@@ -11,11 +16,19 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.UUID;
 
+/**
+ * Lưu file audio/ảnh upload vào kho theo nội dung (ContentAddressedMediaStore): upload trùng nội dung
+ * dùng lại file cũ. Xóa file có kiểm tra tham chiếu (ListeningLesson.audioUrl, User.avatarUrl),
+ * file không còn ai dùng được GC dọn định kỳ.
+ */
 @Service
+@Slf4j
 public class FileStorageService {
 
     // Thư mục lưu trữ file audio
@@ -47,6 +60,21 @@ public class FileStorageService {
         "image/jpeg", "image/jpg", "image/png", "image/gif"
     );
 
+    private final ContentAddressedMediaStore mediaStore;
+    private final ListeningLessonRepository listeningLessonRepository;
+    private final UserRepository userRepository;
+    private final Duration gcGracePeriod;
+
+    public FileStorageService(ContentAddressedMediaStore mediaStore,
+                              ListeningLessonRepository listeningLessonRepository,
+                              UserRepository userRepository,
+                              @Value("${app.file.gc.grace-hours:24}") long gcGraceHours) {
+        this.mediaStore = mediaStore;
+        this.listeningLessonRepository = listeningLessonRepository;
+        this.userRepository = userRepository;
+        this.gcGracePeriod = Duration.ofHours(gcGraceHours);
+    }
+
     /**
      * Lưu file audio và trả về đường dẫn
      * @param file MultipartFile cần lưu
@@ -63,17 +91,15 @@ public class FileStorageService {
             // Tạo thư mục nếu chưa tồn tại
             createDirectoryIfNotExists(UPLOAD_DIR);
 
-            // Tạo tên file unique
-            String uniqueFileName = generateUniqueFileName(file.getOriginalFilename());
-            
-            // Đường dẫn đầy đủ để lưu file
-            Path targetLocation = Paths.get(UPLOAD_DIR + uniqueFileName);
-
-            // Copy file vào thư mục đích
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            // Lưu theo hash nội dung, file trùng không ghi lại
+            ContentAddressedMediaStore.StoredBlob blob = mediaStore.store(
+                    file, UPLOAD_DIR, getFileExtension(file.getOriginalFilename()));
+            if (blob.duplicate()) {
+                log.info("Reusing existing audio blob {} for upload {}", blob.path(), file.getOriginalFilename());
+            }
 
             // Trả về đường dẫn tương đối
-            return UPLOAD_DIR + uniqueFileName;
+            return blob.path();
 
         } catch (IOException e) {
             throw new FileStorageException("Không thể lưu file audio: " + e.getMessage(), e);
@@ -91,6 +117,12 @@ public class FileStorageService {
                 throw new InvalidFileException("Tên file không được để trống");
             }
 
+            // File dùng chung theo nội dung: chỉ xóa khi không còn ai tham chiếu
+            if (mediaStore.isBlobPath(fileName) && listeningLessonRepository.existsByAudioUrlEndingWith(mediaStore.fileName(fileName))) {
+                log.info("File {} is still referenced, skipping delete", fileName);
+                return;
+            }
+
             Path filePath = Paths.get(fileName);
             File file = filePath.toFile();
 
@@ -145,29 +177,6 @@ public class FileStorageService {
         return true;
     }
 
-    /**
-     * Tạo tên file unique để tránh trùng lặp
-     * @param originalFileName Tên file gốc
-     * @return Tên file unique
-     */
-    private String generateUniqueFileName(String originalFileName) {
-        if (!StringUtils.hasText(originalFileName)) {
-            throw new InvalidFileException("Tên file gốc không hợp lệ");
-        }
-
-        // Lấy extension của file
-        String fileExtension = getFileExtension(originalFileName);
-        
-        // Tạo UUID unique
-        String uniqueId = UUID.randomUUID().toString();
-        
-        // Lấy timestamp hiện tại
-        long timestamp = System.currentTimeMillis();
-        
-        // Tạo tên file: timestamp_uuid.extension
-        return timestamp + "_" + uniqueId + "." + fileExtension;
-    }
-
     /**
      * Tạo thư mục nếu chưa tồn tại
      * @param directory Đường dẫn thư mục cần tạo
@@ -269,17 +278,15 @@ public class FileStorageService {
             // Tạo thư mục nếu chưa tồn tại
             createDirectoryIfNotExists(IMAGE_UPLOAD_DIR);
 
-            // Tạo tên file unique
-            String uniqueFileName = generateUniqueFileName(file.getOriginalFilename());
-            
-            // Đường dẫn đầy đủ để lưu file
-            Path targetLocation = Paths.get(IMAGE_UPLOAD_DIR + uniqueFileName);
-
-            // Copy file vào thư mục đích
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            // Lưu theo hash nội dung, file trùng không ghi lại
+            ContentAddressedMediaStore.StoredBlob blob = mediaStore.store(
+                    file, IMAGE_UPLOAD_DIR, getFileExtension(file.getOriginalFilename()));
+            if (blob.duplicate()) {
+                log.info("Reusing existing image blob {} for upload {}", blob.path(), file.getOriginalFilename());
+            }
 
             // Trả về đường dẫn tương đối
-            return IMAGE_UPLOAD_DIR + uniqueFileName;
+            return blob.path();
 
         } catch (IOException e) {
             throw new FileStorageException("Không thể lưu file ảnh: " + e.getMessage(), e);
@@ -329,6 +336,12 @@ public class FileStorageService {
                 throw new InvalidFileException("Tên file không được để trống");
             }
 
+            // File dùng chung theo nội dung: chỉ xóa khi không còn ai tham chiếu
+            if (mediaStore.isBlobPath(fileName) && userRepository.existsByAvatarUrlEndingWith(mediaStore.fileName(fileName))) {
+                log.info("File {} is still referenced, skipping delete", fileName);
+                return;
+            }
+
             Path filePath = Paths.get(fileName);
             File file = filePath.toFile();
 
@@ -347,6 +360,57 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * GC: xóa blob không còn được bài học/user nào tham chiếu.
+     * Chỉ xét blob cũ hơn grace period để không xóa file vừa upload nhưng chưa gắn vào bài học/avatar.
+     * @return số file đã xóa
+     */
+    @Scheduled(cron = "${app.file.gc.cron:0 0 3 * * *}")
+    public int collectOrphanedFiles() {
+        Set<String> referenced = new HashSet<>();
+        collectFileNames(listeningLessonRepository.findAllAudioUrls(), referenced);
+        collectFileNames(userRepository.findAllAvatarUrls(), referenced);
+
+        Instant before = Instant.now().minus(gcGracePeriod);
+        int deleted = 0;
+        for (String dir : List.of(UPLOAD_DIR, IMAGE_UPLOAD_DIR)) {
+            try {
+                for (Path blob : mediaStore.listBlobsOlderThan(dir, before)) {
+                    String name = blob.getFileName().toString();
+                    // Danh sách tham chiếu chụp trước khi liệt kê blob: hỏi lại database cho riêng blob này,
+                    // rồi xóa chỉ khi mtime vẫn cũ (upload trùng nội dung làm mới mtime)
+                    if (referenced.contains(name) || isReferenced(name)) {
+                        continue;
+                    }
+                    if (mediaStore.deleteIfOlderThan(blob, before)) {
+                        deleted++;
+                    }
+                }
+                mediaStore.purgeStaleTemp(dir, before);
+            } catch (IOException e) {
+                log.warn("Orphaned file collection failed for {}: {}", dir, e.getMessage());
+            }
+        }
+
+        if (deleted > 0) {
+            log.info("Removed {} orphaned media files", deleted);
+        }
+        return deleted;
+    }
+
+    private boolean isReferenced(String fileName) {
+        return listeningLessonRepository.existsByAudioUrlEndingWith(fileName)
+                || userRepository.existsByAvatarUrlEndingWith(fileName);
+    }
+
+    private void collectFileNames(List<String> urls, Set<String> target) {
+        for (String url : urls) {
+            if (mediaStore.isBlobPath(url)) {
+                target.add(mediaStore.fileName(url));
+            }
+        }
+    }
+
     /**
      * Inner class để chứa thông tin file
      */
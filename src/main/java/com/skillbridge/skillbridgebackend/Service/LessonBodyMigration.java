@@ -0,0 +1,107 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.entity.LessonBody;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bước migration sao chép nội dung bài học từ cột TEXT cũ (reading_lessons.content, listening_lessons.transcript)
+ * sang bảng lesson_bodies (đã nén). Chạy khi khởi tạo context, trước khi web server nhận request,
+ * bật / tắt bằng app.migration.lesson-bodies.enabled.
+ * Chỉ sao chép, không sửa hay xóa cột cũ: entity đọc từ lesson_bodies và chỉ đọc cột cũ (lazy) khi bài chưa có body,
+ * đồng thời vẫn ghi song song cột cũ nên node bản cũ trong lúc rolling deploy vẫn chạy bình thường.
+ * Bài mà node bản cũ sửa sau khi đã có body thì node mới vẫn đọc body cũ, nên rolling deploy cần kết thúc sớm.
+ * Cột cũ chỉ được xóa ở một bản phát hành sau, khi không còn node nào đọc nó (sao chép lại toàn bộ trước khi xóa).
+ */
+@Service
+@Slf4j
+public class LessonBodyMigration implements SmartInitializingSingleton {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    public LessonBodyMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               @Value("${app.migration.lesson-bodies.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    public void migrate() {
+        migrate("reading_lessons", "content", "content_body_id");
+        migrate("listening_lessons", "transcript", "transcript_body_id");
+    }
+
+    private void migrate(String table, String legacyColumn, String bodyColumn) {
+        Integer exists = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?",
+                Integer.class, table, legacyColumn);
+        if (exists == null || exists == 0) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        int migrated = 0;
+        List<Map<String, Object>> rows;
+        do {
+            rows = jdbcTemplate.queryForList("SELECT id, " + legacyColumn + " AS body FROM " + table +
+                    " WHERE " + bodyColumn + " IS NULL AND " + legacyColumn + " IS NOT NULL LIMIT " + BATCH_SIZE);
+            for (Map<String, Object> row : rows) {
+                Long lessonId = ((Number) row.get("id")).longValue();
+                LessonBody body = LessonBody.of((String) row.get("body"));
+                transactionTemplate.executeWithoutResult(status -> {
+                    Long bodyId = insertBody(body);
+                    // Node khác có thể vừa ghi body cho bài này: khi đó bỏ bản sao vừa tạo
+                    int updated = jdbcTemplate.update("UPDATE " + table + " SET " + bodyColumn + " = ? WHERE id = ? AND "
+                            + bodyColumn + " IS NULL", bodyId, lessonId);
+                    if (updated == 0) {
+                        jdbcTemplate.update("DELETE FROM lesson_bodies WHERE id = ?", bodyId);
+                    }
+                });
+            }
+            migrated += rows.size();
+        } while (rows.size() == BATCH_SIZE);
+
+        if (migrated > 0) {
+            log.info("Copied {} {}.{} values to lesson_bodies in {} ms", migrated, table, legacyColumn,
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    private Long insertBody(LessonBody body) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO lesson_bodies (encoding, original_length, data) VALUES (?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, body.getEncoding().name());
+            statement.setInt(2, body.getOriginalLength());
+            statement.setBytes(3, body.getData());
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+}
@@ -0,0 +1,493 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.entity.ListeningLesson;
+import com.skillbridge.skillbridgebackend.entity.Question;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Inverted index trong bộ nhớ cho tìm kiếm bài học (title, description, content/transcript).
+ * Token được chuẩn hóa: chữ thường, bỏ dấu tiếng Việt (mỗi ký tự map 1-1 nên vị trí trong văn bản gốc được giữ nguyên).
+ * Query khớp khi có đủ mọi từ; từ cuối được khớp theo tiền tố. Điểm = tổng trọng số field * idf.
+ * Giới hạn: chỉ lấy được MAX_RESULT_WINDOW kết quả đầu (offset + limit); tiền tố của từ cuối chỉ mở rộng
+ * ra tối đa MAX_PREFIX_EXPANSIONS term đầu tiên theo thứ tự chữ cái, các term sau bị bỏ qua (tiền tố quá ngắn
+ * như "a" có thể thiếu kết quả, người dùng gõ thêm ký tự sẽ có kết quả đầy đủ).
+ */
+public class LessonSearchIndex {
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float DESCRIPTION_WEIGHT = 2.0f;
+    private static final float BODY_WEIGHT = 1.0f;
+
+    /** Số kết quả tối đa có thể phân trang tới (offset + limit), giữ heap xếp hạng nhỏ */
+    public static final int MAX_RESULT_WINDOW = 1_000;
+    /** Số term tối đa (theo thứ tự chữ cái) được gộp khi khớp tiền tố từ cuối; các term sau bị bỏ qua */
+    static final int MAX_PREFIX_EXPANSIONS = 50;
+    private static final int COMPACT_MIN_DELETED = 1_000;
+    private static final int SNIPPET_LENGTH = 160;
+    private static final int SNIPPET_LEAD = 50;
+
+    private static final char[] FOLD_TABLE = buildFoldTable();
+
+    private static final Comparator<Scored> RANKING = Comparator.comparingDouble(Scored::score).reversed()
+            .thenComparing(s -> s.document().id(), Comparator.reverseOrder())
+            .thenComparing(s -> s.document().lessonType());
+
+    public record Document(Long id, Question.LessonType lessonType, String title, String description, String body,
+                           ListeningLesson.Status status, ListeningLesson.Level level, Long categoryId) {
+    }
+
+    public record Hit(Document document, double score, String highlightedTitle, String snippet) {
+    }
+
+    public record SearchResult(List<Hit> hits, int totalMatches) {
+    }
+
+    private record DocKey(Long id, Question.LessonType lessonType) {
+    }
+
+    private record Scored(Document document, double score) {
+    }
+
+    /**
+     * Danh sách (ordinal, trọng số) của một term, tăng dần theo ordinal vì ordinal chỉ được cấp tăng dần.
+     * Có thể chứa ordinal của bài đã xóa, được loại khi compact.
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        void add(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size++] = weight;
+        }
+
+        /**
+         * Tìm doc từ vị trí from (doc được duyệt tăng dần nên con trỏ chỉ tiến)
+         * @return vị trí của doc, hoặc -(vị trí chèn) - 1
+         */
+        int seek(int doc, int from) {
+            return Arrays.binarySearch(docs, from, size, doc);
+        }
+    }
+
+    // documents[ordinal] = null khi bài đã bị xóa hoặc thay thế
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<DocKey, Integer> ordinals = new HashMap<>();
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private int deletedCount;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ===== UPDATE =====
+
+    /**
+     * Thêm hoặc thay thế một bài học trong index
+     */
+    public void upsert(Document document) {
+        Document normalized = new Document(document.id(), document.lessonType(),
+                nfc(document.title()), nfc(document.description()), nfc(document.body()),
+                document.status(), document.level(), document.categoryId());
+
+        // Tính term ngoài lock, chỉ giữ write lock khi cập nhật postings
+        Map<String, Float> weights = termWeights(normalized);
+
+        DocKey key = new DocKey(document.id(), document.lessonType());
+        lock.writeLock().lock();
+        try {
+            removeInternal(key);
+            int ordinal = documents.size();
+            documents.add(normalized);
+            ordinals.put(key, ordinal);
+            weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new Postings()).add(ordinal, weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id, Question.LessonType lessonType) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(new DocKey(id, lessonType));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            ordinals.clear();
+            postings.clear();
+            deletedCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== SEARCH =====
+
+    /**
+     * Tìm các bài học khớp đủ mọi từ trong query, xếp hạng theo điểm giảm dần
+     * @param filter điều kiện lọc thêm (trạng thái, loại bài, level, danh mục)
+     * @throws IllegalArgumentException nếu offset âm hoặc offset + limit vượt MAX_RESULT_WINDOW
+     */
+    public SearchResult search(String query, Predicate<Document> filter, int offset, int limit) {
+        if (offset < 0 || (long) offset + Math.max(0, limit) > MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("Search window exceeds " + MAX_RESULT_WINDOW + " results");
+        }
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(nfc(query))));
+        if (terms.isEmpty() || limit <= 0) {
+            return new SearchResult(List.of(), 0);
+        }
+        String prefixTerm = terms.get(terms.size() - 1);
+
+        List<Scored> ranked;
+        int totalMatches = 0;
+
+        lock.readLock().lock();
+        try {
+            int documentCount = Math.max(1, ordinals.size());
+            List<Postings> termPostings = new ArrayList<>(terms.size());
+            for (int i = 0; i < terms.size(); i++) {
+                Postings termPosting = i == terms.size() - 1
+                        ? prefixPostings(terms.get(i))
+                        : postings.get(terms.get(i));
+                if (termPosting == null || termPosting.size == 0) {
+                    return new SearchResult(List.of(), 0);
+                }
+                termPostings.add(termPosting);
+            }
+
+            // Duyệt postings ngắn nhất, các postings còn lại chỉ seek về phía trước
+            termPostings.sort(Comparator.comparingInt(p -> p.size));
+            double[] idf = new double[termPostings.size()];
+            for (int i = 0; i < idf.length; i++) {
+                idf[i] = Math.log(1.0 + (double) documentCount / termPostings.get(i).size);
+            }
+            int[] cursors = new int[termPostings.size()];
+
+            // Heap giữ offset + limit kết quả tốt nhất
+            int keep = offset + limit;
+            PriorityQueue<Scored> top = new PriorityQueue<>(keep + 1, RANKING.reversed());
+            Postings driver = termPostings.get(0);
+            candidates:
+            for (int c = 0; c < driver.size; c++) {
+                int doc = driver.docs[c];
+                Document document = documents.get(doc);
+                if (document == null) {
+                    continue;
+                }
+
+                double score = driver.weights[c] * idf[0];
+                for (int i = 1; i < termPostings.size(); i++) {
+                    Postings other = termPostings.get(i);
+                    int position = other.seek(doc, cursors[i]);
+                    if (position < 0) {
+                        cursors[i] = -position - 1;
+                        if (cursors[i] >= other.size) {
+                            break candidates;
+                        }
+                        continue candidates;
+                    }
+                    cursors[i] = position;
+                    score += other.weights[position] * idf[i];
+                }
+
+                if (!filter.test(document)) {
+                    continue;
+                }
+
+                totalMatches++;
+                Scored scored = new Scored(document, score);
+                if (top.size() < keep) {
+                    top.offer(scored);
+                } else if (RANKING.compare(scored, top.peek()) < 0) {
+                    top.poll();
+                    top.offer(scored);
+                }
+            }
+
+            ranked = new ArrayList<>(top);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        ranked.sort(RANKING);
+
+        // Snippet tạo ngoài lock: Document là bất biến
+        Set<String> exactTerms = new LinkedHashSet<>(terms.subList(0, terms.size() - 1));
+        Predicate<String> matcher = token -> exactTerms.contains(token) || token.startsWith(prefixTerm);
+        List<Hit> hits = new ArrayList<>();
+        for (int i = offset; i < ranked.size(); i++) {
+            Document document = ranked.get(i).document();
+            hits.add(new Hit(document, ranked.get(i).score(),
+                    highlight(document.title(), matcher), snippet(document, matcher)));
+        }
+        return new SearchResult(hits, totalMatches);
+    }
+
+    // ===== INTERNALS =====
+
+    private void removeInternal(DocKey key) {
+        Integer ordinal = ordinals.remove(key);
+        if (ordinal == null) {
+            return;
+        }
+        documents.set(ordinal, null);
+        deletedCount++;
+
+        // Khi quá nhiều ordinal chết, đánh số lại và dựng lại postings
+        if (deletedCount > COMPACT_MIN_DELETED && deletedCount > documents.size() / 4) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        List<Document> live = new ArrayList<>(ordinals.size());
+        for (Document document : documents) {
+            if (document != null) {
+                live.add(document);
+            }
+        }
+        documents.clear();
+        ordinals.clear();
+        postings.clear();
+        deletedCount = 0;
+
+        for (Document document : live) {
+            int ordinal = documents.size();
+            documents.add(document);
+            ordinals.put(new DocKey(document.id(), document.lessonType()), ordinal);
+            termWeights(document).forEach((term, weight) ->
+                    postings.computeIfAbsent(term, t -> new Postings()).add(ordinal, weight));
+        }
+    }
+
+    /**
+     * Gộp postings của các term bắt đầu bằng prefix (tối đa MAX_PREFIX_EXPANSIONS term đầu theo thứ tự chữ cái),
+     * lấy trọng số lớn nhất. Mỗi query có tiền tố khớp nhiều term cấp một mảng float theo số ordinal
+     * (kể cả ordinal đã xóa chưa compact): 4 byte / bài, khoảng 40 KB với 10k bài.
+     */
+    private Postings prefixPostings(String prefix) {
+        SortedMap<String, Postings> matches = postings.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (matches.size() <= 1) {
+            return matches.isEmpty() ? null : matches.values().iterator().next();
+        }
+
+        // Gộp qua mảng dày theo ordinal để giữ thứ tự tăng dần
+        float[] merged = new float[documents.size()];
+        int expanded = 0;
+        for (Postings termPosting : matches.values()) {
+            for (int i = 0; i < termPosting.size; i++) {
+                merged[termPosting.docs[i]] = Math.max(merged[termPosting.docs[i]], termPosting.weights[i]);
+            }
+            if (++expanded >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+        }
+
+        Postings result = new Postings();
+        for (int doc = 0; doc < merged.length; doc++) {
+            if (merged[doc] > 0) {
+                result.add(doc, merged[doc]);
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Float> termWeights(Document document) {
+        Map<String, Float> weights = new HashMap<>();
+        addFieldTerms(weights, document.title(), TITLE_WEIGHT);
+        addFieldTerms(weights, document.description(), DESCRIPTION_WEIGHT);
+        addFieldTerms(weights, document.body(), BODY_WEIGHT);
+        return weights;
+    }
+
+    private static void addFieldTerms(Map<String, Float> weights, String text, float fieldWeight) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        for (String token : tokenize(text)) {
+            termFrequencies.merge(token, 1, Integer::sum);
+        }
+        // Tần suất bão hòa theo log để bài dài không lấn át tiêu đề
+        termFrequencies.forEach((term, tf) ->
+                weights.merge(term, fieldWeight * (1.0f + (float) Math.log(tf)), Float::sum));
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? fold(text.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                current.append(c);
+            } else if (current.length() > 0) {
+                if (isIndexable(current)) {
+                    tokens.add(current.toString());
+                }
+                current.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isIndexable(CharSequence token) {
+        return token.length() >= 2 || Character.isDigit(token.charAt(0));
+    }
+
+    private static String snippet(Document document, Predicate<String> matcher) {
+        for (String text : new String[]{document.body(), document.description()}) {
+            int position = firstMatch(text, matcher);
+            if (position >= 0) {
+                return excerpt(text, Math.max(0, position - SNIPPET_LEAD), matcher);
+            }
+        }
+        String fallback = document.description() != null && !document.description().isEmpty()
+                ? document.description() : document.body();
+        return fallback != null ? excerpt(fallback, 0, matcher) : "";
+    }
+
+    private static int firstMatch(String text, Predicate<String> matcher) {
+        if (text == null) {
+            return -1;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? fold(text.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                current.append(c);
+            } else if (current.length() > 0) {
+                if (isIndexable(current) && matcher.test(current.toString())) {
+                    return i - current.length();
+                }
+                current.setLength(0);
+            }
+        }
+        return -1;
+    }
+
+    private static String excerpt(String text, int start, Predicate<String> matcher) {
+        // Căn đầu/cuối đoạn trích theo ranh giới từ
+        while (start > 0 && start < text.length() && !Character.isWhitespace(text.charAt(start - 1))) {
+            start++;
+        }
+        int end = Math.min(text.length(), start + SNIPPET_LENGTH);
+        while (end < text.length() && end > start && !Character.isWhitespace(text.charAt(end))) {
+            end--;
+        }
+        if (end <= start) {
+            end = Math.min(text.length(), start + SNIPPET_LENGTH);
+        }
+
+        StringBuilder snippet = new StringBuilder();
+        if (start > 0) {
+            snippet.append("…");
+        }
+        snippet.append(highlight(text.substring(start, end).trim(), matcher));
+        if (end < text.length()) {
+            snippet.append("…");
+        }
+        return snippet.toString();
+    }
+
+    static String highlight(String text, Predicate<String> matcher) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder out = new StringBuilder(text.length() + 16);
+        int i = 0;
+        while (i < text.length()) {
+            if (!Character.isLetterOrDigit(fold(text.charAt(i)))) {
+                appendEscaped(out, text.charAt(i));
+                i++;
+                continue;
+            }
+            int start = i;
+            StringBuilder token = new StringBuilder();
+            while (i < text.length() && Character.isLetterOrDigit(fold(text.charAt(i)))) {
+                token.append(fold(text.charAt(i)));
+                i++;
+            }
+            boolean matched = isIndexable(token) && matcher.test(token.toString());
+            if (matched) {
+                out.append("<mark>");
+            }
+            for (int j = start; j < i; j++) {
+                appendEscaped(out, text.charAt(j));
+            }
+            if (matched) {
+                out.append("</mark>");
+            }
+        }
+        return out.toString();
+    }
+
+    private static void appendEscaped(StringBuilder out, char c) {
+        switch (c) {
+            case '&' -> out.append("&amp;");
+            case '<' -> out.append("&lt;");
+            case '>' -> out.append("&gt;");
+            case '"' -> out.append("&quot;");
+            case '\'' -> out.append("&#39;");
+            default -> out.append(c);
+        }
+    }
+
+    private static String nfc(String text) {
+        return text == null ? null : Normalizer.normalize(text, Normalizer.Form.NFC);
+    }
+
+    static char fold(char c) {
+        return c < FOLD_TABLE.length ? FOLD_TABLE[c] : Character.toLowerCase(c);
+    }
+
+    private static char[] buildFoldTable() {
+        // Latin + Latin mở rộng (gồm toàn bộ chữ tiếng Việt U+1E00-U+1EFF)
+        char[] table = new char[0x2000];
+        for (char c = 0; c < table.length; c++) {
+            char lower = Character.toLowerCase(c);
+            if (lower == 'đ') {
+                table[c] = 'd';
+            } else if (c < 128) {
+                table[c] = lower;
+            } else {
+                String decomposed = Normalizer.normalize(String.valueOf(lower), Normalizer.Form.NFD);
+                table[c] = Character.isLetter(decomposed.charAt(0)) ? decomposed.charAt(0) : lower;
+            }
+        }
+        return table;
+    }
+}
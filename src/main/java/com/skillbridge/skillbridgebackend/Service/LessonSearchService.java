@@ -0,0 +1,162 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.dto.LessonSearchPageDto;
+import com.skillbridge.skillbridgebackend.dto.LessonSearchResultDto;
+import com.skillbridge.skillbridgebackend.entity.ListeningLesson;
+import com.skillbridge.skillbridgebackend.entity.Question;
+import com.skillbridge.skillbridgebackend.entity.ReadingLesson;
+import com.skillbridge.skillbridgebackend.repository.ListeningLessonRepository;
+import com.skillbridge.skillbridgebackend.repository.ReadingLessonRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Tìm kiếm toàn văn bài học qua LessonSearchIndex.
+ * Index được nạp khi ứng dụng khởi động và cập nhật sau khi transaction tạo/sửa/xóa bài học commit.
+ */
+@Service
+@Slf4j
+public class LessonSearchService {
+
+    private static final int LOAD_BATCH_SIZE = 500;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final LessonSearchIndex index = new LessonSearchIndex();
+    private final ListeningLessonRepository listeningLessonRepository;
+    private final ReadingLessonRepository readingLessonRepository;
+
+    public LessonSearchService(ListeningLessonRepository listeningLessonRepository,
+                               ReadingLessonRepository readingLessonRepository) {
+        this.listeningLessonRepository = listeningLessonRepository;
+        this.readingLessonRepository = readingLessonRepository;
+    }
+
+    // ===== INDEXING =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        long start = System.currentTimeMillis();
+        index.clear();
+
+        Page<ListeningLesson> listeningPage;
+        int page = 0;
+        do {
+            listeningPage = listeningLessonRepository.findAllWithTranscript(PageRequest.of(page++, LOAD_BATCH_SIZE));
+            listeningPage.forEach(lesson -> index.upsert(toDocument(lesson)));
+        } while (listeningPage.hasNext());
+
+        Page<ReadingLesson> readingPage;
+        page = 0;
+        do {
+            readingPage = readingLessonRepository.findAllWithContent(PageRequest.of(page++, LOAD_BATCH_SIZE));
+            readingPage.forEach(lesson -> index.upsert(toDocument(lesson)));
+        } while (readingPage.hasNext());
+
+        log.info("Indexed {} lessons for search in {} ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    public void indexListeningLesson(ListeningLesson lesson) {
+        LessonSearchIndex.Document document = toDocument(lesson);
+        afterCommit(() -> index.upsert(document));
+    }
+
+    public void indexReadingLesson(ReadingLesson lesson) {
+        LessonSearchIndex.Document document = toDocument(lesson);
+        afterCommit(() -> index.upsert(document));
+    }
+
+    public void removeLesson(Long lessonId, Question.LessonType lessonType) {
+        afterCommit(() -> index.remove(lessonId, lessonType));
+    }
+
+    // ===== SEARCH =====
+
+    /**
+     * Tìm bài học đã publish, xếp hạng theo độ liên quan.
+     * Ném IllegalArgumentException (400) khi trang yêu cầu vượt quá LessonSearchIndex.MAX_RESULT_WINDOW kết quả.
+     */
+    public LessonSearchPageDto searchPublishedLessons(String query, String type, String level, Long categoryId,
+                                                      Integer page, Integer size) {
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        if ((long) (pageNumber + 1) * pageSize > LessonSearchIndex.MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("Chỉ xem được " + LessonSearchIndex.MAX_RESULT_WINDOW
+                    + " kết quả đầu tiên, hãy thu hẹp từ khóa tìm kiếm");
+        }
+
+        Predicate<LessonSearchIndex.Document> filter = doc -> doc.status() == ListeningLesson.Status.PUBLISHED;
+        if (type != null && !"all".equals(type)) {
+            Question.LessonType lessonType = Question.LessonType.valueOf(type.toUpperCase());
+            filter = filter.and(doc -> doc.lessonType() == lessonType);
+        }
+        if (level != null && !"all".equals(level)) {
+            ListeningLesson.Level lessonLevel = ListeningLesson.Level.valueOf(level.toUpperCase());
+            filter = filter.and(doc -> doc.level() == lessonLevel);
+        }
+        if (categoryId != null) {
+            filter = filter.and(doc -> categoryId.equals(doc.categoryId()));
+        }
+
+        LessonSearchIndex.SearchResult result = index.search(query, filter, pageNumber * pageSize, pageSize);
+        List<LessonSearchResultDto> items = result.hits().stream()
+                .map(this::toResultDto)
+                .collect(Collectors.toList());
+        return new LessonSearchPageDto(items, result.totalMatches(), pageNumber, pageSize);
+    }
+
+    private LessonSearchResultDto toResultDto(LessonSearchIndex.Hit hit) {
+        LessonSearchIndex.Document document = hit.document();
+        LessonSearchResultDto dto = new LessonSearchResultDto();
+        dto.setId(document.id());
+        dto.setType(document.lessonType().name().toLowerCase());
+        dto.setTitle(document.title());
+        dto.setHighlightedTitle(hit.highlightedTitle());
+        dto.setDescription(document.description());
+        dto.setLevel(document.level() != null ? document.level().name() : null);
+        dto.setCategoryId(document.categoryId());
+        dto.setSnippet(hit.snippet());
+        dto.setScore(hit.score());
+        return dto;
+    }
+
+    private LessonSearchIndex.Document toDocument(ListeningLesson lesson) {
+        return new LessonSearchIndex.Document(lesson.getId(), Question.LessonType.LISTENING,
+                lesson.getTitle(), lesson.getDescription(), lesson.getTranscript(),
+                lesson.getStatus(), lesson.getLevel(),
+                lesson.getCategory() != null ? lesson.getCategory().getId() : null);
+    }
+
+    private LessonSearchIndex.Document toDocument(ReadingLesson lesson) {
+        return new LessonSearchIndex.Document(lesson.getId(), Question.LessonType.READING,
+                lesson.getTitle(), lesson.getDescription(), lesson.getContent(),
+                lesson.getStatus(), lesson.getLevel(),
+                lesson.getCategory() != null ? lesson.getCategory().getId() : null);
+    }
+
+    /**
+     * Chỉ cập nhật index khi transaction đã commit, tránh index dữ liệu bị rollback
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -12,6 +12,7 @@ import com.skillbridge.skillbridgebackend.repository.QuestionRepository;
 import com.skillbridge.skillbridgebackend.exception.UserNotFoundException;
 import com.skillbridge.skillbridgebackend.exception.CategoryNotFoundException;
 import com.skillbridge.skillbridgebackend.exception.LessonNotFoundException;
+import com.skillbridge.skillbridgebackend.mapper.ListeningLessonMapper;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
@@ -29,17 +30,29 @@ public class ListeningLessonService {
     private final UserRepository userRepository;
     private final VocabularyService vocabularyService;
     private final QuestionRepository questionRepository;
+    private final LessonSearchService lessonSearchService;
+    private final AnswerKeyCache answerKeyCache;
+    private final AudioAnalysisService audioAnalysisService;
+    private final CatalogCache catalogCache;
 
     public ListeningLessonService(ListeningLessonRepository lessonRepository,
                                   CategoryRepository categoryRepository,
                                   UserRepository userRepository,
                                   VocabularyService vocabularyService,
-                                  QuestionRepository questionRepository) {
+                                  QuestionRepository questionRepository,
+                                  LessonSearchService lessonSearchService,
+                                  AnswerKeyCache answerKeyCache,
+                                  AudioAnalysisService audioAnalysisService,
+                                  CatalogCache catalogCache) {
         this.lessonRepository = lessonRepository;
         this.categoryRepository = categoryRepository;
         this.userRepository = userRepository;
         this.vocabularyService = vocabularyService;
         this.questionRepository = questionRepository;
+        this.lessonSearchService = lessonSearchService;
+        this.answerKeyCache = answerKeyCache;
+        this.audioAnalysisService = audioAnalysisService;
+        this.catalogCache = catalogCache;
     }
 
     public ListeningLesson createLesson(ListeningLessonCreateDto createDto, Long teacherId) {
@@ -56,27 +69,62 @@ public class ListeningLessonService {
         lesson.setCategory(category);
         lesson.setAudioUrl(createDto.getAudioUrl());
         lesson.setTranscript(createDto.getTranscript());
-        lesson.setDurationSeconds(createDto.getDurationSeconds());
+        // Ưu tiên thời lượng đo từ file nếu đã phân tích xong
+        Integer analyzedDuration = audioAnalysisService.findAnalyzedDuration(createDto.getAudioUrl());
+        lesson.setDurationSeconds(analyzedDuration != null ? analyzedDuration : createDto.getDurationSeconds());
         lesson.setCreatedBy(teacher);
         lesson.setStatus(ListeningLesson.Status.DRAFT);
 
-        return lessonRepository.save(lesson);
+        ListeningLesson saved = lessonRepository.save(lesson);
+        lessonSearchService.indexListeningLesson(saved);
+        catalogCache.invalidateLesson(saved.getId(), Question.LessonType.LISTENING);
+        audioAnalysisService.submit(saved.getAudioUrl());
+        return saved;
     }
 
     public List<ListeningLesson> getPublishedLessons() {
         return lessonRepository.findByStatus(ListeningLesson.Status.PUBLISHED);
     }
 
+    /**
+     * Danh sách bài đã publish dạng DTO, đọc qua cache catalog
+     */
+    public List<ListeningLessonDto> getPublishedLessonDtos() {
+        return catalogCache.get(CatalogCache.Region.PUBLISHED_LESSONS, Question.LessonType.LISTENING,
+                () -> List.copyOf(ListeningLessonMapper.toListDtos(
+                        lessonRepository.findListRows(ListeningLesson.Status.PUBLISHED, null, null, null))));
+    }
+
+    /**
+     * Chi tiết bài học dạng DTO, đọc qua cache catalog
+     */
+    public ListeningLessonDto getLessonDto(Long lessonId) {
+        return catalogCache.get(CatalogCache.Region.LESSONS,
+                new CatalogCache.LessonKey(lessonId, Question.LessonType.LISTENING),
+                () -> ListeningLessonMapper.toDto(findById(lessonId)));
+    }
+
     public List<ListeningLesson> getLessonsByLevelAndCategory(ListeningLesson.Level level, Long categoryId) {
         return lessonRepository.findPublishedByLevelAndCategory(level, categoryId);
     }
 
+    /**
+     * Bài đã publish theo level và category dạng DTO danh sách (một truy vấn, kèm số câu hỏi / từ vựng)
+     */
+    public List<ListeningLessonDto> getLessonDtosByLevelAndCategory(ListeningLesson.Level level, Long categoryId) {
+        return ListeningLessonMapper.toListDtos(
+                lessonRepository.findListRows(ListeningLesson.Status.PUBLISHED, level, categoryId, null));
+    }
+
     public ListeningLesson publishLesson(Long lessonId) {
         ListeningLesson lesson = lessonRepository.findById(lessonId)
                 .orElseThrow(() -> new LessonNotFoundException("Không tìm thấy bài học"));
 
         lesson.setStatus(ListeningLesson.Status.PUBLISHED);
-        return lessonRepository.save(lesson);
+        ListeningLesson saved = lessonRepository.save(lesson);
+        lessonSearchService.indexListeningLesson(saved);
+        catalogCache.invalidateLesson(lessonId, Question.LessonType.LISTENING);
+        return saved;
     }
 
     public ListeningLesson findById(Long lessonId) {
@@ -173,6 +221,16 @@ public class ListeningLessonService {
         }
     }
 
+    // Danh sách cho admin/teacher dạng DTO, cùng quy tắc phân quyền như getAllLessonsForAdmin
+    public List<ListeningLessonDto> getAllLessonDtosForAdmin(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException("Không tìm thấy người dùng"));
+
+        Long createdById = user.getRole() == User.Role.ADMIN || user.getRole() == User.Role.TEACHER
+                ? null : user.getId();
+        return ListeningLessonMapper.toListDtos(lessonRepository.findListRows(null, null, null, createdById));
+    }
+
     // 2. Cập nhật bài học
     public ListeningLesson updateLesson(Long lessonId, ListeningLessonUpdateDto updateDto, Long userId) {
         ListeningLesson lesson = findById(lessonId);
@@ -196,7 +254,10 @@ public class ListeningLessonService {
         if (updateDto.getTranscript() != null) lesson.setTranscript(updateDto.getTranscript());
         if (updateDto.getDurationSeconds() != null) lesson.setDurationSeconds(updateDto.getDurationSeconds());
 
-        return lessonRepository.save(lesson);
+        ListeningLesson saved = lessonRepository.save(lesson);
+        lessonSearchService.indexListeningLesson(saved);
+        catalogCache.invalidateLesson(lessonId, Question.LessonType.LISTENING);
+        return saved;
     }
 
     // 3. Xóa bài học (soft delete)
@@ -213,6 +274,9 @@ public class ListeningLessonService {
         // Soft delete: thêm field deleted vào entity (khuyến nghị)
         // Hoặc hard delete nếu chắc chắn
         lessonRepository.delete(lesson);
+        lessonSearchService.removeLesson(lessonId, Question.LessonType.LISTENING);
+        answerKeyCache.invalidate(lessonId, Question.LessonType.LISTENING);
+        catalogCache.invalidateQuestions(lessonId, Question.LessonType.LISTENING);
         return true;
     }
 
@@ -239,6 +303,9 @@ public class ListeningLessonService {
         }
 
         lesson.setStatus(newStatus);
-        return lessonRepository.save(lesson);
+        ListeningLesson saved = lessonRepository.save(lesson);
+        lessonSearchService.indexListeningLesson(saved);
+        catalogCache.invalidateLesson(lessonId, Question.LessonType.LISTENING);
+        return saved;
     }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Lưu media vào thư mục local (thay Cloudinary khi chạy local, test và benchmark).
+ * File được serve qua /api/uploads/** (xem WebConfig).
+ */
+@Component
+@ConditionalOnProperty(name = "app.media.storage", havingValue = "local")
+public class LocalMediaStorage implements MediaStorage {
+
+    private static final String URL_PREFIX = "/api/uploads/";
+
+    private final Path rootDir;
+
+    public LocalMediaStorage(@Value("${app.media.local-dir:uploads/}") String rootDir) {
+        this.rootDir = Paths.get(rootDir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public StoredMedia upload(UploadRequest request, MediaSource source) throws IOException {
+        Path target = resolve(request.publicId(), request.format());
+        Files.createDirectories(target.getParent());
+
+        // Ghi ra file tạm rồi move để không ai đọc được file đang ghi dở
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try (InputStream in = source.open()) {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        String url = URL_PREFIX + rootDir.relativize(target).toString().replace('\\', '/');
+        return new StoredMedia(request.publicId(), url, url, request.format(), request.resourceType(),
+                Files.size(target), null, null, null);
+    }
+
+    @Override
+    public boolean delete(String publicId, String resourceType) throws IOException {
+        Path dir = resolve(publicId, "").getParent();
+        String baseName = Paths.get(publicId).getFileName().toString();
+        if (!Files.isDirectory(dir)) {
+            return false;
+        }
+        boolean deleted = false;
+        try (var files = Files.newDirectoryStream(dir, baseName + ".*")) {
+            for (Path file : files) {
+                deleted |= Files.deleteIfExists(file);
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public String url(String publicId, String resourceType, Integer width, Integer height) {
+        Path dir = resolve(publicId, "").getParent();
+        String baseName = Paths.get(publicId).getFileName().toString();
+        if (Files.isDirectory(dir)) {
+            try (var files = Files.newDirectoryStream(dir, baseName + ".*")) {
+                for (Path file : files) {
+                    return URL_PREFIX + rootDir.relativize(file).toString().replace('\\', '/');
+                }
+            } catch (IOException e) {
+                // Không đọc được thư mục thì trả URL không có đuôi file
+            }
+        }
+        return URL_PREFIX + publicId;
+    }
+
+    private Path resolve(String publicId, String format) {
+        String fileName = format == null || format.isEmpty() ? publicId : publicId + "." + format;
+        Path target = rootDir.resolve(fileName).normalize();
+        if (!target.startsWith(rootDir)) {
+            throw new IllegalArgumentException("Public ID không hợp lệ: " + publicId);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,43 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Backend lưu trữ media (Cloudinary hoặc thư mục local).
+ * Nội dung được đọc dạng stream từ MediaSource, không yêu cầu nạp toàn bộ file vào bộ nhớ.
+ */
+public interface MediaStorage {
+
+    /**
+     * Nguồn dữ liệu có thể mở lại (dùng khi cần upload tiếp từ một offset sau lỗi mạng)
+     */
+    @FunctionalInterface
+    interface MediaSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * @param publicId     đường dẫn logic, ví dụ skillbridge/audio/abc_1234
+     * @param resourceType "image" hoặc "video" (Cloudinary dùng "video" cho audio)
+     * @param size         kích thước file (byte)
+     * @param options      tham số bổ sung cho backend (quality, fetch_format...)
+     */
+    record UploadRequest(String publicId, String resourceType, String format, long size,
+                         Map<String, Object> options) {
+    }
+
+    record StoredMedia(String publicId, String secureUrl, String url, String format, String resourceType,
+                       long bytes, Double duration, Integer width, Integer height) {
+    }
+
+    StoredMedia upload(UploadRequest request, MediaSource source) throws IOException;
+
+    boolean delete(String publicId, String resourceType) throws IOException;
+
+    /**
+     * URL truy cập file; width/height (nếu có) dùng để resize ảnh khi backend hỗ trợ
+     */
+    String url(String publicId, String resourceType, Integer width, Integer height);
+}
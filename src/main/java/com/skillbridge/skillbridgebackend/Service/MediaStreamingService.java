@@ -0,0 +1,304 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Phục vụ file media (audio) theo HTTP: Range một/nhiều đoạn (206), GET có điều kiện (304)
+ * và gửi byte bằng sendfile của Tomcat hoặc FileChannel.transferTo, không nạp file vào heap.
+ */
+@Service
+public class MediaStreamingService {
+
+    // Gộp xong vẫn quá nhiều đoạn thì bỏ qua Range và trả cả file
+    private static final int MAX_RANGES = 16;
+    private static final String CACHE_CONTROL = "public, max-age=3600";
+
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Đoạn byte [start, end] (end tính cả)
+     */
+    record ByteRange(long start, long end) {
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    private final Path audioDir;
+
+    public MediaStreamingService(@Value("${app.file.upload-dir:uploads/audio/}") String audioDir) {
+        this.audioDir = Paths.get(audioDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Tìm file audio trong thư mục upload; null nếu không tồn tại hoặc tên file trỏ ra ngoài thư mục
+     */
+    public Path resolveAudio(String filename) {
+        Path filePath = audioDir.resolve(filename).normalize();
+        if (!filePath.startsWith(audioDir) || !Files.isRegularFile(filePath) || !Files.isReadable(filePath)) {
+            return null;
+        }
+        return filePath;
+    }
+
+    public void serve(Path file, MediaType mediaType, String filename,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        // HTTP date chỉ chính xác tới giây
+        long lastModified = attributes.lastModifiedTime().toMillis() / 1000 * 1000;
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"");
+        boolean writeBody = !"HEAD".equalsIgnoreCase(request.getMethod());
+
+        List<ByteRange> ranges = null;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isIfRangeSatisfied(request, etag, lastModified)) {
+            ranges = parseRanges(rangeHeader, length);
+            if (ranges != null && ranges.isEmpty()) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+        }
+
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(mediaType.toString());
+            response.setContentLengthLong(length);
+            if (writeBody) {
+                sendRegion(file, 0, length, request, response);
+            }
+        } else if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(mediaType.toString());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(range, length));
+            response.setContentLengthLong(range.length());
+            if (writeBody) {
+                sendRegion(file, range.start(), range.length(), request, response);
+            }
+        } else {
+            sendMultipart(file, mediaType, ranges, length, writeBody, response);
+        }
+    }
+
+    // ===== CONDITIONAL REQUESTS =====
+
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // Có If-None-Match thì bỏ qua If-Modified-Since (RFC 7232)
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || stripWeak(tag).equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = readDateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * If-Range khớp (ETag mạnh hoặc đúng Last-Modified) thì mới áp dụng Range, ngược lại trả cả file
+     */
+    private boolean isIfRangeSatisfied(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        long date = readDateHeader(request, HttpHeaders.IF_RANGE);
+        return date == lastModified;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static long readDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    // ===== RANGE PARSING =====
+
+    /**
+     * Parse header Range, gộp các đoạn chồng lấn/liền kề.
+     * Trả về null nếu header sai cú pháp hoặc quá nhiều đoạn (bỏ qua Range),
+     * danh sách rỗng nếu không đoạn nào thỏa mãn được (416).
+     */
+    static List<ByteRange> parseRanges(String header, long length) {
+        if (!header.startsWith("bytes=")) {
+            return null;
+        }
+
+        List<ByteRange> ranges = new ArrayList<>();
+        for (String part : header.substring(6).split(",")) {
+            String spec = part.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            long start;
+            long end;
+            try {
+                if (dash == 0) {
+                    // "-n": n byte cuối
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix <= 0) {
+                        continue;
+                    }
+                    start = Math.max(0, length - suffix);
+                    end = length - 1;
+                } else {
+                    start = Long.parseLong(spec.substring(0, dash));
+                    if (dash == spec.length() - 1) {
+                        end = length - 1;
+                    } else {
+                        end = Long.parseLong(spec.substring(dash + 1));
+                        if (end < start) {
+                            return null;
+                        }
+                        end = Math.min(end, length - 1);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (start < length && start <= end) {
+                ranges.add(new ByteRange(start, end));
+            }
+        }
+
+        if (ranges.size() <= 1) {
+            return ranges;
+        }
+        ranges.sort(Comparator.comparingLong(ByteRange::start));
+        List<ByteRange> merged = new ArrayList<>();
+        ByteRange current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            ByteRange next = ranges.get(i);
+            if (next.start() <= current.end() + 1) {
+                current = new ByteRange(current.start(), Math.max(current.end(), next.end()));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged.size() > MAX_RANGES ? null : merged;
+    }
+
+    private static String contentRange(ByteRange range, long length) {
+        return "bytes " + range.start() + "-" + range.end() + "/" + length;
+    }
+
+    // ===== BODY =====
+
+    /**
+     * Gửi một đoạn liên tục: dùng sendfile của Tomcat nếu connector hỗ trợ,
+     * ngược lại transferTo thẳng vào output stream của response
+     */
+    private void sendRegion(Path file, long start, long count, HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(channel, start, count, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    private void sendMultipart(Path file, MediaType mediaType, List<ByteRange> ranges, long length,
+                               boolean writeBody, HttpServletResponse response) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (ByteRange range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + mediaType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(range, length) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + range.length();
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (!writeBody) {
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                transfer(channel, ranges.get(i).start(), ranges.get(i).length(), target);
+            }
+        }
+        out.write(closing);
+    }
+
+    private static void transfer(FileChannel channel, long position, long count, WritableByteChannel target)
+            throws IOException {
+        long end = position + count;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0) {
+                break;
+            }
+            position += sent;
+        }
+    }
+}
@@ -15,7 +15,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -25,23 +24,30 @@ public class QuestionService {
     private final ListeningLessonRepository listeningLessonRepository;
     private final ReadingLessonRepository readingLessonRepository;
     private final QuestionMapper questionMapper;
+    private final AnswerKeyCache answerKeyCache;
+    private final CatalogCache catalogCache;
     
     // Constructor injection
     public QuestionService(QuestionRepository questionRepository,
                           ListeningLessonRepository listeningLessonRepository,
                           ReadingLessonRepository readingLessonRepository,
-                          QuestionMapper questionMapper) {
+                          QuestionMapper questionMapper,
+                          AnswerKeyCache answerKeyCache,
+                          CatalogCache catalogCache) {
         this.questionRepository = questionRepository;
         this.listeningLessonRepository = listeningLessonRepository;
         this.readingLessonRepository = readingLessonRepository;
         this.questionMapper = questionMapper;
+        this.answerKeyCache = answerKeyCache;
+        this.catalogCache = catalogCache;
     }
     
     public List<QuestionDto> getQuestionsByLesson(Long lessonId, Question.LessonType lessonType) {
-        List<Question> questions = questionRepository.findByLessonIdAndType(lessonId);
-        return questions.stream()
-                .map(questionMapper::toDto)
-                .collect(Collectors.toList());
+        // Truy vấn lấy câu hỏi theo lessonId của cả hai loại bài nên cache cũng theo lessonId
+        return catalogCache.get(CatalogCache.Region.LESSON_QUESTIONS, lessonId,
+                () -> questionRepository.findByLessonIdAndType(lessonId).stream()
+                        .map(questionMapper::toDto)
+                        .toList());
     }
 
     public QuestionDto createQuestion(QuestionCreateDto dto) {
@@ -67,6 +73,7 @@ public class QuestionService {
         }
 
         Question savedQuestion = questionRepository.save(question);
+        invalidateAnswerKey(savedQuestion);
         return questionMapper.toDto(savedQuestion);
     }
     
@@ -86,14 +93,15 @@ public class QuestionService {
         question.setPoints(dto.getPoints());
         
         Question updatedQuestion = questionRepository.save(question);
+        invalidateAnswerKey(updatedQuestion);
         return questionMapper.toDto(updatedQuestion);
     }
     
     public void deleteQuestion(Long id) {
-        if (!questionRepository.existsById(id)) {
-            throw new RuntimeException("Question not found");
-        }
-        questionRepository.deleteById(id);
+        Question question = questionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Question not found"));
+        questionRepository.delete(question);
+        invalidateAnswerKey(question);
     }
     
     public QuestionDto getQuestionById(Long id) {
@@ -101,4 +109,16 @@ public class QuestionService {
                 .orElseThrow(() -> new RuntimeException("Question not found"));
         return questionMapper.toDto(question);
     }
-}
\ No newline at end of file
+
+    // Đáp án của bài học thay đổi -> bỏ cache chấm bài và cache câu hỏi / thông tin bài học đó
+    private void invalidateAnswerKey(Question question) {
+        if (question.getListeningLesson() != null) {
+            answerKeyCache.invalidate(question.getListeningLesson().getId(), Question.LessonType.LISTENING);
+            catalogCache.invalidateQuestions(question.getListeningLesson().getId(), Question.LessonType.LISTENING);
+        }
+        if (question.getReadingLesson() != null) {
+            answerKeyCache.invalidate(question.getReadingLesson().getId(), Question.LessonType.READING);
+            catalogCache.invalidateQuestions(question.getReadingLesson().getId(), Question.LessonType.READING);
+        }
+    }
+}
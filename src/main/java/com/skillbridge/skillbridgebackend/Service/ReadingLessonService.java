@@ -2,9 +2,11 @@
 package com.skillbridge.skillbridgebackend.Service;
 
 import com.skillbridge.skillbridgebackend.dto.ReadingLessonCreateDto;
+import com.skillbridge.skillbridgebackend.dto.ReadingLessonDto;
 import com.skillbridge.skillbridgebackend.entity.*;
 import com.skillbridge.skillbridgebackend.repository.*;
 import com.skillbridge.skillbridgebackend.exception.*;
+import com.skillbridge.skillbridgebackend.mapper.ReadingLessonMapper;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
@@ -19,15 +21,24 @@ public class ReadingLessonService {
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
     private final QuestionRepository questionRepository;
+    private final LessonSearchService lessonSearchService;
+    private final AnswerKeyCache answerKeyCache;
+    private final CatalogCache catalogCache;
 
     public ReadingLessonService(ReadingLessonRepository readingLessonRepository,
                                 CategoryRepository categoryRepository,
                                 UserRepository userRepository,
-                                QuestionRepository questionRepository) {
+                                QuestionRepository questionRepository,
+                                LessonSearchService lessonSearchService,
+                                AnswerKeyCache answerKeyCache,
+                                CatalogCache catalogCache) {
         this.readingLessonRepository = readingLessonRepository;
         this.categoryRepository = categoryRepository;
         this.userRepository = userRepository;
         this.questionRepository = questionRepository;
+        this.lessonSearchService = lessonSearchService;
+        this.answerKeyCache = answerKeyCache;
+        this.catalogCache = catalogCache;
     }
 
     // Tạo bài đọc mới
@@ -51,7 +62,10 @@ public class ReadingLessonService {
         lesson.setCreatedBy(teacher);
         lesson.setStatus(ListeningLesson.Status.DRAFT);
 
-        return readingLessonRepository.save(lesson);
+        ReadingLesson saved = readingLessonRepository.save(lesson);
+        lessonSearchService.indexReadingLesson(saved);
+        catalogCache.invalidateLesson(saved.getId(), Question.LessonType.READING);
+        return saved;
     }
 
     // Tính số từ trong content
@@ -80,11 +94,35 @@ public class ReadingLessonService {
         }
     }
 
+    // Danh sách cho admin/teacher dạng DTO (một truy vấn, kèm số câu hỏi), cùng quy tắc phân quyền
+    public List<ReadingLessonDto> getAllReadingLessonDtosForAdmin(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException("Không tìm thấy người dùng"));
+
+        Long createdById = user.getRole() == User.Role.ADMIN || user.getRole() == User.Role.TEACHER
+                ? null : userId;
+        return ReadingLessonMapper.toListDtos(readingLessonRepository.findListRows(null, createdById));
+    }
+
     // Lấy bài published
     public List<ReadingLesson> getPublishedReadingLessons() {
         return readingLessonRepository.findByStatus(ListeningLesson.Status.PUBLISHED);
     }
 
+    // Danh sách bài published dạng DTO, đọc qua cache catalog
+    public List<ReadingLessonDto> getPublishedReadingLessonDtos() {
+        return catalogCache.get(CatalogCache.Region.PUBLISHED_LESSONS, Question.LessonType.READING,
+                () -> List.copyOf(ReadingLessonMapper.toListDtos(
+                        readingLessonRepository.findListRows(ListeningLesson.Status.PUBLISHED, null))));
+    }
+
+    // Chi tiết bài đọc dạng DTO, đọc qua cache catalog
+    public ReadingLessonDto getReadingLessonDto(Long lessonId) {
+        return catalogCache.get(CatalogCache.Region.LESSONS,
+                new CatalogCache.LessonKey(lessonId, Question.LessonType.READING),
+                () -> ReadingLessonMapper.toDto(findById(lessonId)));
+    }
+
     // Lấy chi tiết bài đọc
     public ReadingLesson findById(Long lessonId) {
         return readingLessonRepository.findById(lessonId)
@@ -115,7 +153,10 @@ public class ReadingLessonService {
             lesson.setCategory(category);
         }
 
-        return readingLessonRepository.save(lesson);
+        ReadingLesson saved = readingLessonRepository.save(lesson);
+        lessonSearchService.indexReadingLesson(saved);
+        catalogCache.invalidateLesson(saved.getId(), Question.LessonType.READING);
+        return saved;
     }
 
     // Xóa bài đọc
@@ -130,6 +171,9 @@ public class ReadingLessonService {
         }
 
         readingLessonRepository.delete(lesson);
+        lessonSearchService.removeLesson(lessonId, Question.LessonType.READING);
+        answerKeyCache.invalidate(lessonId, Question.LessonType.READING);
+        catalogCache.invalidateQuestions(lessonId, Question.LessonType.READING);
         return true;
     }
 
@@ -156,7 +200,10 @@ public class ReadingLessonService {
         }
 
         lesson.setStatus(newStatus);
-        return readingLessonRepository.save(lesson);
+        ReadingLesson saved = readingLessonRepository.save(lesson);
+        lessonSearchService.indexReadingLesson(saved);
+        catalogCache.invalidateLesson(saved.getId(), Question.LessonType.READING);
+        return saved;
     }
 
     // Validate bài đọc trước khi publish
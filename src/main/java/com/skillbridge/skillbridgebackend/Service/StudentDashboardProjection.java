@@ -0,0 +1,171 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.entity.Question;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Số liệu dashboard của một học viên dạng đã giải mã (không truy cập DB).
+ * Một bài nộp được áp dụng bằng cách trừ phần đóng góp của progress cũ rồi cộng phần của progress mới,
+ * nên kết quả luôn khớp với việc tính lại từ toàn bộ user_lesson_progress.
+ */
+public final class StudentDashboardProjection {
+
+    /**
+     * Tổng theo ngày hoàn thành (chỉ tính progress có completedAt và điểm, giống biểu đồ weeklyProgress cũ)
+     */
+    public record DayBucket(BigDecimal scoreSum, int scoreCount, int timeSpent) {
+    }
+
+    /**
+     * Một dòng "hoạt động gần đây", tên bài học được lưu sẵn lúc nộp bài
+     */
+    public record RecentActivity(Long lessonId, String lessonType, String lessonTitle, BigDecimal score,
+                                 Integer timeSpent, LocalDateTime completedAt, boolean completed) {
+    }
+
+    /**
+     * Trạng thái một progress: trước khi nộp lại (từ findCompletionState) hoặc khi rebuild
+     */
+    public record ProgressState(boolean completed, LocalDateTime completedAt, BigDecimal score, Integer timeSpent) {
+    }
+
+    int completedLessons;
+    int listeningCount;
+    int readingCount;
+    BigDecimal scoreSum = BigDecimal.ZERO;
+    int scoreCount;
+    long totalTimeSeconds;
+    int vocabularyCount;
+    final TreeMap<LocalDate, DayBucket> dailyBuckets = new TreeMap<>();
+    final List<RecentActivity> recentActivities = new ArrayList<>();
+
+    /**
+     * Áp dụng một bài nộp: progress (lessonId, lessonType) được ghi đè bằng kết quả mới
+     * @param previous trạng thái progress trước khi ghi đè, null nếu đây là lần đầu học bài này
+     */
+    void applySubmission(ProgressState previous, Long lessonId, Question.LessonType lessonType, String lessonTitle,
+                         BigDecimal score, Integer timeSpent, LocalDateTime completedAt) {
+        if (previous == null) {
+            countLesson(lessonType, 1);
+        } else {
+            contribute(previous, -1);
+        }
+        BigDecimal storedScore = score != null ? score.setScale(2, RoundingMode.HALF_UP) : null;
+        contribute(new ProgressState(true, completedAt, storedScore, timeSpent), 1);
+
+        String type = lessonType.name().toLowerCase();
+        recentActivities.removeIf(a -> a.lessonId().equals(lessonId) && a.lessonType().equals(type));
+        recentActivities.add(0, new RecentActivity(lessonId, type, lessonTitle, storedScore, timeSpent, completedAt, true));
+    }
+
+    /**
+     * Cộng một progress đã có (dùng khi rebuild từ dữ liệu gốc)
+     */
+    void addProgress(Question.LessonType lessonType, ProgressState state) {
+        countLesson(lessonType, 1);
+        contribute(state, 1);
+    }
+
+    /**
+     * Giới hạn kích thước: giữ limit hoạt động gần nhất và các ngày từ oldestDay trở đi
+     */
+    void trim(int recentLimit, LocalDate oldestDay) {
+        while (recentActivities.size() > recentLimit) {
+            recentActivities.remove(recentActivities.size() - 1);
+        }
+        dailyBuckets.headMap(oldestDay).clear();
+    }
+
+    double averageScore() {
+        return scoreCount > 0
+                ? scoreSum.divide(BigDecimal.valueOf(scoreCount), 6, RoundingMode.HALF_UP).doubleValue()
+                : 0.0;
+    }
+
+    /**
+     * Dữ liệu biểu đồ theo ngày: [{date, score (trung bình), timeSpent}] theo thứ tự ngày
+     */
+    List<Map<String, Object>> weeklyProgress() {
+        List<Map<String, Object>> days = new ArrayList<>();
+        for (Map.Entry<LocalDate, DayBucket> entry : dailyBuckets.entrySet()) {
+            DayBucket bucket = entry.getValue();
+            Map<String, Object> dayData = new HashMap<>();
+            dayData.put("date", entry.getKey().toString());
+            dayData.put("score", bucket.scoreSum().divide(BigDecimal.valueOf(bucket.scoreCount()), 6,
+                    RoundingMode.HALF_UP).doubleValue());
+            dayData.put("timeSpent", bucket.timeSpent());
+            days.add(dayData);
+        }
+        return days;
+    }
+
+    /**
+     * Số progress theo loại bài: [{level, count}], bỏ qua loại chưa có progress
+     */
+    List<Map<String, Object>> levelProgress() {
+        List<Map<String, Object>> levels = new ArrayList<>();
+        addLevel(levels, Question.LessonType.LISTENING, listeningCount);
+        addLevel(levels, Question.LessonType.READING, readingCount);
+        return levels;
+    }
+
+    private void addLevel(List<Map<String, Object>> levels, Question.LessonType type, int count) {
+        if (count > 0) {
+            Map<String, Object> levelData = new HashMap<>();
+            levelData.put("level", type.name());
+            levelData.put("count", (long) count);
+            levels.add(levelData);
+        }
+    }
+
+    private void countLesson(Question.LessonType lessonType, int delta) {
+        if (lessonType == Question.LessonType.LISTENING) {
+            listeningCount += delta;
+        } else {
+            readingCount += delta;
+        }
+    }
+
+    private void contribute(ProgressState state, int sign) {
+        int time = state.timeSpent() != null ? state.timeSpent() : 0;
+        if (state.completed()) {
+            completedLessons += sign;
+        }
+        if (state.score() != null) {
+            scoreSum = sign > 0 ? scoreSum.add(state.score()) : scoreSum.subtract(state.score());
+            scoreCount += sign;
+        }
+        totalTimeSeconds += (long) sign * time;
+
+        if (state.completedAt() == null || state.score() == null) {
+            return;
+        }
+        LocalDate day = state.completedAt().toLocalDate();
+        DayBucket bucket = dailyBuckets.get(day);
+        if (bucket == null) {
+            if (sign < 0) {
+                // Ngày đã bị cắt khỏi cửa sổ lưu trữ
+                return;
+            }
+            bucket = new DayBucket(BigDecimal.ZERO, 0, 0);
+        }
+        DayBucket updated = new DayBucket(
+                sign > 0 ? bucket.scoreSum().add(state.score()) : bucket.scoreSum().subtract(state.score()),
+                bucket.scoreCount() + sign,
+                bucket.timeSpent() + sign * time);
+        if (updated.scoreCount() <= 0) {
+            dailyBuckets.remove(day);
+        } else {
+            dailyBuckets.put(day, updated);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillbridge.skillbridgebackend.dto.RecentLessonDto;
+import com.skillbridge.skillbridgebackend.dto.StudentProgressDto;
+import com.skillbridge.skillbridgebackend.dto.StudentStatsDto;
+import com.skillbridge.skillbridgebackend.entity.ListeningLesson;
+import com.skillbridge.skillbridgebackend.entity.Question;
+import com.skillbridge.skillbridgebackend.entity.StudentDashboard;
+import com.skillbridge.skillbridgebackend.entity.UserLessonProgress;
+import com.skillbridge.skillbridgebackend.repository.ListeningLessonRepository;
+import com.skillbridge.skillbridgebackend.repository.ReadingLessonRepository;
+import com.skillbridge.skillbridgebackend.repository.StudentDashboardRepository;
+import com.skillbridge.skillbridgebackend.repository.UserLessonProgressRepository;
+import com.skillbridge.skillbridgebackend.repository.UserVocabularyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Duy trì bảng student_dashboards (số liệu dashboard theo học viên).
+ * Bài nộp khóa dòng dashboard của học viên rồi cộng dồn trong cùng transaction, nên các bài nộp đồng thời
+ * của một học viên được áp dụng lần lượt; học viên chưa có dashboard được tính lại từ dữ liệu gốc.
+ */
+@Service
+@Transactional
+@Slf4j
+public class StudentDashboardService {
+
+    private static final TypeReference<Map<LocalDate, StudentDashboardProjection.DayBucket>> BUCKETS_TYPE =
+            new TypeReference<>() {
+            };
+    private static final TypeReference<List<StudentDashboardProjection.RecentActivity>> RECENT_TYPE =
+            new TypeReference<>() {
+            };
+
+    private final StudentDashboardRepository dashboardRepository;
+    private final UserLessonProgressRepository progressRepository;
+    private final UserVocabularyRepository userVocabularyRepository;
+    private final ListeningLessonRepository listeningLessonRepository;
+    private final ReadingLessonRepository readingLessonRepository;
+    private final ObjectMapper objectMapper;
+    private final int recentLimit;
+    private final int bucketDays;
+    private final long totalLessonsTtlMillis;
+
+    // Tổng số bài đã xuất bản giống nhau cho mọi học viên, chỉ đếm lại sau mỗi TTL
+    private volatile long totalLessons;
+    private volatile long totalLessonsExpiresAt;
+
+    public StudentDashboardService(StudentDashboardRepository dashboardRepository,
+                                   UserLessonProgressRepository progressRepository,
+                                   UserVocabularyRepository userVocabularyRepository,
+                                   ListeningLessonRepository listeningLessonRepository,
+                                   ReadingLessonRepository readingLessonRepository,
+                                   ObjectMapper objectMapper,
+                                   @Value("${app.dashboard.recent-activities:10}") int recentLimit,
+                                   @Value("${app.dashboard.daily-buckets-days:365}") int bucketDays,
+                                   @Value("${app.dashboard.total-lessons-ttl-seconds:60}") long totalLessonsTtlSeconds) {
+        this.dashboardRepository = dashboardRepository;
+        this.progressRepository = progressRepository;
+        this.userVocabularyRepository = userVocabularyRepository;
+        this.listeningLessonRepository = listeningLessonRepository;
+        this.readingLessonRepository = readingLessonRepository;
+        this.objectMapper = objectMapper;
+        this.recentLimit = recentLimit;
+        this.bucketDays = bucketDays;
+        this.totalLessonsTtlMillis = totalLessonsTtlSeconds * 1000;
+    }
+
+    // ===== INCREMENTAL UPDATES =====
+
+    /**
+     * Khóa dashboard của học viên đến hết transaction nộp bài (tạo/rebuild nếu cần).
+     * Phải gọi trước khi đọc trạng thái progress cũ để hai bài nộp đồng thời không cùng trừ một trạng thái.
+     */
+    public StudentDashboard lockForSubmission(Long userId) {
+        dashboardRepository.insertIfAbsent(userId);
+        StudentDashboard dashboard = dashboardRepository.findByUserIdForUpdate(userId)
+                .orElseThrow(() -> new IllegalStateException("Student dashboard not found: " + userId));
+        if (Boolean.TRUE.equals(dashboard.getNeedsRebuild())) {
+            rebuild(dashboard);
+        }
+        return dashboard;
+    }
+
+    /**
+     * Áp dụng bài nộp vào dashboard đã khóa
+     * @param previousState dòng của findCompletionState trước khi ghi đè, null nếu là progress mới
+     */
+    public void recordSubmission(StudentDashboard dashboard, Object[] previousState, Long lessonId,
+                                 Question.LessonType lessonType, BigDecimal score, Integer timeSpent,
+                                 LocalDateTime completedAt) {
+        StudentDashboardProjection projection = decode(dashboard);
+        StudentDashboardProjection.ProgressState previous = previousState == null ? null
+                : new StudentDashboardProjection.ProgressState(
+                        Boolean.TRUE.equals(previousState[0]),
+                        (LocalDateTime) previousState[1],
+                        (BigDecimal) previousState[2],
+                        (Integer) previousState[3]);
+
+        projection.applySubmission(previous, lessonId, lessonType, findTitle(lessonId, lessonType),
+                score, timeSpent, completedAt);
+        projection.trim(recentLimit, LocalDate.now().minusDays(bucketDays - 1));
+        encode(projection, dashboard);
+    }
+
+    /**
+     * Học viên lưu (+1) hoặc xóa (-1) từ vựng cá nhân
+     */
+    public void recordVocabularyChange(Long userId, int delta) {
+        dashboardRepository.incrementVocabularyCount(userId, delta);
+    }
+
+    /**
+     * Xóa dashboard (khi xóa user)
+     */
+    public void delete(Long userId) {
+        if (dashboardRepository.existsById(userId)) {
+            dashboardRepository.deleteById(userId);
+        }
+    }
+
+    // ===== READ =====
+
+    /**
+     * Thống kê tổng quan: một lần đọc dòng dashboard (và tổng số bài đã xuất bản đã cache)
+     */
+    public StudentStatsDto getStats(Long userId) {
+        return toStats(decode(load(userId)));
+    }
+
+    /**
+     * Dữ liệu trang tiến độ: tổng quan, biểu đồ và hoạt động gần đây từ cùng một dòng dashboard
+     */
+    public StudentProgressDto getProgress(Long userId) {
+        StudentDashboardProjection projection = decode(load(userId));
+
+        StudentProgressDto progressData = new StudentProgressDto();
+        progressData.setOverview(toStats(projection));
+
+        Map<String, Object> charts = new HashMap<>();
+        charts.put("weeklyProgress", projection.weeklyProgress());
+        charts.put("levelProgress", projection.levelProgress());
+        progressData.setCharts(charts);
+
+        progressData.setRecentActivities(projection.recentActivities.stream()
+                .map(this::toRecentLessonDto)
+                .collect(Collectors.toList()));
+        return progressData;
+    }
+
+    /**
+     * N bài học gần nhất của học viên (ORDER BY + LIMIT trong database, tên bài lấy cùng truy vấn)
+     */
+    public List<RecentLessonDto> getRecentLessons(Long userId, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        return findRecentActivities(userId, limit).stream()
+                .map(this::toRecentLessonDto)
+                .collect(Collectors.toList());
+    }
+
+    // ===== REBUILD =====
+
+    private StudentDashboard load(Long userId) {
+        StudentDashboard dashboard = dashboardRepository.findById(userId).orElse(null);
+        if (dashboard == null || Boolean.TRUE.equals(dashboard.getNeedsRebuild())) {
+            dashboard = lockForSubmission(userId);
+        }
+        return dashboard;
+    }
+
+    /**
+     * Tính lại dashboard từ user_lesson_progress và user_vocabulary (dòng đã được khóa)
+     */
+    private void rebuild(StudentDashboard dashboard) {
+        Long userId = dashboard.getUserId();
+        log.info("Rebuilding student dashboard for user: {}", userId);
+
+        List<UserLessonProgress> progressList = progressRepository.findByUserId(userId);
+        StudentDashboardProjection projection = new StudentDashboardProjection();
+        for (UserLessonProgress progress : progressList) {
+            projection.addProgress(progress.getLessonType(), new StudentDashboardProjection.ProgressState(
+                    Boolean.TRUE.equals(progress.getIsCompleted()), progress.getCompletedAt(),
+                    progress.getScore(), progress.getTimeSpentSeconds()));
+        }
+        projection.vocabularyCount = (int) userVocabularyRepository.countByUserId(userId);
+
+        // Hoạt động gần nhất (mới nhất trước), kèm tên bài học trong cùng một truy vấn
+        projection.recentActivities.addAll(findRecentActivities(userId, recentLimit));
+
+        projection.trim(recentLimit, LocalDate.now().minusDays(bucketDays - 1));
+        encode(projection, dashboard);
+        dashboard.setNeedsRebuild(false);
+    }
+
+    private List<StudentDashboardProjection.RecentActivity> findRecentActivities(Long userId, int limit) {
+        List<StudentDashboardProjection.RecentActivity> activities = new ArrayList<>();
+        // [lessonId, lessonType, score, timeSpentSeconds, completedAt, isCompleted, lessonTitle]
+        for (Object[] row : progressRepository.findRecentActivity(userId, limit)) {
+            Object completedAt = row[4];
+            Object completed = row[5];
+            activities.add(new StudentDashboardProjection.RecentActivity(
+                    ((Number) row[0]).longValue(),
+                    ((String) row[1]).toLowerCase(),
+                    (String) row[6],
+                    (BigDecimal) row[2],
+                    row[3] != null ? ((Number) row[3]).intValue() : null,
+                    completedAt instanceof java.sql.Timestamp
+                            ? ((java.sql.Timestamp) completedAt).toLocalDateTime()
+                            : (LocalDateTime) completedAt,
+                    completed instanceof Number ? ((Number) completed).intValue() != 0 : Boolean.TRUE.equals(completed)));
+        }
+        return activities;
+    }
+
+    private String findTitle(Long lessonId, Question.LessonType lessonType) {
+        return (lessonType == Question.LessonType.LISTENING
+                ? listeningLessonRepository.findTitleById(lessonId)
+                : readingLessonRepository.findTitleById(lessonId))
+                .orElse(null);
+    }
+
+    // ===== MAPPING =====
+
+    private StudentStatsDto toStats(StudentDashboardProjection projection) {
+        StudentStatsDto stats = new StudentStatsDto();
+        stats.setCompletedLessons(projection.completedLessons);
+        stats.setTotalLessons((int) getTotalPublishedLessons());
+        stats.setAverageScore(projection.averageScore());
+        stats.setTotalTimeStudied((int) projection.totalTimeSeconds);
+        stats.setVocabularyCount(projection.vocabularyCount);
+        stats.setWeeklyProgress(projection.weeklyProgress());
+        return stats;
+    }
+
+    private RecentLessonDto toRecentLessonDto(StudentDashboardProjection.RecentActivity activity) {
+        RecentLessonDto dto = new RecentLessonDto();
+        dto.setLessonId(activity.lessonId());
+        dto.setLessonTitle(activity.lessonTitle());
+        dto.setLessonType(activity.lessonType());
+        dto.setScore(activity.score() != null ? activity.score().doubleValue() : 0.0);
+        dto.setTimeSpent(activity.timeSpent());
+        dto.setCompletedAt(activity.completedAt());
+        dto.setIsCompleted(activity.completed());
+        return dto;
+    }
+
+    private long getTotalPublishedLessons() {
+        long now = System.currentTimeMillis();
+        if (now >= totalLessonsExpiresAt) {
+            Integer listening = listeningLessonRepository.countByStatus(ListeningLesson.Status.PUBLISHED);
+            Integer reading = readingLessonRepository.countByStatus(ListeningLesson.Status.PUBLISHED);
+            totalLessons = (listening != null ? listening : 0) + (reading != null ? reading : 0);
+            totalLessonsExpiresAt = now + totalLessonsTtlMillis;
+        }
+        return totalLessons;
+    }
+
+    private StudentDashboardProjection decode(StudentDashboard dashboard) {
+        StudentDashboardProjection projection = new StudentDashboardProjection();
+        projection.completedLessons = dashboard.getCompletedLessons();
+        projection.listeningCount = dashboard.getListeningCount();
+        projection.readingCount = dashboard.getReadingCount();
+        projection.scoreSum = dashboard.getScoreSum();
+        projection.scoreCount = dashboard.getScoreCount();
+        projection.totalTimeSeconds = dashboard.getTotalTimeSeconds();
+        projection.vocabularyCount = dashboard.getVocabularyCount();
+        try {
+            if (dashboard.getDailyBuckets() != null) {
+                projection.dailyBuckets.putAll(new TreeMap<>(
+                        objectMapper.readValue(dashboard.getDailyBuckets(), BUCKETS_TYPE)));
+            }
+            if (dashboard.getRecentActivities() != null) {
+                projection.recentActivities.addAll(objectMapper.readValue(dashboard.getRecentActivities(), RECENT_TYPE));
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupted student dashboard for user " + dashboard.getUserId(), e);
+        }
+        return projection;
+    }
+
+    private void encode(StudentDashboardProjection projection, StudentDashboard dashboard) {
+        dashboard.setCompletedLessons(projection.completedLessons);
+        dashboard.setListeningCount(projection.listeningCount);
+        dashboard.setReadingCount(projection.readingCount);
+        dashboard.setScoreSum(projection.scoreSum);
+        dashboard.setScoreCount(projection.scoreCount);
+        dashboard.setTotalTimeSeconds(projection.totalTimeSeconds);
+        dashboard.setVocabularyCount(projection.vocabularyCount);
+        try {
+            dashboard.setDailyBuckets(objectMapper.writeValueAsString(projection.dailyBuckets));
+            dashboard.setRecentActivities(objectMapper.writeValueAsString(new ArrayList<>(projection.recentActivities)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize student dashboard for user " + dashboard.getUserId(), e);
+        }
+    }
+}
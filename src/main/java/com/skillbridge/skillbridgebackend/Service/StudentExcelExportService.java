@@ -0,0 +1,312 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.dto.analytics.ExportJobDto;
+import com.skillbridge.skillbridgebackend.dto.analytics.StudentProgressReportDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Xuất báo cáo học viên ra Excel bằng SXSSF: chỉ giữ một cửa sổ dòng cố định trong bộ nhớ,
+ * các dòng cũ được flush xuống file tạm, nên bộ nhớ không tăng theo số học viên.
+ * Hỗ trợ ghi thẳng vào response hoặc chạy nền theo job id.
+ * Job chỉ người tạo xem / tải được, và chỉ nằm trong bộ nhớ của node đã tạo nó (mất khi restart):
+ * khi chạy nhiều instance, các request của một job phải tới cùng node (sticky session).
+ */
+@Service
+@Slf4j
+public class StudentExcelExportService {
+
+    private static final String[] HEADERS = {
+        "ID", "Họ tên", "Email", "Trường", "Chuyên ngành", "Năm học", "Ngày đăng ký",
+        "Bài đã hoàn thành", "Bài nghe", "Bài đọc", "Điểm TB", "Thời gian học (phút)",
+        "Từ vựng đã học", "Hoạt động gần nhất"
+    };
+
+    public enum JobStatus { PENDING, RUNNING, COMPLETED, FAILED }
+
+    private final AnalyticsService analyticsService;
+    private final int rowWindowSize;
+    private final long jobTtlMinutes;
+    private final ThreadPoolExecutor exportExecutor;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    public StudentExcelExportService(AnalyticsService analyticsService,
+                                     @Value("${app.export.excel.row-window:200}") int rowWindowSize,
+                                     @Value("${app.export.jobs.max-concurrent:2}") int maxConcurrentJobs,
+                                     @Value("${app.export.jobs.queue-capacity:10}") int queueCapacity,
+                                     @Value("${app.export.jobs.ttl-minutes:60}") long jobTtlMinutes) {
+        this.analyticsService = analyticsService;
+        this.rowWindowSize = rowWindowSize;
+        this.jobTtlMinutes = jobTtlMinutes;
+        this.exportExecutor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "excel-export");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // ===== SYNC EXPORT =====
+
+    /**
+     * Ghi workbook báo cáo tất cả học viên vào output stream
+     * @return số dòng dữ liệu đã ghi
+     */
+    public int writeStudentsWorkbook(OutputStream outputStream) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindowSize);
+        workbook.setCompressTempFiles(true);
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Học viên");
+            CellStyle headerStyle = createHeaderStyle(workbook);
+            CellStyle dateStyle = createDateStyle(workbook);
+
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < HEADERS.length; i++) {
+                Cell cell = header.createCell(i);
+                cell.setCellValue(HEADERS[i]);
+                cell.setCellStyle(headerStyle);
+                // Độ rộng cố định: autoSizeColumn cần giữ toàn bộ dòng trong bộ nhớ
+                sheet.setColumnWidth(i, 18 * 256);
+            }
+            sheet.createFreezePane(0, 1);
+
+            AtomicInteger rowIndex = new AtomicInteger(1);
+            analyticsService.streamAllStudentsReports(report ->
+                    writeStudentRow(sheet.createRow(rowIndex.getAndIncrement()), report, dateStyle));
+
+            workbook.write(outputStream);
+            return rowIndex.get() - 1;
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    // ===== ASYNC EXPORT =====
+
+    /**
+     * Tạo job xuất Excel chạy nền
+     * @throws RejectedExecutionException khi hàng đợi export đã đầy
+     */
+    public ExportJobDto startExportJob(Long ownerId) {
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), ownerId);
+        jobs.put(job.id, job);
+
+        try {
+            exportExecutor.execute(() -> runExportJob(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw e;
+        }
+
+        log.info("Queued Excel export job {} for user {}", job.id, ownerId);
+        return job.toDto();
+    }
+
+    public ExportJobDto getJob(String jobId, Long userId) {
+        return findJob(jobId, userId).toDto();
+    }
+
+    /**
+     * Mở file kết quả của job đã hoàn thành. Job được giữ (không bị dọn) tới khi stream trả về được đóng.
+     */
+    public ExportFile openJobFile(String jobId, Long userId) throws IOException {
+        ExportJob job = findJob(jobId, userId);
+        synchronized (job) {
+            if (job.status != JobStatus.COMPLETED || job.deleted) {
+                throw new IllegalStateException("Export job is not completed yet");
+            }
+            long length = Files.size(job.file);
+            InputStream content = Files.newInputStream(job.file);
+            job.activeDownloads++;
+            return new ExportFile(new FilterInputStream(content) {
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    try {
+                        super.close();
+                    } finally {
+                        synchronized (job) {
+                            job.activeDownloads--;
+                        }
+                    }
+                }
+            }, length);
+        }
+    }
+
+    /**
+     * Dọn các job đã hết hạn cùng file tạm của chúng; job đang có người tải để lại lần dọn sau
+     */
+    @Scheduled(fixedDelayString = "${app.export.jobs.cleanup-interval-ms:600000}")
+    public void cleanupExpiredJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minusMinutes(jobTtlMinutes);
+        jobs.values().removeIf(job -> {
+            synchronized (job) {
+                boolean finished = job.status == JobStatus.COMPLETED || job.status == JobStatus.FAILED;
+                LocalDateTime completedAt = job.completedAt;
+                if (finished && completedAt != null && completedAt.isBefore(threshold) && job.activeDownloads == 0) {
+                    job.deleted = true;
+                    deleteQuietly(job.file);
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exportExecutor.shutdownNow();
+        jobs.values().forEach(job -> deleteQuietly(job.file));
+    }
+
+    private void runExportJob(ExportJob job) {
+        job.status = JobStatus.RUNNING;
+        try {
+            Path file = Files.createTempFile("students-export-", ".xlsx");
+            job.file = file;
+            try (OutputStream outputStream = Files.newOutputStream(file)) {
+                job.rowCount = writeStudentsWorkbook(outputStream);
+            }
+            // completedAt ghi trước status: ai thấy trạng thái kết thúc cũng thấy completedAt
+            job.completedAt = LocalDateTime.now();
+            job.status = JobStatus.COMPLETED;
+            log.info("Excel export job {} completed with {} rows", job.id, job.rowCount);
+        } catch (Exception e) {
+            log.error("Excel export job {} failed", job.id, e);
+            deleteQuietly(job.file);
+            job.file = null;
+            job.errorMessage = e.getMessage();
+            job.completedAt = LocalDateTime.now();
+            job.status = JobStatus.FAILED;
+        }
+    }
+
+    /**
+     * Job của người khác trả về như không tồn tại
+     */
+    private ExportJob findJob(String jobId, Long userId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null || userId == null || !userId.equals(job.ownerId)) {
+            throw new RuntimeException("Export job not found");
+        }
+        return job;
+    }
+
+    private void writeStudentRow(Row row, StudentProgressReportDto report, CellStyle dateStyle) {
+        int col = 0;
+        row.createCell(col++).setCellValue(report.getStudentId());
+        row.createCell(col++).setCellValue(nullToEmpty(report.getStudentName()));
+        row.createCell(col++).setCellValue(nullToEmpty(report.getStudentEmail()));
+        row.createCell(col++).setCellValue(nullToEmpty(report.getSchool()));
+        row.createCell(col++).setCellValue(nullToEmpty(report.getMajor()));
+        row.createCell(col++).setCellValue(nullToEmpty(report.getAcademicYear()));
+        setDateCell(row.createCell(col++), report.getRegistrationDate(), dateStyle);
+        row.createCell(col++).setCellValue(report.getTotalLessonsCompleted());
+        row.createCell(col++).setCellValue(report.getListeningLessonsCompleted());
+        row.createCell(col++).setCellValue(report.getReadingLessonsCompleted());
+        row.createCell(col++).setCellValue(report.getAverageScore());
+        row.createCell(col++).setCellValue(report.getTotalTimeStudiedSeconds() / 60);
+        row.createCell(col++).setCellValue(report.getVocabularyLearned());
+        setDateCell(row.createCell(col), report.getLastActivity(), dateStyle);
+    }
+
+    private void setDateCell(Cell cell, LocalDateTime value, CellStyle dateStyle) {
+        if (value != null) {
+            cell.setCellValue(value);
+            cell.setCellStyle(dateStyle);
+        }
+    }
+
+    private CellStyle createHeaderStyle(SXSSFWorkbook workbook) {
+        Font font = workbook.createFont();
+        font.setBold(true);
+        CellStyle style = workbook.createCellStyle();
+        style.setFont(font);
+        return style;
+    }
+
+    private CellStyle createDateStyle(SXSSFWorkbook workbook) {
+        CreationHelper helper = workbook.getCreationHelper();
+        CellStyle style = workbook.createCellStyle();
+        style.setDataFormat(helper.createDataFormat().getFormat("dd/mm/yyyy hh:mm"));
+        return style;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}", file, e);
+        }
+    }
+
+    /**
+     * File kết quả đang được tải: đóng content khi ghi xong response
+     */
+    public record ExportFile(InputStream content, long length) {
+    }
+
+    private static class ExportJob {
+        private final String id;
+        private final Long ownerId;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile JobStatus status = JobStatus.PENDING;
+        private volatile Path file;
+        private volatile Integer rowCount;
+        private volatile String errorMessage;
+        private volatile LocalDateTime completedAt;
+        // Số lượt tải đang mở file và cờ đã dọn, chỉ đọc / ghi khi giữ lock của job
+        private int activeDownloads;
+        private boolean deleted;
+
+        ExportJob(String id, Long ownerId) {
+            this.id = id;
+            this.ownerId = ownerId;
+        }
+
+        ExportJobDto toDto() {
+            return new ExportJobDto(id, status.name(), rowCount, errorMessage, createdAt, completedAt);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.itextpdf.html2pdf.HtmlConverter;
+import com.itextpdf.html2pdf.resolver.font.DefaultFontProvider;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.skillbridge.skillbridgebackend.dto.analytics.StudentProgressReportDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Render báo cáo học viên ra PDF từ template Thymeleaf qua html2pdf.
+ * Template được engine parse một lần và cache; ConverterProperties (kèm FontProvider đã nạp font)
+ * được tạo một lần cho mỗi thread vì FontProvider không thread-safe.
+ */
+@Service
+@Slf4j
+public class StudentPdfReportService {
+
+    static final String TEMPLATE = "reports/student-report";
+
+    private static final Locale REPORT_LOCALE = Locale.forLanguageTag("vi-VN");
+
+    private final ITemplateEngine templateEngine;
+    private final AnalyticsService analyticsService;
+    private final String fontDirectory;
+    private final int maxInFlight;
+    private final ExecutorService renderExecutor;
+    private final ThreadLocal<ConverterProperties> converterProperties =
+            ThreadLocal.withInitial(this::createConverterProperties);
+
+    public StudentPdfReportService(ITemplateEngine templateEngine,
+                                   AnalyticsService analyticsService,
+                                   @Value("${app.report.pdf.font-dir:}") String fontDirectory,
+                                   @Value("${app.report.pdf.batch-threads:4}") int batchThreads) {
+        this.templateEngine = templateEngine;
+        this.analyticsService = analyticsService;
+        this.fontDirectory = fontDirectory;
+        this.maxInFlight = batchThreads * 2;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.renderExecutor = Executors.newFixedThreadPool(batchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "pdf-report-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Render báo cáo của một học viên vào output stream (stream không bị đóng)
+     */
+    public void renderStudentReport(Long studentId, OutputStream outputStream) {
+        renderReport(analyticsService.getStudentReport(studentId), outputStream);
+    }
+
+    public void renderReport(StudentProgressReportDto report, OutputStream outputStream) {
+        renderReport(report, outputStream, converterProperties());
+    }
+
+    /**
+     * Ghi file ZIP gồm PDF của từng học viên, render song song trên pool giới hạn.
+     * Số báo cáo đang render/chờ ghi bị chặn bởi maxInFlight, và các entry được ghi theo thứ tự học viên.
+     * @param studentIds danh sách học viên, null để xuất tất cả học viên active
+     * @return số file PDF đã ghi
+     */
+    public int writeReportsZip(List<Long> studentIds, OutputStream outputStream) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        Deque<Future<RenderedReport>> pending = new ArrayDeque<>();
+        AtomicInteger written = new AtomicInteger();
+
+        try {
+            if (studentIds == null) {
+                analyticsService.streamAllStudentsReports(report -> submit(report, pending, zip, written));
+            } else {
+                analyticsService.getStudentReports(studentIds).forEach(report -> submit(report, pending, zip, written));
+            }
+            while (!pending.isEmpty()) {
+                writeEntry(pending.poll(), zip, written);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+
+        zip.finish();
+        zip.flush();
+        return written.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderExecutor.shutdownNow();
+    }
+
+    /**
+     * ConverterProperties của thread hiện tại (tạo ở lần render đầu tiên trên thread, sau đó dùng lại)
+     */
+    ConverterProperties converterProperties() {
+        return converterProperties.get();
+    }
+
+    /**
+     * Tạo ConverterProperties mới: nạp font hệ thống kèm font html2pdf (hỗ trợ tiếng Việt) và thư mục font cấu hình
+     */
+    ConverterProperties createConverterProperties() {
+        DefaultFontProvider fontProvider = new DefaultFontProvider(true, true, false);
+        if (fontDirectory != null && !fontDirectory.isBlank()) {
+            fontProvider.addDirectory(fontDirectory);
+        }
+        ConverterProperties properties = new ConverterProperties();
+        properties.setFontProvider(fontProvider);
+        properties.setCharset("UTF-8");
+        return properties;
+    }
+
+    void renderReport(StudentProgressReportDto report, OutputStream outputStream, ConverterProperties properties) {
+        Context context = new Context(REPORT_LOCALE);
+        context.setVariable("report", report);
+        context.setVariable("generatedAt", LocalDateTime.now());
+        String html = templateEngine.process(TEMPLATE, context);
+
+        PdfWriter writer = new PdfWriter(outputStream);
+        writer.setCloseStream(false);
+        HtmlConverter.convertToPdf(html, writer, properties);
+    }
+
+    private void submit(StudentProgressReportDto report, Deque<Future<RenderedReport>> pending,
+                        ZipOutputStream zip, AtomicInteger written) {
+        pending.add(renderExecutor.submit(() -> {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(32 * 1024);
+            renderReport(report, buffer);
+            return new RenderedReport(report.getStudentId(), buffer.toByteArray());
+        }));
+        if (pending.size() >= maxInFlight) {
+            writeEntry(pending.poll(), zip, written);
+        }
+    }
+
+    private void writeEntry(Future<RenderedReport> future, ZipOutputStream zip, AtomicInteger written) {
+        try {
+            RenderedReport rendered = future.get();
+            zip.putNextEntry(new ZipEntry("student-" + rendered.studentId() + ".pdf"));
+            zip.write(rendered.content());
+            zip.closeEntry();
+            written.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("PDF batch export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to render PDF report", e.getCause());
+        }
+    }
+
+    private record RenderedReport(Long studentId, byte[] content) {
+    }
+}
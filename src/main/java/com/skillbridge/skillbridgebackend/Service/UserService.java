@@ -5,10 +5,13 @@ import com.skillbridge.skillbridgebackend.dto.*;
 import com.skillbridge.skillbridgebackend.entity.User;
 import com.skillbridge.skillbridgebackend.entity.*;
 import com.skillbridge.skillbridgebackend.exception.EmailAlreadyExistsException;
+import com.skillbridge.skillbridgebackend.exception.PasswordHashingBusyException;
 import com.skillbridge.skillbridgebackend.exception.UserNotFoundException;
 import com.skillbridge.skillbridgebackend.repository.UserRepository;
 import com.skillbridge.skillbridgebackend.repository.*;
+import com.skillbridge.skillbridgebackend.security.TokenRevocationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,7 +26,10 @@ import java.security.SecureRandom;
 import java.util.Base64;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -32,6 +38,13 @@ import java.util.stream.Collectors;
 @Slf4j
 public class UserService {
 
+    private static final int DEFAULT_CATALOG_PAGE_SIZE = 20;
+    private static final int MAX_CATALOG_PAGE_SIZE = 100;
+    private static final int DEFAULT_USER_PAGE_SIZE = 50;
+    private static final int MAX_USER_PAGE_SIZE = 200;
+    // Số user tối đa của các danh sách cũ không phân trang
+    static final int LEGACY_USER_LIST_LIMIT = 1_000;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -62,6 +75,24 @@ public class UserService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private DailyActivityRollupService dailyActivityRollupService;
+
+    @Autowired
+    private StudentDashboardService studentDashboardService;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private UserAnswerBatchRepository userAnswerBatchRepository;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     /**
      * Đăng ký user mới
      */
@@ -91,7 +122,9 @@ public class UserService {
         user.setAcademicYear(registrationDto.getAcademicYear());
         user.setIsActive(true);
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        dailyActivityRollupService.recordRegistration(LocalDate.now());
+        return savedUser;
     }
 
     /**
@@ -125,13 +158,22 @@ public class UserService {
         user.setAcademicYear(updateDto.getAcademicYear());
 
         // Update role if provided (for admin operations)
+        boolean revokeTokens = false;
         if (updateDto.getRole() != null && !updateDto.getRole().isEmpty()) {
-            user.setRole(User.Role.valueOf(updateDto.getRole().toUpperCase()));
+            User.Role role = User.Role.valueOf(updateDto.getRole().toUpperCase());
+            // Token cũ mang role cũ trong claims
+            revokeTokens = role != user.getRole();
+            user.setRole(role);
         }
 
         // Update password if provided
         if (updateDto.getPassword() != null && !updateDto.getPassword().isEmpty()) {
             user.setPassword(passwordEncoder.encode(updateDto.getPassword()));
+            revokeTokens = true;
+        }
+
+        if (revokeTokens) {
+            tokenRevocationService.revokeUser(user);
         }
 
         return userRepository.save(user);
@@ -147,19 +189,33 @@ public class UserService {
     }
 
     /**
-     * Lấy tất cả học viên
+     * Lưu hash mật khẩu đã tính sẵn (băm lại khi đăng nhập sau khi đổi cost BCrypt), không thu hồi token
+     */
+    public void updateEncodedPassword(String email, String encodedPassword) {
+        User user = findByEmail(email);
+        user.setPassword(encodedPassword);
+        userRepository.save(user);
+        log.info("Rehashed password for user {} with current cost", user.getId());
+    }
+
+    /**
+     * Học viên active, mới nhất trước, tối đa LEGACY_USER_LIST_LIMIT người
+     * @deprecated dùng getUsersPage (phân trang keyset)
      */
+    @Deprecated
     @Transactional(readOnly = true)
-    public List<User> getAllStudents() {
-        return userRepository.findActiveUsersByRole(User.Role.STUDENT);
+    public CappedList<User> getAllStudents() {
+        return legacyUserList(User.Role.STUDENT, true);
     }
 
     /**
-     * Lấy tất cả giáo viên
+     * Giáo viên active, mới nhất trước, tối đa LEGACY_USER_LIST_LIMIT người
+     * @deprecated dùng getUsersPage (phân trang keyset)
      */
+    @Deprecated
     @Transactional(readOnly = true)
-    public List<User> getAllTeachers() {
-        return userRepository.findActiveUsersByRole(User.Role.TEACHER);
+    public CappedList<User> getAllTeachers() {
+        return legacyUserList(User.Role.TEACHER, true);
     }
 
     /**
@@ -168,6 +224,9 @@ public class UserService {
     public User toggleUserActive(Long userId) {
         User user = findById(userId);
         user.setIsActive(!user.getIsActive());
+        if (!user.getIsActive()) {
+            tokenRevocationService.revokeUser(user);
+        }
         return userRepository.save(user);
     }
 
@@ -179,34 +238,9 @@ public class UserService {
     public StudentStatsDto getStudentStats(Long userId) {
         log.info("Getting student stats for user: {}", userId);
 
-        StudentStatsDto stats = new StudentStatsDto();
-
         try {
-            // Count completed lessons
-            Long completedLessons = progressRepository.countCompletedLessonsByUser(userId);
-            stats.setCompletedLessons(completedLessons != null ? completedLessons.intValue() : 0);
-
-            // Count total available published lessons
-            long totalListening = listeningLessonRepository.countByStatus(ListeningLesson.Status.PUBLISHED);
-            long totalReading = readingLessonRepository.countByStatus(ListeningLesson.Status.PUBLISHED);
-            stats.setTotalLessons((int) (totalListening + totalReading));
-
-            // Calculate average score
-            Double avgScore = progressRepository.getAverageScoreByUser(userId);
-            stats.setAverageScore(avgScore != null ? avgScore : 0.0);
-
-            // Calculate total time studied (convert from Long to Integer)
-            Long totalTime = progressRepository.getTotalTimeSpentByUser(userId);
-            stats.setTotalTimeStudied(totalTime != null ? totalTime.intValue() : 0);
-
-            // Count vocabulary learned
-            long vocabCount = userVocabularyRepository.countByUserId(userId);
-            stats.setVocabularyCount((int) vocabCount);
-
-            // Get weekly progress (simple implementation for now)
-            List<UserLessonProgress> recentProgress = progressRepository.findByUserIdAndIsCompleted(userId, true);
-            stats.setWeeklyProgress(generateWeeklyProgressData(recentProgress));
-
+            // Đọc từ dashboard đã tính sẵn của học viên
+            StudentStatsDto stats = studentDashboardService.getStats(userId);
             log.info("Student stats retrieved successfully: {}", stats);
             return stats;
 
@@ -223,17 +257,7 @@ public class UserService {
         log.info("Getting recent lessons for user: {}, limit: {}", userId, limit);
 
         try {
-            List<UserLessonProgress> recentProgress = progressRepository.findByUserId(userId);
-
-            return recentProgress.stream()
-                    .sorted((a, b) -> {
-                        LocalDateTime timeA = a.getCompletedAt() != null ? a.getCompletedAt() : a.getCreatedAt();
-                        LocalDateTime timeB = b.getCompletedAt() != null ? b.getCompletedAt() : b.getCreatedAt();
-                        return timeB.compareTo(timeA); // Latest first
-                    })
-                    .limit(limit)
-                    .map(this::convertToRecentLessonDto)
-                    .collect(Collectors.toList());
+            return studentDashboardService.getRecentLessons(userId, limit);
 
         } catch (Exception e) {
             log.error("Error getting recent lessons for user {}: {}", userId, e.getMessage());
@@ -242,74 +266,131 @@ public class UserService {
     }
 
     /**
-     * Get published lessons with filtering
+     * Get published lessons with filtering (toàn bộ kết quả, lọc và sắp xếp trong database)
      */
     public List<LessonDto> getPublishedLessons(String type, String level, Long categoryId, String search) {
         log.info("Getting published lessons with filters - type: {}, level: {}, categoryId: {}, search: {}",
                 type, level, categoryId, search);
 
         try {
-            List<LessonDto> allLessons = new ArrayList<>();
-
-            // Get Reading Lessons
-            if (type == null || "all".equals(type) || "READING".equalsIgnoreCase(type) || "reading".equalsIgnoreCase(type)) {
-                List<ReadingLesson> readingLessons = readingLessonRepository.findByStatus(ListeningLesson.Status.PUBLISHED);
-
-                for (ReadingLesson lesson : readingLessons) {
-                    // Apply filters
-                    if (level != null && !level.equals("all") && !lesson.getLevel().name().equalsIgnoreCase(level)) {
-                        continue;
-                    }
-                    if (categoryId != null && (lesson.getCategory() == null || !lesson.getCategory().getId().equals(categoryId))) {
-                        continue;
-                    }
-                    if (search != null && !search.trim().isEmpty()) {
-                        String searchLower = search.toLowerCase();
-                        if (!lesson.getTitle().toLowerCase().contains(searchLower) &&
-                                !lesson.getDescription().toLowerCase().contains(searchLower)) {
-                            continue;
-                        }
-                    }
+            List<LessonDto> lessons = catalogCache.get(CatalogCache.Region.STUDENT_CATALOG,
+                    new CatalogQueryKey("all", type, level, categoryId, search, null, null),
+                    () -> List.copyOf(findCatalogLessons(type, level, categoryId, search, null, Integer.MAX_VALUE)));
+            log.info("Retrieved {} published lessons", lessons.size());
+            return lessons;
 
-                    LessonDto dto = convertToLessonDto(lesson, "reading");
-                    allLessons.add(dto);
-                }
-            }
+        } catch (Exception e) {
+            log.error("Error getting published lessons: {}", e.getMessage());
+            throw new RuntimeException("Failed to get published lessons", e);
+        }
+    }
 
-            // Get Listening Lessons
-            if (type == null || "all".equals(type) || "LISTENING".equalsIgnoreCase(type) || "listening".equalsIgnoreCase(type)) {
-                List<ListeningLesson> listeningLessons = listeningLessonRepository.findByStatus(ListeningLesson.Status.PUBLISHED);
-
-                for (ListeningLesson lesson : listeningLessons) {
-                    // Apply filters
-                    if (level != null && !level.equals("all") && !lesson.getLevel().name().equalsIgnoreCase(level)) {
-                        continue;
-                    }
-                    if (categoryId != null && (lesson.getCategory() == null || !lesson.getCategory().getId().equals(categoryId))) {
-                        continue;
-                    }
-                    if (search != null && !search.trim().isEmpty()) {
-                        String searchLower = search.toLowerCase();
-                        if (!lesson.getTitle().toLowerCase().contains(searchLower) &&
-                                !lesson.getDescription().toLowerCase().contains(searchLower)) {
-                            continue;
-                        }
-                    }
+    /**
+     * Get published lessons page (keyset theo createdAt, loại bài, id - mới nhất trước)
+     */
+    public LessonPageDto getPublishedLessonsPage(String type, String level, Long categoryId, String search,
+                                                 String pageToken, Integer size) {
+        int pageSize = size == null ? DEFAULT_CATALOG_PAGE_SIZE : Math.max(1, Math.min(size, MAX_CATALOG_PAGE_SIZE));
+        CatalogCursor cursor = pageToken == null || pageToken.isBlank() ? null : CatalogCursor.decode(pageToken);
+        return catalogCache.get(CatalogCache.Region.STUDENT_CATALOG,
+                new CatalogQueryKey("page", type, level, categoryId, search, cursor != null ? pageToken : null, pageSize),
+                () -> loadPublishedLessonsPage(type, level, categoryId, search, cursor, pageSize));
+    }
 
-                    LessonDto dto = convertToLessonDto(lesson, "listening");
-                    allLessons.add(dto);
-                }
-            }
+    private LessonPageDto loadPublishedLessonsPage(String type, String level, Long categoryId, String search,
+                                                   CatalogCursor cursor, int pageSize) {
+        // Lấy dư 1 dòng để biết còn trang sau hay không
+        List<LessonDto> lessons = findCatalogLessons(type, level, categoryId, search, cursor, pageSize + 1);
+        boolean hasMore = lessons.size() > pageSize;
+        if (hasMore) {
+            lessons = new ArrayList<>(lessons.subList(0, pageSize));
+        }
 
-            // Sort by creation date (newest first)
-            allLessons.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
+        String nextPageToken = null;
+        if (hasMore) {
+            LessonDto last = lessons.get(lessons.size() - 1);
+            nextPageToken = new CatalogCursor(last.getCreatedAt(), last.getType(), last.getId()).encode();
+        }
+        return new LessonPageDto(lessons, nextPageToken, hasMore);
+    }
 
-            log.info("Retrieved {} published lessons", allLessons.size());
-            return allLessons;
+    private List<LessonDto> findCatalogLessons(String type, String level, Long categoryId, String search,
+                                               CatalogCursor cursor, int limit) {
+        boolean allTypes = type == null || "all".equals(type);
+        boolean includeListening = allTypes || "listening".equalsIgnoreCase(type);
+        boolean includeReading = allTypes || "reading".equalsIgnoreCase(type);
+        if (!includeListening && !includeReading) {
+            return new ArrayList<>();
+        }
 
-        } catch (Exception e) {
-            log.error("Error getting published lessons: {}", e.getMessage());
-            throw new RuntimeException("Failed to get published lessons", e);
+        String levelFilter = level == null || "all".equals(level) ? null : level.toUpperCase();
+        // Escape % và _ để từ khóa được so khớp nguyên văn (không thành wildcard)
+        String searchFilter = search == null || search.trim().isEmpty() ? null : escapeLike(search);
+        CatalogCursor start = cursor != null ? cursor : CatalogCursor.FIRST_PAGE;
+
+        List<Object[]> rows = listeningLessonRepository.findPublishedCatalogPage(
+                includeListening, includeReading, levelFilter, categoryId, searchFilter,
+                start.createdAt(), start.type(), start.id(), limit);
+
+        return rows.stream().map(this::convertCatalogRowToLessonDto).collect(Collectors.toList());
+    }
+
+    // [id, lessonType, title, description, level, categoryId, categoryName, audioUrl, durationSeconds, wordCount, createdAt]
+    private LessonDto convertCatalogRowToLessonDto(Object[] row) {
+        LessonDto dto = new LessonDto();
+        dto.setId(((Number) row[0]).longValue());
+        dto.setType((String) row[1]);
+        dto.setTitle((String) row[2]);
+        dto.setDescription((String) row[3]);
+        dto.setLevel((String) row[4]);
+
+        if (row[5] != null) {
+            CategoryDto categoryDto = new CategoryDto();
+            categoryDto.setId(((Number) row[5]).longValue());
+            categoryDto.setName((String) row[6]);
+            dto.setCategory(categoryDto);
+        }
+
+        dto.setAudioUrl((String) row[7]);
+        dto.setDurationSeconds(row[8] != null ? ((Number) row[8]).intValue() : null);
+        dto.setWordCount(row[9] != null ? ((Number) row[9]).intValue() : null);
+        dto.setCreatedAt(row[10] instanceof java.sql.Timestamp
+                ? ((java.sql.Timestamp) row[10]).toLocalDateTime()
+                : (LocalDateTime) row[10]);
+        return dto;
+    }
+
+    /**
+     * Key cache của các truy vấn catalog phía học viên (kind: all / page / lesson)
+     */
+    private record CatalogQueryKey(String kind, String type, String level, Long categoryId, String search,
+                                   String pageToken, Integer size) {
+    }
+
+    /**
+     * Vị trí keyset của catalog. Id của hai bảng có thể trùng nên loại bài nằm trong khóa sắp xếp.
+     */
+    private record CatalogCursor(LocalDateTime createdAt, String type, Long id) {
+
+        // Lớn hơn mọi khóa thật: "~" đứng sau "listening"/"reading"
+        static final CatalogCursor FIRST_PAGE = new CatalogCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), "~", Long.MAX_VALUE);
+
+        String encode() {
+            String raw = createdAt + "|" + type + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static CatalogCursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|");
+                if (parts.length != 3 || !("listening".equals(parts[1]) || "reading".equals(parts[1]))) {
+                    throw new IllegalArgumentException("Invalid page token");
+                }
+                return new CatalogCursor(LocalDateTime.parse(parts[0]), parts[1], Long.parseLong(parts[2]));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid page token", e);
+            }
         }
     }
 
@@ -320,15 +401,18 @@ public class UserService {
         log.info("Getting lesson for student - id: {}, type: {}", id, type);
 
         try {
-            if ("listening".equals(type)) {
-                ListeningLesson lesson = listeningLessonRepository.findByIdAndStatus(id, ListeningLesson.Status.PUBLISHED)
-                        .orElseThrow(() -> new RuntimeException("Lesson not found or not published"));
-                return convertToLessonDto(lesson, "listening");
-            } else {
-                ReadingLesson lesson = readingLessonRepository.findByIdAndStatus(id, ListeningLesson.Status.PUBLISHED)
-                        .orElseThrow(() -> new RuntimeException("Lesson not found or not published"));
-                return convertToLessonDto(lesson, "reading");
-            }
+            return catalogCache.get(CatalogCache.Region.STUDENT_CATALOG,
+                    new CatalogQueryKey("lesson", type, null, id, null, null, null), () -> {
+                        if ("listening".equals(type)) {
+                            ListeningLesson lesson = listeningLessonRepository.findByIdAndStatus(id, ListeningLesson.Status.PUBLISHED)
+                                    .orElseThrow(() -> new RuntimeException("Lesson not found or not published"));
+                            return convertToLessonDto(lesson, "listening");
+                        } else {
+                            ReadingLesson lesson = readingLessonRepository.findByIdAndStatus(id, ListeningLesson.Status.PUBLISHED)
+                                    .orElseThrow(() -> new RuntimeException("Lesson not found or not published"));
+                            return convertToLessonDto(lesson, "reading");
+                        }
+                    });
         } catch (Exception e) {
             log.error("Error getting lesson {} of type {}: {}", id, type, e.getMessage());
             throw new RuntimeException("Failed to get lesson", e);
@@ -342,32 +426,19 @@ public class UserService {
         log.info("Submitting answers for user: {}, lesson: {}", userId, submission.getLessonId());
 
         try {
-            List<Question> questions = questionRepository.findByLessonIdAndLessonType(
-                    submission.getLessonId(),
-                    Question.LessonType.valueOf(submission.getLessonType().toUpperCase())
-            );
-
-            int correctAnswers = 0;
-            int totalQuestions = questions.size();
-
-            User user = findById(userId);
-
-            // Save user answers and count correct ones
-            for (Question question : questions) {
-                String userAnswer = submission.getAnswers().get(question.getId().toString());
-                if (userAnswer != null) {
-                    UserAnswer answer = new UserAnswer();
-                    answer.setUser(user);
-                    answer.setQuestion(question);
-                    answer.setSelectedAnswer(userAnswer);
-                    answer.setIsCorrect(userAnswer.equals(question.getCorrectAnswer()));
-
-                    userAnswerRepository.save(answer);
-
-                    if (answer.getIsCorrect()) {
-                        correctAnswers++;
-                    }
-                }
+            Question.LessonType lessonType = Question.LessonType.valueOf(submission.getLessonType().toUpperCase());
+            Long lessonId = submission.getLessonId();
+            LocalDateTime now = LocalDateTime.now();
+
+            // Chấm bài trong bộ nhớ theo đáp án đã cache của bài học
+            AnswerKey answerKey = answerKeyCache.get(lessonId, lessonType);
+            AnswerKey.GradedSubmission graded = answerKey.grade(submission.getAnswers());
+            int correctAnswers = graded.correctAnswers();
+            int totalQuestions = graded.totalQuestions();
+
+            // Ghi toàn bộ câu trả lời bằng một câu INSERT nhiều dòng
+            if (!graded.answers().isEmpty()) {
+                userAnswerBatchRepository.insertAll(userId, graded.answers(), now);
             }
 
             // Calculate score
@@ -375,30 +446,32 @@ public class UserService {
                     ? BigDecimal.valueOf((double) correctAnswers / totalQuestions * 10)
                     : BigDecimal.ZERO;
 
-            // Save or update progress
-            Optional<UserLessonProgress> existingProgress = progressRepository
-                    .findByUserIdAndLessonIdAndLessonType(
-                            userId,
-                            submission.getLessonId(),
-                            Question.LessonType.valueOf(submission.getLessonType().toUpperCase())
-                    );
-
-            UserLessonProgress progress;
-            if (existingProgress.isPresent()) {
-                progress = existingProgress.get();
+            // Khóa dashboard của học viên trước khi đọc trạng thái cũ: các bài nộp đồng thời của cùng học viên chạy lần lượt
+            StudentDashboard dashboard = studentDashboardService.lockForSubmission(userId);
+
+            // Cập nhật rollup theo trạng thái progress trước khi ghi đè
+            List<Object[]> previousState = progressRepository.findCompletionState(userId, lessonId, lessonType);
+            if (!previousState.isEmpty()) {
+                Object[] previous = previousState.get(0);
+                LocalDateTime previousCompletedAt = (LocalDateTime) previous[1];
+
+                // Lần hoàn thành trước được chuyển sang hôm nay -> trừ khỏi rollup của ngày cũ
+                if (Boolean.TRUE.equals(previous[0]) && previousCompletedAt != null) {
+                    dailyActivityRollupService.revertCompletion(previousCompletedAt.toLocalDate(), (BigDecimal) previous[2]);
+                }
             } else {
-                progress = new UserLessonProgress();
-                progress.setUser(user);
-                progress.setLessonId(submission.getLessonId());
-                progress.setLessonType(Question.LessonType.valueOf(submission.getLessonType().toUpperCase()));
+                // Progress đầu tiên trong ngày của user -> tính là user hoạt động
+                if (!progressRepository.existsByUserIdAndCreatedAtBetween(
+                        userId, now.toLocalDate().atStartOfDay(), now.toLocalDate().atTime(23, 59, 59))) {
+                    dailyActivityRollupService.recordActiveUser(now.toLocalDate());
+                }
             }
 
-            progress.setIsCompleted(true);
-            progress.setScore(score);
-            progress.setTimeSpentSeconds(submission.getTimeSpent());
-            progress.setCompletedAt(LocalDateTime.now());
-
-            progressRepository.save(progress);
+            // Save or update progress
+            progressRepository.upsertCompletion(userId, lessonId, lessonType.name(), score, submission.getTimeSpent(), now);
+            dailyActivityRollupService.recordCompletion(now.toLocalDate(), score);
+            studentDashboardService.recordSubmission(dashboard, previousState.isEmpty() ? null : previousState.get(0),
+                    lessonId, lessonType, score, submission.getTimeSpent(), now);
 
             // Prepare result
             SubmissionResultDto result = new SubmissionResultDto();
@@ -423,27 +496,8 @@ public class UserService {
         log.info("Getting progress data for user: {}, timeRange: {}", userId, timeRange);
 
         try {
-            StudentProgressDto progressData = new StudentProgressDto();
-
-            // Get overview stats (reuse existing method)
-            StudentStatsDto overview = getStudentStats(userId);
-            progressData.setOverview(overview);
-
-            // Get charts data
-            Map<String, Object> charts = new HashMap<>();
-
-            // Simple weekly progress for now
-            List<UserLessonProgress> progressList = progressRepository.findByUserId(userId);
-            charts.put("weeklyProgress", generateWeeklyProgressData(progressList));
-            charts.put("levelProgress", generateLevelProgressData(progressList));
-
-            progressData.setCharts(charts);
-
-            // Get recent activities
-            List<RecentLessonDto> recentActivities = getRecentLessons(userId, 10);
-            progressData.setRecentActivities(recentActivities);
-
-            return progressData;
+            // Tổng quan, biểu đồ và hoạt động gần đây đọc từ cùng một dòng dashboard
+            return studentDashboardService.getProgress(userId);
 
         } catch (Exception e) {
             log.error("Error getting progress data for user {}: {}", userId, e.getMessage());
@@ -495,95 +549,172 @@ public class UserService {
         return dto;
     }
 
-    private RecentLessonDto convertToRecentLessonDto(UserLessonProgress progress) {
-        RecentLessonDto dto = new RecentLessonDto();
-        dto.setLessonId(progress.getLessonId());
-        dto.setLessonType(progress.getLessonType().name().toLowerCase());
-        dto.setScore(progress.getScore() != null ? progress.getScore().doubleValue() : 0.0);
-        dto.setTimeSpent(progress.getTimeSpentSeconds());
-        dto.setCompletedAt(progress.getCompletedAt());
-        dto.setIsCompleted(progress.getIsCompleted());
+    // Additional methods for Admin User Management
 
-        // Get lesson title based on type
-        try {
-            if (progress.getLessonType() == Question.LessonType.LISTENING) {
-                listeningLessonRepository.findById(progress.getLessonId())
-                        .ifPresent(lesson -> dto.setLessonTitle(lesson.getTitle()));
-            } else {
-                readingLessonRepository.findById(progress.getLessonId())
-                        .ifPresent(lesson -> dto.setLessonTitle(lesson.getTitle()));
-            }
-        } catch (Exception e) {
-            dto.setLessonTitle("Unknown Lesson");
+    /**
+     * User theo role (null = tất cả), mới nhất trước, tối đa LEGACY_USER_LIST_LIMIT người
+     * @deprecated dùng getUsersPage (phân trang keyset)
+     */
+    @Deprecated
+    @Transactional(readOnly = true)
+    public CappedList<UserDto> getAllUsers(String role) {
+        User.Role userRole = role != null && !role.isEmpty() ? User.Role.valueOf(role.toUpperCase()) : null;
+        CappedList<User> users = legacyUserList(userRole, null);
+        return new CappedList<>(users.items().stream()
+                .map(this::convertToUserDto)
+                .collect(Collectors.toList()), users.truncated());
+    }
+
+    /**
+     * Danh sách không phân trang của các endpoint cũ: giới hạn số dòng thay vì tải cả bảng.
+     * Lấy dư 1 dòng để biết danh sách có bị cắt hay không (controller báo lại cho client).
+     */
+    private CappedList<User> legacyUserList(User.Role role, Boolean active) {
+        List<User> users = userRepository.findAdminPage(role, active, Long.MAX_VALUE,
+                PageRequest.of(0, LEGACY_USER_LIST_LIMIT + 1));
+        if (users.size() <= LEGACY_USER_LIST_LIMIT) {
+            return new CappedList<>(users, false);
         }
+        log.warn("User list for role {} truncated to {} rows, use the paged endpoint", role, LEGACY_USER_LIST_LIMIT);
+        return new CappedList<>(new ArrayList<>(users.subList(0, LEGACY_USER_LIST_LIMIT)), true);
+    }
 
-        return dto;
+    /**
+     * Danh sách của endpoint cũ, truncated = còn dòng sau LEGACY_USER_LIST_LIMIT không được trả về
+     */
+    public record CappedList<T>(List<T> items, boolean truncated) {
     }
 
-    private List<Map<String, Object>> generateWeeklyProgressData(List<UserLessonProgress> progressList) {
-        // Simple implementation - group by day and calculate average score
-        Map<String, List<UserLessonProgress>> groupedByDay = progressList.stream()
-                .filter(p -> p.getCompletedAt() != null && p.getScore() != null)
-                .collect(Collectors.groupingBy(p -> p.getCompletedAt().toLocalDate().toString()));
+    /**
+     * Danh sách user cho màn hình quản lý: keyset theo id (mới nhất trước), lọc role / active.
+     * Khi tìm theo tiền tố họ tên hoặc email thì sắp theo họ tên / email, xem searchUsersPage
+     * @param pageToken id của user cuối trang trước (hoặc con trỏ tìm kiếm), null cho trang đầu
+     */
+    @Transactional(readOnly = true)
+    public UserPageDto getUsersPage(String role, Boolean active, String search, String pageToken, Integer size) {
+        int pageSize = size == null ? DEFAULT_USER_PAGE_SIZE : Math.max(1, Math.min(size, MAX_USER_PAGE_SIZE));
+        User.Role userRole = role == null || role.isEmpty() || "all".equalsIgnoreCase(role)
+                ? null : User.Role.valueOf(role.toUpperCase());
+        String prefix = search == null ? "" : search.trim();
+        if (!prefix.isEmpty()) {
+            return searchUsersPage(userRole, active, prefix, pageToken, pageSize);
+        }
 
-        return groupedByDay.entrySet().stream()
-                .map(entry -> {
-                    Map<String, Object> dayData = new HashMap<>();
-                    dayData.put("date", entry.getKey());
+        long beforeId = Long.MAX_VALUE;
+        if (pageToken != null && !pageToken.isBlank()) {
+            try {
+                beforeId = Long.parseLong(pageToken);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid page token");
+            }
+        }
 
-                    double avgScore = entry.getValue().stream()
-                            .mapToDouble(p -> p.getScore().doubleValue())
-                            .average()
-                            .orElse(0.0);
+        // Lấy dư 1 dòng để biết còn trang sau hay không
+        List<User> users = userRepository.findAdminPage(userRole, active, beforeId, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = users.size() > pageSize;
+        if (hasMore) {
+            users = users.subList(0, pageSize);
+        }
+        List<UserDto> items = users.stream().map(this::convertToUserDto).collect(Collectors.toList());
+        String nextPageToken = hasMore ? String.valueOf(users.get(users.size() - 1).getId()) : null;
+        return new UserPageDto(items, nextPageToken, hasMore);
+    }
 
-                    int totalTime = entry.getValue().stream()
-                            .mapToInt(p -> p.getTimeSpentSeconds() != null ? p.getTimeSpentSeconds() : 0)
-                            .sum();
+    /**
+     * Tìm theo tiền tố: hai nhánh họ tên và email, mỗi nhánh keyset trên index của cột đó nên không filesort.
+     * Trang là phần đầu của hai dòng kết quả trộn lại (so sánh khóa không phân biệt hoa thường, rồi id);
+     * page token giữ vị trí cuối của từng nhánh.
+     */
+    private UserPageDto searchUsersPage(User.Role userRole, Boolean active, String prefix, String pageToken,
+                                        int pageSize) {
+        UserSearchCursor cursor = pageToken == null || pageToken.isBlank()
+                ? UserSearchCursor.FIRST_PAGE : UserSearchCursor.decode(pageToken);
+        String escaped = escapeLike(prefix);
+        String roleName = userRole != null ? userRole.name() : null;
+
+        // Mỗi nhánh lấy dư 1 dòng để biết còn trang sau hay không
+        List<Object[]> byName = userRepository.searchAdminPageByName(escaped, roleName, active,
+                cursor.name(), cursor.nameId(), pageSize + 1);
+        List<Object[]> byEmail = userRepository.searchAdminPageByEmail(escaped, roleName, active,
+                cursor.email(), cursor.emailId(), pageSize + 1);
+
+        List<Long> ids = new ArrayList<>(pageSize);
+        String name = cursor.name();
+        long nameId = cursor.nameId();
+        String email = cursor.email();
+        long emailId = cursor.emailId();
+        int n = 0;
+        int e = 0;
+        while (ids.size() < pageSize && (n < byName.size() || e < byEmail.size())) {
+            boolean takeName = e >= byEmail.size()
+                    || (n < byName.size() && compareSearchRows(byName.get(n), byEmail.get(e)) <= 0);
+            Object[] row = takeName ? byName.get(n++) : byEmail.get(e++);
+            long id = ((Number) row[0]).longValue();
+            ids.add(id);
+            if (takeName) {
+                name = (String) row[1];
+                nameId = id;
+            } else {
+                email = (String) row[1];
+                emailId = id;
+            }
+        }
+        boolean hasMore = n < byName.size() || e < byEmail.size();
 
-                    dayData.put("score", avgScore);
-                    dayData.put("timeSpent", totalTime);
-                    return dayData;
-                })
-                .sorted((a, b) -> ((String) a.get("date")).compareTo((String) b.get("date")))
+        Map<Long, User> found = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+        List<UserDto> items = ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToUserDto)
                 .collect(Collectors.toList());
+        String nextPageToken = hasMore ? new UserSearchCursor(name, nameId, email, emailId).encode() : null;
+        return new UserPageDto(items, nextPageToken, hasMore);
     }
 
-    private List<Map<String, Object>> generateLevelProgressData(List<UserLessonProgress> progressList) {
-        // Count progress by lesson type
-        Map<String, Long> counts = progressList.stream()
-                .collect(Collectors.groupingBy(
-                        p -> p.getLessonType().name(),
-                        Collectors.counting()
-                ));
-
-        return counts.entrySet().stream()
-                .map(entry -> {
-                    Map<String, Object> levelData = new HashMap<>();
-                    levelData.put("level", entry.getKey());
-                    levelData.put("count", entry.getValue());
-                    return levelData;
-                })
-                .collect(Collectors.toList());
+    private static int compareSearchRows(Object[] left, Object[] right) {
+        int byKey = String.CASE_INSENSITIVE_ORDER.compare((String) left[1], (String) right[1]);
+        return byKey != 0 ? byKey : Long.compare(((Number) left[0]).longValue(), ((Number) right[0]).longValue());
     }
 
-    // Additional methods for Admin User Management
-    public List<UserDto> getAllUsers(String role) {
-        List<User> users;
-        if (role != null && !role.isEmpty()) {
-            User.Role userRole = User.Role.valueOf(role.toUpperCase());
-            users = userRepository.findByRole(userRole);
-        } else {
-            users = userRepository.findAll();
+    /**
+     * Vị trí keyset của tìm kiếm user: (họ tên, id) cuối đã trả của nhánh họ tên và (email, id) của nhánh email
+     */
+    private record UserSearchCursor(String name, long nameId, String email, long emailId) {
+
+        // "" đứng trước mọi họ tên / email thật (không để trống)
+        static final UserSearchCursor FIRST_PAGE = new UserSearchCursor("", 0L, "", 0L);
+
+        String encode() {
+            String raw = nameId + "\0" + emailId + "\0" + name + "\0" + email;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static UserSearchCursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\0", -1);
+                if (parts.length != 4) {
+                    throw new IllegalArgumentException("Invalid page token");
+                }
+                return new UserSearchCursor(parts[2], Long.parseLong(parts[0]), parts[3], Long.parseLong(parts[1]));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid page token", e);
+            }
         }
-        return users.stream()
-                .map(this::convertToUserDto)
-                .collect(Collectors.toList());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     public void toggleUserStatus(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + userId));
         user.setIsActive(!user.getIsActive());
+        if (!user.getIsActive()) {
+            tokenRevocationService.revokeUser(user);
+        }
         userRepository.save(user);
     }
 
@@ -593,6 +724,7 @@ public class UserService {
 
         String newPassword = generateRandomPassword();
         user.setPassword(passwordEncoder.encode(newPassword));
+        tokenRevocationService.revokeUser(user);
         userRepository.save(user);
 
         return newPassword;
@@ -601,7 +733,9 @@ public class UserService {
     public void deleteUser(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + userId));
+        tokenRevocationService.revokeUser(user);
         userRepository.delete(user);
+        studentDashboardService.delete(userId);
     }
 
     /**
@@ -637,6 +771,7 @@ public class UserService {
             }
 
             User savedUser = userRepository.save(user);
+            dailyActivityRollupService.recordRegistration(LocalDate.now());
             log.info("User created successfully with ID: {}", savedUser.getId());
 
             return savedUser;
@@ -644,6 +779,8 @@ public class UserService {
         } catch (EmailAlreadyExistsException e) {
             log.error("Email already exists: {}", userData.getEmail());
             throw e;
+        } catch (PasswordHashingBusyException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error creating user: ", e);
             throw new RuntimeException("Không thể tạo người dùng: " + e.getMessage());
@@ -702,13 +839,23 @@ public class UserService {
     public Map<String, Object> getUserStats() {
         Map<String, Object> stats = new HashMap<>();
 
-        List<User> allUsers = userRepository.findAll();
+        long total = 0;
+        long active = 0;
+        Map<User.Role, Long> byRole = new EnumMap<>(User.Role.class);
+        for (Object[] row : userRepository.countByRoleAndActive()) {
+            long count = ((Number) row[2]).longValue();
+            total += count;
+            if (Boolean.TRUE.equals(row[1])) {
+                active += count;
+            }
+            byRole.merge((User.Role) row[0], count, Long::sum);
+        }
 
-        stats.put("totalUsers", allUsers.size());
-        stats.put("activeUsers", allUsers.stream().filter(User::getIsActive).count());
-        stats.put("studentsCount", allUsers.stream().filter(u -> u.getRole() == User.Role.STUDENT).count());
-        stats.put("teachersCount", allUsers.stream().filter(u -> u.getRole() == User.Role.TEACHER).count());
-        stats.put("adminsCount", allUsers.stream().filter(u -> u.getRole() == User.Role.ADMIN).count());
+        stats.put("totalUsers", total);
+        stats.put("activeUsers", active);
+        stats.put("studentsCount", byRole.getOrDefault(User.Role.STUDENT, 0L));
+        stats.put("teachersCount", byRole.getOrDefault(User.Role.TEACHER, 0L));
+        stats.put("adminsCount", byRole.getOrDefault(User.Role.ADMIN, 0L));
 
         return stats;
     }
@@ -757,13 +904,13 @@ public class UserService {
             LocalDateTime expiryDate = LocalDateTime.now().plusMinutes(15); // Token có hiệu lực 15 phút
 
             PasswordResetToken resetToken = new PasswordResetToken(token, user, expiryDate);
-            passwordResetTokenRepository.save(resetToken);
+            resetToken = passwordResetTokenRepository.save(resetToken);
 
-            // Gửi email
+            // Gửi email (outbox chỉ giữ id token, không giữ token)
             emailService.sendPasswordResetEmail(
                     user.getEmail(),
                     user.getFullName(),
-                    token
+                    resetToken.getId()
             );
 
             log.info("Password reset token generated for user: {}", user.getEmail());
@@ -824,6 +971,7 @@ public class UserService {
             // Update password
             User user = resetToken.getUser();
             user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+            tokenRevocationService.revokeUser(user);
             userRepository.save(user);
 
             // Đánh dấu token đã sử dụng
@@ -906,6 +1054,7 @@ public class UserService {
             newUser.setPassword(passwordEncoder.encode(generateRandomPassword()));
 
             User savedUser = userRepository.save(newUser);
+            dailyActivityRollupService.recordRegistration(LocalDate.now());
             log.info("New Google user created successfully: {}", savedUser.getEmail());
 
             return savedUser;
@@ -25,17 +25,23 @@ public class VocabularyService {
     private final ListeningLessonRepository lessonRepository;
     private final UserRepository userRepository;
     private final UserVocabularyRepository userVocabularyRepository;
+    private final StudentDashboardService studentDashboardService;
+    private final CatalogCache catalogCache;
 
     public VocabularyService(LessonVocabularyRepository lessonVocabularyRepository,
                              VocabularyRepository vocabularyRepository,
                              ListeningLessonRepository lessonRepository,
                              UserRepository userRepository,
-                             UserVocabularyRepository userVocabularyRepository) {
+                             UserVocabularyRepository userVocabularyRepository,
+                             StudentDashboardService studentDashboardService,
+                             CatalogCache catalogCache) {
         this.lessonVocabularyRepository = lessonVocabularyRepository;
         this.vocabularyRepository = vocabularyRepository;
         this.lessonRepository = lessonRepository;
         this.userRepository = userRepository;
         this.userVocabularyRepository = userVocabularyRepository;
+        this.studentDashboardService = studentDashboardService;
+        this.catalogCache = catalogCache;
     }
 
     public LessonVocabularyDto addVocabularyToLesson(Long lessonId, VocabularyCreateDto createDto) {
@@ -76,6 +82,8 @@ public class VocabularyService {
         lessonVocabulary.setHighlightColor(createDto.getHighlightColor());
 
         LessonVocabulary saved = lessonVocabularyRepository.save(lessonVocabulary);
+        // Chi tiết bài nghe trong cache có danh sách từ vựng
+        catalogCache.invalidateLesson(lessonId, Question.LessonType.LISTENING);
 
         return convertToDto(saved, lesson.getTranscript());
     }
@@ -98,6 +106,7 @@ public class VocabularyService {
                 .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy từ vựng trong bài học"));
 
         lessonVocabularyRepository.delete(lessonVocabulary);
+        catalogCache.invalidateLesson(lessonId, Question.LessonType.LISTENING);
     }
 
     private LessonVocabularyDto convertToDto(LessonVocabulary lessonVocabulary, String transcript) {
@@ -166,7 +175,9 @@ public class VocabularyService {
         userVocabulary.setVocabulary(vocabulary);
         userVocabulary.setStatus(UserVocabulary.Status.LEARNING);
         
-        return userVocabularyRepository.save(userVocabulary);
+        UserVocabulary saved = userVocabularyRepository.save(userVocabulary);
+        studentDashboardService.recordVocabularyChange(userId, 1);
+        return saved;
     }
     
     /**
@@ -196,6 +207,7 @@ public class VocabularyService {
             .orElseThrow(() -> new RuntimeException("Không tìm thấy từ vựng trong danh sách cá nhân"));
         
         userVocabularyRepository.delete(userVocab);
+        studentDashboardService.recordVocabularyChange(userId, -1);
     }
     
     /**
@@ -1,5 +1,8 @@
 package com.skillbridge.skillbridgebackend.config;
 
+import com.skillbridge.skillbridgebackend.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -8,8 +11,13 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @Configuration
 public class PasswordConfig {
     
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "shutdown")
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${app.security.password.bcrypt-strength:10}") int strength,
+                                           @Value("${app.security.password.workers:4}") int workers,
+                                           @Value("${app.security.password.queue-capacity:64}") int queueCapacity,
+                                           @Value("${app.security.password.queue-timeout-ms:3000}") long queueTimeoutMillis) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength),
+                workers, queueCapacity, queueTimeoutMillis, meterRegistry);
     }
 }
@@ -0,0 +1,69 @@
+package com.skillbridge.skillbridgebackend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillbridge.skillbridgebackend.security.JwtTokenVerifier;
+import com.skillbridge.skillbridgebackend.security.RateLimitFilter;
+import com.skillbridge.skillbridgebackend.security.RateLimitRule;
+import com.skillbridge.skillbridgebackend.security.RateLimitRule.KeyType;
+import com.skillbridge.skillbridgebackend.security.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Các luật giới hạn tần suất theo endpoint. Giới hạn dạng "capacity/seconds" lấy từ app.rate-limit.*,
+ * để trống hoặc "0" thì tắt luật. Với cùng endpoint, luật theo IP đứng trước luật theo email.
+ */
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(RateLimiter rateLimiter, JwtTokenVerifier tokenVerifier,
+                                           ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                           @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                                           @Value("${app.rate-limit.login.ip:30/60}") String loginIp,
+                                           @Value("${app.rate-limit.login.email:10/300}") String loginEmail,
+                                           @Value("${app.rate-limit.register.ip:10/600}") String registerIp,
+                                           @Value("${app.rate-limit.forgot-password.ip:10/600}") String forgotPasswordIp,
+                                           @Value("${app.rate-limit.forgot-password.email:3/3600}") String forgotPasswordEmail,
+                                           @Value("${app.rate-limit.reset-password.ip:10/600}") String resetPasswordIp,
+                                           @Value("${app.rate-limit.google.ip:30/60}") String googleIp,
+                                           @Value("${app.rate-limit.upload.user:30/300}") String upload) {
+        List<RateLimitRule> rules = new ArrayList<>();
+        if (enabled) {
+            rules.add(RateLimitRule.parse("login-ip", KeyType.IP, loginIp, "POST", "/auth/login"));
+            rules.add(RateLimitRule.parse("login-email", KeyType.EMAIL, loginEmail, "POST", "/auth/login"));
+            rules.add(RateLimitRule.parse("register-ip", KeyType.IP, registerIp, "POST", "/auth/register"));
+            rules.add(RateLimitRule.parse("forgot-password-ip", KeyType.IP, forgotPasswordIp,
+                    "POST", "/auth/forgot-password"));
+            rules.add(RateLimitRule.parse("forgot-password-email", KeyType.EMAIL, forgotPasswordEmail,
+                    "POST", "/auth/forgot-password"));
+            rules.add(RateLimitRule.parse("reset-password-ip", KeyType.IP, resetPasswordIp,
+                    "POST", "/auth/reset-password"));
+            rules.add(RateLimitRule.parse("google-ip", KeyType.IP, googleIp, "POST", "/auth/google/verify"));
+            // Các endpoint upload dùng chung một bucket mỗi user
+            rules.add(RateLimitRule.parse("upload-user", KeyType.USER, upload, "POST",
+                    "/audio/upload", "/audio/validate", "/audio/test", "/image/upload",
+                    "/upload/avatar", "/reading-lessons/upload-text"));
+            rules.removeIf(Objects::isNull);
+        }
+        return new RateLimitFilter(rateLimiter, tokenVerifier, objectMapper, meterRegistry, rules);
+    }
+
+    /**
+     * Không để Spring Boot đăng ký filter vào servlet container: filter chỉ chạy trong chuỗi Spring Security
+     * (sau CorsFilter để response 429 vẫn có header CORS, trước JwtRequestFilter)
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+}
@@ -0,0 +1,33 @@
+package com.skillbridge.skillbridgebackend.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Timeout riêng cho endpoint trả StreamingResponseBody. Spring MVC chạy body trong một task async
+ * tạo sau khi controller trả về (bọc WebAsyncTask / DeferredResult bên ngoài không áp được vào task đó),
+ * nên controller đánh dấu request bằng setTimeout rồi interceptor áp timeout ngay trước khi task bắt đầu.
+ * Request không được đánh dấu giữ timeout async mặc định.
+ */
+public class StreamingTimeoutInterceptor implements CallableProcessingInterceptor {
+
+    private static final String TIMEOUT_ATTRIBUTE = StreamingTimeoutInterceptor.class.getName() + ".timeout";
+
+    public static void setTimeout(HttpServletRequest request, Duration timeout) {
+        request.setAttribute(TIMEOUT_ATTRIBUTE, timeout.toMillis());
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        Object timeout = request.getAttribute(TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (timeout instanceof Long millis && request instanceof AsyncWebRequest asyncRequest) {
+            asyncRequest.setTimeout(millis);
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package com.skillbridge.skillbridgebackend.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
- * Cấu hình Web MVC để serve static files
+ * Cấu hình Web MVC để serve static files và timeout của các endpoint stream
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
@@ -32,4 +33,12 @@ public class WebConfig implements WebMvcConfigurer {
                 .addResourceLocations("file:uploads/")
                 .setCachePeriod(3600); // Cache 1 hour
     }
-}
\ No newline at end of file
+
+    /**
+     * Endpoint export dài đặt timeout riêng qua StreamingTimeoutInterceptor, không đổi timeout async chung
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new StreamingTimeoutInterceptor());
+    }
+}
@@ -1,19 +1,39 @@
 package com.skillbridge.skillbridgebackend.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.skillbridge.skillbridgebackend.Service.AnalyticsService;
+import com.skillbridge.skillbridgebackend.Service.DailyActivityRollupService;
+import com.skillbridge.skillbridgebackend.Service.StudentExcelExportService;
+import com.skillbridge.skillbridgebackend.Service.StudentPdfReportService;
+import com.skillbridge.skillbridgebackend.config.StreamingTimeoutInterceptor;
 import com.skillbridge.skillbridgebackend.dto.analytics.*;
 import com.skillbridge.skillbridgebackend.response.ApiResponse;
+import com.skillbridge.skillbridgebackend.security.JwtHelper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/analytics")
@@ -26,6 +46,28 @@ public class AnalyticsController {
     @Autowired
     private AnalyticsService analyticsService;
 
+    @Autowired
+    private DailyActivityRollupService dailyActivityRollupService;
+
+    @Autowired
+    private StudentExcelExportService studentExcelExportService;
+
+    @Autowired
+    private StudentPdfReportService studentPdfReportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtHelper jwtHelper;
+
+    // Thời gian tối đa của một lần stream báo cáo / export (chỉ áp cho các endpoint này)
+    @Value("${app.export.stream-timeout-ms:600000}")
+    private long streamTimeoutMs;
+
+    private static final MediaType EXCEL_MEDIA_TYPE =
+        MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
     /**
      * Lấy analytics tổng quan hệ thống
      */
@@ -68,6 +110,60 @@ public class AnalyticsController {
         }
     }
 
+    /**
+     * Rebuild bảng rollup hoạt động theo ngày từ dữ liệu gốc
+     * Không truyền from/to -> backfill toàn bộ lịch sử
+     */
+    @PostMapping("/rollup/rebuild")
+    @Operation(
+        summary = "Rebuild daily activity rollup",
+        description = "Recompute the daily activity rollup from raw progress and user data (Admin only)"
+    )
+    @SecurityRequirement(name = "JWT")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Integer>> rebuildDailyRollup(
+            @Parameter(description = "From date (yyyy-MM-dd)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "To date (yyyy-MM-dd)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            log.info("Rebuilding daily activity rollup from {} to {}", from, to);
+            int days = (from == null)
+                ? dailyActivityRollupService.rebuildAll()
+                : dailyActivityRollupService.rebuild(from, to != null ? to : LocalDate.now());
+            return ResponseEntity.ok(ApiResponse.success("Rebuild rollup thành công", days));
+        } catch (Exception e) {
+            log.error("Error rebuilding daily activity rollup", e);
+            return ResponseEntity.internalServerError()
+                .body(ApiResponse.error("Không thể rebuild rollup", e.getMessage()));
+        }
+    }
+
+    /**
+     * Đối soát bảng rollup với dữ liệu gốc
+     */
+    @GetMapping("/rollup/verify")
+    @Operation(
+        summary = "Verify daily activity rollup",
+        description = "Compare the daily activity rollup against raw data and list mismatching values (Admin only)"
+    )
+    @SecurityRequirement(name = "JWT")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<RollupMismatchDto>>> verifyDailyRollup(
+            @Parameter(description = "From date (yyyy-MM-dd)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "To date (yyyy-MM-dd)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            List<RollupMismatchDto> mismatches = dailyActivityRollupService.verify(from, to);
+            return ResponseEntity.ok(ApiResponse.success("Đối soát rollup thành công", mismatches));
+        } catch (Exception e) {
+            log.error("Error verifying daily activity rollup", e);
+            return ResponseEntity.internalServerError()
+                .body(ApiResponse.error("Không thể đối soát rollup", e.getMessage()));
+        }
+    }
+
     /**
      * Lấy analytics tất cả bài học
      */
@@ -159,28 +255,141 @@ public class AnalyticsController {
     }
 
     /**
-     * Export Excel - Placeholder for now
+     * Stream báo cáo tất cả học viên dưới dạng JSON array, ghi từng báo cáo ngay khi batch được tính xong
+     */
+    @GetMapping(value = "/students/reports/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Stream all students reports",
+        description = "Stream progress reports for all students as a JSON array without buffering the whole result"
+    )
+    @SecurityRequirement(name = "JWT")
+    public ResponseEntity<StreamingResponseBody> streamAllStudentsReports(HttpServletRequest request) {
+        log.info("Streaming progress reports for all students");
+        StreamingTimeoutInterceptor.setTimeout(request, Duration.ofMillis(streamTimeoutMs));
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                analyticsService.streamAllStudentsReports(report -> {
+                    try {
+                        generator.writeObject(report);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                log.error("Error streaming students reports", e);
+                throw e.getCause();
+            }
+        };
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+
+    /**
+     * Export Excel - ghi thẳng workbook vào response
      */
     @GetMapping("/export/students")
     @Operation(
         summary = "Export students data to Excel", 
-        description = "Export all students data to Excel file"
+        description = "Export all students data to Excel file, streamed directly to the response"
+    )
+    @SecurityRequirement(name = "JWT")
+    public ResponseEntity<StreamingResponseBody> exportStudentsExcel(HttpServletRequest request) {
+        log.info("Exporting students data to Excel");
+        StreamingTimeoutInterceptor.setTimeout(request, Duration.ofMillis(streamTimeoutMs));
+
+        StreamingResponseBody body = outputStream -> {
+            int rows = studentExcelExportService.writeStudentsWorkbook(outputStream);
+            log.info("Exported {} students to Excel", rows);
+        };
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + excelFileName() + "\"")
+            .contentType(EXCEL_MEDIA_TYPE)
+            .body(body);
+    }
+
+    /**
+     * Export Excel chạy nền - trả về job id để lấy file sau
+     */
+    @PostMapping("/export/students/jobs")
+    @Operation(
+        summary = "Start async Excel export",
+        description = "Generate the students Excel file in the background and return a job id. " +
+            "Only the user who started the job can read or download it, and the job lives on the node " +
+            "that created it until it expires"
     )
     @SecurityRequirement(name = "JWT")
-    public ResponseEntity<ApiResponse<String>> exportStudentsExcel() {
+    public ResponseEntity<ApiResponse<ExportJobDto>> startStudentsExcelJob() {
         try {
-            log.info("Exporting students data to Excel");
-            // TODO: Implement Excel export using Apache POI
-            return ResponseEntity.ok(ApiResponse.success("Tính năng xuất Excel sẽ được phát triển trong tương lai"));
+            ExportJobDto job = studentExcelExportService.startExportJob(jwtHelper.getCurrentUserId());
+            return ResponseEntity.accepted().body(ApiResponse.success("Đã tạo job xuất Excel", job));
+        } catch (RejectedExecutionException e) {
+            log.warn("Excel export queue is full");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(ApiResponse.error("Hệ thống đang xử lý quá nhiều yêu cầu xuất Excel, vui lòng thử lại sau"));
         } catch (Exception e) {
-            log.error("Error exporting students to Excel", e);
+            log.error("Error starting Excel export job", e);
+            return ResponseEntity.internalServerError()
+                .body(ApiResponse.error("Không thể tạo job xuất Excel", e.getMessage()));
+        }
+    }
+
+    /**
+     * Trạng thái job export Excel
+     */
+    @GetMapping("/export/students/jobs/{jobId}")
+    @Operation(summary = "Get Excel export job status")
+    @SecurityRequirement(name = "JWT")
+    public ResponseEntity<ApiResponse<ExportJobDto>> getStudentsExcelJob(@PathVariable String jobId) {
+        try {
+            ExportJobDto job = studentExcelExportService.getJob(jobId, jwtHelper.getCurrentUserId());
+            return ResponseEntity.ok(ApiResponse.success("Lấy trạng thái job thành công", job));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error("Không tìm thấy job xuất Excel", e.getMessage()));
+        }
+    }
+
+    /**
+     * Tải file Excel của job đã hoàn thành
+     */
+    @GetMapping("/export/students/jobs/{jobId}/download")
+    @Operation(summary = "Download Excel export job result")
+    @SecurityRequirement(name = "JWT")
+    public ResponseEntity<?> downloadStudentsExcelJob(@PathVariable String jobId) {
+        try {
+            StudentExcelExportService.ExportFile file =
+                studentExcelExportService.openJobFile(jobId, jwtHelper.getCurrentUserId());
+            // Stream được đóng sau khi ghi xong response, lúc đó job mới được phép dọn
+            return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + excelFileName() + "\"")
+                .contentType(EXCEL_MEDIA_TYPE)
+                .contentLength(file.length())
+                .body(new InputStreamResource(file.content()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("Job xuất Excel chưa hoàn thành", e.getMessage()));
+        } catch (IOException e) {
+            log.error("Error reading Excel export file for job {}", jobId, e);
             return ResponseEntity.internalServerError()
-                .body(ApiResponse.error("Không thể xuất Excel", e.getMessage()));
+                .body(ApiResponse.error("Không thể tải file Excel", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error("Không tìm thấy job xuất Excel", e.getMessage()));
         }
     }
 
+    private static String excelFileName() {
+        return "students-report-" + LocalDate.now() + ".xlsx";
+    }
+
     /**
-     * Export PDF - Placeholder for now
+     * Export PDF báo cáo của một học viên
      */
     @GetMapping("/export/student/{studentId}/pdf")
     @Operation(
@@ -188,17 +397,51 @@ public class AnalyticsController {
         description = "Export individual student progress report to PDF"
     )
     @SecurityRequirement(name = "JWT")
-    public ResponseEntity<ApiResponse<String>> exportStudentPdf(
+    public ResponseEntity<?> exportStudentPdf(
             @Parameter(description = "Student ID", required = true)
             @PathVariable Long studentId) {
+        StudentProgressReportDto report;
         try {
             log.info("Exporting student {} report to PDF", studentId);
-            // TODO: Implement PDF export using iText
-            return ResponseEntity.ok(ApiResponse.success("Tính năng xuất PDF sẽ được phát triển trong tương lai"));
+            report = analyticsService.getStudentReport(studentId);
         } catch (Exception e) {
             log.error("Error exporting student {} report to PDF", studentId, e);
             return ResponseEntity.internalServerError()
                 .body(ApiResponse.error("Không thể xuất PDF", e.getMessage()));
         }
+
+        StreamingResponseBody body = outputStream -> studentPdfReportService.renderReport(report, outputStream);
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"student-" + studentId + "-report.pdf\"")
+            .contentType(MediaType.APPLICATION_PDF)
+            .body(body);
+    }
+
+    /**
+     * Export PDF hàng loạt - file ZIP gồm báo cáo PDF của từng học viên
+     */
+    @GetMapping("/export/students/pdf")
+    @Operation(
+        summary = "Export students reports to a ZIP of PDFs",
+        description = "Render one PDF per student (all active students when studentIds is omitted) and stream them as a ZIP"
+    )
+    @SecurityRequirement(name = "JWT")
+    public ResponseEntity<StreamingResponseBody> exportStudentsPdfZip(
+            @Parameter(description = "Student IDs")
+            @RequestParam(required = false) List<Long> studentIds,
+            HttpServletRequest request) {
+        log.info("Exporting students reports to PDF ZIP");
+        StreamingTimeoutInterceptor.setTimeout(request, Duration.ofMillis(streamTimeoutMs));
+
+        StreamingResponseBody body = outputStream -> {
+            int files = studentPdfReportService.writeReportsZip(studentIds, outputStream);
+            log.info("Exported {} student PDF reports", files);
+        };
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"students-reports-" + LocalDate.now() + ".zip\"")
+            .contentType(MediaType.parseMediaType("application/zip"))
+            .body(body);
     }
 }
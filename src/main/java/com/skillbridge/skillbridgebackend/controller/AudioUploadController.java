@@ -1,5 +1,6 @@
 package com.skillbridge.skillbridgebackend.controller;
 
+import com.skillbridge.skillbridgebackend.Service.AudioAnalysisService;
 import com.skillbridge.skillbridgebackend.Service.CloudinaryService;
 import com.skillbridge.skillbridgebackend.dto.CloudinaryUploadResponse;
 import com.skillbridge.skillbridgebackend.response.ApiResponse;
@@ -19,6 +20,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Controller xử lý upload và quản lý file audio với Cloudinary
  */
@@ -32,6 +35,9 @@ public class AudioUploadController {
     @Autowired
     private CloudinaryService cloudinaryService;
 
+    @Autowired
+    private AudioAnalysisService audioAnalysisService;
+
     /**
      * Upload file audio lên Cloudinary cho bài học listening
      * @param file File audio cần upload (MP3, WAV, M4A, AAC, OGG, FLAC)
@@ -91,6 +97,13 @@ public class AudioUploadController {
             log.info("Successfully uploaded audio file {} to Cloudinary with public_id: {}", 
                     file.getOriginalFilename(), uploadResult.getPublicId());
 
+            // Phân tích thời lượng/waveform chạy nền, lỗi ở bước này không ảnh hưởng kết quả upload
+            try {
+                audioAnalysisService.submit(uploadResult.getSecureUrl());
+            } catch (RuntimeException e) {
+                log.warn("Could not queue audio analysis for {}: {}", uploadResult.getSecureUrl(), e.getMessage());
+            }
+
             return ResponseEntity.ok(
                 ApiResponse.success("Upload file audio thành công lên Cloudinary", response)
             );
@@ -99,6 +112,10 @@ public class AudioUploadController {
             log.error("Validation error uploading audio file: {}", e.getMessage());
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error("Lỗi validation: " + e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Upload queue is full, rejecting audio file: {}", file.getOriginalFilename());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(ApiResponse.error("Hệ thống đang xử lý quá nhiều upload, vui lòng thử lại sau"));
         } catch (RuntimeException e) {
             log.error("Runtime error uploading audio file: {}", e.getMessage(), e);
             return ResponseEntity.badRequest()
@@ -2,10 +2,15 @@ package com.skillbridge.skillbridgebackend.controller;
 
 import com.skillbridge.skillbridgebackend.dto.*;
 import com.skillbridge.skillbridgebackend.entity.User;
+import com.skillbridge.skillbridgebackend.exception.PasswordHashingBusyException;
 import com.skillbridge.skillbridgebackend.Service.UserService;
 import com.skillbridge.skillbridgebackend.response.ApiResponse;
 import com.skillbridge.skillbridgebackend.security.JwtUtil;
 import com.skillbridge.skillbridgebackend.security.JwtHelper;
+import com.skillbridge.skillbridgebackend.security.JwtTokenVerifier;
+import com.skillbridge.skillbridgebackend.security.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,6 +19,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -47,6 +53,12 @@ public class AuthController {
     @Autowired
     private JwtHelper jwtHelper;
 
+    @Autowired
+    private JwtTokenVerifier tokenVerifier;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     /**
      * Đăng ký user mới
      */
@@ -77,6 +89,10 @@ public class AuthController {
             ApiResponse<UserDto> response = ApiResponse.success("Đăng ký thành công", userDto);
             return new ResponseEntity<>(response, HttpStatus.CREATED);
 
+        } catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error("Hệ thống đang xử lý quá nhiều yêu cầu, vui lòng thử lại sau"));
         } catch (Exception e) {
             ApiResponse<UserDto> response = ApiResponse.error("Đăng ký thất bại", e.getMessage());
             return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
@@ -128,6 +144,10 @@ public class AuthController {
 
             return ResponseEntity.ok(response);
 
+        } catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error("Hệ thống đang xử lý quá nhiều yêu cầu, vui lòng thử lại sau"));
         } catch (Exception e) {
             ApiResponse<LoginResponse> response = ApiResponse.error("Email hoặc mật khẩu không đúng");
             return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
@@ -174,12 +194,20 @@ public class AuthController {
     }
 
     /**
-     * Đăng xuất (placeholder)
+     * Đăng xuất: thu hồi token hiện tại trên mọi instance
      */
     @PostMapping("/logout")
-    @Operation(summary = "User logout", description = "Logout current user session")
+    @Operation(summary = "User logout", description = "Logout current user session and revoke its token")
     @SecurityRequirement(name = "JWT")
-    public ResponseEntity<ApiResponse<String>> logout() {
+    public ResponseEntity<ApiResponse<String>> logout(HttpServletRequest request) {
+        String token = jwtHelper.extractTokenFromRequest(request);
+        if (token != null) {
+            try {
+                tokenRevocationService.revokeToken(tokenVerifier.verify(token));
+            } catch (JwtException e) {
+                // Token không hợp lệ / đã hết hạn: không cần thu hồi
+            }
+        }
         SecurityContextHolder.clearContext();
         ApiResponse<String> response = ApiResponse.success("Đăng xuất thành công");
         return ResponseEntity.ok(response);
@@ -210,21 +238,23 @@ public class AuthController {
             }
 
             String token = authHeader.substring(7);
-            String email = jwtUtil.getEmailFromToken(token);
-
-            if (!jwtUtil.validateToken(token, email)) {
+            // Parse và xác thực một lần, đọc mọi claim từ cùng kết quả
+            Claims claims;
+            try {
+                claims = jwtUtil.parseClaims(token);
+            } catch (JwtException e) {
                 return ResponseEntity.badRequest()
                         .body(ApiResponse.error("Invalid or expired token"));
             }
 
             Map<String, Object> tokenInfo = new HashMap<>();
-            tokenInfo.put("email", email);
-            tokenInfo.put("userId", jwtUtil.getUserIdFromToken(token));
-            tokenInfo.put("role", jwtUtil.getRoleFromToken(token));
-            tokenInfo.put("fullName", jwtUtil.getFullNameFromToken(token));
-            tokenInfo.put("isActive", jwtUtil.getIsActiveFromToken(token));
-            tokenInfo.put("issuedAt", jwtUtil.getIssuedAtDateFromToken(token));
-            tokenInfo.put("expiresAt", jwtUtil.getExpirationDateFromToken(token));
+            tokenInfo.put("email", claims.getSubject());
+            tokenInfo.put("userId", claims.get("userId", Long.class));
+            tokenInfo.put("role", claims.get("role", String.class));
+            tokenInfo.put("fullName", claims.get("fullName", String.class));
+            tokenInfo.put("isActive", claims.get("isActive", Boolean.class));
+            tokenInfo.put("issuedAt", claims.getIssuedAt());
+            tokenInfo.put("expiresAt", claims.getExpiration());
 
             return ResponseEntity.ok(ApiResponse.success("Token info retrieved successfully", tokenInfo));
 
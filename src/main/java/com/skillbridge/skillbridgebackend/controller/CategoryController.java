@@ -1,6 +1,7 @@
 package com.skillbridge.skillbridgebackend.controller;
 
-import com.skillbridge.skillbridgebackend.entity.Category;
+import com.skillbridge.skillbridgebackend.Service.CatalogCache;
+import com.skillbridge.skillbridgebackend.dto.CategoryDto;
 import com.skillbridge.skillbridgebackend.repository.CategoryRepository;
 import com.skillbridge.skillbridgebackend.response.ApiResponse;
 import io.swagger.v3.oas.annotations.Operation;
@@ -17,16 +18,22 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryRepository categoryRepository;
+    private final CatalogCache catalogCache;
 
-    public CategoryController(CategoryRepository categoryRepository) {
+    public CategoryController(CategoryRepository categoryRepository, CatalogCache catalogCache) {
         this.categoryRepository = categoryRepository;
+        this.catalogCache = catalogCache;
     }
 
     @GetMapping
     @Operation(summary = "Get all categories", description = "Get list of all categories")
-    public ResponseEntity<ApiResponse<List<Category>>> getAllCategories() {
+    public ResponseEntity<ApiResponse<List<CategoryDto>>> getAllCategories() {
         try {
-            List<Category> categories = categoryRepository.findAll();
+            // Thể loại hầu như không đổi: cache DTO (không giữ entity đã detach) qua cache catalog.
+            // Ứng dụng chưa có API sửa thể loại: sửa trực tiếp trong database thì hết hạn theo TTL,
+            // nơi ghi thể loại sau này gọi catalogCache.invalidateCategories()
+            List<CategoryDto> categories = catalogCache.get(CatalogCache.Region.CATEGORIES, "all",
+                    () -> categoryRepository.findAll().stream().map(CategoryDto::new).toList());
             return ResponseEntity.ok(
                     ApiResponse.success("Lấy danh sách thể loại thành công", categories)
             );
@@ -86,6 +86,19 @@ public class FileUploadController {
         }
     }
     
+    /**
+     * Serve ảnh lưu theo hash nội dung (chia thư mục theo 2 ký tự đầu của hash)
+     */
+    @GetMapping("/images/{shard:[0-9a-f]{2}}/{filename:.+}")
+    @Operation(summary = "Get uploaded image", description = "Serve content-addressed image files")
+    public ResponseEntity<Resource> getShardedImage(
+            @Parameter(description = "Hash prefix directory", required = true)
+            @PathVariable String shard,
+            @Parameter(description = "Image filename", required = true)
+            @PathVariable String filename) {
+        return getImage(shard + "/" + filename);
+    }
+
     /**
      * Serve uploaded images
      */
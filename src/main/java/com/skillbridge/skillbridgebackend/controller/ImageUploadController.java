@@ -19,6 +19,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Controller xử lý upload và quản lý file ảnh với Cloudinary
  */
@@ -91,6 +93,10 @@ public class ImageUploadController {
             log.error("Validation error uploading image file: {}", e.getMessage());
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error("Lỗi validation: " + e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Upload queue is full, rejecting image file: {}", file.getOriginalFilename());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(ApiResponse.error("Hệ thống đang xử lý quá nhiều upload, vui lòng thử lại sau"));
         } catch (RuntimeException e) {
             log.error("Runtime error uploading image file: {}", e.getMessage(), e);
             return ResponseEntity.badRequest()
@@ -1,12 +1,13 @@
 package com.skillbridge.skillbridgebackend.controller;
 
+import com.skillbridge.skillbridgebackend.Service.AudioAnalysisService;
 import com.skillbridge.skillbridgebackend.Service.ListeningLessonService;
+import com.skillbridge.skillbridgebackend.dto.AudioAnalysisDto;
 import com.skillbridge.skillbridgebackend.dto.LessonPreviewDto;
 import com.skillbridge.skillbridgebackend.dto.ListeningLessonCreateDto;
 import com.skillbridge.skillbridgebackend.dto.ListeningLessonDto;
 import com.skillbridge.skillbridgebackend.dto.ListeningLessonUpdateDto;
 import com.skillbridge.skillbridgebackend.entity.ListeningLesson;
-import com.skillbridge.skillbridgebackend.entity.User;
 import com.skillbridge.skillbridgebackend.mapper.ListeningLessonMapper;
 import com.skillbridge.skillbridgebackend.response.ApiResponse;
 import com.skillbridge.skillbridgebackend.security.JwtHelper;
@@ -25,7 +26,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -37,12 +37,15 @@ public class ListeningLessonController {
 
     private final ListeningLessonService lessonService;
     private final JwtHelper jwtHelper;
+    private final AudioAnalysisService audioAnalysisService;
 
     private static final Logger logger = LoggerFactory.getLogger(ListeningLessonController.class);
 
-    public ListeningLessonController(ListeningLessonService lessonService, JwtHelper jwtHelper) {
+    public ListeningLessonController(ListeningLessonService lessonService, JwtHelper jwtHelper,
+                                     AudioAnalysisService audioAnalysisService) {
         this.lessonService = lessonService;
         this.jwtHelper = jwtHelper;
+        this.audioAnalysisService = audioAnalysisService;
     }
 
     @GetMapping
@@ -68,76 +71,45 @@ public class ListeningLessonController {
         logger.info("Request parameters - level: {}, categoryId: {}", level, categoryId);
 
         try {
-            List<ListeningLesson> lessons;
+            List<ListeningLessonDto> lessonDtos;
 
             // Log filtering logic decision
             if (level != null && categoryId != null) {
                 logger.info("Applying both level and category filters");
                 logger.debug("Filtering by level: {} and categoryId: {}", level, categoryId);
 
-                lessons = lessonService.getLessonsByLevelAndCategory(level, categoryId);
+                lessonDtos = lessonService.getLessonDtosByLevelAndCategory(level, categoryId);
 
                 logger.info("Found {} lessons with level: {} and categoryId: {}",
-                        lessons != null ? lessons.size() : 0, level, categoryId);
-
-            } else if (level != null) {
-                logger.info("Applying level filter only");
-                logger.debug("Filtering by level: {}", level);
-
-                // Note: This logic path doesn't exist in original code, but might be useful
-                lessons = lessonService.getPublishedLessons(); // You might want to add getLessonsByLevel method
-                logger.warn("Level-only filtering not implemented, falling back to published lessons");
-
-            } else if (categoryId != null) {
-                logger.info("Applying category filter only");
-                logger.debug("Filtering by categoryId: {}", categoryId);
-
-                // Note: This logic path doesn't exist in original code, but might be useful
-                lessons = lessonService.getPublishedLessons(); // You might want to add getLessonsByCategory method
-                logger.warn("Category-only filtering not implemented, falling back to published lessons");
+                        lessonDtos.size(), level, categoryId);
 
             } else {
-                logger.info("No filters applied, getting all published lessons");
-                lessons = lessonService.getPublishedLessons();
-
-                logger.info("Found {} published lessons",
-                        lessons != null ? lessons.size() : 0);
+                if (level != null) {
+                    // Note: This logic path doesn't exist in original code, but might be useful
+                    logger.warn("Level-only filtering not implemented, falling back to published lessons");
+                } else if (categoryId != null) {
+                    // Note: This logic path doesn't exist in original code, but might be useful
+                    logger.warn("Category-only filtering not implemented, falling back to published lessons");
+                } else {
+                    logger.info("No filters applied, getting all published lessons");
+                }
+
+                // Danh sách bài đã publish (DTO) đọc qua cache catalog
+                lessonDtos = lessonService.getPublishedLessonDtos();
+
+                logger.info("Found {} published lessons", lessonDtos.size());
             }
 
-            // Log lessons retrieval result
-            if (lessons == null) {
-                logger.warn("Service returned null lessons list");
-                lessons = new ArrayList<>();
-            }
-
-            if (lessons.isEmpty()) {
+            if (lessonDtos.isEmpty()) {
                 logger.info("No lessons found matching criteria");
             } else {
                 logger.debug("Lessons details: {}",
-                        lessons.stream()
+                        lessonDtos.stream()
                                 .map(lesson -> String.format("ID:%d, Title:'%s', Level:%s, Status:%s",
                                         lesson.getId(), lesson.getTitle(), lesson.getLevel(), lesson.getStatus()))
                                 .collect(Collectors.joining(", ")));
             }
 
-            // Log DTO conversion
-            logger.info("Converting {} lessons to DTOs", lessons.size());
-            List<ListeningLessonDto> lessonDtos = lessons.stream()
-                    .map(lesson -> {
-                        try {
-                            ListeningLessonDto dto = ListeningLessonMapper.toDto(lesson);
-                            logger.debug("Converted lesson ID: {} to DTO successfully", lesson.getId());
-                            return dto;
-                        } catch (Exception e) {
-                            logger.error("Failed to convert lesson ID: {} to DTO: {}",
-                                    lesson.getId(), e.getMessage());
-                            throw e;
-                        }
-                    })
-                    .collect(Collectors.toList());
-
-            logger.info("Successfully converted {} lessons to DTOs", lessonDtos.size());
-
             // Log successful response
             ApiResponse<List<ListeningLessonDto>> response =
                     ApiResponse.success("Lấy danh sách bài học thành công", lessonDtos);
@@ -166,8 +138,7 @@ public class ListeningLessonController {
     public ResponseEntity<ApiResponse<ListeningLessonDto>> getLessonById(
             @Parameter(description = "Lesson ID", required = true)
             @PathVariable Long id) {
-        ListeningLesson lesson = lessonService.findById(id);
-        ListeningLessonDto lessonDto = ListeningLessonMapper.toDto(lesson);
+        ListeningLessonDto lessonDto = lessonService.getLessonDto(id);
 
         return ResponseEntity.ok(ApiResponse.success("Lấy thông tin bài học thành công", lessonDto));
     }
@@ -180,18 +151,49 @@ public class ListeningLessonController {
             @Parameter(description = "Lesson data", required = true)
             @Valid @RequestBody ListeningLessonCreateDto createDto) {
 
-        User currentUser = jwtHelper.getCurrentUser();
-        if (currentUser == null) {
+        Long currentUserId = jwtHelper.getCurrentUserId();
+        if (currentUserId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
         }
 
-        ListeningLesson lesson = lessonService.createLesson(createDto, currentUser.getId());
+        ListeningLesson lesson = lessonService.createLesson(createDto, currentUserId);
         ListeningLessonDto lessonDto = ListeningLessonMapper.toDto(lesson);
 
         return ResponseEntity.ok(ApiResponse.success("Tạo bài học thành công", lessonDto));
     }
 
+    @GetMapping("/{id}/audio-analysis")
+    @Operation(
+        summary = "Get audio analysis",
+        description = "Analysis status, exact duration/bitrate and downsampled waveform peaks (Base64, 1 byte per point). "
+                + "Read-only: analyses are queued on lesson creation or by the POST endpoint"
+    )
+    public ResponseEntity<ApiResponse<AudioAnalysisDto>> getAudioAnalysis(@PathVariable Long id) {
+        ListeningLesson lesson = lessonService.findById(id);
+        boolean staff = jwtHelper.isTeacher() || jwtHelper.isAdmin();
+        // Bài chưa xuất bản chỉ giáo viên / admin xem được
+        if (!staff && lesson.getStatus() != ListeningLesson.Status.PUBLISHED) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("Không tìm thấy bài học"));
+        }
+        return audioAnalysisService.findForLesson(lesson, staff)
+                .map(analysis -> ResponseEntity.ok(
+                        ApiResponse.success("Lấy thông tin phân tích audio thành công", analysis)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Chưa có phân tích audio cho bài học này")));
+    }
+
+    @PostMapping("/{id}/audio-analysis")
+    @Operation(summary = "Re-run audio analysis", description = "Queue the lesson audio for analysis again")
+    @SecurityRequirement(name = "JWT")
+    @PreAuthorize("hasRole('TEACHER') or hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<AudioAnalysisDto>> reanalyzeAudio(@PathVariable Long id) {
+        ListeningLesson lesson = lessonService.findById(id);
+        audioAnalysisService.reanalyze(lesson.getAudioUrl());
+        AudioAnalysisDto analysis = audioAnalysisService.findForLesson(lesson, true).orElse(null);
+        return ResponseEntity.accepted().body(ApiResponse.success("Đã đưa audio vào hàng đợi phân tích", analysis));
+    }
+
     @GetMapping("/{id}/preview")
     @Operation(summary = "Preview lesson", description = "Get lesson preview data")
     public ResponseEntity<ApiResponse<LessonPreviewDto>> previewLesson(
@@ -226,16 +228,13 @@ public class ListeningLessonController {
     @Operation(summary = "Get all lessons for admin/teacher", description = "Get all lessons including drafts")
     @PreAuthorize("hasRole('TEACHER') or hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<List<ListeningLessonDto>>> getAllLessonsForAdmin() {
-        User currentUser = jwtHelper.getCurrentUser();
-        if (currentUser == null) {
+        Long currentUserId = jwtHelper.getCurrentUserId();
+        if (currentUserId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
         }
 
-        List<ListeningLesson> lessons = lessonService.getAllLessonsForAdmin(currentUser.getId());
-        List<ListeningLessonDto> lessonDtos = lessons.stream()
-                .map(ListeningLessonMapper::toDto)
-                .collect(Collectors.toList());
+        List<ListeningLessonDto> lessonDtos = lessonService.getAllLessonDtosForAdmin(currentUserId);
 
         return ResponseEntity.ok(ApiResponse.success("Lấy danh sách bài học thành công", lessonDtos));
     }
@@ -247,14 +246,14 @@ public class ListeningLessonController {
             @PathVariable Long id,
             @Valid @RequestBody ListeningLessonUpdateDto updateDto) {
 
-        User currentUser = jwtHelper.getCurrentUser();
-        if (currentUser == null) {
+        Long currentUserId = jwtHelper.getCurrentUserId();
+        if (currentUserId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
         }
 
         try {
-            ListeningLesson updatedLesson = lessonService.updateLesson(id, updateDto, currentUser.getId());
+            ListeningLesson updatedLesson = lessonService.updateLesson(id, updateDto, currentUserId);
             ListeningLessonDto lessonDto = ListeningLessonMapper.toDto(updatedLesson);
 
             return ResponseEntity.ok(ApiResponse.success("Cập nhật bài học thành công", lessonDto));
@@ -268,14 +267,14 @@ public class ListeningLessonController {
     @Operation(summary = "Delete lesson", description = "Delete a lesson")
     @PreAuthorize("hasRole('TEACHER') or hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<String>> deleteLesson(@PathVariable Long id) {
-        User currentUser = jwtHelper.getCurrentUser();
-        if (currentUser == null) {
+        Long currentUserId = jwtHelper.getCurrentUserId();
+        if (currentUserId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
         }
 
         try {
-            boolean deleted = lessonService.deleteLesson(id, currentUser.getId());
+            boolean deleted = lessonService.deleteLesson(id, currentUserId);
             if (deleted) {
                 return ResponseEntity.ok(ApiResponse.success("Xóa bài học thành công", null));
             } else {
@@ -295,14 +294,14 @@ public class ListeningLessonController {
             @PathVariable Long id,
             @RequestParam ListeningLesson.Status status) {
 
-        User currentUser = jwtHelper.getCurrentUser();
-        if (currentUser == null) {
+        Long currentUserId = jwtHelper.getCurrentUserId();
+        if (currentUserId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
         }
 
         try {
-            ListeningLesson updatedLesson = lessonService.updateLessonStatus(id, status, currentUser.getId());
+            ListeningLesson updatedLesson = lessonService.updateLessonStatus(id, status, currentUserId);
             ListeningLessonDto lessonDto = ListeningLessonMapper.toDto(updatedLesson);
 
             return ResponseEntity.ok(ApiResponse.success("Cập nhật trạng thái thành công", lessonDto));
@@ -5,7 +5,6 @@ import com.skillbridge.skillbridgebackend.dto.UserVocabularyDto;
 import com.skillbridge.skillbridgebackend.dto.PersonalVocabularyCreateDto;
 import com.skillbridge.skillbridgebackend.entity.UserVocabulary;
 import com.skillbridge.skillbridgebackend.entity.Vocabulary;
-import com.skillbridge.skillbridgebackend.entity.User;
 import com.skillbridge.skillbridgebackend.response.ApiResponse;
 import com.skillbridge.skillbridgebackend.security.JwtHelper;
 import io.swagger.v3.oas.annotations.Operation;
@@ -49,8 +48,8 @@ public class PersonalVocabularyController {
             @Parameter(description = "Word data", required = true)
             @RequestBody PersonalVocabularyCreateDto vocabularyDto) {
         try {
-            User currentUser = jwtHelper.getCurrentUser();
-            if (currentUser == null) {
+            Long currentUserId = jwtHelper.getCurrentUserId();
+            if (currentUserId == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
             }
@@ -61,7 +60,7 @@ public class PersonalVocabularyController {
             }
 
             UserVocabulary savedVocab = vocabularyService.saveToPersonalVocabulary(
-                currentUser.getId(), vocabularyDto);
+                currentUserId, vocabularyDto);
             
             UserVocabularyDto dto = new UserVocabularyDto(savedVocab);
             return ResponseEntity.ok(ApiResponse.success("Lưu từ vựng thành công", dto));
@@ -81,13 +80,13 @@ public class PersonalVocabularyController {
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<ApiResponse<List<UserVocabularyDto>>> getMyVocabulary() {
         try {
-            User currentUser = jwtHelper.getCurrentUser();
-            if (currentUser == null) {
+            Long currentUserId = jwtHelper.getCurrentUserId();
+            if (currentUserId == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
             }
 
-            List<UserVocabulary> vocabulary = vocabularyService.getUserVocabulary(currentUser.getId());
+            List<UserVocabulary> vocabulary = vocabularyService.getUserVocabulary(currentUserId);
             List<UserVocabularyDto> vocabularyDtos = vocabulary.stream()
                 .map(UserVocabularyDto::new)
                 .collect(Collectors.toList());
@@ -113,14 +112,14 @@ public class PersonalVocabularyController {
             @Parameter(description = "New status", required = true)
             @RequestParam UserVocabulary.Status status) {
         try {
-            User currentUser = jwtHelper.getCurrentUser();
-            if (currentUser == null) {
+            Long currentUserId = jwtHelper.getCurrentUserId();
+            if (currentUserId == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
             }
 
             UserVocabulary updated = vocabularyService.updateVocabularyStatus(
-                currentUser.getId(), vocabularyId, status);
+                currentUserId, vocabularyId, status);
             
             UserVocabularyDto dto = new UserVocabularyDto(updated);
             return ResponseEntity.ok(ApiResponse.success("Cập nhật trạng thái thành công", dto));
@@ -142,13 +141,13 @@ public class PersonalVocabularyController {
             @Parameter(description = "Vocabulary ID", required = true)
             @PathVariable Long vocabularyId) {
         try {
-            User currentUser = jwtHelper.getCurrentUser();
-            if (currentUser == null) {
+            Long currentUserId = jwtHelper.getCurrentUserId();
+            if (currentUserId == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
             }
 
-            vocabularyService.removeFromPersonalVocabulary(currentUser.getId(), vocabularyId);
+            vocabularyService.removeFromPersonalVocabulary(currentUserId, vocabularyId);
             return ResponseEntity.ok(ApiResponse.success("Xóa từ vựng thành công", null));
         } catch (Exception e) {
             log.error("Error removing vocabulary: {}", e.getMessage());
@@ -195,13 +194,13 @@ public class PersonalVocabularyController {
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getVocabularyStats() {
         try {
-            User currentUser = jwtHelper.getCurrentUser();
-            if (currentUser == null) {
+            Long currentUserId = jwtHelper.getCurrentUserId();
+            if (currentUserId == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
             }
 
-            List<UserVocabulary> allVocabulary = vocabularyService.getUserVocabulary(currentUser.getId());
+            List<UserVocabulary> allVocabulary = vocabularyService.getUserVocabulary(currentUserId);
             
             Map<String, Object> stats = new HashMap<>();
             stats.put("total", allVocabulary.size());
@@ -6,7 +6,6 @@ import com.skillbridge.skillbridgebackend.dto.ReadingLessonCreateDto;
 import com.skillbridge.skillbridgebackend.dto.ReadingLessonDto;
 import com.skillbridge.skillbridgebackend.entity.ReadingLesson;
 import com.skillbridge.skillbridgebackend.entity.ListeningLesson;
-import com.skillbridge.skillbridgebackend.entity.User;
 import com.skillbridge.skillbridgebackend.mapper.ReadingLessonMapper;
 import com.skillbridge.skillbridgebackend.response.ApiResponse;
 import com.skillbridge.skillbridgebackend.security.JwtHelper;
@@ -21,7 +20,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/reading-lessons")
@@ -44,13 +42,13 @@ public class ReadingLessonController {
     public ResponseEntity<ApiResponse<ReadingLessonDto>> createReadingLesson(
             @Valid @RequestBody ReadingLessonCreateDto createDto) {
 
-        User currentUser = jwtHelper.getCurrentUser();
-        if (currentUser == null) {
+        Long currentUserId = jwtHelper.getCurrentUserId();
+        if (currentUserId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
         }
 
-        ReadingLesson lesson = readingLessonService.createReadingLesson(createDto, currentUser.getId());
+        ReadingLesson lesson = readingLessonService.createReadingLesson(createDto, currentUserId);
         ReadingLessonDto lessonDto = ReadingLessonMapper.toDto(lesson);
 
         return ResponseEntity.ok(ApiResponse.success("Tạo bài đọc thành công", lessonDto));
@@ -60,16 +58,13 @@ public class ReadingLessonController {
     @Operation(summary = "Get all reading lessons for admin/teacher")
     @PreAuthorize("hasRole('TEACHER') or hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<List<ReadingLessonDto>>> getAllReadingLessonsForAdmin() {
-        User currentUser = jwtHelper.getCurrentUser();
-        if (currentUser == null) {
+        Long currentUserId = jwtHelper.getCurrentUserId();
+        if (currentUserId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
         }
 
-        List<ReadingLesson> lessons = readingLessonService.getAllReadingLessonsForAdmin(currentUser.getId());
-        List<ReadingLessonDto> lessonDtos = lessons.stream()
-                .map(ReadingLessonMapper::toDto)
-                .collect(Collectors.toList());
+        List<ReadingLessonDto> lessonDtos = readingLessonService.getAllReadingLessonDtosForAdmin(currentUserId);
 
         return ResponseEntity.ok(ApiResponse.success("Lấy danh sách bài đọc thành công", lessonDtos));
     }
@@ -77,10 +72,7 @@ public class ReadingLessonController {
     @GetMapping
     @Operation(summary = "Get published reading lessons")
     public ResponseEntity<ApiResponse<List<ReadingLessonDto>>> getPublishedReadingLessons() {
-        List<ReadingLesson> lessons = readingLessonService.getPublishedReadingLessons();
-        List<ReadingLessonDto> lessonDtos = lessons.stream()
-                .map(ReadingLessonMapper::toDto)
-                .collect(Collectors.toList());
+        List<ReadingLessonDto> lessonDtos = readingLessonService.getPublishedReadingLessonDtos();
 
         return ResponseEntity.ok(ApiResponse.success("Lấy danh sách bài đọc thành công", lessonDtos));
     }
@@ -88,8 +80,7 @@ public class ReadingLessonController {
     @GetMapping("/{id}")
     @Operation(summary = "Get reading lesson by ID")
     public ResponseEntity<ApiResponse<ReadingLessonDto>> getReadingLessonById(@PathVariable Long id) {
-        ReadingLesson lesson = readingLessonService.findById(id);
-        ReadingLessonDto lessonDto = ReadingLessonMapper.toDto(lesson);
+        ReadingLessonDto lessonDto = readingLessonService.getReadingLessonDto(id);
 
         return ResponseEntity.ok(ApiResponse.success("Lấy thông tin bài đọc thành công", lessonDto));
     }
@@ -101,14 +92,14 @@ public class ReadingLessonController {
             @PathVariable Long id,
             @Valid @RequestBody ReadingLessonCreateDto updateDto) {
 
-        User currentUser = jwtHelper.getCurrentUser();
-        if (currentUser == null) {
+        Long currentUserId = jwtHelper.getCurrentUserId();
+        if (currentUserId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
         }
 
         try {
-            ReadingLesson updatedLesson = readingLessonService.updateReadingLesson(id, updateDto, currentUser.getId());
+            ReadingLesson updatedLesson = readingLessonService.updateReadingLesson(id, updateDto, currentUserId);
             ReadingLessonDto lessonDto = ReadingLessonMapper.toDto(updatedLesson);
 
             return ResponseEntity.ok(ApiResponse.success("Cập nhật bài đọc thành công", lessonDto));
@@ -122,14 +113,14 @@ public class ReadingLessonController {
     @Operation(summary = "Delete reading lesson")
     @PreAuthorize("hasRole('TEACHER') or hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<String>> deleteReadingLesson(@PathVariable Long id) {
-        User currentUser = jwtHelper.getCurrentUser();
-        if (currentUser == null) {
+        Long currentUserId = jwtHelper.getCurrentUserId();
+        if (currentUserId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
         }
 
         try {
-            boolean deleted = readingLessonService.deleteReadingLesson(id, currentUser.getId());
+            boolean deleted = readingLessonService.deleteReadingLesson(id, currentUserId);
             if (deleted) {
                 return ResponseEntity.ok(ApiResponse.success("Xóa bài đọc thành công", null));
             } else {
@@ -149,14 +140,14 @@ public class ReadingLessonController {
             @PathVariable Long id,
             @RequestParam ListeningLesson.Status status) {
 
-        User currentUser = jwtHelper.getCurrentUser();
-        if (currentUser == null) {
+        Long currentUserId = jwtHelper.getCurrentUserId();
+        if (currentUserId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Unauthorized"));
         }
 
         try {
-            ReadingLesson updatedLesson = readingLessonService.updateReadingLessonStatus(id, status, currentUser.getId());
+            ReadingLesson updatedLesson = readingLessonService.updateReadingLessonStatus(id, status, currentUserId);
             ReadingLessonDto lessonDto = ReadingLessonMapper.toDto(updatedLesson);
 
             return ResponseEntity.ok(ApiResponse.success("Cập nhật trạng thái thành công", lessonDto));
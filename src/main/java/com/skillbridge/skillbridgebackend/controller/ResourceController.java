@@ -1,13 +1,14 @@
 package com.skillbridge.skillbridgebackend.controller;
 
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
+import com.skillbridge.skillbridgebackend.Service.MediaStreamingService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.net.MalformedURLException;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
@@ -29,33 +30,42 @@ public class ResourceController {
         MEDIA_TYPE_MAP.put("ogg", MediaType.parseMediaType("audio/ogg"));
     }
 
+    @Autowired
+    private MediaStreamingService mediaStreamingService;
+
     /**
-     * Serve audio files
+     * Serve audio files (hỗ trợ Range/206, If-None-Match/If-Modified-Since/304)
      * URL: GET /api/uploads/audio/{filename}
      */
     @GetMapping("/audio/{filename}")
-    public ResponseEntity<Resource> getAudio(@PathVariable String filename) {
-        try {
-            // Tìm file trong thư mục uploads/audio/
-            Path filePath = Paths.get("uploads/audio/", filename).toAbsolutePath().normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                // Xác định loại file
-                MediaType mediaType = determineMediaType(filename);
-
-                return ResponseEntity.ok()
-                        .contentType(mediaType)
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
-                        .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (MalformedURLException e) {
-            return ResponseEntity.badRequest().build();
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+    public void getAudio(@PathVariable String filename, HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        // Tìm file trong thư mục uploads/audio/
+        Path filePath = mediaStreamingService.resolveAudio(filename);
+        if (filePath == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // Xác định loại file
+        MediaType mediaType = determineMediaType(filename);
+        mediaStreamingService.serve(filePath, mediaType, filename, request, response);
+    }
+
+    /**
+     * Serve audio lưu theo hash nội dung (chia thư mục theo 2 ký tự đầu của hash)
+     * URL: GET /api/uploads/audio/{shard}/{filename}
+     */
+    @GetMapping("/audio/{shard:[0-9a-f]{2}}/{filename}")
+    public void getShardedAudio(@PathVariable String shard, @PathVariable String filename,
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path filePath = mediaStreamingService.resolveAudio(shard + "/" + filename);
+        if (filePath == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
+
+        mediaStreamingService.serve(filePath, determineMediaType(filename), filename, request, response);
     }
 
     /**
@@ -4,8 +4,10 @@ import com.skillbridge.skillbridgebackend.dto.UserDto;
 import com.skillbridge.skillbridgebackend.dto.UserRegistrationDto;
 import com.skillbridge.skillbridgebackend.dto.*;
 import com.skillbridge.skillbridgebackend.entity.User;
+import com.skillbridge.skillbridgebackend.Service.LessonSearchService;
 import com.skillbridge.skillbridgebackend.Service.UserService;
 import com.skillbridge.skillbridgebackend.exception.EmailAlreadyExistsException;
+import com.skillbridge.skillbridgebackend.exception.PasswordHashingBusyException;
 import com.skillbridge.skillbridgebackend.exception.UserNotFoundException;
 import com.skillbridge.skillbridgebackend.response.ApiResponse;
 import com.skillbridge.skillbridgebackend.security.JwtHelper;
@@ -14,6 +16,7 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -38,6 +41,9 @@ public class UserController {
     @Autowired
     private JwtHelper jwtHelper;
 
+    @Autowired
+    private LessonSearchService lessonSearchService;
+
     /**
      * Lấy thông tin profile của user hiện tại
      */
@@ -83,26 +89,52 @@ public class UserController {
     }
 
     /**
-     * Lấy danh sách tất cả học viên (chỉ cho teacher/admin)
+     * Lấy danh sách học viên active, tối đa 1000 người mới nhất (chỉ cho teacher/admin)
+     * @deprecated dùng /users/students/page
      */
+    @Deprecated
     @GetMapping("/students")
-    @Operation(summary = "Get all students", description = "Get list of all students (Teacher/Admin only)")
+    @Operation(summary = "Get all students", deprecated = true,
+            description = "Get the newest active students, capped at 1000 rows (truncated=true and header "
+                    + "X-Result-Truncated when rows were left out); use /students/page (Teacher/Admin only)")
     @SecurityRequirement(name = "JWT")
     @PreAuthorize("hasRole('TEACHER') or hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<List<UserDto>>> getAllStudents() {
         try {
-            List<User> students = userService.getAllStudents();
-            List<UserDto> studentDtos = students.stream()
+            UserService.CappedList<User> students = userService.getAllStudents();
+            List<UserDto> studentDtos = students.items().stream()
                     .map(UserDto::new)
                     .collect(Collectors.toList());
 
-            return ResponseEntity.ok(ApiResponse.success("Lấy danh sách học viên thành công", studentDtos));
+            return cappedListResponse(ApiResponse.success("Lấy danh sách học viên thành công", studentDtos),
+                    students.truncated());
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Không thể lấy danh sách học viên"));
         }
     }
 
+    /**
+     * Lấy danh sách học viên theo trang (chỉ cho teacher/admin)
+     */
+    @GetMapping("/students/page")
+    @Operation(summary = "Get students page",
+            description = "Get active students, newest first, paginated by page token, with name/email prefix search (Teacher/Admin only)")
+    @SecurityRequirement(name = "JWT")
+    @PreAuthorize("hasRole('TEACHER') or hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<UserPageDto>> getStudentsPage(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(required = false) Integer size) {
+        try {
+            UserPageDto page = userService.getUsersPage(User.Role.STUDENT.name(), true, search, pageToken, size);
+            return ResponseEntity.ok(ApiResponse.success("Lấy danh sách học viên thành công", page));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Không thể lấy danh sách học viên", e.getMessage()));
+        }
+    }
+
     /**
      * Lấy thông tin user theo ID (chỉ cho admin)
      */
@@ -156,8 +188,8 @@ public class UserController {
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<ApiResponse<StudentStatsDto>> getStudentStats() {
         try {
-            User currentUser = jwtHelper.getCurrentUser();
-            StudentStatsDto stats = userService.getStudentStats(currentUser.getId());
+            Long currentUserId = jwtHelper.getCurrentUserId();
+            StudentStatsDto stats = userService.getStudentStats(currentUserId);
             return ResponseEntity.ok(ApiResponse.success("Lấy thống kê thành công", stats));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -175,8 +207,8 @@ public class UserController {
     public ResponseEntity<ApiResponse<List<RecentLessonDto>>> getRecentLessons(
             @RequestParam(defaultValue = "5") int limit) {
         try {
-            User currentUser = jwtHelper.getCurrentUser();
-            List<RecentLessonDto> lessons = userService.getRecentLessons(currentUser.getId(), limit);
+            Long currentUserId = jwtHelper.getCurrentUserId();
+            List<RecentLessonDto> lessons = userService.getRecentLessons(currentUserId, limit);
             return ResponseEntity.ok(ApiResponse.success("Lấy bài học gần đây thành công", lessons));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -205,6 +237,54 @@ public class UserController {
         }
     }
 
+    /**
+     * Get published lessons page for students (Student only)
+     */
+    @GetMapping("/student/lessons/page")
+    @Operation(summary = "Get published lessons page",
+            description = "Get published lessons with filtering, newest first, paginated by page token")
+    @SecurityRequirement(name = "JWT")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<ApiResponse<LessonPageDto>> getPublishedLessonsPage(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(required = false) Integer size) {
+        try {
+            LessonPageDto page = userService.getPublishedLessonsPage(type, level, categoryId, search, pageToken, size);
+            return ResponseEntity.ok(ApiResponse.success("Lấy danh sách bài học thành công", page));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Lỗi khi lấy danh sách bài học", e.getMessage()));
+        }
+    }
+
+    /**
+     * Full-text search published lessons for students (Student only)
+     */
+    @GetMapping("/student/lessons/search")
+    @Operation(summary = "Search lessons",
+            description = "Search published lessons by title, description, content and transcript, ranked by relevance")
+    @SecurityRequirement(name = "JWT")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<ApiResponse<LessonSearchPageDto>> searchLessons(
+            @RequestParam String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        try {
+            LessonSearchPageDto result = lessonSearchService.searchPublishedLessons(q, type, level, categoryId, page, size);
+            return ResponseEntity.ok(ApiResponse.success("Tìm kiếm bài học thành công", result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Lỗi khi tìm kiếm bài học", e.getMessage()));
+        }
+    }
+
     /**
      * Get lesson by ID for student view (Student only)
      */
@@ -234,8 +314,8 @@ public class UserController {
     public ResponseEntity<ApiResponse<SubmissionResultDto>> submitAnswers(
             @RequestBody SubmissionDto submissionDto) {
         try {
-            User currentUser = jwtHelper.getCurrentUser();
-            SubmissionResultDto result = userService.submitAnswers(currentUser.getId(), submissionDto);
+            Long currentUserId = jwtHelper.getCurrentUserId();
+            SubmissionResultDto result = userService.submitAnswers(currentUserId, submissionDto);
             return ResponseEntity.ok(ApiResponse.success("Nộp bài thành công", result));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -253,8 +333,8 @@ public class UserController {
     public ResponseEntity<ApiResponse<StudentProgressDto>> getProgressData(
             @RequestParam(defaultValue = "week") String timeRange) {
         try {
-            User currentUser = jwtHelper.getCurrentUser();
-            StudentProgressDto progress = userService.getProgressData(currentUser.getId(), timeRange);
+            Long currentUserId = jwtHelper.getCurrentUserId();
+            StudentProgressDto progress = userService.getProgressData(currentUserId, timeRange);
             return ResponseEntity.ok(ApiResponse.success("Lấy dữ liệu tiến độ thành công", progress));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -326,6 +406,10 @@ public class UserController {
         } catch (EmailAlreadyExistsException e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Email already exists", e.getMessage()));
+        } catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error("Hệ thống đang xử lý quá nhiều yêu cầu, vui lòng thử lại sau"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(ApiResponse.error("Error creating user", e.getMessage()));
@@ -358,18 +442,50 @@ public class UserController {
     }
 
     /**
-     * Get all users (Admin only)
+     * Get the newest users, capped at 1000 rows (Admin only)
+     * @deprecated dùng /users/page
      */
+    @Deprecated
     @GetMapping
-    @Operation(summary = "Get all users", description = "Get all users with optional role filter (Admin only)")
+    @Operation(summary = "Get all users", deprecated = true,
+            description = "Get the newest users with optional role filter, capped at 1000 rows (truncated=true and "
+                    + "header X-Result-Truncated when rows were left out); use /page (Admin only)")
     @SecurityRequirement(name = "JWT")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<List<UserDto>>> getAllUsers(
             @Parameter(description = "Role filter", required = false)
             @RequestParam(required = false) String role) {
         try {
-            List<UserDto> users = userService.getAllUsers(role);
-            return ResponseEntity.ok(ApiResponse.success("Users retrieved successfully", users));
+            UserService.CappedList<UserDto> users = userService.getAllUsers(role);
+            return cappedListResponse(ApiResponse.success("Users retrieved successfully", users.items()),
+                    users.truncated());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Error retrieving users", e.getMessage()));
+        }
+    }
+
+    /**
+     * Get users page (Admin only)
+     */
+    @GetMapping("/page")
+    @Operation(summary = "Get users page",
+            description = "Get users newest first (by name/email when searching by prefix), paginated by page token, "
+                    + "filtered by role/active (Admin only)")
+    @SecurityRequirement(name = "JWT")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<UserPageDto>> getUsersPage(
+            @Parameter(description = "Role filter") @RequestParam(required = false) String role,
+            @Parameter(description = "Active filter") @RequestParam(required = false) Boolean active,
+            @Parameter(description = "Full name or email prefix") @RequestParam(required = false) String search,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(required = false) Integer size) {
+        try {
+            UserPageDto page = userService.getUsersPage(role, active, search, pageToken, size);
+            return ResponseEntity.ok(ApiResponse.success("Users retrieved successfully", page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid filter", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(ApiResponse.error("Error retrieving users", e.getMessage()));
@@ -401,6 +517,10 @@ public class UserController {
                 changePasswordDto.getNewPassword());
             
             return ResponseEntity.ok(ApiResponse.success("Đổi mật khẩu thành công", null));
+        } catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error("Hệ thống đang xử lý quá nhiều yêu cầu, vui lòng thử lại sau"));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Đổi mật khẩu thất bại", e.getMessage()));
@@ -447,4 +567,15 @@ public class UserController {
                     .body(ApiResponse.error("Error retrieving user stats", e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Danh sách của endpoint cũ bị cắt ở giới hạn: báo cho client bằng cờ truncated và header X-Result-Truncated
+     */
+    private static <T> ResponseEntity<ApiResponse<T>> cappedListResponse(ApiResponse<T> body, boolean truncated) {
+        if (!truncated) {
+            return ResponseEntity.ok(body);
+        }
+        body.setTruncated(true);
+        return ResponseEntity.ok().header("X-Result-Truncated", "true").body(body);
+    }
+}
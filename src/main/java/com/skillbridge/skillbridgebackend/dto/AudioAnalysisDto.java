@@ -0,0 +1,25 @@
+package com.skillbridge.skillbridgebackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AudioAnalysisDto {
+    private Long lessonId;
+    private String audioUrl;
+    private String status; // "PENDING", "PROCESSING", "COMPLETED", "FAILED"
+    private String format;
+    private Double durationSeconds;
+    private Integer bitrateKbps;
+    private Integer sampleRate;
+    private Integer channels;
+    private Integer peakCount;
+    private String peaks; // Base64 của mảng byte 0-255, mỗi byte là một điểm waveform
+    private String errorMessage;
+    private LocalDateTime updatedAt;
+}
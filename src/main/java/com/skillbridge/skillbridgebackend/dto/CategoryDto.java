@@ -1,10 +1,26 @@
 package com.skillbridge.skillbridgebackend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.skillbridge.skillbridgebackend.entity.Category;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class CategoryDto {
     private Long id;
     private String name;
     private String description;
+    // Chỉ có ở danh sách thể loại, DTO lồng trong bài học không có
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime createdAt;
+
+    public CategoryDto(Category category) {
+        this.id = category.getId();
+        this.name = category.getName();
+        this.description = category.getDescription();
+        this.createdAt = category.getCreatedAt();
+    }
 }
@@ -26,6 +26,7 @@ public class CloudinaryUploadResponse {
     private Integer width;   // Chiều rộng cho image
     private Integer height;  // Chiều cao cho image
     private String dimensions; // Kích thước ảnh
+    private String sha256;     // Checksum nội dung file
     private String originalFileName;
     private String uniqueFileName;
     private String mimeType;
@@ -56,6 +57,7 @@ public class CloudinaryUploadResponse {
                 .width(result.getWidth())
                 .height(result.getHeight())
                 .dimensions(result.getDimensions())
+                .sha256(result.getSha256())
                 .originalFileName(result.getOriginalFileName())
                 .uniqueFileName(result.getUniqueFileName())
                 .mimeType(mimeType)
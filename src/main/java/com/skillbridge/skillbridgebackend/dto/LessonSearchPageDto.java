@@ -0,0 +1,17 @@
+package com.skillbridge.skillbridgebackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LessonSearchPageDto {
+    private List<LessonSearchResultDto> items;
+    private Integer totalMatches;
+    private Integer page;
+    private Integer size;
+}
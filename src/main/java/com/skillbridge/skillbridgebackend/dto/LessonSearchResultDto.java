@@ -0,0 +1,16 @@
+package com.skillbridge.skillbridgebackend.dto;
+
+import lombok.Data;
+
+@Data
+public class LessonSearchResultDto {
+    private Long id;
+    private String type; // "listening" or "reading"
+    private String title;
+    private String highlightedTitle; // HTML đã escape, từ khớp được bọc trong <mark>
+    private String description;
+    private String level;
+    private Long categoryId;
+    private String snippet; // đoạn trích quanh từ khớp đầu tiên, cùng định dạng với highlightedTitle
+    private Double score;
+}
@@ -5,6 +5,7 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import com.skillbridge.skillbridgebackend.entity.ListeningLesson;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import org.hibernate.Hibernate;
 
 import java.time.LocalDateTime;
 
@@ -32,6 +33,7 @@ public class ListeningLessonDto {
 
     // Additional fields
     private Integer questionCount;
+    private Integer vocabularyCount;
 
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime createdAt;
@@ -64,9 +66,9 @@ public class ListeningLessonDto {
             this.createdByName = lesson.getCreatedBy().getFullName();
         }
 
-        // Question count
+        // Question count (COUNT, không load cả collection)
         if (lesson.getQuestions() != null) {
-            this.questionCount = lesson.getQuestions().size();
+            this.questionCount = Hibernate.size(lesson.getQuestions());
         }
     }
 
@@ -19,6 +19,7 @@ public class ReadingLessonDto {
     private String instructions;
     private String tags;
     private String createdBy;
+    private Integer questionCount;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
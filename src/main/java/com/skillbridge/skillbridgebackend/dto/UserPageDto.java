@@ -0,0 +1,16 @@
+package com.skillbridge.skillbridgebackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPageDto {
+    private List<UserDto> items;
+    private String nextPageToken; // null khi đã hết dữ liệu
+    private boolean hasMore;
+}
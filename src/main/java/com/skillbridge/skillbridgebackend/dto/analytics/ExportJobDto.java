@@ -0,0 +1,19 @@
+package com.skillbridge.skillbridgebackend.dto.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobDto {
+    private String jobId;
+    private String status; // "PENDING", "RUNNING", "COMPLETED", "FAILED"
+    private Integer rowCount;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,17 @@
+package com.skillbridge.skillbridgebackend.dto.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupMismatchDto {
+    private LocalDate date;
+    private String field; // "activeUsers", "completedLessons", "newRegistrations", "scoreSum", "scoreCount"
+    private Double rollupValue;
+    private Double rawValue;
+}
@@ -0,0 +1,71 @@
+package com.skillbridge.skillbridgebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Kết quả phân tích file audio (thời lượng, bitrate, peaks waveform), gắn với bài học qua audio_url.
+ * Được tính nền sau khi upload nên có thể tồn tại trước khi bài học được tạo.
+ */
+@Entity
+@Table(name = "audio_analyses")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AudioAnalysis {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "audio_url", nullable = false, unique = true, length = 512)
+    private String audioUrl;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(length = 10)
+    private String format;
+
+    @Column(name = "duration_seconds")
+    private Double durationSeconds;
+
+    @Column(name = "bitrate_kbps")
+    private Integer bitrateKbps;
+
+    @Column(name = "sample_rate")
+    private Integer sampleRate;
+
+    private Integer channels;
+
+    // Biên độ đã downsample, mỗi phần tử 1 byte (0-255) - khoảng 1-2KB mỗi file
+    @Lob
+    @Column(columnDefinition = "BLOB")
+    private byte[] peaks;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public AudioAnalysis(String audioUrl) {
+        this.audioUrl = audioUrl;
+    }
+
+    public enum Status {
+        PENDING, PROCESSING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,56 @@
+package com.skillbridge.skillbridgebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Bảng tổng hợp hoạt động theo ngày, được cập nhật dần khi có bài nộp / đăng ký mới.
+ * Dashboard đọc trực tiếp từ bảng này thay vì quét user_lesson_progress và users theo thời gian.
+ */
+@Entity
+@Table(name = "daily_activity_rollups")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyActivityRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "activity_date", nullable = false, unique = true)
+    private LocalDate activityDate;
+
+    // Số user có progress mới được tạo trong ngày
+    @Column(name = "active_users", nullable = false)
+    private Integer activeUsers = 0;
+
+    // Số bài hoàn thành (theo completed_at) trong ngày
+    @Column(name = "completed_lessons", nullable = false)
+    private Integer completedLessons = 0;
+
+    @Column(name = "new_registrations", nullable = false)
+    private Integer newRegistrations = 0;
+
+    // Tổng điểm và số bài có điểm, dùng để tính điểm trung bình của ngày
+    @Column(name = "score_sum", nullable = false, precision = 14, scale = 2)
+    private BigDecimal scoreSum = BigDecimal.ZERO;
+
+    @Column(name = "score_count", nullable = false)
+    private Integer scoreCount = 0;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public DailyActivityRollup(LocalDate activityDate) {
+        this.activityDate = activityDate;
+    }
+}
@@ -0,0 +1,81 @@
+package com.skillbridge.skillbridgebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Email chờ gửi (outbox). Được ghi trong cùng transaction với thay đổi gây ra email,
+ * rồi EmailOutboxDispatcher gửi nền theo batch, thử lại với backoff khi lỗi.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+    @Index(name = "idx_email_outbox_status_next", columnList = "status, next_attempt_at, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutbox {
+
+    // Chỗ giữ token trong body email reset password, được thay bằng token thật lúc gửi
+    public static final String RESET_TOKEN_PLACEHOLDER = "__RESET_TOKEN__";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "to_email", nullable = false)
+    private String toEmail;
+
+    @Column(nullable = false, length = 500)
+    private String subject;
+
+    // Nội dung đã render sẵn từ template
+    @Column(columnDefinition = "MEDIUMTEXT", nullable = false)
+    private String body;
+
+    @Column(nullable = false)
+    private boolean html;
+
+    // Email reset password: body chỉ chứa RESET_TOKEN_PLACEHOLDER, token được đọc theo id này lúc gửi
+    // nên outbox (giữ retention-days ngày) không lưu token còn hiệu lực
+    @Column(name = "password_reset_token_id")
+    private Long passwordResetTokenId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Thời điểm sớm nhất được gửi (lần thử tiếp theo, hoặc hết hạn giữ chỗ của dispatcher đang gửi)
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public EmailOutbox(String toEmail, String subject, String body, boolean html) {
+        this.toEmail = toEmail;
+        this.subject = subject;
+        this.body = body;
+        this.html = html;
+        this.nextAttemptAt = LocalDateTime.now();
+    }
+
+    public enum Status {
+        PENDING, SENT, FAILED
+    }
+}
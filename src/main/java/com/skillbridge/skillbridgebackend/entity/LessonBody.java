@@ -0,0 +1,124 @@
+package com.skillbridge.skillbridgebackend.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+
+import jakarta.persistence.*;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Nội dung dài của bài học (ReadingLesson.content, ListeningLesson.transcript) tách khỏi bảng bài học.
+ * Bài học chỉ giữ khóa ngoại tới bảng này và load lazy, nên truy vấn danh sách không kéo nội dung về.
+ * Văn bản được nén Deflate khi có lợi; bản giải nén được giữ trong entity sau lần đọc đầu tiên.
+ */
+@Entity
+@Table(name = "lesson_bodies")
+@BatchSize(size = 50)
+@Data
+@NoArgsConstructor
+public class LessonBody {
+
+    // Văn bản ngắn hơn ngưỡng này nén không đáng
+    private static final int MIN_COMPRESS_BYTES = 256;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Encoding encoding;
+
+    // Số byte UTF-8 trước khi nén
+    @Column(name = "original_length", nullable = false)
+    private int originalLength;
+
+    @Lob
+    @Column(columnDefinition = "LONGBLOB", nullable = false)
+    private byte[] data;
+
+    @Transient
+    private String text;
+
+    public static LessonBody of(String text) {
+        LessonBody body = new LessonBody();
+        body.setText(text);
+        return body;
+    }
+
+    public String getText() {
+        if (text == null && data != null) {
+            text = decode(encoding, data);
+        }
+        return text;
+    }
+
+    public void setText(String text) {
+        if (text != null && text.equals(getText())) {
+            return;
+        }
+        byte[] raw = text != null ? text.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[] compressed = raw.length >= MIN_COMPRESS_BYTES ? deflate(raw) : null;
+        if (compressed != null && compressed.length < raw.length) {
+            this.encoding = Encoding.DEFLATE;
+            this.data = compressed;
+        } else {
+            this.encoding = Encoding.RAW;
+            this.data = raw;
+        }
+        this.originalLength = raw.length;
+        this.text = text;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private String decode(Encoding encoding, byte[] data) {
+        if (encoding != Encoding.DEFLATE) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] raw = new byte[originalLength];
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int read = inflater.inflate(raw, length, raw.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != raw.length) {
+                throw new IllegalStateException("Lesson body " + id + " is truncated");
+            }
+            return new String(raw, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Lesson body " + id + " is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public enum Encoding {
+        RAW, DEFLATE
+    }
+}
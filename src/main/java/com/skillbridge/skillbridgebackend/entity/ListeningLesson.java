@@ -2,7 +2,9 @@ package com.skillbridge.skillbridgebackend.entity;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -15,7 +17,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "listening_lessons")
+@Table(name = "listening_lessons", indexes = {
+    @Index(name = "idx_listening_lessons_status_created", columnList = "status, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -45,9 +49,21 @@ public class ListeningLesson {
     @NotBlank(message = "URL âm thanh không được để trống")
     private String audioUrl;
 
+    // Cột cũ, vẫn được ghi song song trong bản chuyển tiếp để các node bản cũ (rolling deploy) đọc được;
+    // sẽ bỏ ở bản sau khi mọi node đã đọc từ lesson_bodies. Load lazy như ReadingLesson.content
+    @Basic(fetch = FetchType.LAZY)
     @Column(columnDefinition = "TEXT")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private String transcript;
 
+    // Transcript (đã nén) ở bảng lesson_bodies
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "transcript_body_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private LessonBody transcriptBody;
+
     @Column(name = "duration_seconds")
     private Integer durationSeconds;
 
@@ -77,6 +93,24 @@ public class ListeningLesson {
     // Note: UserLessonProgress relationship is handled through lessonId and lessonType
     // No direct @OneToMany mapping needed since UserLessonProgress uses polymorphic approach
 
+    /**
+     * Đọc từ lesson_bodies; chỉ bài chưa có body mới đọc cột cũ
+     */
+    public String getTranscript() {
+        return transcriptBody != null ? transcriptBody.getText() : transcript;
+    }
+
+    public void setTranscript(String transcript) {
+        this.transcript = transcript;
+        if (transcriptBody == null) {
+            transcriptBody = transcript != null ? LessonBody.of(transcript) : null;
+        } else if (transcript == null) {
+            transcriptBody = null;
+        } else {
+            transcriptBody.setText(transcript);
+        }
+    }
+
     public enum Level {
         A2("Cơ bản"),
         B1("Trung cấp thấp"),
@@ -2,7 +2,9 @@ package com.skillbridge.skillbridgebackend.entity;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -14,7 +16,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "reading_lessons")
+@Table(name = "reading_lessons", indexes = {
+    @Index(name = "idx_reading_lessons_status_created", columnList = "status, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -40,10 +44,23 @@ public class ReadingLesson {
     @JoinColumn(name = "category_id")
     private Category category;
 
+    // Cột cũ, vẫn được ghi song song trong bản chuyển tiếp để các node bản cũ (rolling deploy) đọc được;
+    // sẽ bỏ ở bản sau khi mọi node đã đọc từ lesson_bodies.
+    // Load lazy (cần bytecode enhancement, xem hibernate-enhance-maven-plugin) nên truy vấn danh sách không kéo về
+    @Basic(fetch = FetchType.LAZY)
     @Column(columnDefinition = "TEXT", nullable = false)
     @NotBlank(message = "Nội dung không được để trống")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private String content;
 
+    // Nội dung bài đọc (đã nén) ở bảng lesson_bodies
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "content_body_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private LessonBody contentBody;
+
     @Column(name = "word_count")
     private Integer wordCount;
 
@@ -69,4 +86,22 @@ public class ReadingLesson {
 
     // Note: UserLessonProgress relationship is handled through lessonId and lessonType
     // No direct @OneToMany mapping needed since UserLessonProgress uses polymorphic approach
+
+    /**
+     * Đọc từ lesson_bodies; chỉ bài chưa có body (vd. do node bản cũ tạo, chưa được sao chép) mới đọc cột cũ
+     */
+    public String getContent() {
+        return contentBody != null ? contentBody.getText() : content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+        if (contentBody == null) {
+            contentBody = content != null ? LessonBody.of(content) : null;
+        } else if (content == null) {
+            contentBody = null;
+        } else {
+            contentBody.setText(content);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.skillbridge.skillbridgebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Số liệu dashboard của một học viên, được cập nhật dần trong transaction nộp bài / lưu từ vựng.
+ * /users/student/stats và /users/student/progress đọc một dòng này thay vì quét user_lesson_progress.
+ * Dòng có needsRebuild = true sẽ được tính lại từ dữ liệu gốc ở lần đọc / nộp bài tiếp theo.
+ */
+@Entity
+@Table(name = "student_dashboards")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentDashboard {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "needs_rebuild", nullable = false)
+    private Boolean needsRebuild = true;
+
+    @Column(name = "completed_lessons", nullable = false)
+    private Integer completedLessons = 0;
+
+    // Số progress theo loại bài (biểu đồ levelProgress)
+    @Column(name = "listening_count", nullable = false)
+    private Integer listeningCount = 0;
+
+    @Column(name = "reading_count", nullable = false)
+    private Integer readingCount = 0;
+
+    // Tổng điểm và số bài có điểm, dùng để tính điểm trung bình
+    @Column(name = "score_sum", nullable = false, precision = 14, scale = 2)
+    private BigDecimal scoreSum = BigDecimal.ZERO;
+
+    @Column(name = "score_count", nullable = false)
+    private Integer scoreCount = 0;
+
+    @Column(name = "total_time_seconds", nullable = false)
+    private Long totalTimeSeconds = 0L;
+
+    @Column(name = "vocabulary_count", nullable = false)
+    private Integer vocabularyCount = 0;
+
+    // JSON: ngày (yyyy-MM-dd) -> {scoreSum, scoreCount, timeSpent}
+    @Lob
+    @Column(name = "daily_buckets", columnDefinition = "MEDIUMTEXT")
+    private String dailyBuckets;
+
+    // JSON: các hoạt động gần nhất (mới nhất trước), đã kèm tên bài học
+    @Lob
+    @Column(name = "recent_activities", columnDefinition = "TEXT")
+    private String recentActivities;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public StudentDashboard(Long userId) {
+        this.userId = userId;
+    }
+}
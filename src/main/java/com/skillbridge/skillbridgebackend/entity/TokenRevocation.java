@@ -0,0 +1,70 @@
+package com.skillbridge.skillbridgebackend.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Một lần thu hồi JWT: một token cụ thể (theo jti, khi đăng xuất) hoặc mọi token của user
+ * có generation nhỏ hơn giá trị ghi ở đây (khóa tài khoản, reset mật khẩu, đổi quyền).
+ * Dòng được xóa sau expiresAt vì khi đó mọi token liên quan đã tự hết hạn.
+ */
+@Entity
+@Table(name = "token_revocations", indexes = {
+    @Index(name = "idx_token_revocations_created", columnList = "created_at"),
+    @Index(name = "idx_token_revocations_expires", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+public class TokenRevocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Type type;
+
+    // jti của token bị thu hồi (type = TOKEN)
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Token của user có generation nhỏ hơn giá trị này bị từ chối (type = USER)
+    private Integer generation;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public enum Type {
+        TOKEN, USER
+    }
+
+    public static TokenRevocation ofToken(String tokenId, Long userId, LocalDateTime expiresAt) {
+        TokenRevocation revocation = new TokenRevocation();
+        revocation.setType(Type.TOKEN);
+        revocation.setTokenId(tokenId);
+        revocation.setUserId(userId);
+        revocation.setExpiresAt(expiresAt);
+        return revocation;
+    }
+
+    public static TokenRevocation ofUser(Long userId, int generation, LocalDateTime expiresAt) {
+        TokenRevocation revocation = new TokenRevocation();
+        revocation.setType(Type.USER);
+        revocation.setUserId(userId);
+        revocation.setGeneration(generation);
+        revocation.setExpiresAt(expiresAt);
+        return revocation;
+    }
+}
@@ -16,7 +16,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_role_active", columnList = "role, is_active, id"),
+    @Index(name = "idx_users_full_name_id", columnList = "full_name, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -58,6 +61,10 @@ public class User {
     @Column(name = "is_active")
     private Boolean isActive = true;
 
+    // Tăng mỗi lần thu hồi toàn bộ JWT của user (khóa tài khoản, reset mật khẩu, đổi quyền)
+    @Column(name = "token_generation", nullable = false, columnDefinition = "int default 0")
+    private Integer tokenGeneration = 0;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -11,7 +11,13 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "user_lesson_progress",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "lesson_id", "lesson_type"}))
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "lesson_id", "lesson_type"}),
+        indexes = {
+                // Hoạt động đã hoàn thành: ORDER BY completed_at DESC, id DESC
+                @Index(name = "idx_user_lesson_progress_user_completed", columnList = "user_id, completed_at, id"),
+                // Hoạt động chưa hoàn thành (completed_at IS NULL): ORDER BY created_at DESC, id DESC
+                @Index(name = "idx_user_lesson_progress_user_recent", columnList = "user_id, completed_at, created_at, id")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
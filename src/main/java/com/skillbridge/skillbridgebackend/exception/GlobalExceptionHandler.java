@@ -1,6 +1,7 @@
 package com.skillbridge.skillbridgebackend.exception;
 
 import com.skillbridge.skillbridgebackend.response.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -135,6 +136,22 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
+    // Handle saturated password hashing executor
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<ApiResponse<Object>> handlePasswordHashingBusyException(
+            PasswordHashingBusyException ex, WebRequest request) {
+
+        ApiResponse<Object> response = ApiResponse.error(
+                "Hệ thống đang xử lý quá nhiều yêu cầu, vui lòng thử lại sau",
+                "Too many requests",
+                request.getDescription(false)
+        );
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
     // Handle generic runtime exceptions
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ApiResponse<Object>> handleRuntimeException(
@@ -0,0 +1,16 @@
+package com.skillbridge.skillbridgebackend.exception;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Executor băm mật khẩu đã đầy (hoặc yêu cầu chờ quá lâu trong hàng đợi): trả 429 để client thử lại sau
+ */
+public class PasswordHashingBusyException extends RejectedExecutionException {
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
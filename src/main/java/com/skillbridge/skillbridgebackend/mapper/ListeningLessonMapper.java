@@ -5,8 +5,10 @@ import com.skillbridge.skillbridgebackend.dto.ListeningLessonCreateDto;
 import com.skillbridge.skillbridgebackend.entity.ListeningLesson;
 import com.skillbridge.skillbridgebackend.entity.Category;
 import com.skillbridge.skillbridgebackend.entity.User;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -17,7 +19,8 @@ import java.util.stream.Collectors;
 public class ListeningLessonMapper {
 
     /**
-     * Convert từ Entity sang DTO
+     * Convert từ Entity sang DTO (chi tiết một bài học, có transcript).
+     * Danh sách bài học dùng toListDto(Object[]) từ projection.
      * @param lesson ListeningLesson entity
      * @return ListeningLessonDto
      */
@@ -50,9 +53,12 @@ public class ListeningLessonMapper {
             dto.setCreatedByName(lesson.getCreatedBy().getFullName());
         }
 
-        // Map questions count
+        // Đếm câu hỏi / từ vựng bằng COUNT, không load cả collection
         if (lesson.getQuestions() != null) {
-            dto.setQuestionCount(lesson.getQuestions().size());
+            dto.setQuestionCount(Hibernate.size(lesson.getQuestions()));
+        }
+        if (lesson.getLessonVocabularies() != null) {
+            dto.setVocabularyCount(Hibernate.size(lesson.getLessonVocabularies()));
         }
 
         return dto;
@@ -126,6 +132,40 @@ public class ListeningLessonMapper {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Convert dòng projection danh sách (ListeningLessonRepository.findListRows) sang DTO.
+     * Không có transcript; số câu hỏi / từ vựng lấy từ aggregate trong cùng truy vấn,
+     * không khởi tạo collection lazy của entity.
+     * @param row [id, title, description, level, status, audioUrl, durationSeconds, createdAt, updatedAt,
+     *            categoryId, categoryName, createdById, createdByName, questionCount, vocabularyCount]
+     * @return ListeningLessonDto cho danh sách
+     */
+    public static ListeningLessonDto toListDto(Object[] row) {
+        ListeningLessonDto dto = new ListeningLessonDto();
+        dto.setId((Long) row[0]);
+        dto.setTitle((String) row[1]);
+        dto.setDescription((String) row[2]);
+        dto.setLevel(((ListeningLesson.Level) row[3]).name());
+        dto.setStatus(((ListeningLesson.Status) row[4]).name());
+        dto.setAudioUrl((String) row[5]);
+        dto.setDurationSeconds((Integer) row[6]);
+        dto.setCreatedAt((LocalDateTime) row[7]);
+        dto.setUpdatedAt((LocalDateTime) row[8]);
+        dto.setCategoryId((Long) row[9]);
+        dto.setCategoryName((String) row[10]);
+        dto.setCreatedById((Long) row[11]);
+        dto.setCreatedByName((String) row[12]);
+        dto.setQuestionCount(((Number) row[13]).intValue());
+        dto.setVocabularyCount(((Number) row[14]).intValue());
+        return dto;
+    }
+
+    public static List<ListeningLessonDto> toListDtos(List<Object[]> rows) {
+        return rows.stream()
+                .map(ListeningLessonMapper::toListDto)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Convert sang DTO với thông tin tóm tắt (cho danh sách)
      * @param lesson ListeningLesson entity
@@ -173,15 +213,8 @@ public class ListeningLessonMapper {
             return null;
         }
 
-        // Sử dụng method toDto() cơ bản và thêm thông tin chi tiết
-        ListeningLessonDto dto = toDto(lesson);
-
-        // Thêm thông tin về số lượng câu hỏi, progress, etc.
-        if (lesson.getQuestions() != null) {
-            dto.setQuestionCount(lesson.getQuestions().size());
-        }
-
-        return dto;
+        // toDto() đã có transcript và số câu hỏi / từ vựng
+        return toDto(lesson);
     }
 
     /**
@@ -2,11 +2,27 @@
 package com.skillbridge.skillbridgebackend.mapper;
 
 import com.skillbridge.skillbridgebackend.dto.ReadingLessonDto;
+import com.skillbridge.skillbridgebackend.entity.ListeningLesson;
 import com.skillbridge.skillbridgebackend.entity.ReadingLesson;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
 public class ReadingLessonMapper {
 
     public static ReadingLessonDto toDto(ReadingLesson lesson) {
+        ReadingLessonDto dto = toListDto(lesson);
+        if (dto != null) {
+            dto.setContent(lesson.getContent());
+        }
+        return dto;
+    }
+
+    /**
+     * DTO chi tiết dựng từ entity, không có content (dùng chung cho toDto)
+     */
+    private static ReadingLessonDto toListDto(ReadingLesson lesson) {
         if (lesson == null) {
             return null;
         }
@@ -18,7 +34,6 @@ public class ReadingLessonMapper {
         dto.setLevel(lesson.getLevel().name());
         dto.setCategoryName(lesson.getCategory() != null ? lesson.getCategory().getName() : null);
         dto.setCategoryId(lesson.getCategory() != null ? lesson.getCategory().getId() : null);
-        dto.setContent(lesson.getContent());
         dto.setWordCount(lesson.getWordCount());
         dto.setStatus(lesson.getStatus().name());
         dto.setCreatedBy(lesson.getCreatedBy() != null ? lesson.getCreatedBy().getEmail() : null);
@@ -27,4 +42,33 @@ public class ReadingLessonMapper {
 
         return dto;
     }
+
+    /**
+     * DTO cho danh sách từ dòng projection (ReadingLessonRepository.findListRows):
+     * không có content, số câu hỏi lấy từ aggregate trong cùng truy vấn
+     * @param row [id, title, description, level, status, wordCount, createdAt, updatedAt,
+     *            categoryId, categoryName, createdByEmail, questionCount]
+     */
+    public static ReadingLessonDto toListDto(Object[] row) {
+        ReadingLessonDto dto = new ReadingLessonDto();
+        dto.setId((Long) row[0]);
+        dto.setTitle((String) row[1]);
+        dto.setDescription((String) row[2]);
+        dto.setLevel(((ListeningLesson.Level) row[3]).name());
+        dto.setStatus(((ListeningLesson.Status) row[4]).name());
+        dto.setWordCount((Integer) row[5]);
+        dto.setCreatedAt((LocalDateTime) row[6]);
+        dto.setUpdatedAt((LocalDateTime) row[7]);
+        dto.setCategoryId((Long) row[8]);
+        dto.setCategoryName((String) row[9]);
+        dto.setCreatedBy((String) row[10]);
+        dto.setQuestionCount(((Number) row[11]).intValue());
+        return dto;
+    }
+
+    public static List<ReadingLessonDto> toListDtos(List<Object[]> rows) {
+        return rows.stream()
+                .map(ReadingLessonMapper::toListDto)
+                .collect(Collectors.toList());
+    }
 }
\ No newline at end of file
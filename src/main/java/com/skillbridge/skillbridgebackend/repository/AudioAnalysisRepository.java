@@ -0,0 +1,20 @@
+package com.skillbridge.skillbridgebackend.repository;
+
+import com.skillbridge.skillbridgebackend.entity.AudioAnalysis;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AudioAnalysisRepository extends JpaRepository<AudioAnalysis, Long> {
+
+    Optional<AudioAnalysis> findByAudioUrl(String audioUrl);
+
+    /**
+     * Các phân tích bị kẹt (hàng đợi đầy, server restart giữa chừng) để đưa lại vào hàng đợi
+     */
+    List<AudioAnalysis> findByStatusInAndUpdatedAtBefore(List<AudioAnalysis.Status> statuses, LocalDateTime before);
+}
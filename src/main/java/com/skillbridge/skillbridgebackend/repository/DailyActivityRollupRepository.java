@@ -0,0 +1,56 @@
+package com.skillbridge.skillbridgebackend.repository;
+
+import com.skillbridge.skillbridgebackend.entity.DailyActivityRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailyActivityRollupRepository extends JpaRepository<DailyActivityRollup, Long> {
+
+    /**
+     * Lấy rollup của một ngày
+     */
+    Optional<DailyActivityRollup> findByActivityDate(LocalDate activityDate);
+
+    /**
+     * Lấy rollup trong khoảng ngày (bao gồm hai đầu)
+     */
+    List<DailyActivityRollup> findByActivityDateBetweenOrderByActivityDate(LocalDate from, LocalDate to);
+
+    /**
+     * Cộng dồn các bộ đếm của một ngày (tạo dòng mới nếu chưa có).
+     * Dùng upsert để các bài nộp đồng thời không ghi đè lẫn nhau.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_activity_rollups " +
+                   "(activity_date, active_users, completed_lessons, new_registrations, score_sum, score_count, updated_at) " +
+                   "VALUES (:activityDate, :activeUsers, :completedLessons, :newRegistrations, :scoreSum, :scoreCount, NOW()) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "active_users = active_users + VALUES(active_users), " +
+                   "completed_lessons = completed_lessons + VALUES(completed_lessons), " +
+                   "new_registrations = new_registrations + VALUES(new_registrations), " +
+                   "score_sum = score_sum + VALUES(score_sum), " +
+                   "score_count = score_count + VALUES(score_count), " +
+                   "updated_at = NOW()", nativeQuery = true)
+    void incrementCounters(@Param("activityDate") LocalDate activityDate,
+                           @Param("activeUsers") int activeUsers,
+                           @Param("completedLessons") int completedLessons,
+                           @Param("newRegistrations") int newRegistrations,
+                           @Param("scoreSum") BigDecimal scoreSum,
+                           @Param("scoreCount") int scoreCount);
+
+    /**
+     * Xóa rollup trong khoảng ngày (dùng khi rebuild)
+     */
+    @Modifying
+    @Query("DELETE FROM DailyActivityRollup r WHERE r.activityDate BETWEEN :from AND :to")
+    void deleteByActivityDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
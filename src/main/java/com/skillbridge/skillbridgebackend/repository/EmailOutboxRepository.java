@@ -0,0 +1,35 @@
+package com.skillbridge.skillbridgebackend.repository;
+
+import com.skillbridge.skillbridgebackend.entity.EmailOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    /**
+     * Email đến hạn gửi, khóa dòng (FOR UPDATE SKIP LOCKED) để nhiều instance không lấy trùng
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EmailOutbox e WHERE e.status = 'PENDING' AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<EmailOutbox> findDueForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Xóa email đã gửi cũ hơn mốc thời gian
+     */
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = 'SENT' AND e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -2,13 +2,18 @@ package com.skillbridge.skillbridgebackend.repository;
 
 import com.skillbridge.skillbridgebackend.entity.ListeningLesson;
 import com.skillbridge.skillbridgebackend.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ListeningLessonRepository extends JpaRepository<ListeningLesson, Long> {
@@ -106,19 +111,70 @@ public interface ListeningLessonRepository extends JpaRepository<ListeningLesson
     Integer countByStatus(ListeningLesson.Status status);
     
     /**
-     * Find published lessons with filters for students
+     * Find published lessons with filters for students.
+     * search phải được escape ký tự LIKE (\, %, _) bằng dấu \ trước khi truyền vào
      */
     @Query("SELECT l FROM ListeningLesson l WHERE l.status = 'PUBLISHED' " +
            "AND (:level IS NULL OR l.level = :level) " +
            "AND (:categoryId IS NULL OR l.category.id = :categoryId) " +
-           "AND (:search IS NULL OR LOWER(l.title) LIKE LOWER(CONCAT('%', :search, '%')) " +
-           "OR LOWER(l.description) LIKE LOWER(CONCAT('%', :search, '%')))")
+           "AND (:search IS NULL OR LOWER(l.title) LIKE LOWER(CONCAT('%', :search, '%')) ESCAPE '\\\\' " +
+           "OR LOWER(l.description) LIKE LOWER(CONCAT('%', :search, '%')) ESCAPE '\\\\')")
     List<ListeningLesson> findPublishedWithFilters(
         @Param("level") String level,
         @Param("categoryId") Long categoryId,
         @Param("search") String search
     );
 
+    // ===== STUDENT CATALOG (LISTENING + READING) =====
+
+    /**
+     * Catalog bài học đã publish của cả hai loại, keyset theo (created_at, lesson_type, id) giảm dần.
+     * Chỉ lấy các cột hiển thị trong danh sách (không lấy transcript/content).
+     * search phải được escape ký tự LIKE (\, %, _) bằng dấu \ trước khi truyền vào.
+     * Mỗi nhánh tự ORDER BY + LIMIT nên chỉ đọc tối đa :limit dòng trên index (status, created_at, id).
+     * Mỗi dòng: [id, lessonType, title, description, level, categoryId, categoryName,
+     *            audioUrl, durationSeconds, wordCount, createdAt]
+     */
+    @Query(value = "SELECT * FROM (" +
+           "(SELECT l.id AS id, 'listening' AS lesson_type, l.title AS title, l.description AS description, " +
+           "l.level AS level, c.id AS category_id, c.name AS category_name, " +
+           "l.audio_url AS audio_url, l.duration_seconds AS duration_seconds, NULL AS word_count, l.created_at AS created_at " +
+           "FROM listening_lessons l LEFT JOIN categories c ON c.id = l.category_id " +
+           "WHERE :includeListening = TRUE AND l.status = 'PUBLISHED' " +
+           "AND (:level IS NULL OR l.level = :level) " +
+           "AND (:categoryId IS NULL OR l.category_id = :categoryId) " +
+           "AND (:search IS NULL OR LOWER(l.title) LIKE LOWER(CONCAT('%', :search, '%')) ESCAPE '\\\\' " +
+           "OR LOWER(l.description) LIKE LOWER(CONCAT('%', :search, '%')) ESCAPE '\\\\') " +
+           "AND (l.created_at < :cursorCreatedAt OR (l.created_at = :cursorCreatedAt " +
+           "AND ('listening' < :cursorType OR ('listening' = :cursorType AND l.id < :cursorId)))) " +
+           "ORDER BY l.created_at DESC, l.id DESC LIMIT :limit) " +
+           "UNION ALL " +
+           "(SELECT r.id AS id, 'reading' AS lesson_type, r.title AS title, r.description AS description, " +
+           "r.level AS level, c.id AS category_id, c.name AS category_name, " +
+           "NULL AS audio_url, NULL AS duration_seconds, r.word_count AS word_count, r.created_at AS created_at " +
+           "FROM reading_lessons r LEFT JOIN categories c ON c.id = r.category_id " +
+           "WHERE :includeReading = TRUE AND r.status = 'PUBLISHED' " +
+           "AND (:level IS NULL OR r.level = :level) " +
+           "AND (:categoryId IS NULL OR r.category_id = :categoryId) " +
+           "AND (:search IS NULL OR LOWER(r.title) LIKE LOWER(CONCAT('%', :search, '%')) ESCAPE '\\\\' " +
+           "OR LOWER(r.description) LIKE LOWER(CONCAT('%', :search, '%')) ESCAPE '\\\\') " +
+           "AND (r.created_at < :cursorCreatedAt OR (r.created_at = :cursorCreatedAt " +
+           "AND ('reading' < :cursorType OR ('reading' = :cursorType AND r.id < :cursorId)))) " +
+           "ORDER BY r.created_at DESC, r.id DESC LIMIT :limit) " +
+           ") catalog ORDER BY created_at DESC, lesson_type DESC, id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<Object[]> findPublishedCatalogPage(
+        @Param("includeListening") boolean includeListening,
+        @Param("includeReading") boolean includeReading,
+        @Param("level") String level,
+        @Param("categoryId") Long categoryId,
+        @Param("search") String search,
+        @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+        @Param("cursorType") String cursorType,
+        @Param("cursorId") Long cursorId,
+        @Param("limit") int limit
+    );
+
     // ===== ANALYTICS METHODS =====
 
     /**
@@ -138,4 +194,80 @@ public interface ListeningLessonRepository extends JpaRepository<ListeningLesson
      */
     @Query("SELECT COUNT(l) FROM ListeningLesson l WHERE l.level = :level")
     Integer countByLevel(@Param("level") ListeningLesson.Level level);
-}
\ No newline at end of file
+
+    /**
+     * Tìm bài học theo trạng thái, fetch luôn category (tránh N+1 khi map analytics)
+     */
+    @Query("SELECT l FROM ListeningLesson l LEFT JOIN FETCH l.category WHERE l.status = :status")
+    List<ListeningLesson> findByStatusWithCategory(@Param("status") ListeningLesson.Status status);
+
+    /**
+     * Lấy thông tin tóm tắt cho báo cáo (không load transcript)
+     * Mỗi dòng: [id, title, level, categoryName]
+     */
+    @Query("SELECT l.id, l.title, l.level, c.name FROM ListeningLesson l LEFT JOIN l.category c WHERE l.id IN :ids")
+    List<Object[]> findReportRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Tên bài học (không load transcript)
+     */
+    @Query("SELECT l.title FROM ListeningLesson l WHERE l.id = :id")
+    Optional<String> findTitleById(@Param("id") Long id);
+
+    /**
+     * Dòng danh sách bài học kèm số câu hỏi và số từ vựng, đếm bằng subquery trong cùng truy vấn
+     * (không load transcript hay collection lazy). Tham số null = bỏ qua điều kiện.
+     * Mỗi dòng: [id, title, description, level, status, audioUrl, durationSeconds, createdAt, updatedAt,
+     *            categoryId, categoryName, createdById, createdByName, questionCount, vocabularyCount]
+     */
+    @Query("SELECT l.id, l.title, l.description, l.level, l.status, l.audioUrl, l.durationSeconds, " +
+           "l.createdAt, l.updatedAt, c.id, c.name, u.id, u.fullName, " +
+           "(SELECT COUNT(q) FROM Question q WHERE q.listeningLesson.id = l.id), " +
+           "(SELECT COUNT(v) FROM LessonVocabulary v WHERE v.lesson.id = l.id) " +
+           "FROM ListeningLesson l LEFT JOIN l.category c LEFT JOIN l.createdBy u " +
+           "WHERE (:status IS NULL OR l.status = :status) " +
+           "AND (:level IS NULL OR l.level = :level) " +
+           "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+           "AND (:createdById IS NULL OR u.id = :createdById) " +
+           "ORDER BY l.createdAt DESC, l.id DESC")
+    List<Object[]> findListRows(@Param("status") ListeningLesson.Status status,
+                                @Param("level") ListeningLesson.Level level,
+                                @Param("categoryId") Long categoryId,
+                                @Param("createdById") Long createdById);
+
+    /**
+     * Tất cả bài học kèm transcript (fetch join, dùng khi build index tìm kiếm ngoài transaction)
+     */
+    @Query(value = "SELECT l FROM ListeningLesson l LEFT JOIN FETCH l.transcriptBody",
+           countQuery = "SELECT COUNT(l) FROM ListeningLesson l")
+    Page<ListeningLesson> findAllWithTranscript(Pageable pageable);
+
+    // ===== MEDIA REFERENCES =====
+
+    /**
+     * Còn bài học nào dùng file audio (so khớp theo tên file cuối URL) hay không
+     */
+    boolean existsByAudioUrlEndingWith(String fileName);
+
+    /**
+     * Tất cả audioUrl đang được tham chiếu (dùng cho GC file audio)
+     */
+    @Query("SELECT DISTINCT l.audioUrl FROM ListeningLesson l WHERE l.audioUrl IS NOT NULL")
+    List<String> findAllAudioUrls();
+
+    /**
+     * Id các bài học dùng file audio mà thời lượng khác kết quả phân tích
+     */
+    @Query("SELECT l.id FROM ListeningLesson l WHERE l.audioUrl = :audioUrl " +
+           "AND (l.durationSeconds IS NULL OR l.durationSeconds <> :seconds)")
+    List<Long> findIdsWithStaleDuration(@Param("audioUrl") String audioUrl, @Param("seconds") int seconds);
+
+    /**
+     * Ghi thời lượng đã phân tích vào các bài học dùng file audio, chỉ đụng tới cột duration_seconds
+     * (không ghi đè chỉnh sửa khác của giáo viên)
+     */
+    @Modifying
+    @Query("UPDATE ListeningLesson l SET l.durationSeconds = :seconds WHERE l.audioUrl = :audioUrl " +
+           "AND (l.durationSeconds IS NULL OR l.durationSeconds <> :seconds)")
+    int updateDurationByAudioUrl(@Param("audioUrl") String audioUrl, @Param("seconds") int seconds);
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -56,6 +57,16 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
            "(:lessonType = 'READING' AND q.readingLesson.id = :lessonId AND q.lessonType = :lessonType)")
     List<Question> findByLessonIdAndLessonType(@Param("lessonId") Long lessonId, @Param("lessonType") Question.LessonType lessonType);
 
+    /**
+     * Đáp án của bài học dùng để chấm bài (không load nội dung câu hỏi)
+     * Mỗi dòng: [questionId, correctAnswer, points]
+     */
+    @Query("SELECT q.id, q.correctAnswer, q.points FROM Question q WHERE " +
+           "(:lessonType = 'LISTENING' AND q.listeningLesson.id = :lessonId AND q.lessonType = :lessonType) OR " +
+           "(:lessonType = 'READING' AND q.readingLesson.id = :lessonId AND q.lessonType = :lessonType) " +
+           "ORDER BY q.id")
+    List<Object[]> findAnswerKeyRows(@Param("lessonId") Long lessonId, @Param("lessonType") Question.LessonType lessonType);
+
     // ===== ANALYTICS METHODS =====
 
     /**
@@ -63,4 +74,31 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
      */
     @Query("SELECT COUNT(q) FROM Question q")
     Integer countAll();
+
+    /**
+     * Lấy các cột cần cho analytics của câu hỏi thuộc bài đã publish (không load explanation/options)
+     * Mỗi dòng: [questionId, lessonType, listeningLessonId, readingLessonId, questionText, questionType, correctAnswer]
+     */
+    @Query("SELECT q.id, q.lessonType, ll.id, rl.id, q.questionText, q.questionType, q.correctAnswer " +
+           "FROM Question q LEFT JOIN q.listeningLesson ll LEFT JOIN q.readingLesson rl " +
+           "WHERE ll.status = 'PUBLISHED' OR rl.status = 'PUBLISHED' ORDER BY q.id")
+    List<Object[]> findAnalyticsRowsForPublishedLessons();
+
+    @Query("SELECT q.id, q.lessonType, ll.id, rl.id, q.questionText, q.questionType, q.correctAnswer " +
+           "FROM Question q LEFT JOIN q.listeningLesson ll LEFT JOIN q.readingLesson rl " +
+           "WHERE q.lessonType = :lessonType AND (ll.id = :lessonId OR rl.id = :lessonId) ORDER BY q.id")
+    List<Object[]> findAnalyticsRowsForLesson(@Param("lessonId") Long lessonId,
+                                              @Param("lessonType") Question.LessonType lessonType);
+
+    /**
+     * Đếm số câu hỏi cho danh sách bài nghe / bài đọc
+     * Mỗi dòng: [lessonId, questionCount]
+     */
+    @Query("SELECT q.listeningLesson.id, COUNT(q) FROM Question q " +
+           "WHERE q.listeningLesson.id IN :lessonIds GROUP BY q.listeningLesson.id")
+    List<Object[]> countByListeningLessonIds(@Param("lessonIds") Collection<Long> lessonIds);
+
+    @Query("SELECT q.readingLesson.id, COUNT(q) FROM Question q " +
+           "WHERE q.readingLesson.id IN :lessonIds GROUP BY q.readingLesson.id")
+    List<Object[]> countByReadingLessonIds(@Param("lessonIds") Collection<Long> lessonIds);
 }
\ No newline at end of file
@@ -2,12 +2,16 @@ package com.skillbridge.skillbridgebackend.repository;
 
 import com.skillbridge.skillbridgebackend.entity.ReadingLesson;
 import com.skillbridge.skillbridgebackend.entity.ListeningLesson;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ReadingLessonRepository extends JpaRepository<ReadingLesson, Long> {
@@ -68,13 +72,14 @@ public interface ReadingLessonRepository extends JpaRepository<ReadingLesson, Lo
 
     
     /**
-     * Find published lessons with filters for students
+     * Find published lessons with filters for students.
+     * search phải được escape ký tự LIKE (\, %, _) bằng dấu \ trước khi truyền vào
      */
     @Query("SELECT r FROM ReadingLesson r WHERE r.status = 'PUBLISHED' " +
            "AND (:level IS NULL OR r.level = :level) " +
            "AND (:categoryId IS NULL OR r.category.id = :categoryId) " +
-           "AND (:search IS NULL OR LOWER(r.title) LIKE LOWER(CONCAT('%', :search, '%')) " +
-           "OR LOWER(r.description) LIKE LOWER(CONCAT('%', :search, '%')))")
+           "AND (:search IS NULL OR LOWER(r.title) LIKE LOWER(CONCAT('%', :search, '%')) ESCAPE '\\\\' " +
+           "OR LOWER(r.description) LIKE LOWER(CONCAT('%', :search, '%')) ESCAPE '\\\\')")
     List<ReadingLesson> findPublishedWithFilters(
         @Param("level") String level,
         @Param("categoryId") Long categoryId,
@@ -100,4 +105,46 @@ public interface ReadingLessonRepository extends JpaRepository<ReadingLesson, Lo
      */
     @Query("SELECT COUNT(r) FROM ReadingLesson r WHERE r.level = :level")
     Integer countByLevel(@Param("level") ListeningLesson.Level level);
+
+    /**
+     * Tìm bài đọc theo trạng thái, fetch luôn category (tránh N+1 khi map analytics)
+     */
+    @Query("SELECT r FROM ReadingLesson r LEFT JOIN FETCH r.category WHERE r.status = :status")
+    List<ReadingLesson> findByStatusWithCategory(@Param("status") ListeningLesson.Status status);
+
+    /**
+     * Lấy thông tin tóm tắt cho báo cáo (không load content)
+     * Mỗi dòng: [id, title, level, categoryName]
+     */
+    @Query("SELECT r.id, r.title, r.level, c.name FROM ReadingLesson r LEFT JOIN r.category c WHERE r.id IN :ids")
+    List<Object[]> findReportRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Tên bài học (không load content)
+     */
+    @Query("SELECT r.title FROM ReadingLesson r WHERE r.id = :id")
+    Optional<String> findTitleById(@Param("id") Long id);
+
+    /**
+     * Dòng danh sách bài đọc kèm số câu hỏi, đếm bằng subquery trong cùng truy vấn
+     * (không load content hay collection lazy). Tham số null = bỏ qua điều kiện.
+     * Mỗi dòng: [id, title, description, level, status, wordCount, createdAt, updatedAt,
+     *            categoryId, categoryName, createdByEmail, questionCount]
+     */
+    @Query("SELECT r.id, r.title, r.description, r.level, r.status, r.wordCount, r.createdAt, r.updatedAt, " +
+           "c.id, c.name, u.email, " +
+           "(SELECT COUNT(q) FROM Question q WHERE q.readingLesson.id = r.id) " +
+           "FROM ReadingLesson r LEFT JOIN r.category c LEFT JOIN r.createdBy u " +
+           "WHERE (:status IS NULL OR r.status = :status) " +
+           "AND (:createdById IS NULL OR u.id = :createdById) " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Object[]> findListRows(@Param("status") ListeningLesson.Status status,
+                                @Param("createdById") Long createdById);
+
+    /**
+     * Tất cả bài đọc kèm content (fetch join, dùng khi build index tìm kiếm ngoài transaction)
+     */
+    @Query(value = "SELECT r FROM ReadingLesson r LEFT JOIN FETCH r.contentBody",
+           countQuery = "SELECT COUNT(r) FROM ReadingLesson r")
+    Page<ReadingLesson> findAllWithContent(Pageable pageable);
 }
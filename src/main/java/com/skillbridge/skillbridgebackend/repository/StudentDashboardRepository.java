@@ -0,0 +1,43 @@
+package com.skillbridge.skillbridgebackend.repository;
+
+import com.skillbridge.skillbridgebackend.entity.StudentDashboard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface StudentDashboardRepository extends JpaRepository<StudentDashboard, Long> {
+
+    /**
+     * Tạo dòng rỗng (cần rebuild) nếu học viên chưa có dashboard.
+     * INSERT IGNORE để hai request đồng thời không lỗi duplicate key.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO student_dashboards " +
+                   "(user_id, needs_rebuild, completed_lessons, listening_count, reading_count, " +
+                   "score_sum, score_count, total_time_seconds, vocabulary_count, updated_at) " +
+                   "VALUES (:userId, TRUE, 0, 0, 0, 0, 0, 0, 0, NOW())", nativeQuery = true)
+    void insertIfAbsent(@Param("userId") Long userId);
+
+    /**
+     * Khóa dòng dashboard (SELECT ... FOR UPDATE) đến hết transaction,
+     * để các bài nộp đồng thời của cùng học viên được áp dụng lần lượt
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM StudentDashboard d WHERE d.userId = :userId")
+    Optional<StudentDashboard> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    /**
+     * Cộng/trừ số từ vựng đã lưu (không làm gì nếu học viên chưa có dashboard)
+     */
+    @Modifying
+    @Query(value = "UPDATE student_dashboards SET vocabulary_count = GREATEST(vocabulary_count + :delta, 0), " +
+                   "updated_at = NOW() WHERE user_id = :userId", nativeQuery = true)
+    void incrementVocabularyCount(@Param("userId") Long userId, @Param("delta") int delta);
+}
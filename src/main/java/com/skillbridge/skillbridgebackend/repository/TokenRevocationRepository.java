@@ -0,0 +1,29 @@
+package com.skillbridge.skillbridgebackend.repository;
+
+import com.skillbridge.skillbridgebackend.entity.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    /**
+     * Các lần thu hồi còn hiệu lực (dựng lại danh sách thu hồi khi khởi động)
+     */
+    List<TokenRevocation> findByExpiresAtAfter(LocalDateTime now);
+
+    /**
+     * Các lần thu hồi mới từ mốc thời gian (đồng bộ giữa các instance)
+     */
+    List<TokenRevocation> findByCreatedAtAfter(LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM TokenRevocation r WHERE r.expiresAt < :before")
+    int deleteExpiredBefore(@Param("before") LocalDateTime before);
+}
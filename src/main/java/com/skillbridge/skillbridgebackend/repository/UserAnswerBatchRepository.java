@@ -0,0 +1,56 @@
+package com.skillbridge.skillbridgebackend.repository;
+
+import com.skillbridge.skillbridgebackend.Service.AnswerKey;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ghi user_answers bằng INSERT nhiều dòng qua JDBC.
+ * UserAnswer dùng id IDENTITY nên Hibernate không batch được các lệnh insert.
+ */
+@Repository
+public class UserAnswerBatchRepository {
+
+    private static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO user_answers (user_id, question_id, selected_answer, is_correct, answered_at) VALUES ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserAnswerBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Lưu toàn bộ câu trả lời của một bài nộp, chạy trong transaction hiện tại
+     * @return số dòng đã ghi
+     */
+    public int insertAll(Long userId, List<AnswerKey.GradedAnswer> answers, LocalDateTime answeredAt) {
+        int inserted = 0;
+        Timestamp timestamp = Timestamp.valueOf(answeredAt);
+
+        for (int from = 0; from < answers.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<AnswerKey.GradedAnswer> chunk = answers.subList(from, Math.min(answers.size(), from + MAX_ROWS_PER_STATEMENT));
+
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+            List<Object> params = new ArrayList<>(chunk.size() * 5);
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+                AnswerKey.GradedAnswer answer = chunk.get(i);
+                params.add(userId);
+                params.add(answer.questionId());
+                params.add(answer.selectedAnswer());
+                params.add(answer.correct());
+                params.add(timestamp);
+            }
+            inserted += jdbcTemplate.update(sql.toString(), params.toArray());
+        }
+        return inserted;
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -74,4 +75,40 @@ public interface UserAnswerRepository extends JpaRepository<UserAnswer, Long> {
      */
     @Query("SELECT ua FROM UserAnswer ua WHERE ua.user.id = :userId AND ua.question IN :questions")
     List<UserAnswer> findByUserIdAndQuestionIn(@Param("userId") Long userId, @Param("questions") List<Question> questions);
+
+    // ===== QUESTION ANALYTICS AGGREGATES =====
+
+    /**
+     * Đếm số câu trả lời và số câu đúng theo question
+     * Mỗi dòng: [questionId, totalAnswers, correctAnswers]
+     */
+    @Query("SELECT ua.question.id, COUNT(ua), SUM(CASE WHEN ua.isCorrect = true THEN 1 ELSE 0 END) " +
+           "FROM UserAnswer ua GROUP BY ua.question.id")
+    List<Object[]> aggregateAnswerStatsByQuestion();
+
+    @Query("SELECT ua.question.id, COUNT(ua), SUM(CASE WHEN ua.isCorrect = true THEN 1 ELSE 0 END) " +
+           "FROM UserAnswer ua WHERE ua.question.id IN :questionIds GROUP BY ua.question.id")
+    List<Object[]> aggregateAnswerStatsByQuestionIds(@Param("questionIds") Collection<Long> questionIds);
+
+    /**
+     * Đếm số lần chọn mỗi đáp án sai theo question
+     * Mỗi dòng: [questionId, selectedAnswer, count]
+     */
+    @Query("SELECT ua.question.id, ua.selectedAnswer, COUNT(ua) FROM UserAnswer ua " +
+           "WHERE ua.isCorrect = false GROUP BY ua.question.id, ua.selectedAnswer")
+    List<Object[]> countWrongAnswersByQuestionAndSelection();
+
+    @Query("SELECT ua.question.id, ua.selectedAnswer, COUNT(ua) FROM UserAnswer ua " +
+           "WHERE ua.isCorrect = false AND ua.question.id IN :questionIds " +
+           "GROUP BY ua.question.id, ua.selectedAnswer")
+    List<Object[]> countWrongAnswersByQuestionIds(@Param("questionIds") Collection<Long> questionIds);
+
+    /**
+     * Đếm câu trả lời đúng theo user và lesson cho một batch user
+     * Mỗi dòng: [userId, listeningLessonId, readingLessonId, correctCount]
+     */
+    @Query("SELECT ua.user.id, ll.id, rl.id, COUNT(ua) FROM UserAnswer ua JOIN ua.question q " +
+           "LEFT JOIN q.listeningLesson ll LEFT JOIN q.readingLesson rl " +
+           "WHERE ua.user.id IN :userIds AND ua.isCorrect = true GROUP BY ua.user.id, ll.id, rl.id")
+    List<Object[]> countCorrectAnswersByUserIdsAndLesson(@Param("userIds") Collection<Long> userIds);
 }
\ No newline at end of file
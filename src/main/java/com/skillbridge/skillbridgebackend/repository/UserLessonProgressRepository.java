@@ -3,12 +3,14 @@ package com.skillbridge.skillbridgebackend.repository;
 import com.skillbridge.skillbridgebackend.entity.UserLessonProgress;
 import com.skillbridge.skillbridgebackend.entity.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +30,60 @@ public interface UserLessonProgressRepository extends JpaRepository<UserLessonPr
                                                                       Long lessonId,
                                                                       Question.LessonType lessonType);
 
+    /**
+     * Trạng thái hoàn thành hiện tại của progress (không load entity)
+     * Mỗi dòng: [isCompleted, completedAt, score, timeSpentSeconds]
+     */
+    @Query("SELECT p.isCompleted, p.completedAt, p.score, p.timeSpentSeconds FROM UserLessonProgress p " +
+           "WHERE p.user.id = :userId AND p.lessonId = :lessonId AND p.lessonType = :lessonType")
+    List<Object[]> findCompletionState(@Param("userId") Long userId,
+                                       @Param("lessonId") Long lessonId,
+                                       @Param("lessonType") Question.LessonType lessonType);
+
+    /**
+     * Ghi kết quả nộp bài bằng một câu lệnh: tạo progress mới hoặc cập nhật progress đã có
+     * (dựa trên unique key user_id, lesson_id, lesson_type)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_lesson_progress " +
+                   "(user_id, lesson_id, lesson_type, is_completed, score, time_spent_seconds, completed_at, created_at) " +
+                   "VALUES (:userId, :lessonId, :lessonType, TRUE, :score, :timeSpentSeconds, :completedAt, :completedAt) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "is_completed = TRUE, " +
+                   "score = VALUES(score), " +
+                   "time_spent_seconds = VALUES(time_spent_seconds), " +
+                   "completed_at = VALUES(completed_at)", nativeQuery = true)
+    void upsertCompletion(@Param("userId") Long userId,
+                          @Param("lessonId") Long lessonId,
+                          @Param("lessonType") String lessonType,
+                          @Param("score") BigDecimal score,
+                          @Param("timeSpentSeconds") Integer timeSpentSeconds,
+                          @Param("completedAt") LocalDateTime completedAt);
+
+    /**
+     * N hoạt động gần nhất của user theo COALESCE(completed_at, created_at) giảm dần, kèm tên bài học.
+     * Mỗi nhánh tự ORDER BY + LIMIT theo đúng thứ tự của index riêng: (user_id, completed_at, id) cho nhánh đã
+     * hoàn thành, (user_id, completed_at, created_at, id) cho nhánh chưa hoàn thành, nên chỉ đọc tối đa
+     * 2 * :limit dòng progress, tên bài lấy bằng join theo khóa chính (không quét toàn bộ lịch sử).
+     * Mỗi dòng: [lessonId, lessonType, score, timeSpentSeconds, completedAt, isCompleted, lessonTitle]
+     */
+    @Query(value = "SELECT recent.lesson_id, recent.lesson_type, recent.score, recent.time_spent_seconds, " +
+                   "recent.completed_at, recent.is_completed, COALESCE(ll.title, rl.title) FROM (" +
+                   "(SELECT p.id, p.lesson_id, p.lesson_type, p.score, p.time_spent_seconds, p.completed_at, " +
+                   "p.is_completed, p.completed_at AS activity_at FROM user_lesson_progress p " +
+                   "WHERE p.user_id = :userId AND p.completed_at IS NOT NULL " +
+                   "ORDER BY p.completed_at DESC, p.id DESC LIMIT :limit) " +
+                   "UNION ALL " +
+                   "(SELECT p.id, p.lesson_id, p.lesson_type, p.score, p.time_spent_seconds, p.completed_at, " +
+                   "p.is_completed, p.created_at AS activity_at FROM user_lesson_progress p " +
+                   "WHERE p.user_id = :userId AND p.completed_at IS NULL " +
+                   "ORDER BY p.created_at DESC, p.id DESC LIMIT :limit) " +
+                   ") recent " +
+                   "LEFT JOIN listening_lessons ll ON recent.lesson_type = 'LISTENING' AND ll.id = recent.lesson_id " +
+                   "LEFT JOIN reading_lessons rl ON recent.lesson_type = 'READING' AND rl.id = recent.lesson_id " +
+                   "ORDER BY recent.activity_at DESC, recent.id DESC LIMIT :limit", nativeQuery = true)
+    List<Object[]> findRecentActivity(@Param("userId") Long userId, @Param("limit") int limit);
+
     /**
      * Tìm các bài đã hoàn thành của user
      */
@@ -165,4 +221,53 @@ public interface UserLessonProgressRepository extends JpaRepository<UserLessonPr
      */
     @Query("SELECT COUNT(p) FROM UserLessonProgress p")
     Long countAll();
+
+    // ===== LESSON ANALYTICS AGGREGATES =====
+
+    /**
+     * Thống kê progress gộp theo lesson
+     * Mỗi dòng: [lessonId, lessonType, totalViews, completedCount, avgScore, avgTimeSpent]
+     */
+    @Query("SELECT p.lessonId, p.lessonType, COUNT(p), " +
+           "SUM(CASE WHEN p.isCompleted = true THEN 1 ELSE 0 END), AVG(p.score), AVG(p.timeSpentSeconds) " +
+           "FROM UserLessonProgress p GROUP BY p.lessonId, p.lessonType")
+    List<Object[]> aggregateStatsByLesson();
+
+    /**
+     * Thống kê progress gộp cho một lesson (cùng định dạng với aggregateStatsByLesson)
+     */
+    @Query("SELECT p.lessonId, p.lessonType, COUNT(p), " +
+           "SUM(CASE WHEN p.isCompleted = true THEN 1 ELSE 0 END), AVG(p.score), AVG(p.timeSpentSeconds) " +
+           "FROM UserLessonProgress p WHERE p.lessonId = :lessonId AND p.lessonType = :lessonType " +
+           "GROUP BY p.lessonId, p.lessonType")
+    List<Object[]> aggregateStatsForLesson(@Param("lessonId") Long lessonId,
+                                           @Param("lessonType") Question.LessonType lessonType);
+
+    // ===== DAILY ROLLUP REBUILD =====
+
+    /**
+     * Đếm số user hoạt động theo từng ngày trong khoảng [start, end)
+     * Mỗi dòng: [date, activeUsers]
+     */
+    @Query(value = "SELECT DATE(created_at), COUNT(DISTINCT user_id) FROM user_lesson_progress " +
+                   "WHERE created_at >= :start AND created_at < :end GROUP BY DATE(created_at)", nativeQuery = true)
+    List<Object[]> countActiveUsersPerDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Thống kê bài hoàn thành theo từng ngày trong khoảng [start, end)
+     * Mỗi dòng: [date, completedLessons, scoreSum, scoreCount]
+     */
+    @Query(value = "SELECT DATE(completed_at), COUNT(*), COALESCE(SUM(score), 0), COUNT(score) " +
+                   "FROM user_lesson_progress " +
+                   "WHERE is_completed = true AND completed_at >= :start AND completed_at < :end " +
+                   "GROUP BY DATE(completed_at)", nativeQuery = true)
+    List<Object[]> aggregateCompletionsPerDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // ===== BULK STUDENT REPORTS =====
+
+    /**
+     * Lấy progress của một batch học viên (giữ thứ tự theo id như findByUserId)
+     */
+    @Query("SELECT p FROM UserLessonProgress p WHERE p.user.id IN :userIds ORDER BY p.id")
+    List<UserLessonProgress> findByUserIdIn(@Param("userIds") Collection<Long> userIds);
 }
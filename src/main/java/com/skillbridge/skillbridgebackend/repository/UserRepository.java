@@ -1,6 +1,7 @@
 package com.skillbridge.skillbridgebackend.repository;
 
 import com.skillbridge.skillbridgebackend.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -148,4 +149,85 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * Kiểm tra Google ID có tồn tại không
      */
     boolean existsByGoogleId(String googleId);
-}
\ No newline at end of file
+
+    /**
+     * Đếm số đăng ký mới theo từng ngày trong khoảng [start, end)
+     * Mỗi dòng: [date, newRegistrations]
+     */
+    @Query(value = "SELECT DATE(created_at), COUNT(*) FROM users " +
+                   "WHERE created_at >= :start AND created_at < :end GROUP BY DATE(created_at)", nativeQuery = true)
+    List<Object[]> countRegistrationsPerDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Thời điểm user đầu tiên được tạo (mốc bắt đầu khi backfill)
+     */
+    @Query("SELECT MIN(u.createdAt) FROM User u")
+    LocalDateTime findEarliestCreatedAt();
+
+    /**
+     * Keyset pagination: lấy batch user tiếp theo theo id tăng dần
+     */
+    List<User> findByRoleAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(User.Role role, Long id, Pageable pageable);
+
+    /**
+     * Còn user nào dùng file ảnh làm avatar (so khớp theo tên file cuối URL) hay không
+     */
+    boolean existsByAvatarUrlEndingWith(String fileName);
+
+    /**
+     * Tất cả avatarUrl đang được tham chiếu (dùng cho GC file ảnh)
+     */
+    @Query("SELECT DISTINCT u.avatarUrl FROM User u WHERE u.avatarUrl IS NOT NULL")
+    List<String> findAllAvatarUrls();
+
+    // ===== ADMIN LISTING =====
+
+    /**
+     * Keyset pagination cho màn hình quản lý user: id giảm dần (mới nhất trước), lọc role / active (null = bỏ qua)
+     */
+    @Query("SELECT u FROM User u WHERE (:role IS NULL OR u.role = :role) " +
+           "AND (:active IS NULL OR u.isActive = :active) AND u.id < :beforeId ORDER BY u.id DESC")
+    List<User> findAdminPage(@Param("role") User.Role role,
+                             @Param("active") Boolean active,
+                             @Param("beforeId") Long beforeId,
+                             Pageable pageable);
+
+    /**
+     * Tìm user theo tiền tố họ tên, keyset theo (full_name, id) tăng dần: đi thẳng trên index
+     * idx_users_full_name_id từ vị trí con trỏ, không filesort. prefix đã được escape ký tự LIKE (%, _).
+     * Mỗi dòng: [id, full_name]
+     */
+    @Query(value = "SELECT id, full_name FROM users WHERE full_name LIKE CONCAT(:prefix, '%') " +
+                   "AND (full_name > :afterName OR (full_name = :afterName AND id > :afterId)) " +
+                   "AND (:role IS NULL OR role = :role) AND (:active IS NULL OR is_active = :active) " +
+                   "ORDER BY full_name, id LIMIT :limit", nativeQuery = true)
+    List<Object[]> searchAdminPageByName(@Param("prefix") String prefix,
+                                         @Param("role") String role,
+                                         @Param("active") Boolean active,
+                                         @Param("afterName") String afterName,
+                                         @Param("afterId") Long afterId,
+                                         @Param("limit") int limit);
+
+    /**
+     * Tìm user theo tiền tố email, keyset theo (email, id) tăng dần trên unique index của email.
+     * Bỏ các user có họ tên cũng khớp tiền tố (đã có ở nhánh họ tên). Mỗi dòng: [id, email]
+     */
+    @Query(value = "SELECT id, email FROM users WHERE email LIKE CONCAT(:prefix, '%') " +
+                   "AND (email > :afterEmail OR (email = :afterEmail AND id > :afterId)) " +
+                   "AND full_name NOT LIKE CONCAT(:prefix, '%') " +
+                   "AND (:role IS NULL OR role = :role) AND (:active IS NULL OR is_active = :active) " +
+                   "ORDER BY email, id LIMIT :limit", nativeQuery = true)
+    List<Object[]> searchAdminPageByEmail(@Param("prefix") String prefix,
+                                          @Param("role") String role,
+                                          @Param("active") Boolean active,
+                                          @Param("afterEmail") String afterEmail,
+                                          @Param("afterId") Long afterId,
+                                          @Param("limit") int limit);
+
+    /**
+     * Số user theo role và trạng thái active trong một truy vấn
+     * Mỗi dòng: [role, isActive, count]
+     */
+    @Query("SELECT u.role, u.isActive, COUNT(u) FROM User u GROUP BY u.role, u.isActive")
+    List<Object[]> countByRoleAndActive();
+}
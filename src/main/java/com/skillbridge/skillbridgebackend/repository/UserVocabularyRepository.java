@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -87,4 +88,12 @@ public interface UserVocabularyRepository extends JpaRepository<UserVocabulary,
      * Đếm số từ vựng đã học của user (shortcut method)
      */
     Integer countByUserIdAndIsLearnedTrue(Long userId);
+
+    /**
+     * Đếm từ vựng đã học cho một batch user
+     * Mỗi dòng: [userId, learnedCount]
+     */
+    @Query("SELECT uv.user.id, COUNT(uv) FROM UserVocabulary uv " +
+           "WHERE uv.user.id IN :userIds AND uv.isLearned = true GROUP BY uv.user.id")
+    List<Object[]> countLearnedVocabByUserIds(@Param("userIds") Collection<Long> userIds);
 }
\ No newline at end of file
@@ -33,6 +33,9 @@ public class ApiResponse<T> {
     @Schema(description = "Request path (if any)")
     private String path;
 
+    @Schema(description = "True when a capped list left out rows (legacy unpaged endpoints)")
+    private Boolean truncated;
+
     // Constructor for success response with data
     public ApiResponse(boolean success, String message, T data) {
         this.success = success;
@@ -0,0 +1,130 @@
+package com.skillbridge.skillbridgebackend.security;
+
+import com.skillbridge.skillbridgebackend.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * PasswordEncoder chạy encode / matches (BCrypt) trên executor riêng có giới hạn, để một đợt đăng nhập
+ * dồn dập không chiếm hết thread Tomcat. Thread request chờ kết quả; khi hàng đợi đầy hoặc yêu cầu
+ * đã chờ quá queueTimeout thì ném PasswordHashingBusyException (429) thay vì xếp hàng thêm.
+ * Metrics: password.hash.queue.wait và password.hash.time (tag op=encode|matches),
+ * password.hash.rejected, password.hash.queue.size.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor hashExecutor;
+    private final long queueTimeoutNanos;
+    private final Operation encodeOperation;
+    private final Operation matchesOperation;
+    private final Counter rejected;
+
+    private record Operation(Timer queueWait, Timer hashTime) {
+    }
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int workers, int queueCapacity,
+                                  long queueTimeoutMillis, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+        this.hashExecutor = new ThreadPoolExecutor(workers, workers,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.encodeOperation = operation("encode", meterRegistry);
+        this.matchesOperation = operation("matches", meterRegistry);
+        this.rejected = Counter.builder("password.hash.rejected")
+                .description("Password hash requests rejected because the executor was saturated")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.queue.size", hashExecutor, executor -> executor.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeOperation, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesOperation, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Chỉ đọc cost trong chuỗi hash, không cần qua executor. DaoAuthenticationProvider dùng để
+     * băm lại mật khẩu khi đăng nhập nếu cost đã đổi.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() {
+        hashExecutor.shutdownNow();
+    }
+
+    private <T> T run(Operation operation, Supplier<T> hash) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = hashExecutor.submit(() -> {
+                long startedAt = System.nanoTime();
+                long waited = startedAt - submittedAt;
+                operation.queueWait().record(waited, TimeUnit.NANOSECONDS);
+                if (waited > queueTimeoutNanos) {
+                    // Client có lẽ đã bỏ cuộc: không tốn CPU cho yêu cầu này
+                    rejected.increment();
+                    throw new PasswordHashingBusyException("Password hashing queue wait exceeded");
+                }
+                try {
+                    return hash.get();
+                } finally {
+                    operation.hashTime().record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Password hashing executor is saturated", e);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Password hashing interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static Operation operation(String name, MeterRegistry meterRegistry) {
+        return new Operation(
+                Timer.builder("password.hash.queue.wait").tag("op", name)
+                        .description("Time a password hash request waited for a hashing thread")
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry),
+                Timer.builder("password.hash.time").tag("op", name)
+                        .description("Time spent computing a password hash")
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry));
+    }
+}
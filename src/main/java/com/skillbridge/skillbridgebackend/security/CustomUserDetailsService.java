@@ -4,6 +4,7 @@ import com.skillbridge.skillbridgebackend.Service.UserService;
 import com.skillbridge.skillbridgebackend.entity.User;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -11,7 +12,7 @@ import org.springframework.stereotype.Service;
 import java.util.Collections;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserService userService;
 
@@ -37,4 +38,16 @@ public class CustomUserDetailsService implements UserDetailsService {
             throw new UsernameNotFoundException("User not found with email: " + email, e);
         }
     }
+
+    /**
+     * DaoAuthenticationProvider gọi sau khi đăng nhập thành công nếu hash đang lưu dùng cost cũ
+     * (PasswordEncoder.upgradeEncoding): lưu hash mới tính từ mật khẩu vừa nhập
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userService.updateEncodedPassword(user.getUsername(), newPassword);
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
 } 
\ No newline at end of file
@@ -12,7 +12,10 @@ import org.springframework.stereotype.Component;
 public class JwtHelper {
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private JwtTokenVerifier tokenVerifier;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
     @Autowired
     private UserService userService;
@@ -31,12 +34,28 @@ public class JwtHelper {
 
     /**
      * Get current user ID from JWT token
+     * Với JwtPrincipal (stateless) lấy trực tiếp từ claims, không truy vấn DB
      */
     public Long getCurrentUserId() {
+        JwtPrincipal principal = getCurrentPrincipal();
+        if (principal != null) {
+            return principal.id();
+        }
         User user = getCurrentUser();
         return user != null ? user.getId() : null;
     }
 
+    /**
+     * Principal dựng từ JWT của request hiện tại (null nếu xác thực theo cách khác)
+     */
+    public JwtPrincipal getCurrentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal;
+        }
+        return null;
+    }
+
     /**
      * Get user from JWT token in request header
      */
@@ -45,9 +64,9 @@ public class JwtHelper {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             try {
-                String email = jwtUtil.getEmailFromToken(token);
-                if (jwtUtil.validateToken(token, email)) {
-                    return userService.findByEmail(email);
+                JwtPrincipal principal = tokenVerifier.verify(token);
+                if (!tokenRevocationService.isRevoked(principal)) {
+                    return userService.findByEmail(principal.email());
                 }
             } catch (Exception e) {
                 // Invalid token
@@ -71,6 +90,10 @@ public class JwtHelper {
      * Check if user has specific role
      */
     public boolean hasRole(String role) {
+        JwtPrincipal principal = getCurrentPrincipal();
+        if (principal != null) {
+            return role.equals(principal.role());
+        }
         User user = getCurrentUser();
         return user != null && user.getRole().name().equals(role);
     }
@@ -0,0 +1,18 @@
+package com.skillbridge.skillbridgebackend.security;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * Principal dựng từ claims của JWT (không cần truy vấn bảng users).
+ * getName() trả về email để authentication.getName() vẫn hoạt động như trước.
+ * id / role / tokenId / generation null với token cũ không có các claim này.
+ */
+public record JwtPrincipal(Long id, String email, String role, String tokenId, Integer generation,
+                           Instant expiresAt) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
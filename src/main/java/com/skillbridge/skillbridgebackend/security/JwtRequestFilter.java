@@ -1,12 +1,12 @@
 package com.skillbridge.skillbridgebackend.security;
 
-import com.skillbridge.skillbridgebackend.Service.UserService;
-import com.skillbridge.skillbridgebackend.entity.User;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,18 +15,23 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
+    private final JwtTokenVerifier tokenVerifier;
     private final UserDetailsService userDetailsService;
-    private final UserService userService;
+    private final TokenRevocationService tokenRevocationService;
+    private final boolean stateless;
 
-    public JwtRequestFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService, UserService userService) {
-        this.jwtUtil = jwtUtil;
+    public JwtRequestFilter(JwtTokenVerifier tokenVerifier, UserDetailsService userDetailsService,
+                            TokenRevocationService tokenRevocationService,
+                            @Value("${app.security.jwt.stateless:true}") boolean stateless) {
+        this.tokenVerifier = tokenVerifier;
         this.userDetailsService = userDetailsService;
-        this.userService = userService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.stateless = stateless;
     }
 
     @Override
@@ -35,26 +40,24 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String email = null;
-        String jwt = null;
+        JwtPrincipal principal = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                email = jwtUtil.getEmailFromToken(jwt);
+                // Chữ ký và hạn token được kiểm tra một lần, kết quả cache đến khi token hết hạn
+                principal = tokenVerifier.verify(jwt);
             } catch (Exception e) {
                 logger.warn("JWT Token is invalid: " + e.getMessage());
             }
         }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if (principal != null && principal.email() != null
+                && !tokenRevocationService.isRevoked(principal)
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                User user = userService.findByEmail(email);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-
-                if (jwtUtil.validateToken(jwt, email)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
+                UsernamePasswordAuthenticationToken authToken = authenticate(principal);
+                if (authToken != null) {
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
@@ -64,4 +67,19 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
         chain.doFilter(request, response);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Token có userId + role: lấy quyền từ claims, không truy vấn DB (khóa tài khoản / reset mật khẩu
+     * đã thu hồi token qua TokenRevocationService).
+     * Token cũ thiếu claims (hoặc tắt chế độ stateless): load user từ DB một lần.
+     */
+    private UsernamePasswordAuthenticationToken authenticate(JwtPrincipal principal) {
+        if (stateless && principal.id() != null && principal.role() != null) {
+            return new UsernamePasswordAuthenticationToken(
+                    principal, null, List.of(new SimpleGrantedAuthority("ROLE_" + principal.role())));
+        }
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername(principal.email());
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+}
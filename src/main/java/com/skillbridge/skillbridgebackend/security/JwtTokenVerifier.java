@@ -0,0 +1,99 @@
+package com.skillbridge.skillbridgebackend.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Xác thực JWT một lần và trả về JwtPrincipal bất biến.
+ * Kết quả được cache theo SHA-256 của token đến khi token hết hạn, nên các lần gọi lặp lại
+ * trong cùng request (filter, helper, controller) và các request sau với cùng token không parse lại.
+ * Token không hợp lệ không được cache.
+ */
+@Component
+public class JwtTokenVerifier {
+
+    private final Map<String, JwtPrincipal> principals = new ConcurrentHashMap<>();
+    private final JwtUtil jwtUtil;
+    private final int maxEntries;
+
+    public JwtTokenVerifier(JwtUtil jwtUtil,
+                            @Value("${app.security.jwt.verify-cache-max-entries:10000}") int maxEntries) {
+        this.jwtUtil = jwtUtil;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Principal của token. Ném JwtException nếu token sai chữ ký, sai định dạng hoặc đã hết hạn.
+     */
+    public JwtPrincipal verify(String token) {
+        long now = System.currentTimeMillis();
+        String key = hash(token);
+        JwtPrincipal cached = principals.get(key);
+        if (cached != null) {
+            if (cached.expiresAt().toEpochMilli() > now) {
+                return cached;
+            }
+            principals.remove(key);
+        }
+
+        Claims claims = jwtUtil.parseClaims(token);
+        if (claims.getExpiration() == null) {
+            throw new JwtException("JWT token has no expiration");
+        }
+        JwtPrincipal principal = new JwtPrincipal(
+                claims.get("userId", Long.class),
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.getId(),
+                claims.get("gen", Integer.class),
+                claims.getExpiration().toInstant());
+
+        if (principals.size() >= maxEntries) {
+            trim(now);
+        }
+        principals.put(key, principal);
+        return principal;
+    }
+
+    /**
+     * Xóa token khỏi cache (ví dụ khi đăng xuất)
+     */
+    public void evict(String token) {
+        principals.remove(hash(token));
+    }
+
+    int size() {
+        return principals.size();
+    }
+
+    /**
+     * Xóa entry hết hạn trước, nếu vẫn đầy thì bỏ bớt entry bất kỳ
+     */
+    private void trim(long now) {
+        principals.values().removeIf(principal -> principal.expiresAt().toEpochMilli() <= now);
+        Iterator<String> iterator = principals.keySet().iterator();
+        while (principals.size() >= maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.skillbridge.skillbridgebackend.security;
 
 import com.skillbridge.skillbridgebackend.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -13,6 +14,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
@@ -24,9 +26,28 @@ public class JwtUtil {
     @Value("${spring.security.jwt.expiration}")
     private Long expiration;
 
+    // Key và parser dựng một lần từ secret rồi dùng lại (đều thread-safe)
+    private volatile SecretKey signingKey;
+    private volatile JwtParser parser;
+
     private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        SecretKey key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+            signingKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser jwtParser = parser;
+        if (jwtParser == null) {
+            jwtParser = Jwts.parserBuilder()
+                    .setSigningKey(getSigningKey())
+                    .build();
+            parser = jwtParser;
+        }
+        return jwtParser;
     }
 
     public String generateToken(User user) {
@@ -35,6 +56,8 @@ public class JwtUtil {
         claims.put("role", user.getRole().name());
         claims.put("fullName", user.getFullName());
         claims.put("isActive", user.getIsActive());
+        // Thu hồi theo user tăng generation; token mang generation cũ bị TokenRevocationService từ chối
+        claims.put("gen", user.getTokenGeneration() != null ? user.getTokenGeneration() : 0);
         
         return createToken(claims, user.getEmail());
     }
@@ -48,6 +71,7 @@ public class JwtUtil {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS512)
@@ -56,8 +80,8 @@ public class JwtUtil {
 
     public Boolean validateToken(String token, String email) {
         try {
-            final String tokenEmail = getEmailFromToken(token);
-            return (tokenEmail.equals(email) && !isTokenExpired(token));
+            // Parser đã từ chối token hết hạn hoặc sai chữ ký
+            return email != null && email.equals(parseClaims(token).getSubject());
         } catch (Exception e) {
             return false;
         }
@@ -96,19 +120,20 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Parse và xác thực chữ ký + hạn token một lần, trả về toàn bộ claims.
+     * Ném JwtException nếu token không hợp lệ hoặc đã hết hạn.
+     */
+    public Claims parseClaims(String token) {
+        return getAllClaimsFromToken(token);
+    }
+
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return getParser()
                 .parseClaimsJws(token)
                 .getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
-    }
-
     public Long getExpirationTime() {
         return expiration;
     }
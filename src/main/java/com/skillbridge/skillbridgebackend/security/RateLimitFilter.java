@@ -0,0 +1,267 @@
+package com.skillbridge.skillbridgebackend.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillbridge.skillbridgebackend.response.ApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giới hạn tần suất các endpoint tốn tài nguyên (BCrypt, SMTP, Cloudinary) trước khi tới JwtRequestFilter.
+ * Mỗi luật khớp thì lấy một lượt từ bucket của khóa tương ứng; hết lượt thì trả 429 kèm Retry-After.
+ * Địa chỉ IP lấy từ getRemoteAddr(): chạy sau reverse proxy thì bật server.forward-headers-strategy,
+ * không tự đọc X-Forwarded-For. Khóa EMAIL đọc trường "email" của body JSON (application/json hoặc
+ * application/*+json, kể cả body chunked), body được giữ lại cho controller. Body không đọc được email thì
+ * từ chối ngay (413 nếu quá MAX_BODY_BYTES, 400 nếu không phải JSON / thiếu email) thay vì bỏ qua luật.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Body đăng nhập / quên mật khẩu chỉ vài trăm byte
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private final RateLimiter rateLimiter;
+    private final JwtTokenVerifier tokenVerifier;
+    private final ObjectMapper objectMapper;
+    private final List<RateLimitRule> rules;
+    private final Map<String, Counter> rejected = new HashMap<>();
+
+    public RateLimitFilter(RateLimiter rateLimiter, JwtTokenVerifier tokenVerifier, ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry, List<RateLimitRule> rules) {
+        this.rateLimiter = rateLimiter;
+        this.tokenVerifier = tokenVerifier;
+        this.objectMapper = objectMapper;
+        this.rules = List.copyOf(rules);
+        for (RateLimitRule rule : this.rules) {
+            rejected.put(rule.name(), Counter.builder("rate.limit.rejected")
+                    .tag("rule", rule.name())
+                    .description("Requests rejected by the rate limiter")
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        for (RateLimitRule rule : rules) {
+            if (rule.matches(request)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        HttpServletRequest current = request;
+        boolean bodyRead = false;
+        String email = null;
+
+        for (RateLimitRule rule : rules) {
+            if (!rule.matches(request)) {
+                continue;
+            }
+            String key;
+            if (rule.keyType() == RateLimitRule.KeyType.EMAIL) {
+                if (!bodyRead) {
+                    if (!isJson(request.getContentType())) {
+                        writeError(request, response, HttpStatus.BAD_REQUEST,
+                                "Dữ liệu gửi lên phải là JSON", "Unsupported content type");
+                        return;
+                    }
+                    CachedBodyRequest cached = CachedBodyRequest.of(request);
+                    if (cached == null) {
+                        writeError(request, response, HttpStatus.PAYLOAD_TOO_LARGE,
+                                "Dữ liệu gửi lên quá lớn", "Payload too large");
+                        return;
+                    }
+                    current = cached;
+                    email = readEmail(cached.body);
+                    if (email == null) {
+                        writeError(request, response, HttpStatus.BAD_REQUEST,
+                                "Email không được để trống", "Missing email");
+                        return;
+                    }
+                    bodyRead = true;
+                }
+                key = "email:" + email;
+            } else {
+                key = rule.keyType() == RateLimitRule.KeyType.USER
+                        ? userKey(request)
+                        : "ip:" + request.getRemoteAddr();
+            }
+
+            long waitNanos = rateLimiter.tryAcquire(rule, key);
+            if (waitNanos > 0) {
+                rejected.get(rule.name()).increment();
+                logger.debug("Rate limit " + rule.name() + " exceeded for " + key);
+                reject(request, response, waitNanos);
+                return;
+            }
+        }
+        chain.doFilter(current, response);
+    }
+
+    /**
+     * User đăng nhập theo id trong token (principal đã được cache nên JwtRequestFilter không parse lại),
+     * chưa đăng nhập hoặc token không hợp lệ thì theo IP
+     */
+    private String userKey(HttpServletRequest request) {
+        String authorizationHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
+            try {
+                JwtPrincipal principal = tokenVerifier.verify(authorizationHeader.substring(7));
+                if (principal.id() != null) {
+                    return "user:" + principal.id();
+                }
+                if (principal.email() != null) {
+                    return "user:" + principal.email();
+                }
+            } catch (Exception e) {
+                // JwtRequestFilter sẽ xử lý token không hợp lệ
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private String readEmail(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            if (email != null && email.isTextual() && !email.asText().isBlank()) {
+                return email.asText().trim().toLowerCase(Locale.ROOT);
+            }
+        } catch (IOException e) {
+            // Body không phải JSON hợp lệ
+        }
+        return null;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos)
+            throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        writeError(request, response, HttpStatus.TOO_MANY_REQUESTS,
+                "Bạn đã gửi quá nhiều yêu cầu, vui lòng thử lại sau", "Too many requests");
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+                            String message, String error) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(message, error, request.getRequestURI()));
+    }
+
+    /**
+     * application/json hoặc application/*+json
+     */
+    static boolean isJson(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return "application".equals(mediaType.getType())
+                    && ("json".equals(mediaType.getSubtype()) || mediaType.getSubtype().endsWith("+json"));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Request với body JSON đã đọc sẵn vào bộ nhớ, để filter đọc email mà controller vẫn đọc được body
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        /**
+         * Đọc tối đa MAX_BODY_BYTES + 1 byte bất kể Content-Length (body chunked không có độ dài).
+         * null nếu body lớn hơn MAX_BODY_BYTES
+         */
+        static CachedBodyRequest of(HttpServletRequest request) throws IOException {
+            if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+                return null;
+            }
+            byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+            return body.length > MAX_BODY_BYTES ? null : new CachedBodyRequest(request, body);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Async read is not supported");
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.skillbridge.skillbridgebackend.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Một luật giới hạn tần suất: token bucket dung lượng capacity, nạp đầy lại sau period,
+ * áp dụng cho các đường dẫn (không gồm context path) với HTTP method tương ứng.
+ * Các đường dẫn trong cùng một luật dùng chung bucket của mỗi khóa.
+ */
+public record RateLimitRule(String name, KeyType keyType, int capacity, Duration period,
+                            String method, Set<String> paths) {
+
+    /**
+     * Khóa của bucket: địa chỉ IP, user đăng nhập (IP nếu chưa đăng nhập) hoặc email trong body JSON
+     */
+    public enum KeyType {
+        IP, USER, EMAIL
+    }
+
+    public RateLimitRule {
+        if (capacity <= 0 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Invalid rate limit for " + name + ": " + capacity + "/" + period);
+        }
+        paths = Set.copyOf(paths);
+    }
+
+    /**
+     * Tạo luật từ cấu hình dạng "capacity/seconds", ví dụ "10/60" = tối đa 10 request liên tiếp,
+     * nạp lại 10 lượt mỗi 60 giây. Trả về null nếu cấu hình rỗng hoặc "0" (tắt luật).
+     */
+    public static RateLimitRule parse(String name, KeyType keyType, String spec, String method, String... paths) {
+        if (spec == null || spec.isBlank() || spec.trim().equals("0")) {
+            return null;
+        }
+        String[] parts = spec.trim().split("/");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Rate limit for " + name + " must be capacity/seconds: " + spec);
+        }
+        return new RateLimitRule(name, keyType, Integer.parseInt(parts[0].trim()),
+                Duration.ofSeconds(Long.parseLong(parts[1].trim())), method, Set.of(paths));
+    }
+
+    /**
+     * Thời gian (nano giây) để nạp lại một lượt
+     */
+    public double nanosPerToken() {
+        return (double) period.toNanos() / capacity;
+    }
+
+    public boolean matches(HttpServletRequest request) {
+        return method.equalsIgnoreCase(request.getMethod()) && paths.contains(request.getServletPath());
+    }
+}
@@ -0,0 +1,147 @@
+package com.skillbridge.skillbridgebackend.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket trong bộ nhớ theo (luật, khóa). Bucket được chia vào nhiều stripe, mỗi stripe một
+ * LinkedHashMap có khóa riêng, nên các request khác khóa hầu như không tranh chấp nhau.
+ * Token được nạp lại lười khi kiểm tra (không có thread nạp định kỳ).
+ * Bucket không dùng đến lâu đã nạp đầy lại, tương đương bucket mới, nên được dọn định kỳ mà không mất
+ * thông tin; khi một stripe vẫn đầy thì bỏ bucket ít dùng gần đây nhất.
+ */
+@Component
+public class RateLimiter {
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int maxKeysPerStripe;
+    private final LongSupplier nanoClock;
+
+    private static final class Stripe {
+        // Thứ tự truy cập: phần tử đầu là bucket ít dùng gần đây nhất
+        private final LinkedHashMap<String, Bucket> buckets = new LinkedHashMap<>(64, 0.75f, true);
+    }
+
+    private static final class Bucket {
+        private final RateLimitRule rule;
+        private double tokens;
+        private long updatedAt;
+
+        private Bucket(RateLimitRule rule, long now) {
+            this.rule = rule;
+            this.tokens = rule.capacity();
+            this.updatedAt = now;
+        }
+
+        private void refill(long now) {
+            long elapsed = now - updatedAt;
+            if (elapsed > 0) {
+                tokens = Math.min(rule.capacity(), tokens + elapsed / rule.nanosPerToken());
+                updatedAt = now;
+            }
+        }
+
+        private boolean isFull(long now) {
+            return tokens + (now - updatedAt) / rule.nanosPerToken() >= rule.capacity();
+        }
+    }
+
+    @Autowired
+    public RateLimiter(MeterRegistry meterRegistry,
+                       @Value("${app.rate-limit.stripes:64}") int stripes,
+                       @Value("${app.rate-limit.max-keys:100000}") int maxKeys) {
+        this(meterRegistry, stripes, maxKeys, System::nanoTime);
+    }
+
+    RateLimiter(MeterRegistry meterRegistry, int stripes, int maxKeys, LongSupplier nanoClock) {
+        int count = 1;
+        while (count < stripes) {
+            count <<= 1;
+        }
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.stripeMask = count - 1;
+        this.maxKeysPerStripe = Math.max(1, maxKeys / count);
+        this.nanoClock = nanoClock;
+        Gauge.builder("rate.limit.buckets", this, RateLimiter::size)
+                .description("Token buckets currently held by the rate limiter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Lấy một lượt từ bucket của khóa theo luật.
+     *
+     * @return 0 nếu được phép, ngược lại số nano giây phải chờ đến khi có lượt tiếp theo
+     */
+    public long tryAcquire(RateLimitRule rule, String key) {
+        String bucketKey = rule.name() + '|' + key;
+        Stripe stripe = stripes[spread(bucketKey.hashCode()) & stripeMask];
+        long now = nanoClock.getAsLong();
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(bucketKey);
+            if (bucket == null) {
+                if (stripe.buckets.size() >= maxKeysPerStripe) {
+                    Iterator<Bucket> eldest = stripe.buckets.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+                bucket = new Bucket(rule, now);
+                stripe.buckets.put(bucketKey, bucket);
+            } else {
+                bucket.refill(now);
+            }
+
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - bucket.tokens) * rule.nanosPerToken()));
+        }
+    }
+
+    /**
+     * Dọn các bucket đã nạp đầy lại
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:60000}")
+    public int evictIdle() {
+        long now = nanoClock.getAsLong();
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Bucket> iterator = stripe.buckets.values().iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().isFull(now)) {
+                        iterator.remove();
+                        removed++;
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.buckets.size();
+            }
+        }
+        return size;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
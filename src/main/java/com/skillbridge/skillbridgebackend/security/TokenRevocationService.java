@@ -0,0 +1,172 @@
+package com.skillbridge.skillbridgebackend.security;
+
+import com.skillbridge.skillbridgebackend.entity.TokenRevocation;
+import com.skillbridge.skillbridgebackend.entity.User;
+import com.skillbridge.skillbridgebackend.repository.TokenRevocationRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Danh sách JWT bị thu hồi, giữ trong bộ nhớ để JwtRequestFilter kiểm tra mà không truy vấn DB.
+ * Nguồn là bảng token_revocations: dựng lại khi khởi động, các instance đọc phần mới định kỳ
+ * (poll theo created_at, có khoảng chồng lấn cho lệch đồng hồ / transaction commit muộn).
+ * Bloom filter trả lời nhanh cho token hợp lệ; chỉ khi bloom báo "có thể" mới tra tập chính xác.
+ */
+@Component
+@Slf4j
+public class TokenRevocationService {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private record State(RevocationBloomFilter bloom, Set<String> tokenIds, Map<Long, Integer> minGenerations) {
+    }
+
+    private final TokenRevocationRepository revocationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration tokenLifetime;
+    private final int expectedEntries;
+    private final Duration pollOverlap;
+
+    private volatile State state;
+    private volatile LocalDateTime lastPoll;
+
+    public TokenRevocationService(TokenRevocationRepository revocationRepository,
+                                  JwtUtil jwtUtil,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.security.revocation.bloom-expected-entries:10000}") int expectedEntries,
+                                  @Value("${app.security.revocation.poll-overlap-seconds:60}") long pollOverlapSeconds) {
+        this.revocationRepository = revocationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tokenLifetime = Duration.ofMillis(jwtUtil.getExpirationTime());
+        this.expectedEntries = expectedEntries;
+        this.pollOverlap = Duration.ofSeconds(pollOverlapSeconds);
+        this.state = newState(expectedEntries);
+        this.lastPoll = LocalDateTime.now();
+    }
+
+    /**
+     * Dựng lại toàn bộ từ các dòng còn hiệu lực (khi khởi động và sau khi dọn dòng hết hạn)
+     */
+    @PostConstruct
+    public void rebuild() {
+        LocalDateTime start = LocalDateTime.now();
+        List<TokenRevocation> rows = revocationRepository.findByExpiresAtAfter(start);
+        State fresh = newState(Math.max(expectedEntries, rows.size() * 2));
+        rows.forEach(row -> apply(fresh, row));
+        state = fresh;
+        lastPoll = start;
+        log.info("Loaded {} token revocations", rows.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.revocation.poll-interval-ms:5000}")
+    public void poll() {
+        LocalDateTime start = LocalDateTime.now();
+        List<TokenRevocation> rows = revocationRepository.findByCreatedAtAfter(lastPoll.minus(pollOverlap));
+        State current = state;
+        rows.forEach(row -> apply(current, row));
+        lastPoll = start;
+    }
+
+    @Scheduled(cron = "${app.security.revocation.cleanup-cron:0 45 4 * * *}")
+    public void cleanup() {
+        int deleted = transactionTemplate.execute(status ->
+                revocationRepository.deleteExpiredBefore(LocalDateTime.now()));
+        if (deleted > 0) {
+            log.info("Deleted {} expired token revocations", deleted);
+        }
+        rebuild();
+    }
+
+    /**
+     * Token đã bị thu hồi (đăng xuất) hoặc thuộc generation cũ của user
+     */
+    public boolean isRevoked(JwtPrincipal principal) {
+        State current = state;
+        if (principal.tokenId() != null
+                && current.bloom().mightContain(tokenKey(principal.tokenId()))
+                && current.tokenIds().contains(principal.tokenId())) {
+            return true;
+        }
+        if (principal.id() != null && current.bloom().mightContain(userKey(principal.id()))) {
+            Integer minGeneration = current.minGenerations().get(principal.id());
+            // Token phát hành trước khi có claim gen được coi là generation 0
+            int generation = principal.generation() != null ? principal.generation() : 0;
+            return minGeneration != null && generation < minGeneration;
+        }
+        return false;
+    }
+
+    /**
+     * Thu hồi một token (đăng xuất). Token cũ không có jti thì bỏ qua.
+     */
+    public void revokeToken(JwtPrincipal principal) {
+        if (principal.tokenId() == null || principal.id() == null) {
+            return;
+        }
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(principal.expiresAt(), ZoneId.systemDefault());
+        applyAfterCommit(revocationRepository.save(
+                TokenRevocation.ofToken(principal.tokenId(), principal.id(), expiresAt)));
+    }
+
+    /**
+     * Thu hồi mọi token đã phát cho user: tăng tokenGeneration (caller lưu user trong cùng transaction),
+     * token mới phát sau đó mang generation mới nên vẫn hợp lệ
+     */
+    public void revokeUser(User user) {
+        int generation = (user.getTokenGeneration() != null ? user.getTokenGeneration() : 0) + 1;
+        user.setTokenGeneration(generation);
+        applyAfterCommit(revocationRepository.save(
+                TokenRevocation.ofUser(user.getId(), generation, LocalDateTime.now().plus(tokenLifetime))));
+    }
+
+    private void applyAfterCommit(TokenRevocation revocation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(state, revocation);
+                }
+            });
+        } else {
+            apply(state, revocation);
+        }
+    }
+
+    private static void apply(State target, TokenRevocation revocation) {
+        if (revocation.getType() == TokenRevocation.Type.TOKEN) {
+            target.tokenIds().add(revocation.getTokenId());
+            target.bloom().add(tokenKey(revocation.getTokenId()));
+        } else {
+            target.minGenerations().merge(revocation.getUserId(), revocation.getGeneration(), Math::max);
+            target.bloom().add(userKey(revocation.getUserId()));
+        }
+    }
+
+    private static State newState(int expectedEntries) {
+        return new State(new RevocationBloomFilter(expectedEntries, FALSE_POSITIVE_RATE),
+                ConcurrentHashMap.newKeySet(), new ConcurrentHashMap<>());
+    }
+
+    private static String tokenKey(String tokenId) {
+        return "t:" + tokenId;
+    }
+
+    private static String userKey(Long userId) {
+        return "u:" + userId;
+    }
+}
@@ -0,0 +1,59 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.repository.AudioAnalysisRepository;
+import com.skillbridge.skillbridgebackend.repository.ListeningLessonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.net.InetAddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Kiểm tra AudioAnalysisService chỉ tải audio từ host được phép và phân giải ra địa chỉ công khai.
+ */
+class AudioAnalysisUrlPolicyTest {
+
+    private final AudioAnalysisService service = new AudioAnalysisService(mock(AudioAnalysisRepository.class),
+            mock(ListeningLessonRepository.class), mock(CatalogCache.class),
+            mock(PlatformTransactionManager.class), 800, 1, 1, 10,
+            new String[]{"8.8.8.8", "127.0.0.1", " 10.1.2.3 "});
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void onlyAllowedPublicHostsAreFetched() throws IOException {
+        AudioAnalysisService.RemoteAudio target = service.checkRemoteUrl("https://8.8.8.8/video/upload/lesson.mp3");
+        assertEquals("8.8.8.8", target.uri().getHost());
+        // Kết nối tới đúng địa chỉ đã kiểm tra
+        assertEquals(InetAddress.getByName("8.8.8.8"), target.address());
+
+        // Host không nằm trong danh sách (kể cả endpoint metadata của cloud)
+        assertThrows(IOException.class, () -> service.checkRemoteUrl("http://169.254.169.254/latest/meta-data/"));
+        assertThrows(IOException.class, () -> service.checkRemoteUrl("https://evil.example.com/a.mp3"));
+        assertThrows(IOException.class, () -> service.checkRemoteUrl("https://user@8.8.8.8/a.mp3"));
+        // Được cấu hình nhưng là địa chỉ nội bộ
+        assertThrows(IOException.class, () -> service.checkRemoteUrl("http://127.0.0.1:8080/actuator"));
+        assertThrows(IOException.class, () -> service.checkRemoteUrl("http://10.1.2.3/a.mp3"));
+    }
+
+    @Test
+    void classifiesInternalAddresses() throws IOException {
+        assertTrue(AudioAnalysisService.isPublicAddress(InetAddress.getByName("104.18.10.20")));
+        assertFalse(AudioAnalysisService.isPublicAddress(InetAddress.getByName("169.254.169.254")));
+        assertFalse(AudioAnalysisService.isPublicAddress(InetAddress.getByName("192.168.1.10")));
+        assertFalse(AudioAnalysisService.isPublicAddress(InetAddress.getByName("100.64.0.1")));
+        assertFalse(AudioAnalysisService.isPublicAddress(InetAddress.getByName("::1")));
+        assertFalse(AudioAnalysisService.isPublicAddress(InetAddress.getByName("fd00::1")));
+        assertFalse(AudioAnalysisService.isPublicAddress(InetAddress.getByName("::ffff:127.0.0.1")));
+    }
+}
@@ -0,0 +1,154 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra đọc header WAV/MP3/OGG: thời lượng, bitrate và peaks waveform từ file tổng hợp.
+ */
+class AudioMetadataParserTest {
+
+    private static final int TARGET_PEAKS = 100;
+
+    @Test
+    void parsesWavDurationAndPeaks() throws Exception {
+        int sampleRate = 8000;
+        int seconds = 3;
+        short[] samples = new short[sampleRate * seconds];
+        for (int i = 0; i < samples.length; i++) {
+            // Giây đầu to, hai giây sau nhỏ
+            double amplitude = i < sampleRate ? 30000 : 3000;
+            samples[i] = (short) (amplitude * Math.sin(i * 2 * Math.PI * 440 / sampleRate));
+        }
+
+        AudioMetadataParser.AudioMetadata metadata = AudioMetadataParser.parse(
+                new ByteArrayInputStream(wav(samples, sampleRate)), TARGET_PEAKS);
+
+        assertEquals("wav", metadata.format());
+        assertEquals(seconds, metadata.durationSeconds(), 1e-9);
+        assertEquals(128, metadata.bitrateKbps());
+        assertEquals(1, metadata.channels());
+
+        byte[] peaks = metadata.peaks();
+        assertTrue(peaks.length >= TARGET_PEAKS && peaks.length < 2 * TARGET_PEAKS);
+        assertEquals(255, peaks[0] & 0xFF);
+        assertTrue((peaks[peaks.length - 1] & 0xFF) < 40);
+    }
+
+    @Test
+    void parsesMp3FramesSkippingId3AndInfoFrame() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // ID3v2 rỗng 20 byte
+        out.write(new byte[]{'I', 'D', '3', 4, 0, 0, 0, 0, 0, 20});
+        out.write(new byte[20]);
+        // Frame Info (LAME) đầu tiên không được tính vào thời lượng
+        byte[] info = mp3Frame(0);
+        System.arraycopy("Info".getBytes(), 0, info, 4 + 32, 4);
+        out.write(info);
+        int frames = 400;
+        for (int i = 0; i < frames; i++) {
+            out.write(mp3Frame(i < frames / 2 ? 200 : 160));
+        }
+        out.write("TAG".getBytes());
+        out.write(new byte[125]);
+
+        AudioMetadataParser.AudioMetadata metadata = AudioMetadataParser.parse(
+                new ByteArrayInputStream(out.toByteArray()), TARGET_PEAKS);
+
+        assertEquals("mp3", metadata.format());
+        assertEquals(frames * 1152 / 44100.0, metadata.durationSeconds(), 1e-9);
+        assertEquals(128, metadata.bitrateKbps());
+        assertEquals(44100, metadata.sampleRate());
+        assertEquals(2, metadata.channels());
+
+        byte[] peaks = metadata.peaks();
+        assertTrue(peaks.length >= TARGET_PEAKS && peaks.length < 2 * TARGET_PEAKS);
+        assertEquals(255, peaks[0] & 0xFF);
+        // Chênh 40 bước global_gain = 2^(-10) biên độ
+        assertTrue((peaks[peaks.length - 1] & 0xFF) <= 1);
+    }
+
+    @Test
+    void parsesOggVorbisDurationWithoutPeaks() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer id = ByteBuffer.allocate(30).order(ByteOrder.LITTLE_ENDIAN);
+        id.put((byte) 1).put("vorbis".getBytes()).putInt(0).put((byte) 2).putInt(48000);
+        out.write(oggPage(0, id.array()));
+        out.write(oggPage(48000 * 5, new byte[4000]));
+        out.write(oggPage(48000 * 10, new byte[4000]));
+
+        AudioMetadataParser.AudioMetadata metadata = AudioMetadataParser.parse(
+                new ByteArrayInputStream(out.toByteArray()), TARGET_PEAKS);
+
+        assertEquals("ogg", metadata.format());
+        assertEquals(10.0, metadata.durationSeconds(), 1e-9);
+        assertEquals(2, metadata.channels());
+        assertNull(metadata.peaks());
+    }
+
+    @Test
+    void rejectsUnsupportedFormat() {
+        assertThrows(IllegalArgumentException.class, () -> AudioMetadataParser.parse(
+                new ByteArrayInputStream("fLaC-not-supported".getBytes()), TARGET_PEAKS));
+    }
+
+    private static byte[] wav(short[] samples, int sampleRate) {
+        ByteBuffer buffer = ByteBuffer.allocate(44 + samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("RIFF".getBytes()).putInt(36 + samples.length * 2).put("WAVE".getBytes());
+        buffer.put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(sampleRate).putInt(sampleRate * 2).putShort((short) 2).putShort((short) 16);
+        buffer.put("data".getBytes()).putInt(samples.length * 2);
+        for (short sample : samples) {
+            buffer.putShort(sample);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Frame MPEG1 Layer III 128kbps 44.1kHz stereo (417 byte), global_gain giống nhau cho mọi granule/kênh
+     */
+    private static byte[] mp3Frame(int globalGain) {
+        byte[] frame = new byte[417];
+        frame[0] = (byte) 0xFF;
+        frame[1] = (byte) 0xFB;
+        frame[2] = (byte) 0x90;
+        frame[3] = 0x00;
+        int pos = 4 * 8 + 9 + 3 + 8;
+        for (int i = 0; i < 4; i++) {
+            writeBits(frame, pos + 21, 8, globalGain);
+            pos += 59;
+        }
+        return frame;
+    }
+
+    private static void writeBits(byte[] data, int bitOffset, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            int bit = bitOffset + i;
+            if ((value >>> (count - 1 - i) & 1) != 0) {
+                data[bit >>> 3] |= (byte) (1 << (7 - (bit & 7)));
+            }
+        }
+    }
+
+    private static byte[] oggPage(long granule, byte[] body) {
+        int segments = body.length / 255 + 1;
+        ByteBuffer page = ByteBuffer.allocate(27 + segments + body.length).order(ByteOrder.LITTLE_ENDIAN);
+        page.put("OggS".getBytes()).put((byte) 0).put((byte) 0).putLong(granule).putInt(1).putInt(0).putInt(0);
+        page.put((byte) segments);
+        for (int i = 0; i < segments - 1; i++) {
+            page.put((byte) 255);
+        }
+        page.put((byte) (body.length % 255));
+        page.put(body);
+        return page.array();
+    }
+}
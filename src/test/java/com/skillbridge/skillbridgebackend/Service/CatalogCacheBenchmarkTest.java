@@ -0,0 +1,110 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.entity.Question;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra invalidation của CatalogCache và so sánh p50/p99 khi bật / tắt cache,
+ * với loader giả lập một truy vấn database ~1 ms. Đo sau khi đã đọc qua mọi bài một lượt (cache ấm),
+ * nếu không thì 200 lần miss đầu tiên (4% số request) chiếm hết p99.
+ */
+class CatalogCacheBenchmarkTest {
+
+    private static final int LESSONS = 200;
+    private static final int REQUESTS = 5_000;
+    private static final long DB_LATENCY_NANOS = 1_000_000L;
+
+    @Test
+    void invalidationForcesReload() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CatalogCache cache = new CatalogCache(registry, true, 100, 300);
+        AtomicInteger loads = new AtomicInteger();
+        CatalogCache.LessonKey key = new CatalogCache.LessonKey(1L, Question.LessonType.READING);
+
+        assertEquals("v1", cache.get(CatalogCache.Region.LESSONS, key, () -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get(CatalogCache.Region.LESSONS, key, () -> "v" + loads.incrementAndGet()));
+        cache.get(CatalogCache.Region.PUBLISHED_LESSONS, "READING", () -> List.of("v1"));
+        assertEquals(1, loads.get());
+
+        // Ngoài transaction: xóa ngay lập tức
+        cache.invalidateLesson(1L, Question.LessonType.READING);
+        assertEquals(0, cache.size(CatalogCache.Region.PUBLISHED_LESSONS));
+        assertEquals("v2", cache.get(CatalogCache.Region.LESSONS, key, () -> "v" + loads.incrementAndGet()));
+
+        cache.get(CatalogCache.Region.LESSON_QUESTIONS, 1L, () -> List.of("q1"));
+        cache.invalidateQuestions(1L, Question.LessonType.READING);
+        assertEquals(0, cache.size(CatalogCache.Region.LESSON_QUESTIONS));
+        assertEquals(0, cache.size(CatalogCache.Region.LESSONS));
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "catalog.lessons").tag("result", "hit")
+                .counter().count(), 1e-9);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxEntries() {
+        CatalogCache cache = new CatalogCache(new SimpleMeterRegistry(), true, 3, 300);
+        for (long id = 1; id <= 5; id++) {
+            long lessonId = id;
+            cache.get(CatalogCache.Region.LESSON_QUESTIONS, lessonId, () -> List.of(lessonId));
+        }
+        assertEquals(3, cache.size(CatalogCache.Region.LESSON_QUESTIONS));
+    }
+
+    @Test
+    void latencyWithAndWithoutCache() {
+        double[] disabled = run(false);
+        double[] enabled = run(true);
+        System.out.printf("Catalog reads without cache: p50 %.3f ms, p99 %.3f ms, hit ratio %.2f%n",
+                disabled[0], disabled[1], disabled[2]);
+        System.out.printf("Catalog reads with cache:    p50 %.3f ms, p99 %.3f ms, hit ratio %.2f%n",
+                enabled[0], enabled[1], enabled[2]);
+
+        assertEquals(0.0, disabled[2], 1e-9);
+        assertTrue(enabled[2] > 0.9, "hit ratio " + enabled[2]);
+        assertTrue(enabled[0] < disabled[0], "p50 " + enabled[0] + " ms vs " + disabled[0] + " ms");
+        assertTrue(enabled[1] < disabled[1], "p99 " + enabled[1] + " ms vs " + disabled[1] + " ms");
+    }
+
+    private static double[] run(boolean enabled) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CatalogCache cache = new CatalogCache(registry, enabled, 2000, 300);
+        Random random = new Random(42);
+
+        for (long lessonId = 1; lessonId <= LESSONS; lessonId++) {
+            read(cache, lessonId);
+        }
+        long[] latencies = new long[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            long lessonId = 1 + random.nextInt(LESSONS);
+            long start = System.nanoTime();
+            read(cache, lessonId);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+
+        double hitRatio = registry.get("cache.hit.ratio").tag("cache", "catalog.lessons").gauge().value();
+        return new double[]{
+                latencies[REQUESTS / 2] / 1e6,
+                latencies[(int) (REQUESTS * 0.99)] / 1e6,
+                hitRatio
+        };
+    }
+
+    private static void read(CatalogCache cache, long lessonId) {
+        cache.get(CatalogCache.Region.LESSONS, new CatalogCache.LessonKey(lessonId, Question.LessonType.LISTENING),
+                () -> {
+                    LockSupport.parkNanos(DB_LATENCY_NANOS);
+                    return "lesson-" + lessonId;
+                });
+    }
+}
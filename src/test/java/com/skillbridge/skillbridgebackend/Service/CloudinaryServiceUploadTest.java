@@ -0,0 +1,112 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra pipeline upload dạng stream với LocalMediaStorage thay cho Cloudinary:
+ * nội dung/hash đúng và upload executor từ chối khi hàng đợi đầy.
+ */
+class CloudinaryServiceUploadTest {
+
+    @TempDir
+    Path storageDir;
+
+    @Test
+    void streamsAudioToStorageAndReportsChecksum() throws Exception {
+        byte[] audio = new byte[3 * 1024 * 1024];
+        for (int i = 0; i < audio.length; i++) {
+            audio[i] = (byte) (i * 31);
+        }
+        CloudinaryService service = new CloudinaryService(new LocalMediaStorage(storageDir.toString()), 2, 2);
+        try {
+            CloudinaryService.CloudinaryUploadResult result = service.uploadAudio(
+                    new MockMultipartFile("file", "Lesson 1.mp3", "audio/mpeg", audio));
+
+            assertEquals(audio.length, result.getBytes());
+            assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(audio)),
+                    result.getSha256());
+            assertTrue(result.getPublicId().startsWith("skillbridge/audio/Lesson_1_"));
+
+            Path stored = storageDir.resolve(result.getPublicId() + ".mp3");
+            assertArrayEquals(audio, Files.readAllBytes(stored));
+            assertEquals("/api/uploads/" + result.getPublicId() + ".mp3", service.getAudioUrl(result.getPublicId()));
+
+            assertTrue(service.deleteAudio(result.getPublicId()));
+            assertTrue(Files.notExists(stored));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsUploadsWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MediaStorage blockingStorage = new LocalMediaStorage(storageDir.toString()) {
+            @Override
+            public StoredMedia upload(UploadRequest request, MediaSource source) throws IOException {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.upload(request, source);
+            }
+        };
+        CloudinaryService service = new CloudinaryService(blockingStorage, 1, 1);
+        try {
+            MockMultipartFile image = new MockMultipartFile("file", "cover.png", "image/png", new byte[1024]);
+            CompletableFuture<CloudinaryService.CloudinaryUploadResult> running =
+                    CompletableFuture.supplyAsync(() -> service.uploadImage(image));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<CloudinaryService.CloudinaryUploadResult> queued =
+                    CompletableFuture.supplyAsync(() -> service.uploadImage(image));
+
+            // Chờ upload thứ hai vào hàng đợi rồi mới gửi upload thứ ba
+            ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "uploadExecutor");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (executor.getQueue().isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThrows(RejectedExecutionException.class, () -> service.uploadImage(image));
+
+            release.countDown();
+            assertEquals(1024L, running.get(10, TimeUnit.SECONDS).getBytes());
+            assertEquals(1024L, queued.get(10, TimeUnit.SECONDS).getBytes());
+        } finally {
+            release.countDown();
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsInvalidFormatBeforeReadingContent() {
+        CloudinaryService service = new CloudinaryService(new LocalMediaStorage(storageDir.toString()), 1, 1);
+        try {
+            assertThrows(IllegalArgumentException.class, () -> service.uploadAudio(
+                    new MockMultipartFile("file", "notes.txt", "text/plain", new byte[16])));
+        } finally {
+            service.shutdown();
+        }
+    }
+}
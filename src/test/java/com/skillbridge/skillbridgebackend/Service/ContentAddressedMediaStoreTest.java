@@ -0,0 +1,98 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra kho file theo nội dung: upload trùng dùng lại blob cũ, blob chia thư mục theo hash
+ * và GC chỉ thấy / chỉ xóa blob cũ hơn mốc thời gian.
+ */
+class ContentAddressedMediaStoreTest {
+
+    @TempDir
+    Path root;
+
+    private final ContentAddressedMediaStore store = new ContentAddressedMediaStore();
+
+    @Test
+    void duplicateUploadReusesExistingBlob() throws Exception {
+        byte[] audio = new byte[2 * 1024 * 1024];
+        for (int i = 0; i < audio.length; i++) {
+            audio[i] = (byte) (i * 17);
+        }
+        String baseDir = root.resolve("audio").toString();
+
+        ContentAddressedMediaStore.StoredBlob first = store.store(
+                new MockMultipartFile("file", "lesson1.mp3", "audio/mpeg", audio), baseDir, "mp3");
+        ContentAddressedMediaStore.StoredBlob second = store.store(
+                new MockMultipartFile("file", "lesson2.MP3", "audio/mpeg", audio), baseDir, "MP3");
+
+        assertFalse(first.duplicate());
+        assertTrue(second.duplicate());
+        assertEquals(first.path(), second.path());
+        assertTrue(first.path().endsWith("/" + first.hash().substring(0, 2) + "/" + first.hash() + ".mp3"));
+        assertTrue(store.isBlobPath("/api/" + first.path()));
+        assertArrayEquals(audio, Files.readAllBytes(Path.of(first.path())));
+
+        try (Stream<Path> files = Files.walk(Path.of(baseDir))) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+
+        ContentAddressedMediaStore.StoredBlob other = store.store(
+                new MockMultipartFile("file", "lesson3.mp3", "audio/mpeg", new byte[]{1, 2, 3}), baseDir, "mp3");
+        assertNotEquals(first.path(), other.path());
+    }
+
+    @Test
+    void listsOnlyBlobsOlderThanCutoff() throws Exception {
+        String baseDir = root.resolve("images").toString();
+        ContentAddressedMediaStore.StoredBlob old = store.store(
+                new MockMultipartFile("file", "a.png", "image/png", new byte[]{1}), baseDir, "png");
+        store.store(new MockMultipartFile("file", "b.png", "image/png", new byte[]{2}), baseDir, "png");
+        Files.setLastModifiedTime(Path.of(old.path()), FileTime.from(Instant.now().minus(2, ChronoUnit.DAYS)));
+
+        List<Path> blobs = store.listBlobsOlderThan(baseDir, Instant.now().minus(1, ChronoUnit.DAYS));
+
+        assertEquals(1, blobs.size());
+        assertEquals(Path.of(old.path()).getFileName(), blobs.get(0).getFileName());
+    }
+
+    @Test
+    void deleteKeepsBlobRefreshedByDuplicateUpload() throws Exception {
+        String baseDir = root.resolve("audio").toString();
+        MockMultipartFile file = new MockMultipartFile("file", "a.mp3", "audio/mpeg", new byte[]{7, 7, 7});
+        Path blob = Path.of(store.store(file, baseDir, "mp3").path());
+        Instant cutoff = Instant.now().minus(1, ChronoUnit.DAYS);
+        Files.setLastModifiedTime(blob, FileTime.from(Instant.now().minus(2, ChronoUnit.DAYS)));
+        List<Path> candidates = store.listBlobsOlderThan(baseDir, cutoff);
+
+        // Upload trùng nội dung sau khi GC đã liệt kê blob
+        assertTrue(store.store(file, baseDir, "mp3").duplicate());
+        assertFalse(store.deleteIfOlderThan(candidates.get(0), cutoff));
+        assertTrue(Files.exists(blob));
+
+        Files.setLastModifiedTime(blob, FileTime.from(Instant.now().minus(2, ChronoUnit.DAYS)));
+        assertTrue(store.deleteIfOlderThan(blob, cutoff));
+        assertFalse(Files.exists(blob));
+        assertFalse(store.deleteIfOlderThan(blob, cutoff));
+
+        // Blob đã bị dọn thì upload ghi lại bản mới
+        assertFalse(store.store(file, baseDir, "mp3").duplicate());
+        assertTrue(Files.exists(blob));
+    }
+}
@@ -0,0 +1,158 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.entity.EmailOutbox;
+import com.skillbridge.skillbridgebackend.entity.PasswordResetToken;
+import com.skillbridge.skillbridgebackend.repository.EmailOutboxRepository;
+import com.skillbridge.skillbridgebackend.repository.PasswordResetTokenRepository;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Kiểm tra EmailOutboxDispatcher: cả batch đi qua một lần send (một kết nối SMTP),
+ * email lỗi được hẹn gửi lại với backoff và bỏ hẳn sau số lần thử tối đa;
+ * email reset password chỉ lưu id token, token được điền lúc gửi.
+ */
+class EmailOutboxDispatcherTest {
+
+    private JavaMailSender mailSender;
+    private EmailOutboxRepository outboxRepository;
+    private PasswordResetTokenRepository passwordResetTokenRepository;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = mock(JavaMailSender.class);
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage(Session.getInstance(new Properties())));
+        outboxRepository = mock(EmailOutboxRepository.class);
+        passwordResetTokenRepository = mock(PasswordResetTokenRepository.class);
+        dispatcher = new EmailOutboxDispatcher(outboxRepository, passwordResetTokenRepository, mailSender,
+                mock(PlatformTransactionManager.class),
+                "noreply@skillbridge.test", 20, 60, 3, 30, 3600, 300, 7);
+    }
+
+    @Test
+    void sendsBatchInOneCallAndRetriesFailedMessages() {
+        EmailOutbox first = email(1L, "a@example.com");
+        EmailOutbox second = email(2L, "b@example.com");
+        EmailOutbox third = email(3L, "c@example.com");
+
+        ArgumentCaptor<MimeMessage[]> sent = ArgumentCaptor.forClass(MimeMessage[].class);
+        // Email thứ hai bị server từ chối
+        doAnswer(invocation -> {
+            MimeMessage[] messages = (MimeMessage[]) invocation.getRawArguments()[0];
+            for (MimeMessage message : messages) {
+                if ("b@example.com".equals(message.getAllRecipients()[0].toString())) {
+                    throw new MailSendException(Map.<Object, Exception>of(message,
+                            new RuntimeException("550 mailbox unavailable")));
+                }
+            }
+            return null;
+        }).when(mailSender).send(sent.capture());
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.deliver(List.of(first, second, third));
+
+        verify(mailSender, times(1)).send(any(MimeMessage[].class));
+        assertEquals(3, sent.getValue().length);
+
+        assertEquals(EmailOutbox.Status.SENT, first.getStatus());
+        assertNotNull(first.getSentAt());
+        assertEquals(EmailOutbox.Status.SENT, third.getStatus());
+
+        assertEquals(EmailOutbox.Status.PENDING, second.getStatus());
+        assertEquals(1, second.getAttempts());
+        assertTrue(second.getNextAttemptAt().isAfter(before.plusSeconds(29)));
+        assertTrue(second.getLastError().contains("550"));
+        verify(outboxRepository).saveAll(any());
+    }
+
+    @Test
+    void connectionFailureRetriesWholeBatchUntilMaxAttempts() {
+        EmailOutbox email = email(1L, "a@example.com");
+        doThrow(new MailSendException("Connection refused")).when(mailSender).send(any(MimeMessage[].class));
+
+        dispatcher.deliver(List.of(email));
+        dispatcher.deliver(List.of(email));
+        assertEquals(EmailOutbox.Status.PENDING, email.getStatus());
+        dispatcher.deliver(List.of(email));
+
+        assertEquals(3, email.getAttempts());
+        assertEquals(EmailOutbox.Status.FAILED, email.getStatus());
+    }
+
+    @Test
+    void backoffDoublesUpToMaximum() {
+        assertEquals(Duration.ofSeconds(30), dispatcher.backoff(1));
+        assertEquals(Duration.ofSeconds(120), dispatcher.backoff(3));
+        assertEquals(Duration.ofSeconds(3600), dispatcher.backoff(12));
+    }
+
+    @Test
+    void resetTokenIsFilledInAtSendTimeOnly() throws Exception {
+        EmailOutbox email = resetEmail(1L, 10L);
+        PasswordResetToken token = new PasswordResetToken("secret-token", null, LocalDateTime.now().plusMinutes(15));
+        when(passwordResetTokenRepository.findById(10L)).thenReturn(Optional.of(token));
+        ArgumentCaptor<MimeMessage[]> sent = ArgumentCaptor.forClass(MimeMessage[].class);
+
+        dispatcher.deliver(List.of(email));
+
+        verify(mailSender).send(sent.capture());
+        assertTrue(((String) sent.getValue()[0].getContent()).contains("token=secret-token"));
+        assertEquals(EmailOutbox.Status.SENT, email.getStatus());
+        // Dòng outbox không chứa token
+        assertFalse(email.getBody().contains("secret-token"));
+    }
+
+    @Test
+    void usedOrExpiredResetTokenIsNotSent() {
+        EmailOutbox email = resetEmail(1L, 10L);
+        PasswordResetToken token = new PasswordResetToken("secret-token", null, LocalDateTime.now().minusMinutes(1));
+        when(passwordResetTokenRepository.findById(10L)).thenReturn(Optional.of(token));
+
+        dispatcher.deliver(List.of(email));
+
+        verify(mailSender, never()).send(any(MimeMessage[].class));
+        assertEquals(EmailOutbox.Status.FAILED, email.getStatus());
+    }
+
+    private static EmailOutbox resetEmail(Long id, Long tokenId) {
+        EmailOutbox email = new EmailOutbox("a@example.com", "Reset",
+                "<a href=\"https://app.test/auth/reset-password?token=" + EmailOutbox.RESET_TOKEN_PLACEHOLDER
+                        + "\">Reset</a>", true);
+        email.setId(id);
+        email.setPasswordResetTokenId(tokenId);
+        return email;
+    }
+
+    private static EmailOutbox email(Long id, String to) {
+        EmailOutbox email = new EmailOutbox(to, "Subject", "<p>Body</p>", true);
+        email.setId(id);
+        return email;
+    }
+}
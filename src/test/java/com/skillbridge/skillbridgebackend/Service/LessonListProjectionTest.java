@@ -0,0 +1,203 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.dto.ListeningLessonDto;
+import com.skillbridge.skillbridgebackend.dto.ReadingLessonDto;
+import com.skillbridge.skillbridgebackend.entity.Category;
+import com.skillbridge.skillbridgebackend.entity.LessonVocabulary;
+import com.skillbridge.skillbridgebackend.entity.ListeningLesson;
+import com.skillbridge.skillbridgebackend.entity.Question;
+import com.skillbridge.skillbridgebackend.entity.ReadingLesson;
+import com.skillbridge.skillbridgebackend.entity.User;
+import com.skillbridge.skillbridgebackend.entity.Vocabulary;
+import com.skillbridge.skillbridgebackend.repository.CategoryRepository;
+import com.skillbridge.skillbridgebackend.repository.ListeningLessonRepository;
+import com.skillbridge.skillbridgebackend.repository.QuestionRepository;
+import com.skillbridge.skillbridgebackend.repository.ReadingLessonRepository;
+import com.skillbridge.skillbridgebackend.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Kiểm tra danh sách bài học đi qua một truy vấn projection duy nhất (số câu hỏi / từ vựng đếm sẵn):
+ * đếm câu lệnh SQL thật bằng Hibernate Statistics trên H2, số câu lệnh không đổi dù có 1 hay 1000 bài.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class LessonListProjectionTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ListeningLessonRepository listeningLessonRepository;
+
+    @Autowired
+    private ReadingLessonRepository readingLessonRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 1000})
+    void listeningListsUseOneQueryWhateverTheSize(int lessons) {
+        User teacher = persist(user("teacher@example.com", User.Role.TEACHER));
+        User student = persist(user("student@example.com", User.Role.STUDENT));
+        Category category = persist(category("Nghe hiểu"));
+        Vocabulary vocabulary = new Vocabulary();
+        vocabulary.setWord("sustainable");
+        vocabulary.setMeaning("bền vững");
+        persist(vocabulary);
+
+        for (int i = 1; i <= lessons; i++) {
+            ListeningLesson lesson = new ListeningLesson();
+            lesson.setTitle("Bài nghe " + i);
+            lesson.setLevel(ListeningLesson.Level.B1);
+            lesson.setStatus(ListeningLesson.Status.PUBLISHED);
+            lesson.setAudioUrl("https://cdn.example.com/" + i + ".mp3");
+            lesson.setCategory(category);
+            lesson.setCreatedBy(teacher);
+            persist(lesson);
+            for (int q = 0; q < i % 3; q++) {
+                persist(question(Question.LessonType.LISTENING, lesson, null));
+            }
+            for (int v = 0; v < i % 2; v++) {
+                LessonVocabulary lessonVocabulary = new LessonVocabulary();
+                lessonVocabulary.setLesson(lesson);
+                lessonVocabulary.setVocabulary(vocabulary);
+                lessonVocabulary.setStartPosition(0);
+                lessonVocabulary.setEndPosition(11);
+                persist(lessonVocabulary);
+            }
+        }
+        ListeningLessonService service = new ListeningLessonService(listeningLessonRepository, categoryRepository,
+                userRepository, mock(VocabularyService.class), questionRepository, mock(LessonSearchService.class),
+                mock(AnswerKeyCache.class), mock(AudioAnalysisService.class),
+                new CatalogCache(new SimpleMeterRegistry(), true, 100, 60));
+        Statistics statistics = resetStatistics();
+
+        List<ListeningLessonDto> published = service.getPublishedLessonDtos();
+        assertEquals(1, statistics.getPrepareStatementCount());
+        // Lần đọc thứ hai lấy từ cache catalog, không thêm câu lệnh
+        service.getPublishedLessonDtos();
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        List<ListeningLessonDto> filtered = service.getLessonDtosByLevelAndCategory(ListeningLesson.Level.B1,
+                category.getId());
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        // Tìm user + danh sách
+        List<ListeningLessonDto> own = service.getAllLessonDtosForAdmin(student.getId());
+        assertEquals(4, statistics.getPrepareStatementCount());
+
+        assertEquals(lessons, published.size());
+        assertEquals(lessons, filtered.size());
+        assertEquals(0, own.size());
+        for (ListeningLessonDto dto : published) {
+            int index = Integer.parseInt(dto.getTitle().substring("Bài nghe ".length()));
+            assertEquals(Integer.valueOf(index % 3), dto.getQuestionCount());
+            assertEquals(Integer.valueOf(index % 2), dto.getVocabularyCount());
+            assertEquals("B1", dto.getLevel());
+            assertEquals("Nghe hiểu", dto.getCategoryName());
+            assertNull(dto.getTranscript());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 1000})
+    void readingAdminListUsesOneQueryWhateverTheSize(int lessons) {
+        User teacher = persist(user("teacher@example.com", User.Role.TEACHER));
+        Category category = persist(category("Đọc hiểu"));
+        for (int i = 1; i <= lessons; i++) {
+            ReadingLesson lesson = new ReadingLesson();
+            lesson.setTitle("Bài đọc " + i);
+            lesson.setLevel(ListeningLesson.Level.A2);
+            lesson.setContent("Nội dung bài đọc " + i);
+            lesson.setWordCount(850);
+            lesson.setCategory(category);
+            lesson.setCreatedBy(teacher);
+            persist(lesson);
+            for (int q = 0; q < i % 3; q++) {
+                persist(question(Question.LessonType.READING, null, lesson));
+            }
+        }
+        ReadingLessonService service = new ReadingLessonService(readingLessonRepository, categoryRepository,
+                userRepository, questionRepository, mock(LessonSearchService.class), mock(AnswerKeyCache.class),
+                new CatalogCache(new SimpleMeterRegistry(), true, 100, 60));
+        Statistics statistics = resetStatistics();
+
+        List<ReadingLessonDto> dtos = service.getAllReadingLessonDtosForAdmin(teacher.getId());
+
+        // Tìm user + danh sách
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(lessons, dtos.size());
+        for (ReadingLessonDto dto : dtos) {
+            int index = Integer.parseInt(dto.getTitle().substring("Bài đọc ".length()));
+            assertEquals(Integer.valueOf(index % 3), dto.getQuestionCount());
+            assertNull(dto.getContent());
+        }
+    }
+
+    /**
+     * Ghi hết dữ liệu mẫu, bỏ persistence context để truy vấn đi xuống database, rồi đếm lại từ 0
+     */
+    private Statistics resetStatistics() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private <T> T persist(T entity) {
+        return entityManager.persist(entity);
+    }
+
+    private static Question question(Question.LessonType lessonType, ListeningLesson listeningLesson,
+                                     ReadingLesson readingLesson) {
+        Question question = new Question();
+        question.setLessonType(lessonType);
+        question.setListeningLesson(listeningLesson);
+        question.setReadingLesson(readingLesson);
+        question.setQuestionText("Câu hỏi");
+        question.setQuestionType(Question.QuestionType.TRUE_FALSE);
+        question.setCorrectAnswer("TRUE");
+        return question;
+    }
+
+    private static Category category(String name) {
+        Category category = new Category();
+        category.setName(name);
+        return category;
+    }
+
+    private static User user(String email, User.Role role) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("secret123");
+        user.setFullName("Người dùng");
+        user.setRole(role);
+        return user;
+    }
+}
@@ -0,0 +1,124 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.entity.ListeningLesson;
+import com.skillbridge.skillbridgebackend.entity.Question;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra tìm kiếm cơ bản và đo p99 latency của LessonSearchIndex trên 100k bài học tổng hợp
+ * (mục tiêu p99 dưới 10 ms). Phần đo latency chỉ chạy khi bật rõ ràng:
+ *   mvn test -Dtest=LessonSearchIndexBenchmarkTest -Dloadtest=true
+ */
+class LessonSearchIndexBenchmarkTest {
+
+    private static final int LESSONS = 100_000;
+    private static final int QUERIES = 2_000;
+    private static final double P99_TARGET_MS = 10.0;
+
+    private static final String[] WORDS = {
+        "travel", "airport", "hotel", "business", "meeting", "family", "weather", "shopping", "restaurant",
+        "health", "doctor", "school", "university", "technology", "computer", "music", "movie", "sport",
+        "football", "history", "culture", "festival", "kitchen", "recipe", "interview", "career", "office",
+        "environment", "climate", "ocean", "mountain", "city", "village", "market", "bank", "money",
+        "du lịch", "sân bay", "khách sạn", "gia đình", "thời tiết", "trường học", "công nghệ", "âm nhạc"
+    };
+
+    @Test
+    void matchesAccentInsensitivelyAndHighlights() {
+        LessonSearchIndex index = new LessonSearchIndex();
+        index.upsert(document(1L, Question.LessonType.READING, "Du lịch Đà Nẵng",
+                "Bài đọc về thành phố biển", "Đà Nẵng là điểm đến du lịch nổi tiếng của miền Trung."));
+        index.upsert(document(2L, Question.LessonType.LISTENING, "At the airport",
+                "Check-in conversation", "Where is the gate for the flight to Da Nang?"));
+
+        LessonSearchIndex.SearchResult result = index.search("da nang", doc -> true, 0, 10);
+        assertEquals(2, result.totalMatches());
+        assertEquals(1L, result.hits().get(0).document().id());
+        assertTrue(result.hits().get(0).highlightedTitle().contains("<mark>Đà</mark> <mark>Nẵng</mark>"));
+
+        // Từ cuối khớp theo tiền tố
+        assertEquals(1, index.search("airp", doc -> true, 0, 10).totalMatches());
+
+        index.remove(2L, Question.LessonType.LISTENING);
+        assertEquals(1, index.search("da nang", doc -> true, 0, 10).totalMatches());
+    }
+
+    @Test
+    void rejectsPagesBeyondResultWindow() {
+        LessonSearchIndex index = new LessonSearchIndex();
+        index.upsert(document(1L, Question.LessonType.READING, "Travel", "Airport", "Hotel"));
+
+        assertEquals(1, index.search("travel", doc -> true, LessonSearchIndex.MAX_RESULT_WINDOW - 20, 20)
+                .totalMatches());
+        assertThrows(IllegalArgumentException.class, () -> index.search("travel", doc -> true,
+                LessonSearchIndex.MAX_RESULT_WINDOW, 20));
+        // offset * size tràn int không còn làm PriorityQueue nhận capacity âm
+        assertThrows(IllegalArgumentException.class, () -> index.search("travel", doc -> true,
+                Integer.MAX_VALUE - 5, 20));
+        assertThrows(IllegalArgumentException.class, () -> index.search("travel", doc -> true, -20, 20));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "loadtest", matches = "true")
+    void p99LatencyOn100kLessons() {
+        Random random = new Random(42);
+        LessonSearchIndex index = new LessonSearchIndex();
+        for (long id = 1; id <= LESSONS; id++) {
+            Question.LessonType type = id % 2 == 0 ? Question.LessonType.LISTENING : Question.LessonType.READING;
+            index.upsert(document(id, type, sentence(random, 5), sentence(random, 15), sentence(random, 80)));
+        }
+
+        // Khởi động JIT
+        for (int i = 0; i < 500; i++) {
+            index.search(query(random), doc -> doc.status() == ListeningLesson.Status.PUBLISHED, 0, 20);
+        }
+
+        long[] latencies = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String query = query(random);
+            long start = System.nanoTime();
+            index.search(query, doc -> doc.status() == ListeningLesson.Status.PUBLISHED, 0, 20);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+
+        double p50 = latencies[QUERIES / 2] / 1e6;
+        double p99 = latencies[(int) (QUERIES * 0.99)] / 1e6;
+        System.out.printf("Lesson search on %d lessons: p50 %.2f ms, p99 %.2f ms%n", LESSONS, p50, p99);
+
+        assertFalse(index.search("travel airport", doc -> true, 0, 20).hits().isEmpty());
+        assertTrue(p99 < P99_TARGET_MS, "p99 " + p99 + " ms");
+    }
+
+    private static LessonSearchIndex.Document document(Long id, Question.LessonType type,
+                                                       String title, String description, String body) {
+        return new LessonSearchIndex.Document(id, type, title, description, body,
+                ListeningLesson.Status.PUBLISHED, ListeningLesson.Level.B1, 1L);
+    }
+
+    private static String query(Random random) {
+        return random.nextBoolean()
+                ? WORDS[random.nextInt(WORDS.length)]
+                : WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)].substring(0, 3);
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.entity.Question;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Kiểm tra cộng dồn dashboard: nộp lại một bài (kể cả sang ngày khác) phải cho kết quả
+ * giống hệt việc tính lại từ trạng thái progress cuối cùng.
+ */
+class StudentDashboardProjectionTest {
+
+    private static final LocalDateTime DAY1 = LocalDateTime.of(2024, 3, 1, 9, 0);
+    private static final LocalDateTime DAY2 = LocalDateTime.of(2024, 3, 2, 20, 30);
+
+    @Test
+    void resubmissionMatchesRebuildFromFinalState() {
+        StudentDashboardProjection incremental = new StudentDashboardProjection();
+        incremental.applySubmission(null, 1L, Question.LessonType.LISTENING, "Bài nghe 1",
+                BigDecimal.valueOf(20.0 / 3), 300, DAY1);
+        incremental.applySubmission(null, 2L, Question.LessonType.READING, "Bài đọc 2",
+                BigDecimal.valueOf(8), 200, DAY1);
+        // Nộp lại bài nghe 1 vào ngày hôm sau: phần đóng góp của ngày 1 phải bị trừ
+        incremental.applySubmission(new StudentDashboardProjection.ProgressState(true, DAY1, new BigDecimal("6.67"), 300),
+                1L, Question.LessonType.LISTENING, "Bài nghe 1", BigDecimal.valueOf(9.5), 120, DAY2);
+
+        StudentDashboardProjection rebuilt = new StudentDashboardProjection();
+        rebuilt.addProgress(Question.LessonType.READING,
+                new StudentDashboardProjection.ProgressState(true, DAY1, new BigDecimal("8.00"), 200));
+        rebuilt.addProgress(Question.LessonType.LISTENING,
+                new StudentDashboardProjection.ProgressState(true, DAY2, new BigDecimal("9.50"), 120));
+
+        assertEquals(rebuilt.completedLessons, incremental.completedLessons);
+        assertEquals(2, incremental.completedLessons);
+        assertEquals(rebuilt.totalTimeSeconds, incremental.totalTimeSeconds);
+        assertEquals(0, rebuilt.scoreSum.compareTo(incremental.scoreSum));
+        assertEquals(8.75, incremental.averageScore(), 1e-9);
+        assertEquals(rebuilt.weeklyProgress(), incremental.weeklyProgress());
+        assertEquals(rebuilt.levelProgress(), incremental.levelProgress());
+
+        List<Map<String, Object>> days = incremental.weeklyProgress();
+        assertEquals(2, days.size());
+        assertEquals("2024-03-01", days.get(0).get("date"));
+        assertEquals(200, days.get(0).get("timeSpent"));
+        assertEquals(9.5, (Double) days.get(1).get("score"), 1e-9);
+
+        // Bài vừa nộp lại lên đầu danh sách, không bị lặp
+        assertEquals(2, incremental.recentActivities.size());
+        assertEquals(Long.valueOf(1), incremental.recentActivities.get(0).lessonId());
+        assertEquals("listening", incremental.recentActivities.get(0).lessonType());
+        assertEquals(Long.valueOf(2), incremental.recentActivities.get(1).lessonId());
+    }
+
+    @Test
+    void trimKeepsRecentWindow() {
+        StudentDashboardProjection projection = new StudentDashboardProjection();
+        for (long lessonId = 1; lessonId <= 5; lessonId++) {
+            projection.applySubmission(null, lessonId, Question.LessonType.READING, "Bài " + lessonId,
+                    BigDecimal.TEN, 60, DAY1.plusDays(lessonId));
+        }
+
+        projection.trim(3, LocalDate.of(2024, 3, 4));
+
+        assertEquals(List.of(5L, 4L, 3L), projection.recentActivities.stream()
+                .map(StudentDashboardProjection.RecentActivity::lessonId).toList());
+        assertEquals(LocalDate.of(2024, 3, 4), projection.dailyBuckets.firstKey());
+        // Tổng không bị ảnh hưởng bởi việc cắt biểu đồ
+        assertEquals(5, projection.completedLessons);
+
+        // Nộp lại bài có ngày đã bị cắt: không tạo bucket âm
+        projection.applySubmission(new StudentDashboardProjection.ProgressState(true, DAY1.plusDays(1), new BigDecimal("10.00"), 60),
+                1L, Question.LessonType.READING, "Bài 1", BigDecimal.ONE, 30, DAY1.plusDays(6));
+        assertFalse(projection.dailyBuckets.containsKey(DAY1.plusDays(1).toLocalDate()));
+        assertEquals(5, projection.completedLessons);
+        assertEquals(4 * 60 + 30, projection.totalTimeSeconds);
+    }
+}
@@ -0,0 +1,79 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.skillbridge.skillbridgebackend.dto.analytics.StudentProgressReportDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.thymeleaf.TemplateEngine;
+
+import java.io.ByteArrayOutputStream;
+
+import static com.skillbridge.skillbridgebackend.Service.StudentPdfReportServiceTest.assertPdf;
+import static com.skillbridge.skillbridgebackend.Service.StudentPdfReportServiceTest.sampleReport;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Đo thời gian render một báo cáo PDF khi cache nguội (parse template + nạp font mỗi lần)
+ * so với khi cache đã ấm (template đã parse, ConverterProperties dùng lại).
+ * Phụ thuộc thời gian thực nên chỉ chạy khi bật rõ ràng; việc dùng lại cache được kiểm tra
+ * không phụ thuộc thời gian ở StudentPdfReportServiceTest:
+ *   mvn test -Dtest=StudentPdfReportRenderBenchmarkTest -Dloadtest=true
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class StudentPdfReportRenderBenchmarkTest {
+
+    private static final int ITERATIONS = 10;
+
+    private TemplateEngine templateEngine;
+    private StudentPdfReportService service;
+
+    @BeforeEach
+    void setUp() {
+        templateEngine = StudentPdfReportServiceTest.templateEngine();
+        service = new StudentPdfReportService(templateEngine, null, "", 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void warmRenderIsCheaperThanCold() {
+        StudentProgressReportDto report = sampleReport();
+        // Chạy trước vài lần để JIT không làm lệch vòng đo đầu tiên (vòng cache nguội)
+        for (int i = 0; i < 3; i++) {
+            render(report, service.createConverterProperties());
+        }
+
+        long coldNanos = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            templateEngine.clearTemplateCache();
+            long start = System.nanoTime();
+            ConverterProperties properties = service.createConverterProperties();
+            assertPdf(render(report, properties));
+            coldNanos += System.nanoTime() - start;
+        }
+
+        ConverterProperties warmProperties = service.createConverterProperties();
+        render(report, warmProperties);
+        long warmNanos = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            assertPdf(render(report, warmProperties));
+            warmNanos += System.nanoTime() - start;
+        }
+
+        System.out.printf("PDF report render: cold %.1f ms/report, warm %.1f ms/report%n",
+                coldNanos / 1e6 / ITERATIONS, warmNanos / 1e6 / ITERATIONS);
+        assertTrue(warmNanos < coldNanos, "warm " + warmNanos / 1e6 + " ms vs cold " + coldNanos / 1e6 + " ms");
+    }
+
+    private byte[] render(StudentProgressReportDto report, ConverterProperties properties) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.renderReport(report, out, properties);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,114 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.skillbridge.skillbridgebackend.dto.analytics.LessonProgressDetailDto;
+import com.skillbridge.skillbridgebackend.dto.analytics.StudentProgressReportDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra cache khi render báo cáo PDF: template chỉ parse một lần, ConverterProperties và FontProvider
+ * được dùng lại giữa các lần render trên cùng thread và không dùng chung giữa các thread.
+ */
+class StudentPdfReportServiceTest {
+
+    private TemplateEngine templateEngine;
+    private StudentPdfReportService service;
+
+    @BeforeEach
+    void setUp() {
+        templateEngine = templateEngine();
+        service = new StudentPdfReportService(templateEngine, null, "", 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void reusesConverterPropertiesAndFontProviderAcrossRenders() {
+        StudentProgressReportDto report = sampleReport();
+
+        assertPdf(render(report));
+        ConverterProperties first = service.converterProperties();
+        assertPdf(render(report));
+        ConverterProperties second = service.converterProperties();
+
+        assertSame(first, second);
+        assertSame(first.getFontProvider(), second.getFontProvider());
+    }
+
+    @Test
+    void converterPropertiesAreNotSharedBetweenThreads() {
+        ConverterProperties current = service.converterProperties();
+        ConverterProperties other = CompletableFuture.supplyAsync(service::converterProperties).join();
+
+        assertNotSame(current, other);
+        assertNotSame(current.getFontProvider(), other.getFontProvider());
+    }
+
+    @Test
+    void templateIsParsedOnce() {
+        StudentProgressReportDto report = sampleReport();
+
+        render(report);
+        render(report);
+        render(report);
+
+        assertEquals(1, templateEngine.getCacheManager().getTemplateCache().size());
+    }
+
+    private byte[] render(StudentProgressReportDto report) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.renderReport(report, out);
+        return out.toByteArray();
+    }
+
+    static TemplateEngine templateEngine() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+
+        TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        return templateEngine;
+    }
+
+    static void assertPdf(byte[] content) {
+        assertTrue(content.length > 0);
+        assertTrue(new String(content, 0, 5, StandardCharsets.US_ASCII).startsWith("%PDF-"));
+    }
+
+    static StudentProgressReportDto sampleReport() {
+        List<LessonProgressDetailDto> lessons = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            lessons.add(new LessonProgressDetailDto(i, "Bài học số " + i, i % 2 == 0 ? "LISTENING" : "READING",
+                    "INTERMEDIATE", "Giao tiếp", true, BigDecimal.valueOf(80), 600,
+                    LocalDateTime.now().minusDays(i), 10, 8));
+        }
+        return new StudentProgressReportDto(1L, "Nguyễn Văn An", "an@example.com", "Đại học Bách khoa",
+                "Công nghệ thông tin", "2024", 20, 10, 10, 80.0, 12000, 150,
+                LocalDateTime.now(), LocalDateTime.now().minusMonths(6), lessons);
+    }
+}
@@ -0,0 +1,270 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.dto.SubmissionDto;
+import com.skillbridge.skillbridgebackend.entity.ListeningLesson;
+import com.skillbridge.skillbridgebackend.entity.Question;
+import com.skillbridge.skillbridgebackend.entity.StudentDashboard;
+import com.skillbridge.skillbridgebackend.entity.User;
+import com.skillbridge.skillbridgebackend.entity.UserAnswer;
+import com.skillbridge.skillbridgebackend.entity.UserLessonProgress;
+import com.skillbridge.skillbridgebackend.repository.ListeningLessonRepository;
+import com.skillbridge.skillbridgebackend.repository.QuestionRepository;
+import com.skillbridge.skillbridgebackend.repository.UserAnswerRepository;
+import com.skillbridge.skillbridgebackend.repository.UserLessonProgressRepository;
+import com.skillbridge.skillbridgebackend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test cho luồng nộp bài: 200 học viên nộp đồng thời vào cùng một bài học, chạy lần lượt
+ * luồng cũ (lưu từng UserAnswer, đọc user và progress qua repository) và luồng hiện tại
+ * (UserService.submitAnswers: chấm trong bộ nhớ, một INSERT nhiều dòng, upsert progress) rồi in số bài nộp/giây
+ * của cả hai. Hai luồng ghi cùng một tập dữ liệu (câu trả lời, progress, rollup theo ngày, dashboard học viên)
+ * nên chênh lệch chỉ đến từ cách ghi. Có lỗi ở bất kỳ bài nộp nào thì test fail kèm lỗi đầu tiên.
+ * Chạy trên H2 in-memory (chế độ MySQL) với dữ liệu tự tạo, không bao giờ chạm vào database đang cấu hình.
+ * Chỉ chạy khi bật rõ ràng:
+ *   mvn test -Dtest=SubmissionLoadTest -Dloadtest=true
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:submission-loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=50",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "app.migration.lesson-bodies.enabled=false"
+})
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class SubmissionLoadTest {
+
+    private static final int STUDENTS = 200;
+    private static final int SUBMISSIONS_PER_STUDENT = 5;
+    private static final int QUESTIONS = 10;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ListeningLessonRepository listeningLessonRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private UserAnswerRepository userAnswerRepository;
+
+    @Autowired
+    private UserLessonProgressRepository progressRepository;
+
+    @Autowired
+    private DailyActivityRollupService dailyActivityRollupService;
+
+    @Autowired
+    private StudentDashboardService studentDashboardService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Một lần nộp bài của một học viên
+     */
+    private interface Submitter {
+        void submit(Long userId) throws Exception;
+    }
+
+    @Test
+    void concurrentSubmissionsThroughput() throws Exception {
+        Question.LessonType lessonType = Question.LessonType.LISTENING;
+        ListeningLesson lesson = seedLesson();
+        Long lessonId = lesson.getId();
+        List<Question> questions = questionRepository.findByLessonIdAndLessonType(lessonId, lessonType);
+
+        Map<String, String> answers = new HashMap<>();
+        for (Question question : questions) {
+            answers.put(question.getId().toString(), question.getCorrectAnswer());
+        }
+
+        // Mỗi luồng dùng một nhóm học viên riêng: cả hai đều bắt đầu từ progress / dashboard trống
+        double baseline = run("row-by-row (before)", seedStudents("before"), questions.size(),
+                userId -> legacySubmit(userId, lessonId, lessonType, answers));
+        double batched = run("batched submitAnswers (after)", seedStudents("after"), questions.size(), userId -> {
+            SubmissionDto submission = new SubmissionDto();
+            submission.setLessonId(lessonId);
+            submission.setLessonType(lessonType.name());
+            submission.setAnswers(answers);
+            submission.setTimeSpent(120);
+            userService.submitAnswers(userId, submission);
+        });
+
+        // Hai luồng ghi như nhau
+        assertEquals(2L * STUDENTS * SUBMISSIONS_PER_STUDENT * QUESTIONS, userAnswerRepository.count());
+        assertEquals(2L * STUDENTS, progressRepository.count());
+
+        System.out.printf("Submissions/sec with %d concurrent students: before %.1f, after %.1f (x%.2f)%n",
+                STUDENTS, baseline, batched, batched / baseline);
+    }
+
+    private ListeningLesson seedLesson() {
+        ListeningLesson lesson = new ListeningLesson();
+        lesson.setTitle("Bài nghe load test");
+        lesson.setLevel(ListeningLesson.Level.B1);
+        lesson.setStatus(ListeningLesson.Status.PUBLISHED);
+        lesson.setAudioUrl("https://cdn.example.com/loadtest.mp3");
+        lesson = listeningLessonRepository.save(lesson);
+
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < QUESTIONS; i++) {
+            Question question = new Question();
+            question.setLessonType(Question.LessonType.LISTENING);
+            question.setListeningLesson(lesson);
+            question.setQuestionText("Câu hỏi " + i);
+            question.setQuestionType(Question.QuestionType.TRUE_FALSE);
+            question.setCorrectAnswer(i % 2 == 0 ? "TRUE" : "FALSE");
+            questions.add(question);
+        }
+        questionRepository.saveAll(questions);
+        return lesson;
+    }
+
+    private List<User> seedStudents(String prefix) {
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            User student = new User();
+            student.setEmail(prefix + "-" + i + "@loadtest.example.com");
+            student.setPassword("secret123");
+            student.setFullName("Học viên " + i);
+            student.setRole(User.Role.STUDENT);
+            students.add(student);
+        }
+        return userRepository.saveAll(students);
+    }
+
+    /**
+     * Chạy STUDENTS thread cùng lúc, mỗi thread nộp SUBMISSIONS_PER_STUDENT lần
+     * @return số bài nộp/giây
+     */
+    private double run(String label, List<User> students, int questionCount, Submitter submitter) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(STUDENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+
+        for (int i = 0; i < STUDENTS; i++) {
+            Long userId = students.get(i % students.size()).getId();
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    for (int n = 0; n < SUBMISSIONS_PER_STUDENT; n++) {
+                        submitter.submit(userId);
+                        completed.incrementAndGet();
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        boolean finished = pool.awaitTermination(10, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        if (!finished) {
+            pool.shutdownNow();
+        }
+
+        System.out.printf("%s: %d ok, %d failed, %.1f s, %.1f submissions/sec (%d questions each)%n",
+                label, completed.get(), errors.size(), seconds, completed.get() / seconds, questionCount);
+        assertTrue(finished, label + " did not finish within 10 minutes");
+        if (!errors.isEmpty()) {
+            AssertionError failure = new AssertionError(label + ": " + errors.size() + " students failed");
+            failure.initCause(errors.peek());
+            throw failure;
+        }
+        return completed.get() / seconds;
+    }
+
+    /**
+     * Luồng nộp bài trước khi gộp ghi: đọc câu hỏi và user, lưu từng UserAnswer, đọc rồi lưu progress,
+     * cập nhật rollup và dashboard như submitAnswers
+     */
+    private void legacySubmit(Long userId, Long lessonId, Question.LessonType lessonType, Map<String, String> answers) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Question> questions = questionRepository.findByLessonIdAndLessonType(lessonId, lessonType);
+            User user = userRepository.findById(userId).orElseThrow();
+
+            int correctAnswers = 0;
+            for (Question question : questions) {
+                String selected = answers.get(question.getId().toString());
+                if (selected != null) {
+                    UserAnswer answer = new UserAnswer();
+                    answer.setUser(user);
+                    answer.setQuestion(question);
+                    answer.setSelectedAnswer(selected);
+                    answer.setIsCorrect(selected.equals(question.getCorrectAnswer()));
+                    userAnswerRepository.save(answer);
+                    if (answer.getIsCorrect()) {
+                        correctAnswers++;
+                    }
+                }
+            }
+            BigDecimal score = questions.isEmpty()
+                    ? BigDecimal.ZERO
+                    : BigDecimal.valueOf((double) correctAnswers / questions.size() * 10);
+
+            StudentDashboard dashboard = studentDashboardService.lockForSubmission(userId);
+            LocalDateTime now = LocalDateTime.now();
+            UserLessonProgress progress = progressRepository
+                    .findByUserIdAndLessonIdAndLessonType(userId, lessonId, lessonType)
+                    .orElseGet(UserLessonProgress::new);
+            Object[] previousState = null;
+            if (progress.getId() == null) {
+                progress.setUser(user);
+                progress.setLessonId(lessonId);
+                progress.setLessonType(lessonType);
+                if (!progressRepository.existsByUserIdAndCreatedAtBetween(
+                        userId, now.toLocalDate().atStartOfDay(), now.toLocalDate().atTime(23, 59, 59))) {
+                    dailyActivityRollupService.recordActiveUser(now.toLocalDate());
+                }
+            } else {
+                previousState = new Object[] {progress.getIsCompleted(), progress.getCompletedAt(),
+                        progress.getScore(), progress.getTimeSpentSeconds()};
+                if (Boolean.TRUE.equals(progress.getIsCompleted()) && progress.getCompletedAt() != null) {
+                    dailyActivityRollupService.revertCompletion(progress.getCompletedAt().toLocalDate(), progress.getScore());
+                }
+            }
+            progress.setIsCompleted(true);
+            progress.setScore(score);
+            progress.setTimeSpentSeconds(120);
+            progress.setCompletedAt(now);
+            progressRepository.save(progress);
+            dailyActivityRollupService.recordCompletion(now.toLocalDate(), score);
+            studentDashboardService.recordSubmission(dashboard, previousState, lessonId, lessonType, score, 120, now);
+        });
+    }
+}
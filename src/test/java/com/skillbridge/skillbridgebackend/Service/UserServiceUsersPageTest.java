@@ -0,0 +1,165 @@
+package com.skillbridge.skillbridgebackend.Service;
+
+import com.skillbridge.skillbridgebackend.dto.UserPageDto;
+import com.skillbridge.skillbridgebackend.entity.User;
+import com.skillbridge.skillbridgebackend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Kiểm tra phân trang keyset của danh sách user (kể cả tìm kiếm theo hai nhánh họ tên / email),
+ * giới hạn các danh sách cũ và thống kê user bằng một truy vấn đếm.
+ */
+class UserServiceUsersPageTest {
+
+    private UserRepository userRepository;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+    }
+
+    @Test
+    void pagesByIdDescending() {
+        when(userRepository.findAdminPage(eq(User.Role.STUDENT), eq(true), eq(Long.MAX_VALUE), eq(PageRequest.of(0, 3))))
+                .thenReturn(users(10L, 9L, 8L));
+        when(userRepository.findAdminPage(eq(User.Role.STUDENT), eq(true), eq(9L), eq(PageRequest.of(0, 3))))
+                .thenReturn(users(8L));
+
+        UserPageDto first = userService.getUsersPage("student", true, null, null, 2);
+        assertEquals(List.of(10L, 9L), first.getItems().stream().map(u -> u.getId()).toList());
+        assertTrue(first.isHasMore());
+        assertEquals("9", first.getNextPageToken());
+
+        UserPageDto second = userService.getUsersPage("student", true, "  ", first.getNextPageToken(), 2);
+        assertEquals(1, second.getItems().size());
+        assertFalse(second.isHasMore());
+        assertNull(second.getNextPageToken());
+        verify(userRepository, never()).searchAdminPageByName(any(), any(), any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void searchEscapesLikeWildcardsAndMergesBothBranches() {
+        when(userRepository.searchAdminPageByName("an\\_\\%", null, null, "", 0L, 51))
+                .thenReturn(rows(new Object[]{7L, "an_% Bình"}));
+        when(userRepository.searchAdminPageByEmail("an\\_\\%", null, null, "", 0L, 51))
+                .thenReturn(rows(new Object[]{3L, "an_%@example.com"}));
+        when(userRepository.findAllById(List.of(7L, 3L))).thenReturn(users(3L, 7L));
+
+        UserPageDto page = userService.getUsersPage(null, null, "an_%", null, null);
+
+        // "an_% bình" < "an_%@example.com" (khoảng trắng đứng trước @)
+        assertEquals(List.of(7L, 3L), page.getItems().stream().map(u -> u.getId()).toList());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextPageToken());
+    }
+
+    @Test
+    void searchKeepsSeparateKeysetPerBranch() {
+        when(userRepository.searchAdminPageByName("an", "STUDENT", true, "", 0L, 3))
+                .thenReturn(rows(new Object[]{5L, "An Bình"}, new Object[]{2L, "An Khang"}, new Object[]{9L, "Anh Thư"}));
+        when(userRepository.searchAdminPageByEmail("an", "STUDENT", true, "", 0L, 3))
+                .thenReturn(rows(new Object[]{4L, "anna@example.com"}));
+        when(userRepository.findAllById(List.of(5L, 2L))).thenReturn(users(2L, 5L));
+
+        UserPageDto first = userService.getUsersPage("student", true, "an", null, 2);
+        assertEquals(List.of(5L, 2L), first.getItems().stream().map(u -> u.getId()).toList());
+        assertTrue(first.isHasMore());
+
+        // Nhánh họ tên đi tiếp từ (An Khang, 2), nhánh email chưa trả dòng nào nên giữ vị trí đầu
+        when(userRepository.searchAdminPageByName("an", "STUDENT", true, "An Khang", 2L, 3))
+                .thenReturn(rows(new Object[]{9L, "Anh Thư"}));
+        when(userRepository.searchAdminPageByEmail("an", "STUDENT", true, "", 0L, 3))
+                .thenReturn(rows(new Object[]{4L, "anna@example.com"}));
+        when(userRepository.findAllById(List.of(9L, 4L))).thenReturn(users(4L, 9L));
+
+        UserPageDto second = userService.getUsersPage("student", true, "an", first.getNextPageToken(), 2);
+        assertEquals(List.of(9L, 4L), second.getItems().stream().map(u -> u.getId()).toList());
+        assertFalse(second.isHasMore());
+        verify(userRepository, never()).findAdminPage(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void legacyListsAreCapped() {
+        when(userRepository.findAdminPage(User.Role.TEACHER, true, Long.MAX_VALUE,
+                PageRequest.of(0, UserService.LEGACY_USER_LIST_LIMIT + 1))).thenReturn(users(2L, 1L));
+
+        UserService.CappedList<User> teachers = userService.getAllTeachers();
+        assertEquals(2, teachers.items().size());
+        assertFalse(teachers.truncated());
+        verify(userRepository, never()).findAll();
+        verify(userRepository, never()).findActiveUsersByRole(any());
+    }
+
+    @Test
+    void legacyListsReportTruncation() {
+        Long[] ids = new Long[UserService.LEGACY_USER_LIST_LIMIT + 1];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (long) (ids.length - i);
+        }
+        when(userRepository.findAdminPage(User.Role.STUDENT, true, Long.MAX_VALUE,
+                PageRequest.of(0, UserService.LEGACY_USER_LIST_LIMIT + 1))).thenReturn(users(ids));
+
+        UserService.CappedList<User> students = userService.getAllStudents();
+        assertEquals(UserService.LEGACY_USER_LIST_LIMIT, students.items().size());
+        assertTrue(students.truncated());
+    }
+
+    @Test
+    void statsComeFromGroupedCount() {
+        when(userRepository.countByRoleAndActive()).thenReturn(List.of(
+                new Object[]{User.Role.STUDENT, true, 400L},
+                new Object[]{User.Role.STUDENT, false, 25L},
+                new Object[]{User.Role.TEACHER, true, 12L},
+                new Object[]{User.Role.ADMIN, null, 1L}));
+
+        Map<String, Object> stats = userService.getUserStats();
+
+        assertEquals(438L, stats.get("totalUsers"));
+        assertEquals(412L, stats.get("activeUsers"));
+        assertEquals(425L, stats.get("studentsCount"));
+        assertEquals(12L, stats.get("teachersCount"));
+        assertEquals(1L, stats.get("adminsCount"));
+        verify(userRepository, never()).findAll();
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    private static List<User> users(Long... ids) {
+        List<User> users = new ArrayList<>();
+        for (Long id : ids) {
+            User user = new User();
+            user.setId(id);
+            user.setEmail("user" + id + "@example.com");
+            user.setFullName("User " + id);
+            user.setRole(User.Role.STUDENT);
+            user.setIsActive(true);
+            users.add(user);
+        }
+        return users;
+    }
+}
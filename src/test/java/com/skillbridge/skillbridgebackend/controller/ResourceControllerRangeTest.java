@@ -0,0 +1,109 @@
+package com.skillbridge.skillbridgebackend.controller;
+
+import com.skillbridge.skillbridgebackend.Service.MediaStreamingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Kiểm tra endpoint audio với Range/ETag và đo số byte phải gửi cho mỗi lần tua
+ * so với tải lại toàn bộ file như trước.
+ */
+class ResourceControllerRangeTest {
+
+    private static final int FILE_SIZE = 5 * 1024 * 1024;
+    private static final int SEEKS = 20;
+    private static final int SEEK_CHUNK = 256 * 1024;
+
+    @TempDir
+    Path audioDir;
+
+    private MockMvc mockMvc;
+    private byte[] audio;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        audio = new byte[FILE_SIZE];
+        for (int i = 0; i < audio.length; i++) {
+            audio[i] = (byte) (i * 31);
+        }
+        Files.write(audioDir.resolve("lesson.mp3"), audio);
+
+        ResourceController controller = new ResourceController();
+        ReflectionTestUtils.setField(controller, "mediaStreamingService",
+                new MediaStreamingService(audioDir.toString()));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void seeksOnlyTransferRequestedBytes() throws Exception {
+        MockHttpServletResponse full = mockMvc.perform(get("/uploads/audio/lesson.mp3")).andReturn().getResponse();
+        assertEquals(200, full.getStatus());
+        assertEquals("bytes", full.getHeader("Accept-Ranges"));
+        assertEquals(FILE_SIZE, full.getContentAsByteArray().length);
+
+        long rangedBytes = 0;
+        for (int i = 0; i < SEEKS; i++) {
+            long start = (long) (FILE_SIZE - SEEK_CHUNK) * i / SEEKS;
+            long end = start + SEEK_CHUNK - 1;
+            MockHttpServletResponse response = mockMvc.perform(get("/uploads/audio/lesson.mp3")
+                    .header("Range", "bytes=" + start + "-" + end)).andReturn().getResponse();
+
+            assertEquals(206, response.getStatus());
+            assertEquals("bytes " + start + "-" + end + "/" + FILE_SIZE, response.getHeader("Content-Range"));
+            byte[] body = response.getContentAsByteArray();
+            assertArrayEquals(Arrays.copyOfRange(audio, (int) start, (int) end + 1), body);
+            rangedBytes += body.length;
+        }
+
+        long fullBytes = (long) FILE_SIZE * SEEKS;
+        System.out.printf("Audio seek: %d bytes/seek with Range vs %d bytes/seek full download%n",
+                rangedBytes / SEEKS, fullBytes / SEEKS);
+        assertTrue(rangedBytes * 10 < fullBytes);
+    }
+
+    @Test
+    void conditionalGetReturnsNotModified() throws Exception {
+        MockHttpServletResponse first = mockMvc.perform(get("/uploads/audio/lesson.mp3")).andReturn().getResponse();
+        String etag = first.getHeader("ETag");
+
+        MockHttpServletResponse second = mockMvc.perform(get("/uploads/audio/lesson.mp3")
+                .header("If-None-Match", etag)).andReturn().getResponse();
+        assertEquals(304, second.getStatus());
+        assertEquals(0, second.getContentAsByteArray().length);
+    }
+
+    @Test
+    void multipleRangesUseMultipartResponse() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/uploads/audio/lesson.mp3")
+                .header("Range", "bytes=0-99,1000-1099")).andReturn().getResponse();
+
+        assertEquals(206, response.getStatus());
+        assertTrue(response.getContentType().startsWith("multipart/byteranges"));
+        assertEquals(response.getContentAsByteArray().length, response.getContentLengthLong());
+    }
+
+    @Test
+    void unsatisfiableRangeAndTraversalAreRejected() throws Exception {
+        MockHttpServletResponse outOfRange = mockMvc.perform(get("/uploads/audio/lesson.mp3")
+                .header("Range", "bytes=" + FILE_SIZE + "-")).andReturn().getResponse();
+        assertEquals(416, outOfRange.getStatus());
+        assertEquals("bytes */" + FILE_SIZE, outOfRange.getHeader("Content-Range"));
+
+        MockHttpServletResponse missing = mockMvc.perform(get("/uploads/audio/missing.mp3")).andReturn().getResponse();
+        assertEquals(404, missing.getStatus());
+    }
+}
@@ -0,0 +1,252 @@
+package com.skillbridge.skillbridgebackend.entity;
+
+import com.skillbridge.skillbridgebackend.repository.ReadingLessonRepository;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra nén / giải nén LessonBody, đo tỉ lệ nén trên 10k bài đọc dài, và đo số byte truy vấn danh sách
+ * (findByStatus) kéo về trên H2, trước (content nằm trong bảng bài học, load eager) và sau khi tách nội dung.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.skillbridge.skillbridgebackend.entity.LessonBodyStorageBenchmarkTest$CapturingInspector",
+        "spring.jpa.show-sql=false"
+})
+class LessonBodyStorageBenchmarkTest {
+
+    private static final int LESSONS = 10_000;
+    private static final int LIST_LESSONS = 1_000;
+    private static final int WORDS_PER_READING = 1_200;
+
+    private static final String[] WORDS = {
+        "the", "city", "river", "morning", "students", "teacher", "library", "weather", "festival", "market",
+        "history", "because", "however", "travel", "family", "thành", "phố", "buổi", "sáng", "học", "sinh",
+        "thư", "viện", "thời", "tiết", "lễ", "hội", "chợ", "lịch", "sử", "gia", "đình", "du", "lịch"
+    };
+
+    @Test
+    void roundTripsAndKeepsShortTextRaw() {
+        String shortText = "Xin chào";
+        LessonBody shortBody = LessonBody.of(shortText);
+        assertEquals(LessonBody.Encoding.RAW, shortBody.getEncoding());
+
+        String longText = reading(new Random(7));
+        LessonBody body = LessonBody.of(longText);
+        assertEquals(LessonBody.Encoding.DEFLATE, body.getEncoding());
+        assertEquals(longText.getBytes(StandardCharsets.UTF_8).length, body.getOriginalLength());
+
+        // Giả lập entity vừa đọc từ DB: chỉ có data, chưa có bản giải nén
+        LessonBody loaded = new LessonBody();
+        loaded.setEncoding(body.getEncoding());
+        loaded.setOriginalLength(body.getOriginalLength());
+        loaded.setData(body.getData());
+        assertEquals(longText, loaded.getText());
+
+        // Ghi lại cùng nội dung không nén lại
+        byte[] data = loaded.getData();
+        loaded.setText(longText);
+        assertSame(data, loaded.getData());
+    }
+
+    @Test
+    void lessonAccessorsDelegateToBody() {
+        ReadingLesson lesson = new ReadingLesson();
+        assertNull(lesson.getContent());
+        lesson.setContent("Nội dung");
+        LessonBody body = lesson.getContentBody();
+        lesson.setContent("Nội dung mới");
+        assertSame(body, lesson.getContentBody());
+        assertEquals("Nội dung mới", lesson.getContent());
+        lesson.setContent(null);
+        assertNull(lesson.getContentBody());
+    }
+
+    @Test
+    void compressionOn10kReadings() {
+        Random random = new Random(42);
+        long bodyBytesRaw = 0;
+        long bodyBytesStored = 0;
+
+        for (int i = 0; i < LESSONS; i++) {
+            LessonBody body = LessonBody.of(reading(random));
+            assertEquals(utf8(body.getText()), body.getOriginalLength());
+            bodyBytesRaw += body.getOriginalLength();
+            bodyBytesStored += body.getData().length;
+        }
+
+        System.out.printf("Body storage over %d readings: %.1f MB raw -> %.1f MB deflated (%.0f%%)%n", LESSONS,
+                bodyBytesRaw / 1e6, bodyBytesStored / 1e6, 100.0 * bodyBytesStored / bodyBytesRaw);
+
+        assertTrue(bodyBytesStored < bodyBytesRaw / 2);
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReadingLessonRepository readingLessonRepository;
+
+    @Test
+    void bytesPerCatalogQueryBeforeAndAfterSplit() {
+        Random random = new Random(42);
+        User teacher = entityManager.persist(teacher());
+        String firstContent = null;
+        for (int i = 0; i < LIST_LESSONS; i++) {
+            ReadingLesson lesson = readingLesson(teacher, sentence(random, 6), reading(random));
+            lesson.setDescription(sentence(random, 25));
+            entityManager.persist(lesson);
+            if (firstContent == null) {
+                firstContent = lesson.getContent();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        CapturingInspector.STATEMENTS.clear();
+        List<ReadingLesson> lessons = readingLessonRepository.findByStatus(ListeningLesson.Status.PUBLISHED);
+        assertEquals(LIST_LESSONS, lessons.size());
+        assertEquals(1, CapturingInspector.STATEMENTS.size());
+
+        // Sau khi tách: câu lệnh Hibernate thật sự sinh ra, không còn cột content
+        String after = CapturingInspector.STATEMENTS.get(0);
+        Matcher table = Pattern.compile("(?i)from\\s+reading_lessons\\s+(\\w+)").matcher(after);
+        assertTrue(table.find());
+        String alias = table.group(1);
+        assertFalse(Pattern.compile(alias + "\\.content\\b").matcher(after).find());
+        // Trước khi tách: content map eager nên cùng truy vấn đó select thêm cột content
+        String before = after.replaceFirst("(?i)^\\s*select\\s+", "select " + alias + ".content,");
+
+        long bytesAfter = resultBytes(after);
+        long bytesBefore = resultBytes(before);
+        System.out.printf("Catalog query over %d readings: %.2f MB -> %.2f MB (%.1fx less)%n", LIST_LESSONS,
+                bytesBefore / 1e6, bytesAfter / 1e6, (double) bytesBefore / bytesAfter);
+        assertTrue(bytesAfter * 10 < bytesBefore);
+
+        // Nội dung vẫn đọc được khi cần, qua lesson_bodies
+        assertEquals(firstContent, lessons.stream()
+                .min((a, b) -> Long.compare(a.getId(), b.getId())).orElseThrow().getContent());
+    }
+
+    @Test
+    void readsBodyRowAndFallsBackToLegacyColumn() {
+        User teacher = entityManager.persist(teacher());
+        Long id = entityManager.persistAndGetId(readingLesson(teacher, "Bài đọc", "Nội dung mới"), Long.class);
+        entityManager.flush();
+
+        // Node bản cũ chỉ sửa cột cũ: bài đã có body vẫn đọc body
+        executeUpdate("UPDATE reading_lessons SET content = 'Nội dung cũ' WHERE id = " + id);
+        entityManager.clear();
+        assertEquals("Nội dung mới", entityManager.find(ReadingLesson.class, id).getContent());
+
+        // Bài chưa có body (chưa được sao chép) đọc cột cũ
+        executeUpdate("UPDATE reading_lessons SET content_body_id = NULL WHERE id = " + id);
+        entityManager.clear();
+        assertEquals("Nội dung cũ", entityManager.find(ReadingLesson.class, id).getContent());
+    }
+
+    /**
+     * Chạy lại câu lệnh danh sách qua JDBC và cộng số byte (UTF-8) của mọi giá trị trả về
+     */
+    private long resultBytes(String sql) {
+        return entityManager.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, ListeningLesson.Status.PUBLISHED.name());
+                long bytes = 0;
+                try (ResultSet rows = statement.executeQuery()) {
+                    int columns = rows.getMetaData().getColumnCount();
+                    while (rows.next()) {
+                        for (int column = 1; column <= columns; column++) {
+                            String value = rows.getString(column);
+                            if (value != null) {
+                                bytes += utf8(value);
+                            }
+                        }
+                    }
+                }
+                return bytes;
+            }
+        });
+    }
+
+    private void executeUpdate(String sql) {
+        entityManager.getEntityManager().createNativeQuery(sql).executeUpdate();
+    }
+
+    private static ReadingLesson readingLesson(User teacher, String title, String content) {
+        ReadingLesson lesson = new ReadingLesson();
+        lesson.setTitle(title);
+        lesson.setLevel(ListeningLesson.Level.B1);
+        lesson.setStatus(ListeningLesson.Status.PUBLISHED);
+        lesson.setContent(content);
+        lesson.setWordCount(WORDS_PER_READING);
+        lesson.setCreatedBy(teacher);
+        return lesson;
+    }
+
+    private static User teacher() {
+        User user = new User();
+        user.setEmail("teacher@example.com");
+        user.setPassword("secret123");
+        user.setFullName("Giáo viên");
+        user.setRole(User.Role.TEACHER);
+        return user;
+    }
+
+    /**
+     * Ghi lại câu lệnh SQL Hibernate sinh ra
+     */
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    private static String reading(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < WORDS_PER_READING / 15; i++) {
+            text.append(sentence(random, 15)).append(i % 6 == 5 ? "\n\n" : " ");
+        }
+        return text.toString();
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.append('.').toString();
+    }
+
+    private static long utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
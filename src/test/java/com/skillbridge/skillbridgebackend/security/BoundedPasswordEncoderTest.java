@@ -0,0 +1,167 @@
+package com.skillbridge.skillbridgebackend.security;
+
+import com.skillbridge.skillbridgebackend.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Kiểm tra BoundedPasswordEncoder: từ chối ngay khi executor đầy hoặc chờ quá lâu,
+ * ghi metrics thời gian chờ / thời gian băm, và băm lại mật khẩu cost cũ khi đăng nhập.
+ */
+class BoundedPasswordEncoderTest {
+
+    // Thread request giả lập (không dùng common pool: có thể chỉ có 1 thread)
+    private final ExecutorService callers = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void delegatesAndRecordsMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 4, 1000, registry);
+        try {
+            String hash = encoder.encode("secret123");
+            assertTrue(encoder.matches("secret123", hash));
+            assertFalse(encoder.matches("wrong", hash));
+
+            assertEquals(1, registry.get("password.hash.time").tag("op", "encode").timer().count());
+            assertEquals(2, registry.get("password.hash.time").tag("op", "matches").timer().count());
+            assertEquals(2, registry.get("password.hash.queue.wait").tag("op", "matches").timer().count());
+            assertEquals(0, registry.get("password.hash.rejected").counter().count());
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsWhenWorkersAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder blocking = blockingEncoder(started, release);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, 1, 1, 10_000, registry);
+        try {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"), callers);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"), callers);
+            waitForQueueSize(registry, 1);
+
+            long start = System.nanoTime();
+            assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("c"));
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500), "Phải từ chối ngay");
+            assertEquals(1, registry.get("password.hash.rejected").counter().count());
+
+            release.countDown();
+            assertEquals("hash:a", running.get(5, TimeUnit.SECONDS));
+            assertEquals("hash:b", queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void dropsRequestsThatWaitedTooLong() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blockingEncoder(started, release), 1, 4, 50, registry);
+        try {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"), callers);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"), callers);
+            waitForQueueSize(registry, 1);
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals("hash:a", running.get(5, TimeUnit.SECONDS));
+            Exception failure = assertThrows(Exception.class, () -> queued.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof PasswordHashingBusyException);
+            assertEquals(1, registry.get("password.hash.rejected").counter().count());
+        } finally {
+            release.countDown();
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void rehashesOldCostOnSuccessfulLogin() {
+        String oldHash = new BCryptPasswordEncoder(4).encode("secret123");
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), 2, 4, 1000,
+                new SimpleMeterRegistry());
+        try {
+            UserDetails user = new User("student@example.com", oldHash, List.of());
+            UserDetailsPasswordService passwordService = mock(UserDetailsPasswordService.class);
+            when(passwordService.updatePassword(any(), any())).thenAnswer(invocation ->
+                    User.withUserDetails(user).password(invocation.getArgument(1)).build());
+
+            DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+            provider.setPasswordEncoder(encoder);
+            provider.setUserDetailsService(username -> user);
+            provider.setUserDetailsPasswordService(passwordService);
+
+            provider.authenticate(new UsernamePasswordAuthenticationToken("student@example.com", "secret123"));
+
+            verify(passwordService).updatePassword(any(),
+                    argThat(hash -> hash.startsWith("$2a$05$") && encoder.matches("secret123", hash)));
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    private static PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
+
+    private static void waitForQueueSize(SimpleMeterRegistry registry, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (registry.get("password.hash.queue.size").gauge().value() < size) {
+            assertTrue(System.currentTimeMillis() < deadline, "Yêu cầu không vào hàng đợi");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.skillbridge.skillbridgebackend.security;
+
+import com.skillbridge.skillbridgebackend.entity.User;
+import com.skillbridge.skillbridgebackend.repository.TokenRevocationRepository;
+import com.skillbridge.skillbridgebackend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Đo thời gian xử lý của JwtRequestFilter ở chế độ stateless, kiểm tra không có truy vấn DB nào
+ * mỗi request và token bị thu hồi bị từ chối ngay.
+ */
+class JwtRequestFilterBenchmarkTest {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 20_000;
+
+    private JwtUtil jwtUtil;
+    private UserRepository userRepository;
+    private UserDetailsService userDetailsService;
+    private TokenRevocationRepository revocationRepository;
+    private TokenRevocationService revocationService;
+    private JwtTokenVerifier tokenVerifier;
+    private JwtRequestFilter filter;
+    private User user;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret",
+                "myVerySecureSecretKeyForSkillBridgeApplicationThatIsLongEnoughForHS512Algorithm");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+
+        userRepository = mock(UserRepository.class);
+        userDetailsService = mock(UserDetailsService.class);
+        revocationRepository = mock(TokenRevocationRepository.class);
+        when(revocationRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        revocationService = new TokenRevocationService(revocationRepository, jwtUtil,
+                mock(PlatformTransactionManager.class), 1000, 60);
+        tokenVerifier = new JwtTokenVerifier(jwtUtil, 1000);
+        filter = new JwtRequestFilter(tokenVerifier, userDetailsService, revocationService, true);
+
+        user = new User();
+        user.setId(42L);
+        user.setEmail("student@example.com");
+        user.setFullName("Student");
+        user.setRole(User.Role.STUDENT);
+        user.setIsActive(true);
+        token = jwtUtil.generateToken(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void statelessFilterDoesNoUserLookups() throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            runFilter();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            runFilter();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Authentication authentication = runFilter();
+        assertNotNull(authentication);
+        JwtPrincipal principal = assertInstanceOf(JwtPrincipal.class, authentication.getPrincipal());
+        assertEquals(42L, principal.id());
+        assertEquals("student@example.com", authentication.getName());
+
+        verifyNoInteractions(userRepository, userDetailsService, revocationRepository);
+
+        System.out.printf("JwtRequestFilter (stateless): %.1f µs/request%n", elapsed / 1e3 / ITERATIONS);
+    }
+
+    @Test
+    void revokedTokensAreRejected() throws Exception {
+        assertNotNull(runFilter());
+
+        // Đăng xuất: chỉ token này bị thu hồi
+        String otherSession = jwtUtil.generateToken(user);
+        revocationService.revokeToken(tokenVerifier.verify(token));
+        assertNull(runFilter());
+        token = otherSession;
+        assertNotNull(runFilter());
+
+        // Khóa tài khoản: mọi token của generation cũ bị thu hồi, token phát sau đó vẫn dùng được
+        revocationService.revokeUser(user);
+        assertNull(runFilter());
+        token = jwtUtil.generateToken(user);
+        assertNotNull(runFilter());
+        verifyNoInteractions(userRepository, userDetailsService);
+    }
+
+    private Authentication runFilter() throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/student/stats");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
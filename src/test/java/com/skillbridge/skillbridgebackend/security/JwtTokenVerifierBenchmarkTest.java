@@ -0,0 +1,130 @@
+package com.skillbridge.skillbridgebackend.security;
+
+import com.skillbridge.skillbridgebackend.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra JwtTokenVerifier và đo chi phí xác thực token mỗi request:
+ * trước (mỗi lần đọc claim dựng lại key + parser và parse lại token, 4 lần / request),
+ * parse một lần với parser dựng sẵn, và đọc lại từ cache.
+ */
+class JwtTokenVerifierBenchmarkTest {
+
+    private static final String SECRET = "myVerySecureSecretKeyForSkillBridgeApplicationThatIsLongEnoughForHS512Algorithm";
+    private static final int WARMUP = 5_000;
+    private static final int ITERATIONS = 20_000;
+    // Filter + JwtHelper + controller đọc email, userId, role, expiration
+    private static final int CLAIM_LOOKUPS_PER_REQUEST = 4;
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        token = jwtUtil.generateToken(user(42L));
+    }
+
+    @Test
+    void verifiesOnceAndServesCachedPrincipal() {
+        JwtTokenVerifier verifier = new JwtTokenVerifier(jwtUtil, 100);
+
+        JwtPrincipal principal = verifier.verify(token);
+        assertEquals(42L, principal.id());
+        assertEquals("user42@example.com", principal.email());
+        assertEquals("STUDENT", principal.role());
+        assertTrue(principal.expiresAt().toEpochMilli() > System.currentTimeMillis());
+        assertSame(principal, verifier.verify(token));
+
+        // Payload của token khác ghép với chữ ký này: sai chữ ký, không vào cache
+        String other = jwtUtil.generateToken(user(43L));
+        String tampered = other.substring(0, other.lastIndexOf('.')) + token.substring(token.lastIndexOf('.'));
+        assertThrows(JwtException.class, () -> verifier.verify(tampered));
+        assertEquals(1, verifier.size());
+
+        verifier.evict(token);
+        assertEquals(0, verifier.size());
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        ReflectionTestUtils.setField(jwtUtil, "expiration", -1_000L);
+        String expired = jwtUtil.generateToken(user(7L));
+        assertThrows(JwtException.class, () -> new JwtTokenVerifier(jwtUtil, 100).verify(expired));
+    }
+
+    @Test
+    void cacheStaysBounded() {
+        JwtTokenVerifier verifier = new JwtTokenVerifier(jwtUtil, 50);
+        for (long id = 1; id <= 500; id++) {
+            verifier.verify(jwtUtil.generateToken(user(id)));
+        }
+        assertTrue(verifier.size() <= 50);
+    }
+
+    @Test
+    void perRequestVerificationCost() {
+        JwtTokenVerifier verifier = new JwtTokenVerifier(jwtUtil, 1000);
+
+        double before = measure(() -> {
+            for (int i = 0; i < CLAIM_LOOKUPS_PER_REQUEST; i++) {
+                parseWithFreshParser(token);
+            }
+        });
+        double parsedOnce = measure(() -> jwtUtil.parseClaims(token));
+        double cached = measure(() -> {
+            for (int i = 0; i < CLAIM_LOOKUPS_PER_REQUEST; i++) {
+                verifier.verify(token);
+            }
+        });
+
+        System.out.printf("JWT verification per request: %.1f µs (fresh key/parser x%d) -> %.1f µs (parse once) "
+                + "-> %.2f µs (cached principal)%n", before, CLAIM_LOOKUPS_PER_REQUEST, parsedOnce, cached);
+        assertTrue(cached < before);
+    }
+
+    private static double measure(Runnable request) {
+        for (int i = 0; i < WARMUP; i++) {
+            request.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            request.run();
+        }
+        return (System.nanoTime() - start) / 1e3 / ITERATIONS;
+    }
+
+    // Cách làm cũ của JwtUtil.getClaimFromToken
+    private static Claims parseWithFreshParser(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user" + id + "@example.com");
+        user.setFullName("User " + id);
+        user.setRole(User.Role.STUDENT);
+        user.setIsActive(true);
+        return user;
+    }
+}
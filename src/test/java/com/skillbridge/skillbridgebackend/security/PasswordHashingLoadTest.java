@@ -0,0 +1,134 @@
+package com.skillbridge.skillbridgebackend.security;
+
+import com.skillbridge.skillbridgebackend.Service.CatalogCache;
+import com.skillbridge.skillbridgebackend.exception.PasswordHashingBusyException;
+import com.skillbridge.skillbridgebackend.entity.Question;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test: 500 đăng nhập đồng thời (BCrypt cost 10) trộn với đọc catalog, trên một pool 200 thread
+ * giả lập Tomcat. So sánh băm trực tiếp trên thread request với BoundedPasswordEncoder:
+ * độ trễ đọc catalog (p50/p99, tính cả thời gian chờ thread) và số đăng nhập thành công / bị 429.
+ * Tốn CPU vài chục giây nên chỉ chạy khi bật rõ ràng:
+ *   mvn test -Dtest=PasswordHashingLoadTest -Dloadtest=true
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class PasswordHashingLoadTest {
+
+    private static final int TOMCAT_THREADS = 200;
+    private static final int LOGINS = 500;
+    private static final int CATALOG_READS = 2_000;
+    private static final String PASSWORD = "student-password";
+
+    private record Result(long catalogP50Micros, long catalogP99Micros, int loginsOk, int loginsBusy, long elapsedMillis) {
+    }
+
+    @Test
+    void loginBurstDoesNotStarveCatalogReads() throws Exception {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(10);
+        String hash = bcrypt.encode(PASSWORD);
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        Result direct = run(bcrypt, hash);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder bounded = new BoundedPasswordEncoder(bcrypt, workers, 64, 3000, registry);
+        Result isolated;
+        try {
+            isolated = run(bounded, hash);
+        } finally {
+            bounded.shutdown();
+        }
+
+        print("direct on request threads", direct);
+        print("bounded executor (" + workers + " workers, queue 64)", isolated);
+        Timer wait = registry.get("password.hash.queue.wait").tag("op", "matches").timer();
+        Timer time = registry.get("password.hash.time").tag("op", "matches").timer();
+        System.out.printf("  hash queue wait mean %.1f ms, max %.1f ms; hash time mean %.1f ms%n",
+                wait.mean(TimeUnit.MILLISECONDS), wait.max(TimeUnit.MILLISECONDS), time.mean(TimeUnit.MILLISECONDS));
+
+        assertEquals(LOGINS, direct.loginsOk());
+        assertEquals(LOGINS, isolated.loginsOk() + isolated.loginsBusy());
+        assertTrue(isolated.loginsOk() > 0);
+        assertTrue(isolated.catalogP99Micros() <= direct.catalogP99Micros());
+    }
+
+    private Result run(PasswordEncoder encoder, String hash) throws Exception {
+        CatalogCache catalog = new CatalogCache(new SimpleMeterRegistry(), true, 100, 300);
+        List<String> lessons = List.of("lesson-1", "lesson-2", "lesson-3");
+        catalog.get(CatalogCache.Region.PUBLISHED_LESSONS, Question.LessonType.LISTENING, () -> lessons);
+
+        ExecutorService tomcat = Executors.newFixedThreadPool(TOMCAT_THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger loginsOk = new AtomicInteger();
+        AtomicInteger loginsBusy = new AtomicInteger();
+        List<Long> catalogLatencies = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> futures = new ArrayList<>();
+        // Mọi request được "gửi" cùng lúc khi mở latch; độ trễ tính từ thời điểm đó (gồm cả chờ thread)
+        AtomicLong releasedAt = new AtomicLong();
+
+        int catalogPerLogin = CATALOG_READS / LOGINS;
+        for (int i = 0; i < LOGINS; i++) {
+            futures.add(tomcat.submit(() -> {
+                start.await();
+                try {
+                    if (encoder.matches(PASSWORD, hash)) {
+                        loginsOk.incrementAndGet();
+                    }
+                } catch (PasswordHashingBusyException e) {
+                    loginsBusy.incrementAndGet();
+                }
+                return null;
+            }));
+            for (int n = 0; n < catalogPerLogin; n++) {
+                futures.add(tomcat.submit(() -> {
+                    start.await();
+                    catalog.get(CatalogCache.Region.PUBLISHED_LESSONS, Question.LessonType.LISTENING, () -> lessons);
+                    catalogLatencies.add(System.nanoTime() - releasedAt.get());
+                    return null;
+                }));
+            }
+        }
+        releasedAt.set(System.nanoTime());
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - releasedAt.get();
+        tomcat.shutdown();
+
+        List<Long> sorted = new ArrayList<>(catalogLatencies);
+        Collections.sort(sorted);
+        return new Result(percentile(sorted, 0.5) / 1000, percentile(sorted, 0.99) / 1000,
+                loginsOk.get(), loginsBusy.get(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    private static long percentile(List<Long> sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static void print(String mode, Result result) {
+        System.out.printf("%s: catalog read p50 %d µs, p99 %d µs; logins ok %d, 429 %d; total %d ms%n", mode,
+                result.catalogP50Micros(), result.catalogP99Micros(), result.loginsOk(), result.loginsBusy(),
+                result.elapsedMillis());
+    }
+}
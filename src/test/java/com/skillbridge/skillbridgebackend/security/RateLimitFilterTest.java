@@ -0,0 +1,206 @@
+package com.skillbridge.skillbridgebackend.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillbridge.skillbridgebackend.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra RateLimitFilter: 429 + Retry-After khi hết lượt, khóa theo email đọc từ body mà controller
+ * vẫn nhận đủ body (kể cả body chunked và application/*+json), body quá lớn / không phải JSON bị từ chối,
+ * khóa theo user lấy từ JWT, và request không khớp luật đi thẳng.
+ */
+class RateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtUtil jwtUtil;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret",
+                "myVerySecureSecretKeyForSkillBridgeApplicationThatIsLongEnoughForHS512Algorithm");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+
+        meterRegistry = new SimpleMeterRegistry();
+        RateLimiter limiter = new RateLimiter(meterRegistry, 4, 1000);
+        filter = new RateLimitFilter(limiter, new JwtTokenVerifier(jwtUtil, 100),
+                new ObjectMapper().findAndRegisterModules(), meterRegistry, List.of(
+                RateLimitRule.parse("login-ip", RateLimitRule.KeyType.IP, "5/60", "POST", "/auth/login"),
+                RateLimitRule.parse("login-email", RateLimitRule.KeyType.EMAIL, "2/300", "POST", "/auth/login"),
+                RateLimitRule.parse("upload-user", RateLimitRule.KeyType.USER, "2/300", "POST",
+                        "/image/upload", "/upload/avatar")));
+    }
+
+    @Test
+    void emailBucketRejectsAndBodyStillReachesController() throws Exception {
+        assertEquals(200, login("10.0.0.1", "Student@Example.com ").getStatus());
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(loginRequest("10.0.0.2", "student@example.com"), second, chain);
+        assertEquals(200, second.getStatus());
+        String forwardedBody = new String(((HttpServletRequest) chain.getRequest()).getInputStream().readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertTrue(forwardedBody.contains("student@example.com"));
+
+        // Cùng email (không phân biệt hoa thường) từ IP khác vẫn bị chặn
+        MockHttpServletResponse rejected = login("10.0.0.3", "STUDENT@example.com");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("150", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString(StandardCharsets.UTF_8).contains("Too many requests"));
+        assertEquals(1.0, meterRegistry.counter("rate.limit.rejected", "rule", "login-email").count());
+
+        assertEquals(200, login("10.0.0.3", "other@example.com").getStatus());
+    }
+
+    @Test
+    void chunkedAndVendorJsonBodiesStillCountPerEmail() throws Exception {
+        MockHttpServletRequest chunked = loginRequest("10.0.1.1", "chunked@example.com", "application/json");
+        MockHttpServletRequest chunkedRequest = new MockHttpServletRequest("POST", "/api/auth/login") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+        };
+        chunkedRequest.setContextPath("/api");
+        chunkedRequest.setServletPath("/auth/login");
+        chunkedRequest.setRemoteAddr("10.0.1.1");
+        chunkedRequest.setContentType("application/json");
+        chunkedRequest.setContent(chunked.getContentAsByteArray());
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(chunkedRequest, response, chain);
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(chunked.getContentAsByteArray(),
+                ((HttpServletRequest) chain.getRequest()).getInputStream().readAllBytes());
+
+        assertEquals(200, send(loginRequest("10.0.1.2", "chunked@example.com",
+                "application/vnd.skillbridge+json; charset=UTF-8")).getStatus());
+        assertEquals(429, send(loginRequest("10.0.1.3", "chunked@example.com", "application/json")).getStatus());
+    }
+
+    @Test
+    void unreadableBodiesAreRejected() throws Exception {
+        MockHttpServletRequest large = loginRequest("10.0.2.1", "large@example.com", "application/json");
+        large.setContent(("{\"email\":\"large@example.com\",\"password\":\"" + "x".repeat(20_000) + "\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        assertEquals(413, send(large).getStatus());
+
+        assertEquals(400, send(loginRequest("10.0.2.2", "form@example.com", "text/plain")).getStatus());
+
+        MockHttpServletRequest noEmail = loginRequest("10.0.2.3", "unused@example.com", "application/json");
+        noEmail.setContent("{\"password\":\"secret123\"}".getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(noEmail, response, chain);
+        assertEquals(400, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void ipBucketRejectsBeforeReadingBody() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, login("10.0.0.9", "user" + i + "@example.com").getStatus());
+        }
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(loginRequest("10.0.0.9", "user9@example.com"), response, chain);
+
+        assertEquals(429, response.getStatus());
+        assertEquals("12", response.getHeader("Retry-After"));
+        assertNull(chain.getRequest());
+        assertEquals(0.0, meterRegistry.counter("rate.limit.rejected", "rule", "login-email").count());
+    }
+
+    @Test
+    void uploadsShareOneBucketPerUser() throws Exception {
+        String alice = "Bearer " + jwtUtil.generateToken(user(1L));
+        String bob = "Bearer " + jwtUtil.generateToken(user(2L));
+
+        assertEquals(200, upload("/image/upload", "10.0.0.1", alice).getStatus());
+        assertEquals(200, upload("/upload/avatar", "10.0.0.2", alice).getStatus());
+        assertEquals(429, upload("/image/upload", "10.0.0.3", alice).getStatus());
+        // Cùng IP nhưng user khác
+        assertEquals(200, upload("/image/upload", "10.0.0.1", bob).getStatus());
+        // Không có token hợp lệ thì tính theo IP
+        assertEquals(200, upload("/image/upload", "10.0.0.1", "Bearer invalid").getStatus());
+    }
+
+    @Test
+    void unmatchedRequestsPassThrough() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/auth/login");
+            request.setServletPath("/auth/login");
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            assertNotNull(chain.getRequest());
+        }
+    }
+
+    private MockHttpServletResponse login(String ip, String email) throws Exception {
+        return send(loginRequest(ip, email));
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private MockHttpServletResponse upload(String path, String ip, String authorization) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api" + path);
+        request.setContextPath("/api");
+        request.setServletPath(path);
+        request.setRemoteAddr(ip);
+        request.addHeader("Authorization", authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest loginRequest(String ip, String email) {
+        return loginRequest(ip, email, "application/json");
+    }
+
+    private static MockHttpServletRequest loginRequest(String ip, String email, String contentType) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setContextPath("/api");
+        request.setServletPath("/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType(contentType);
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"secret123\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user" + id + "@example.com");
+        user.setFullName("User " + id);
+        user.setRole(User.Role.TEACHER);
+        user.setIsActive(true);
+        return user;
+    }
+}
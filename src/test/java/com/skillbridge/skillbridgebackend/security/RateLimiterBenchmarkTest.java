@@ -0,0 +1,177 @@
+package com.skillbridge.skillbridgebackend.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra RateLimiter (burst, nạp lại lười, dọn bucket, giới hạn số khóa) và đo chi phí mỗi lần kiểm tra
+ * với 10k khóa khác nhau, một thread và nhiều thread. Phần đo thời gian chỉ chạy khi bật rõ ràng:
+ *   mvn test -Dtest=RateLimiterBenchmarkTest -Dloadtest=true
+ */
+class RateLimiterBenchmarkTest {
+
+    private static final int KEYS = 10_000;
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+    private static final int THREADS = 8;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void allowsBurstThenRefillsLazily() {
+        RateLimiter limiter = new RateLimiter(new SimpleMeterRegistry(), 4, 1000, clock::get);
+        RateLimitRule rule = rule("login-ip", 3, Duration.ofSeconds(30));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire(rule, "ip:10.0.0.1"));
+        }
+        long wait = limiter.tryAcquire(rule, "ip:10.0.0.1");
+        assertEquals(Duration.ofSeconds(10).toNanos(), wait);
+        // Khóa khác có bucket riêng
+        assertEquals(0, limiter.tryAcquire(rule, "ip:10.0.0.2"));
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertEquals(0, limiter.tryAcquire(rule, "ip:10.0.0.1"));
+        assertTrue(limiter.tryAcquire(rule, "ip:10.0.0.1") > 0);
+
+        // Không vượt quá capacity dù để lâu
+        clock.addAndGet(Duration.ofHours(1).toNanos());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire(rule, "ip:10.0.0.1"));
+        }
+        assertTrue(limiter.tryAcquire(rule, "ip:10.0.0.1") > 0);
+    }
+
+    @Test
+    void evictsOnlyRefilledBuckets() {
+        RateLimiter limiter = new RateLimiter(new SimpleMeterRegistry(), 4, 1000, clock::get);
+        RateLimitRule rule = rule("forgot-password-email", 2, Duration.ofMinutes(1));
+
+        limiter.tryAcquire(rule, "email:a@example.com");
+        clock.addAndGet(Duration.ofSeconds(20).toNanos());
+        limiter.tryAcquire(rule, "email:b@example.com");
+        assertEquals(2, limiter.size());
+
+        // a đã nạp đầy lại (30 giây / lượt), b thì chưa
+        clock.addAndGet(Duration.ofSeconds(15).toNanos());
+        assertEquals(1, limiter.evictIdle());
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void stripesStayBounded() {
+        RateLimiter limiter = new RateLimiter(new SimpleMeterRegistry(), 8, 800, clock::get);
+        RateLimitRule rule = rule("upload-user", 5, Duration.ofMinutes(5));
+        for (int i = 0; i < 50_000; i++) {
+            limiter.tryAcquire(rule, "user:" + i);
+        }
+        assertTrue(limiter.size() <= 800);
+    }
+
+    @Test
+    void disabledOrInvalidSpecs() {
+        assertNull(RateLimitRule.parse("login-ip", RateLimitRule.KeyType.IP, "", "POST", "/auth/login"));
+        assertNull(RateLimitRule.parse("login-ip", RateLimitRule.KeyType.IP, "0", "POST", "/auth/login"));
+        RateLimitRule rule = RateLimitRule.parse("login-ip", RateLimitRule.KeyType.IP, " 20 / 60 ", "POST", "/auth/login");
+        assertEquals(20, rule.capacity());
+        assertEquals(Duration.ofMinutes(1), rule.period());
+    }
+
+    @Test
+    void keepsOneBucketPerKeyWithTenThousandKeys() {
+        RateLimiter limiter = new RateLimiter(new SimpleMeterRegistry(), 64, 100_000, clock::get);
+        RateLimitRule rule = rule("login-ip", 3, Duration.ofSeconds(30));
+        String[] keys = keys();
+
+        long allowed = 0;
+        for (int round = 0; round < 5; round++) {
+            for (String key : keys) {
+                if (limiter.tryAcquire(rule, key) == 0) {
+                    allowed++;
+                }
+            }
+        }
+
+        // Đồng hồ đứng yên: mỗi khóa chỉ được đúng capacity lượt
+        assertEquals(KEYS, limiter.size());
+        assertEquals(3L * KEYS, allowed);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "loadtest", matches = "true")
+    void costPerCheckWithTenThousandKeys() throws Exception {
+        RateLimiter limiter = new RateLimiter(new SimpleMeterRegistry(), 64, 100_000, System::nanoTime);
+        RateLimitRule rule = rule("login-ip", 1_000, Duration.ofSeconds(1));
+        String[] keys = keys();
+
+        run(limiter, rule, keys, WARMUP);
+        long start = System.nanoTime();
+        long allowed = run(limiter, rule, keys, ITERATIONS);
+        double singleThread = (double) (System.nanoTime() - start) / ITERATIONS;
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            Future<?>[] warmups = new Future<?>[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                warmups[t] = executor.submit(() -> run(limiter, rule, keys, WARMUP));
+            }
+            for (Future<?> warmup : warmups) {
+                warmup.get();
+            }
+            Future<?>[] runs = new Future<?>[THREADS];
+            start = System.nanoTime();
+            for (int t = 0; t < THREADS; t++) {
+                runs[t] = executor.submit(() -> run(limiter, rule, keys, ITERATIONS));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // Thời gian mỗi lần kiểm tra nhìn từ một thread khi THREADS thread cùng chạy
+        double concurrent = (double) (System.nanoTime() - start) / ITERATIONS;
+
+        System.out.printf("Rate limiter check with %d keys: %.0f ns (1 thread), %.0f ns per check on each of %d threads, "
+                + "%d buckets, %d/%d allowed%n", KEYS, singleThread, concurrent, THREADS, limiter.size(),
+                allowed, ITERATIONS);
+        assertEquals(KEYS, limiter.size());
+        assertTrue(singleThread < 1_000, "check took " + singleThread + " ns");
+    }
+
+    private static String[] keys() {
+        String[] keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "ip:10." + (i >> 16) + "." + ((i >> 8) & 255) + "." + (i & 255);
+        }
+        return keys;
+    }
+
+    private static long run(RateLimiter limiter, RateLimitRule rule, String[] keys, int iterations) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long allowed = 0;
+        for (int i = 0; i < iterations; i++) {
+            if (limiter.tryAcquire(rule, keys[random.nextInt(keys.length)]) == 0) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+
+    private static RateLimitRule rule(String name, int capacity, Duration period) {
+        return new RateLimitRule(name, RateLimitRule.KeyType.IP, capacity, period, "POST", Set.of("/auth/login"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.skillbridge.skillbridgebackend.security;
+
+import com.skillbridge.skillbridgebackend.entity.TokenRevocation;
+import com.skillbridge.skillbridgebackend.entity.User;
+import com.skillbridge.skillbridgebackend.repository.TokenRevocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Kiểm tra danh sách thu hồi trong bộ nhớ: dựng lại từ bảng khi khởi động, nhận phần mới
+ * từ instance khác qua poll, và tỉ lệ dương tính giả của bloom filter.
+ */
+class TokenRevocationServiceTest {
+
+    private TokenRevocationRepository revocationRepository;
+    private TokenRevocationService revocationService;
+
+    @BeforeEach
+    void setUp() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        revocationRepository = mock(TokenRevocationRepository.class);
+        when(revocationRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        revocationService = new TokenRevocationService(revocationRepository, jwtUtil,
+                mock(PlatformTransactionManager.class), 1000, 60);
+    }
+
+    @Test
+    void rebuildsFromTableAndPicksUpOtherNodesRevocations() {
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(1);
+        when(revocationRepository.findByExpiresAtAfter(any())).thenReturn(List.of(
+                TokenRevocation.ofToken("jti-1", 1L, expiresAt),
+                TokenRevocation.ofUser(2L, 3, expiresAt)));
+        revocationService.rebuild();
+
+        assertTrue(revocationService.isRevoked(principal(1L, "jti-1", 0)));
+        assertFalse(revocationService.isRevoked(principal(1L, "jti-2", 0)));
+        assertTrue(revocationService.isRevoked(principal(2L, "jti-3", 2)));
+        // Token phát hành trước khi có claim gen
+        assertTrue(revocationService.isRevoked(principal(2L, null, null)));
+        assertFalse(revocationService.isRevoked(principal(2L, "jti-4", 3)));
+
+        // Instance khác khóa user 5
+        when(revocationRepository.findByCreatedAtAfter(any())).thenReturn(List.of(
+                TokenRevocation.ofUser(5L, 1, expiresAt)));
+        assertFalse(revocationService.isRevoked(principal(5L, "jti-5", 0)));
+        revocationService.poll();
+        assertTrue(revocationService.isRevoked(principal(5L, "jti-5", 0)));
+    }
+
+    @Test
+    void revokeUserBumpsGeneration() {
+        User user = new User();
+        user.setId(9L);
+        user.setTokenGeneration(4);
+
+        revocationService.revokeUser(user);
+
+        assertEquals(5, user.getTokenGeneration());
+        assertTrue(revocationService.isRevoked(principal(9L, "jti", 4)));
+        assertFalse(revocationService.isRevoked(principal(9L, "jti", 5)));
+        assertFalse(revocationService.isRevoked(principal(10L, "jti", 0)));
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegativesAndFewFalsePositives() {
+        int entries = 10_000;
+        RevocationBloomFilter bloom = new RevocationBloomFilter(entries, 0.01);
+        List<String> revoked = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            String key = "t:" + UUID.randomUUID();
+            revoked.add(key);
+            bloom.add(key);
+        }
+        revoked.forEach(key -> assertTrue(bloom.mightContain(key)));
+
+        int probes = 100_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (bloom.mightContain("t:" + UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        System.out.printf("Revocation bloom filter: %d entries in %d KB, false positive rate %.2f%%%n",
+                entries, bloom.bitCount() / 8 / 1024, rate * 100);
+        assertTrue(rate < 0.02);
+    }
+
+    private static JwtPrincipal principal(Long userId, String tokenId, Integer generation) {
+        return new JwtPrincipal(userId, "user" + userId + "@example.com", "STUDENT", tokenId, generation,
+                Instant.now().plusSeconds(3600));
+    }
+}